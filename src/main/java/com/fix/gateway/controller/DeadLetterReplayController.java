@@ -0,0 +1,61 @@
+package com.fix.gateway.controller;
+
+import com.fix.gateway.model.ReplayRequest;
+import com.fix.gateway.service.DeadLetterReplayService;
+import com.fix.gateway.service.ReplayJob;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+@RestController
+@RequestMapping("/api/replay")
+public class DeadLetterReplayController {
+
+    @Autowired
+    private DeadLetterReplayService replayService;
+
+    @PostMapping
+    public ResponseEntity<ReplayJob> start(@RequestBody ReplayRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(replayService.start(request));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ReplayJob>> getJobs() {
+        return ResponseEntity.ok(replayService.getJobs());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<ReplayJob> getJob(@PathVariable String id) {
+        return ResponseEntity.ok(replayService.getJob(id));
+    }
+
+    @PostMapping("/{id}/pause")
+    public ResponseEntity<ReplayJob> pause(@PathVariable String id) {
+        return ResponseEntity.ok(replayService.pause(id));
+    }
+
+    @PostMapping("/{id}/resume")
+    public ResponseEntity<ReplayJob> resume(@PathVariable String id) {
+        return ResponseEntity.ok(replayService.resume(id));
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<ReplayJob> cancel(@PathVariable String id) {
+        return ResponseEntity.ok(replayService.cancel(id));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Map<String, String>> notFound(NoSuchElementException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+    }
+}
@@ -0,0 +1,46 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.OverflowPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per-destination bulkheads of ordered INPUT routes (see {@link BulkheadDispatchProcessor}).
+ * Queue capacity and overflow policy can be overridden per destination.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.bulkhead")
+@Data
+public class BulkheadConfig {
+
+    /**
+     * Whether ordered INPUT routes hand messages to one queue per destination instead of
+     * sending to the destinations one after another. Offsets are still committed only once every
+     * destination has delivered, dead-lettered or spilled the message. When disabled, retries
+     * wait on the consumer thread and a failing destination delays the others.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Messages queued per destination before the overflow policy applies.
+     */
+    private int queueCapacity = 1000;
+
+    /**
+     * Default overflow policy: block, spill or dead-letter. Spill keeps a destination that is down
+     * from holding up the consumer and the route's other destinations.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.SPILL;
+
+    /**
+     * Longest wait of the block policy for room in a full queue before the message is dead-lettered;
+     * well below max.poll.interval.ms, so that a stalled destination cannot cause a rebalance.
+     */
+    private long blockTimeoutMs = 5000;
+
+    /**
+     * Directory of the spill files of destinations with the spill policy.
+     */
+    private String spillDirectory = "data/spill";
+}
@@ -0,0 +1,87 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.support.service.ServiceHelper;
+import org.apache.camel.support.service.ServiceSupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Destination step of an ordered INPUT route with bulkheads: a copy of each message is queued on
+ * the {@link DestinationBulkhead} of every destination that accepts its msgType, and the route
+ * continues without waiting for delivery. Order is kept per destination; destinations are
+ * independent, so {@code stopOnException} has no effect here.
+ * <p>
+ * The exchange gets a {@link #DELIVERED} future that completes once every one of those destinations
+ * has handled its copy, so that the offset is committed only then
+ * (see {@link com.fix.gateway.processor.DeliveredOffsetCommitProcessor}).
+ */
+public class BulkheadDispatchProcessor extends ServiceSupport implements Processor {
+
+    /**
+     * Exchange property with a {@code CompletableFuture<Void>} completed once the message is handled
+     * by every destination it was queued for.
+     */
+    public static final String DELIVERED = "fixBulkheadDelivered";
+
+    private final List<DestinationConfig> destinations;
+    private final List<DestinationBulkhead> bulkheads;
+
+    /**
+     * @param bulkheads Bulkhead of each destination, in the order of {@code destinations}
+     */
+    public BulkheadDispatchProcessor(List<DestinationConfig> destinations, List<DestinationBulkhead> bulkheads) {
+        if (destinations.size() != bulkheads.size()) {
+            throw new IllegalArgumentException(destinations.size() + " destinations but " + bulkheads.size() + " bulkheads");
+        }
+        this.destinations = destinations;
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        String msgType = exchange.getIn().getHeader("msgType", String.class);
+        List<DestinationBulkhead> targets = new ArrayList<>(destinations.size());
+        for (int i = 0; i < destinations.size(); i++) {
+            if (destinations.get(i).matchesMsgType(msgType)) {
+                targets.add(bulkheads.get(i));
+            }
+        }
+
+        CompletableFuture<Void> delivered = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(targets.size());
+        Runnable onHandled = () -> {
+            if (pending.decrementAndGet() == 0) {
+                delivered.complete(null);
+            }
+        };
+        if (targets.isEmpty()) {
+            delivered.complete(null);
+        }
+        for (DestinationBulkhead bulkhead : targets) {
+            Exchange copy = exchange.copy();
+            copy.setProperty(DestinationBulkhead.ON_HANDLED, onHandled);
+            bulkhead.submit(copy);
+        }
+        exchange.setProperty(DELIVERED, delivered);
+    }
+
+    public List<DestinationBulkhead> getBulkheads() {
+        return bulkheads;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ServiceHelper.startService(bulkheads);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        ServiceHelper.stopService(bulkheads);
+    }
+}
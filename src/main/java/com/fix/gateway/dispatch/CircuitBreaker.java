@@ -0,0 +1,168 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker of one destination. Closed, it lets every send through and records the outcomes
+ * of the last {@code slidingWindowSize} sends; once at least {@code minimumCalls} are recorded and
+ * the failure rate reaches {@code failureRateThreshold}, it opens. Open, it refuses sends for
+ * {@code openDurationMs} and then half-opens: a single probe goes through, which closes the breaker
+ * if it succeeds and opens it again if it fails. A probe that never reports is replaced after
+ * another {@code openDurationMs}.
+ * <p>
+ * A disabled breaker lets every send through. Thread-safe.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openDurationNanos;
+    private final boolean[] failed;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failures;
+    private long openedAt;
+    private long probeStartedAt;
+    private boolean probing;
+
+    public CircuitBreaker(String name, DestinationConfig.CircuitBreakerConfig config) {
+        this.name = name;
+        this.enabled = config.isEnabled();
+        this.failed = new boolean[Math.max(1, config.getSlidingWindowSize())];
+        this.minimumCalls = Math.max(1, Math.min(config.getMinimumCalls(), failed.length));
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(config.getOpenDurationMs());
+    }
+
+    /**
+     * Asks to send. A caller that gets a permit must report the outcome with {@link #onSuccess} or
+     * {@link #onFailure}.
+     *
+     * @return false while the breaker is open or its probe is in flight
+     */
+    public synchronized boolean tryAcquire() {
+        if (!enabled) {
+            return true;
+        }
+        long now = System.nanoTime();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openDurationNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                log.info("Circuit breaker {}: Half-open, letting a probe through", name);
+                break;
+            case HALF_OPEN:
+                if (probing && now - probeStartedAt < openDurationNanos) {
+                    return false;
+                }
+                break;
+        }
+        probing = true;
+        probeStartedAt = now;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            log.info("Circuit breaker {}: Probe succeeded, closing", name);
+            close();
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (!enabled) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            log.warn("Circuit breaker {}: Probe failed, opening again", name);
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minimumCalls && failures * 100 >= failureRateThreshold * calls) {
+                log.warn("Circuit breaker {}: {} of the last {} sends failed, opening for {}ms",
+                    name, failures, calls, TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+                open();
+            }
+        }
+    }
+
+    /**
+     * @return True while sends are refused; false once a probe may go through
+     */
+    public synchronized boolean isOpen() {
+        return enabled && (state == State.OPEN
+            ? System.nanoTime() - openedAt < openDurationNanos
+            : state == State.HALF_OPEN && probing);
+    }
+
+    /**
+     * @return Time until a probe may go through, 0 if sends are not refused
+     */
+    public synchronized long getRemainingOpenMillis() {
+        if (!isOpen()) {
+            return 0;
+        }
+        long since = state == State.OPEN ? openedAt : probeStartedAt;
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(openDurationNanos - (System.nanoTime() - since)));
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private void record(boolean failure) {
+        if (calls == failed.length) {
+            if (failed[next]) {
+                failures--;
+            }
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        if (failure) {
+            failures++;
+        }
+        next = (next + 1) % failed.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probing = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probing = false;
+        calls = 0;
+        failures = 0;
+        next = 0;
+    }
+}
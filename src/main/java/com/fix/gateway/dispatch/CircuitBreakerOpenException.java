@@ -0,0 +1,11 @@
+package com.fix.gateway.dispatch;
+
+/**
+ * Thrown instead of sending to a destination whose {@link CircuitBreaker} is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    public CircuitBreakerOpenException(CircuitBreaker breaker) {
+        super("Circuit breaker " + breaker.getName() + " is open");
+    }
+}
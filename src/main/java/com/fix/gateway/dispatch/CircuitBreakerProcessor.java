@@ -0,0 +1,60 @@
+package com.fix.gateway.dispatch;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+import org.apache.camel.support.service.ServiceHelper;
+
+import java.util.function.Predicate;
+
+/**
+ * Guards the send step of a destination route with the destination's {@link CircuitBreaker}: while
+ * the breaker is open the exchange fails with {@link CircuitBreakerOpenException} without a send,
+ * otherwise the outcome of the send is recorded. Only failures the given predicate deems transient
+ * count against the destination; others, e.g. a message it rejects, say nothing about its health.
+ * Redeliveries run through the guard again, so they stop as soon as the breaker opens.
+ */
+public class CircuitBreakerProcessor extends AsyncProcessorSupport {
+
+    private final CircuitBreaker breaker;
+    private final AsyncProcessor delegate;
+    private final Predicate<Throwable> transientFailure;
+
+    public CircuitBreakerProcessor(CircuitBreaker breaker, AsyncProcessor delegate) {
+        this(breaker, delegate, e -> true);
+    }
+
+    public CircuitBreakerProcessor(CircuitBreaker breaker, AsyncProcessor delegate, Predicate<Throwable> transientFailure) {
+        this.breaker = breaker;
+        this.delegate = delegate;
+        this.transientFailure = transientFailure;
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        if (!breaker.tryAcquire()) {
+            exchange.setException(new CircuitBreakerOpenException(breaker));
+            callback.done(true);
+            return true;
+        }
+        return delegate.process(exchange, doneSync -> {
+            if (exchange.getException() != null && transientFailure.test(exchange.getException())) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            callback.done(doneSync);
+        });
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ServiceHelper.startService(delegate);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        ServiceHelper.stopService(delegate);
+    }
+}
@@ -0,0 +1,381 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.kafka.RetryTierProcessor;
+import com.fix.gateway.model.DestinationConfig;
+import com.fix.gateway.model.OverflowPolicy;
+import io.netty.util.Timeout;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.service.ServiceHelper;
+import org.apache.camel.support.service.ServiceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Isolates one destination of an ordered INPUT route: messages are queued and delivered in order,
+ * one at a time, by a drain that runs on the {@link RetryScheduler}'s pool, so a slow or unreachable
+ * counterparty only holds up its own queue.
+ * <p>
+ * A failed send that is retryable is parked on the scheduler's timer for the destination's backoff
+ * delay ({@link DestinationConfig#retryDelayFor}); the drain ends and resumes with that message once
+ * the delay expires, so later messages of this destination wait without holding a thread. Messages
+ * that still fail after {@code maxRetries} go to the dead letter endpoint.
+ * <p>
+ * When the queue is full the {@link OverflowPolicy} applies: BLOCK waits for room, up to a timeout
+ * after which the message is dead-lettered, DEAD_LETTER sends the message to the dead letter
+ * endpoint and SPILL appends it to a {@link SpillQueue}. Once a
+ * message is spilled, the following ones are spilled too until the spill file has been delivered, so
+ * order is kept. A spilled message is acknowledged in the file once delivered or dead-lettered, so
+ * one taken shortly before a crash is delivered again after the restart.
+ * <p>
+ * While the destination's {@link CircuitBreaker} is open nothing is sent: with DEAD_LETTER, queued
+ * and new messages go to the dead letter endpoint; with SPILL, new messages go to the spill file;
+ * with BLOCK, they queue up. The drain waits until the breaker lets a probe through.
+ * <p>
+ * On stop, a parked message gets its last attempt and queued messages are delivered; spilled
+ * messages stay on disk.
+ */
+public class DestinationBulkhead extends ServiceSupport {
+
+    /**
+     * Exchange property with a Runnable run once the message is handled: delivered, dead-lettered
+     * or written to the spill file. It is not run for messages still queued when the bulkhead stops.
+     */
+    public static final String ON_HANDLED = "fixBulkheadOnHandled";
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationBulkhead.class);
+
+    private static final long STOP_TIMEOUT_MS = 10_000;
+
+    private final CamelContext camelContext;
+    private final String name;
+    private final DestinationConfig destination;
+    private final DestinationSender sender;
+    private final Predicate<Exception> retryable;
+    private final CircuitBreaker breaker;
+    private final String deadLetterUri;
+    private final RetryScheduler scheduler;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final Path spillFile;
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+
+    private BlockingQueue<Exchange> queue;
+    private volatile SpillQueue spill;
+    private ProducerTemplate producerTemplate;
+    private volatile boolean stopping;
+
+    // Only used by the drain in progress; handed from one drain to the next through the scheduler
+    private Exchange parked;
+    private Exchange spilledInFlight;
+    private int attempt;
+    private volatile Timeout pendingRetry;
+
+    /**
+     * @param name      Destination route ID; identifies the destination in logs, its spill file and dead-lettered messages
+     * @param sender    Makes a single attempt; retries are scheduled here. Started and stopped with the bulkhead
+     *                  if it is a Camel service
+     * @param retryable Whether a failed attempt is worth retrying
+     * @param breaker   The destination's circuit breaker
+     * @param blockTimeoutMs Longest wait for room with the BLOCK policy
+     * @param spillFile Used with the SPILL policy only
+     */
+    public DestinationBulkhead(CamelContext camelContext, String name, DestinationConfig destination,
+                               DestinationSender sender, Predicate<Exception> retryable, CircuitBreaker breaker, String deadLetterUri,
+                               RetryScheduler scheduler, int capacity, OverflowPolicy overflowPolicy, long blockTimeoutMs,
+                               Path spillFile) {
+        this.camelContext = camelContext;
+        this.name = name;
+        this.destination = destination;
+        this.sender = sender;
+        this.retryable = retryable;
+        this.breaker = breaker;
+        this.deadLetterUri = deadLetterUri;
+        this.scheduler = scheduler;
+        this.capacity = Math.max(1, capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.spillFile = spillFile;
+    }
+
+    /**
+     * Queues a message for the destination. The exchange is owned by the bulkhead afterwards.
+     *
+     * @throws InterruptedException if interrupted while blocked on a full queue
+     */
+    public void submit(Exchange exchange) throws InterruptedException {
+        switch (overflowPolicy) {
+            case BLOCK -> {
+                // Bounded, so that a destination that is down cannot stall the consumer past its poll interval
+                if (!queue.offer(exchange, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    deadLetter(exchange, new RejectedExecutionException("Queue of " + name + " stayed full for "
+                        + blockTimeoutMs + "ms (" + capacity + " messages)"));
+                    return;
+                }
+            }
+            case DEAD_LETTER -> {
+                if (breaker.isOpen()) {
+                    deadLetter(exchange, new CircuitBreakerOpenException(breaker));
+                    return;
+                }
+                if (!queue.offer(exchange)) {
+                    deadLetter(exchange, new RejectedExecutionException("Queue of " + name + " is full (" + capacity + " messages)"));
+                    return;
+                }
+            }
+            case SPILL -> {
+                synchronized (spill) {
+                    if (!spill.isEmpty() || breaker.isOpen() || !queue.offer(exchange)) {
+                        try {
+                            spill.append(exchange.getIn());
+                        } catch (IOException e) {
+                            deadLetter(exchange, e);
+                            return;
+                        }
+                        // On disk now, and delivered from there also after a restart
+                        handled(exchange);
+                    }
+                }
+            }
+        }
+        startDrain();
+    }
+
+    /**
+     * @return Messages waiting in memory
+     */
+    public int getQueued() {
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * @return Messages waiting in the spill file
+     */
+    public long getSpilled() {
+        SpillQueue current = spill;
+        if (current == null) {
+            return 0;
+        }
+        synchronized (current) {
+            return current.size();
+        }
+    }
+
+    /**
+     * @return Retries scheduled since start
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return Messages sent to the dead letter endpoint since start
+     */
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        stopping = false;
+        queue = new ArrayBlockingQueue<>(capacity);
+        if (overflowPolicy == OverflowPolicy.SPILL) {
+            spill = new SpillQueue(spillFile);
+            if (!spill.isEmpty()) {
+                log.info("Bulkhead {}: Delivering {} messages left in {}", name, spill.size(), spillFile);
+            }
+        }
+        producerTemplate = camelContext.createProducerTemplate();
+        ServiceHelper.startService(sender);
+        startDrain();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        stopping = true;
+        // Give a parked message its last attempt now rather than after its delay
+        Timeout retry = pendingRetry;
+        if (retry != null && retry.cancel()) {
+            scheduler.execute(this::drain);
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_TIMEOUT_MS);
+        while (draining.get() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        if (queue != null && !queue.isEmpty()) {
+            log.warn("Bulkhead {}: {} queued messages not delivered", name, queue.size());
+        }
+        if (spill != null) {
+            synchronized (spill) {
+                spill.close();
+            }
+            spill = null;
+        }
+        ServiceHelper.stopService(sender);
+        if (producerTemplate != null) {
+            producerTemplate.stop();
+            producerTemplate = null;
+        }
+    }
+
+    private void startDrain() {
+        if (hasPending() && draining.compareAndSet(false, true)) {
+            scheduler.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        pendingRetry = null;
+        Exchange next = parked;
+        parked = null;
+        while (next != null || (next = take()) != null) {
+            if (!deliver(next)) {
+                // Parked: the timer resumes the drain, later messages wait
+                return;
+            }
+            if (next == spilledInFlight) {
+                acknowledgeSpilled();
+            }
+            next = null;
+        }
+        draining.set(false);
+        // A message may have been queued after the last take
+        startDrain();
+    }
+
+    /**
+     * @return false if the message was parked for a retry or until the circuit breaker half-opens
+     */
+    private boolean deliver(Exchange exchange) {
+        if (!breaker.tryAcquire()) {
+            if (overflowPolicy == OverflowPolicy.DEAD_LETTER || stopping) {
+                deadLetter(exchange, new CircuitBreakerOpenException(breaker));
+                return true;
+            }
+            // Hold this and later messages until the breaker lets a probe through
+            parked = exchange;
+            pendingRetry = scheduler.schedule(this::drain, breaker.getRemainingOpenMillis());
+            return false;
+        }
+        try {
+            sender.send(exchange);
+            breaker.onSuccess();
+        } catch (Exception e) {
+            // Only transient failures say the destination is unhealthy
+            boolean transientFailure = retryable.test(e);
+            if (transientFailure) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+            if (!stopping && attempt < destination.getMaxRetries() && transientFailure) {
+                attempt++;
+                long delay = destination.retryDelayFor(attempt);
+                log.warn("Bulkhead {}: Send failed (attempt {}): {}. Retrying in {}ms", name, attempt, describe(e), delay);
+                retries.incrementAndGet();
+                exchange.setException(null);
+                parked = exchange;
+                pendingRetry = scheduler.schedule(this::drain, delay);
+                return false;
+            }
+            deadLetter(exchange, e);
+        }
+        attempt = 0;
+        handled(exchange);
+        return true;
+    }
+
+    private boolean hasPending() {
+        return !queue.isEmpty() || (!stopping && getSpilled() > 0);
+    }
+
+    private Exchange take() {
+        Exchange next = queue.poll();
+        SpillQueue current = spill;
+        if (next != null || current == null || stopping) {
+            return next;
+        }
+        synchronized (current) {
+            Exchange exchange = new DefaultExchange(camelContext);
+            try {
+                if (!current.poll(exchange.getIn())) {
+                    return null;
+                }
+                spilledInFlight = exchange;
+                return exchange;
+            } catch (IOException e) {
+                log.error("Bulkhead {}: Failed to read spill file {}, dropping its {} messages: {}",
+                    name, spillFile, current.size(), e.getMessage());
+                try {
+                    current.clear();
+                } catch (IOException clearFailure) {
+                    log.error("Bulkhead {}: Failed to clear spill file {}: {}", name, spillFile, clearFailure.getMessage());
+                }
+                return null;
+            }
+        }
+    }
+
+    private void acknowledgeSpilled() {
+        spilledInFlight = null;
+        SpillQueue current = spill;
+        if (current == null) {
+            return;
+        }
+        synchronized (current) {
+            try {
+                current.acknowledge();
+            } catch (IOException e) {
+                // The message may be delivered again after a restart
+                log.warn("Bulkhead {}: Failed to acknowledge spilled message in {}: {}", name, spillFile, e.getMessage());
+            }
+        }
+    }
+
+    private void deadLetter(Exchange exchange, Exception cause) {
+        deadLettered.incrementAndGet();
+        log.error("Bulkhead {}: Sending message to {}: {}", name, deadLetterUri, describe(cause));
+        exchange.setException(null);
+        // Lets a replay of the dead letter topic find the destination
+        exchange.getIn().setHeader(RetryTierProcessor.DESTINATION, name);
+        Exchange sent = producerTemplate.send(deadLetterUri, exchange);
+        if (sent.getException() != null) {
+            log.error("Bulkhead {}: Failed to dead-letter message: {}", name, sent.getException().getMessage());
+        }
+        handled(exchange);
+    }
+
+    /**
+     * Runs the message's {@link #ON_HANDLED} callback, at most once.
+     */
+    private void handled(Exchange exchange) {
+        Runnable onHandled = (Runnable) exchange.removeProperty(ON_HANDLED);
+        if (onHandled == null) {
+            return;
+        }
+        try {
+            onHandled.run();
+        } catch (RuntimeException e) {
+            log.warn("Bulkhead {}: Failed to report handled message: {}", name, e.getMessage());
+        }
+    }
+
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getName();
+    }
+}
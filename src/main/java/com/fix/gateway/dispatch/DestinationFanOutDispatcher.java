@@ -0,0 +1,256 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import org.apache.camel.AsyncProducer;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.Exchange;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.support.service.ServiceHelper;
+import org.apache.camel.support.service.ServiceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Fans the messages of an enhanced INPUT route out to its destinations through a
+ * {@link FanOutRingBuffer}.
+ * <p>
+ * The route's consumer thread publishes one pre-allocated event per message (body, msgType and a
+ * snapshot of the headers) and moves on. Each destination has its own consumer thread, which takes
+ * the events published since its last pass as a batch, skips message types the destination does
+ * not accept and sends the rest to the destination route ({@code direct:<routeId>_DEST_<n>}) with a
+ * producer created once at start. Each send still gets its own exchange with a copy of the event's
+ * headers, since the destination route's error handler owns the exchange until it completes, possibly
+ * after the lane has moved on. With {@code parallelProcessing} the batch is sent asynchronously
+ * and awaited as a whole before the next batch; otherwise messages are sent one at a time. Retries
+ * and dead-lettering stay with the destination routes.
+ * <p>
+ * A slow destination delays only its own consumer until the ring is full; then the route's consumer
+ * waits for it, up to {@code claimTimeoutMs}. A failure of one message, including an unchecked
+ * exception or error, is logged and never stops a destination's consumer. Since destinations are
+ * independent, {@code stopOnException} has no effect here.
+ */
+public class DestinationFanOutDispatcher extends ServiceSupport implements Processor {
+
+    private static final Logger log = LoggerFactory.getLogger(DestinationFanOutDispatcher.class);
+
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final CamelContext camelContext;
+    private final String routeId;
+    private final List<DestinationConfig> destinations;
+    private final List<String> destinationEndpointUris;
+    private final int ringSize;
+    private final int maxBatchSize;
+    private final long claimTimeoutNanos;
+
+    private FanOutRingBuffer<FanOutEvent> ring;
+    private DestinationLane[] lanes;
+    private ExecutorService[] laneExecutors;
+    private volatile boolean stopping;
+
+    /**
+     * @param destinationEndpointUris Endpoint of each destination, in the order of {@code destinations}
+     */
+    public DestinationFanOutDispatcher(CamelContext camelContext, String routeId, List<DestinationConfig> destinations,
+                                       List<String> destinationEndpointUris, FanOutConfig config) {
+        if (destinations.size() != destinationEndpointUris.size()) {
+            throw new IllegalArgumentException("Route " + routeId + " has " + destinations.size()
+                + " destinations but " + destinationEndpointUris.size() + " endpoints");
+        }
+        this.camelContext = camelContext;
+        this.routeId = routeId;
+        this.destinations = destinations;
+        this.destinationEndpointUris = destinationEndpointUris;
+        this.ringSize = config.getRingSize();
+        this.maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        this.claimTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(config.getClaimTimeoutMs());
+    }
+
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        long sequence;
+        try {
+            sequence = ring.claim(claimTimeoutNanos);
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Fan-out for route " + routeId + ": Ring full, " + e.getMessage()
+                + " (backlog " + getBacklog() + ")");
+        }
+        try {
+            ring.get(sequence).set(exchange.getIn());
+        } finally {
+            ring.publish(sequence);
+        }
+    }
+
+    /**
+     * @return Messages published and not yet taken by the slowest destination
+     */
+    long getBacklog() {
+        long claimed = ring.getClaimed();
+        long backlog = 0;
+        for (int i = 0; i < lanes.length; i++) {
+            backlog = Math.max(backlog, claimed - ring.getConsumed(i));
+        }
+        return backlog;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        stopping = false;
+        ring = new FanOutRingBuffer<>(ringSize, FanOutEvent::new, destinations.size());
+        lanes = new DestinationLane[destinations.size()];
+        laneExecutors = new ExecutorService[destinations.size()];
+        for (int i = 0; i < lanes.length; i++) {
+            Endpoint endpoint = camelContext.getEndpoint(destinationEndpointUris.get(i));
+            AsyncProducer producer = endpoint.createAsyncProducer();
+            ServiceHelper.startService(producer);
+            lanes[i] = new DestinationLane(i, destinations.get(i), endpoint, producer);
+            laneExecutors[i] = camelContext.getExecutorServiceManager().newSingleThreadExecutor(this, routeId + "-fan-out-" + i);
+            laneExecutors[i].execute(lanes[i]);
+        }
+        log.info("Fan-out for route {}: {} destinations, ring of {} events", routeId, lanes.length, ring.getCapacity());
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        // The route's consumer is stopped by now; let the lanes drain what was published
+        stopping = true;
+        if (ring != null) {
+            ring.wakeConsumers();
+        }
+        if (laneExecutors != null) {
+            for (ExecutorService executor : laneExecutors) {
+                camelContext.getExecutorServiceManager().shutdownGraceful(executor);
+            }
+            laneExecutors = null;
+        }
+        if (lanes != null) {
+            for (DestinationLane lane : lanes) {
+                ServiceHelper.stopService(lane.producer);
+            }
+            lanes = null;
+        }
+        if (ring != null) {
+            ring.close();
+        }
+    }
+
+    /**
+     * A message as published to the ring. Instances are pre-allocated and overwritten in place.
+     */
+    static final class FanOutEvent {
+        private final Map<String, Object> headers = new HashMap<>();
+        private Object body;
+        private String msgType;
+
+        void set(Message message) {
+            body = message.getBody();
+            msgType = message.getHeader("msgType", String.class);
+            headers.clear();
+            headers.putAll(message.getHeaders());
+        }
+    }
+
+    /**
+     * Consumer of the ring for one destination.
+     */
+    private final class DestinationLane implements Runnable {
+        private final int index;
+        private final DestinationConfig config;
+        private final Endpoint endpoint;
+        private final AsyncProducer producer;
+        private final List<CompletableFuture<Exchange>> pending = new ArrayList<>();
+
+        private DestinationLane(int index, DestinationConfig config, Endpoint endpoint, AsyncProducer producer) {
+            this.index = index;
+            this.config = config;
+            this.endpoint = endpoint;
+            this.producer = producer;
+        }
+
+        @Override
+        public void run() {
+            long next = ring.getConsumed(index) + 1;
+            while (true) {
+                long available;
+                try {
+                    available = ring.waitFor(next, IDLE_WAIT_NANOS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("Fan-out for route {}: Destination {} interrupted at sequence {}", routeId, index, next);
+                    return;
+                }
+                if (available < next) {
+                    if (stopping) {
+                        return;
+                    }
+                    continue;
+                }
+                long end = Math.min(available, next + maxBatchSize - 1);
+                deliver(next, end);
+                ring.release(index, end);
+                next = end + 1;
+            }
+        }
+
+        private void deliver(long from, long to) {
+            for (long sequence = from; sequence <= to; sequence++) {
+                try {
+                    send(ring.get(sequence));
+                } catch (Throwable e) {
+                    // Anything escaping here would end the lane and, once the ring fills, block the route
+                    log.error("Fan-out for route {}: Failed to send sequence {} to destination {}", routeId, sequence, index, e);
+                }
+            }
+            for (CompletableFuture<Exchange> sent : pending) {
+                try {
+                    logFailure(sent.join());
+                } catch (CompletionException e) {
+                    log.error("Fan-out for route {}: Failed to send to destination {}: {}", routeId, index, e.getCause().getMessage());
+                } catch (Throwable e) {
+                    log.error("Fan-out for route {}: Failed to send to destination {}", routeId, index, e);
+                }
+            }
+            pending.clear();
+        }
+
+        private void send(FanOutEvent event) {
+            if (!config.matchesMsgType(event.msgType)) {
+                return;
+            }
+            Exchange exchange = endpoint.createExchange(ExchangePattern.InOnly);
+            exchange.getIn().setBody(event.body);
+            exchange.getIn().getHeaders().putAll(event.headers);
+            if (config.isParallelProcessing()) {
+                pending.add(producer.processAsync(exchange));
+            } else {
+                try {
+                    producer.process(exchange);
+                } catch (Exception e) {
+                    exchange.setException(e);
+                }
+                logFailure(exchange);
+            }
+        }
+
+        private void logFailure(Exchange exchange) {
+            if (exchange.getException() != null) {
+                log.error("Fan-out for route {}: Failed to send to destination {} ({}): {}",
+                    routeId, index, config.getUri(), exchange.getException().getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.fix.gateway.dispatch;
+
+import org.apache.camel.Exchange;
+
+/**
+ * Delivers a message to one destination, retrying as configured for it.
+ */
+@FunctionalInterface
+public interface DestinationSender {
+
+    /**
+     * @throws Exception The last failure once retries are exhausted
+     */
+    void send(Exchange exchange) throws Exception;
+}
@@ -0,0 +1,97 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import com.fix.gateway.model.ErrorClassification;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classifies send failures by exception class rather than by message text.
+ * <p>
+ * Rules map exception class names to an {@link ErrorClassification} and also match subclasses;
+ * the rule of the closest superclass wins. {@link #classify} walks the cause chain once, from the
+ * outermost exception in, and the first exception with a rule decides, so wrappers such as
+ * {@code RuntimeCamelException} are looked through. Exceptions matching no rule get the default.
+ * The rule lookup is cached per exception class.
+ */
+public class ErrorClassifier {
+
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private final Map<String, ErrorClassification> rules;
+    private final ErrorClassification defaultClassification;
+    private final Map<Class<?>, Optional<ErrorClassification>> cache = new ConcurrentHashMap<>();
+
+    /**
+     * @param rules Classification by exception class name
+     */
+    public ErrorClassifier(Map<String, ErrorClassification> rules, ErrorClassification defaultClassification) {
+        this.rules = Map.copyOf(rules);
+        this.defaultClassification = defaultClassification;
+    }
+
+    /**
+     * @param error A send failure, possibly null
+     * @return Its classification; RETRY for null, which only a missing exception can produce
+     */
+    public ErrorClassification classify(Throwable error) {
+        if (error == null) {
+            return ErrorClassification.RETRY;
+        }
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            Optional<ErrorClassification> classification = cache.computeIfAbsent(current.getClass(), this::lookup);
+            if (classification.isPresent()) {
+                return classification.get();
+            }
+            current = current.getCause() != current ? current.getCause() : null;
+        }
+        return defaultClassification;
+    }
+
+    public boolean isRetryable(Throwable error) {
+        return classify(error) == ErrorClassification.RETRY;
+    }
+
+    /**
+     * @return This classifier with a destination's overrides on top, or this one if it has none
+     */
+    public ErrorClassifier withOverrides(DestinationConfig.ErrorClassificationConfig overrides) {
+        if (overrides == null || !overrides.hasOverrides()) {
+            return this;
+        }
+        Map<String, ErrorClassification> merged = new HashMap<>(rules);
+        merged.putAll(rules(overrides.getRetry(), overrides.getFailFast(), overrides.getDlq()));
+        return new ErrorClassifier(merged,
+            overrides.getDefaultClassification() != null ? overrides.getDefaultClassification() : defaultClassification);
+    }
+
+    public ErrorClassification getDefaultClassification() {
+        return defaultClassification;
+    }
+
+    /**
+     * Rules from lists of exception class names; a class in several lists gets the last one.
+     */
+    public static Map<String, ErrorClassification> rules(List<String> retry, List<String> failFast, List<String> dlq) {
+        Map<String, ErrorClassification> rules = new HashMap<>();
+        retry.forEach(name -> rules.put(name.trim(), ErrorClassification.RETRY));
+        failFast.forEach(name -> rules.put(name.trim(), ErrorClassification.FAIL_FAST));
+        dlq.forEach(name -> rules.put(name.trim(), ErrorClassification.DLQ));
+        return rules;
+    }
+
+    private Optional<ErrorClassification> lookup(Class<?> type) {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            ErrorClassification classification = rules.get(current.getName());
+            if (classification != null) {
+                return Optional.of(classification);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,62 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.ErrorClassification;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classification of destination send failures (see {@link ErrorClassifier}); destinations may
+ * override it with their {@code errorClassification}. Classes are given by name and match their
+ * subclasses, so a broad type such as {@code java.lang.RuntimeException} also matches the
+ * wrappers whose causes would otherwise decide.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.error-classification")
+@Data
+public class ErrorClassifierConfig {
+
+    /**
+     * Transient failures, retried with the destination's backoff.
+     */
+    private List<String> retry = new ArrayList<>(List.of(
+        "java.io.IOException",
+        "java.util.concurrent.TimeoutException",
+        "java.util.concurrent.RejectedExecutionException",
+        "io.netty.channel.ChannelException",
+        "org.apache.camel.ExchangeTimedOutException",
+        "org.apache.kafka.common.errors.RetriableException",
+        "com.fix.gateway.dispatch.CircuitBreakerOpenException"));
+
+    /**
+     * Failures retrying cannot fix, e.g. a misconfigured endpoint.
+     */
+    private List<String> failFast = new ArrayList<>(List.of(
+        "org.apache.camel.ResolveEndpointFailedException",
+        "org.apache.camel.NoSuchEndpointException"));
+
+    /**
+     * Messages that cannot be delivered as they are.
+     */
+    private List<String> dlq = new ArrayList<>(List.of(
+        "java.lang.IllegalArgumentException",
+        "java.nio.charset.CharacterCodingException",
+        "java.io.UnsupportedEncodingException",
+        "org.apache.camel.TypeConversionException",
+        "org.apache.camel.NoTypeConversionAvailableException",
+        "org.apache.camel.InvalidPayloadException"));
+
+    /**
+     * Classification of exceptions matching none of the classes.
+     */
+    private ErrorClassification defaultClassification = ErrorClassification.FAIL_FAST;
+
+    @Bean
+    public ErrorClassifier errorClassifier() {
+        return new ErrorClassifier(ErrorClassifier.rules(retry, failFast, dlq), defaultClassification);
+    }
+}
@@ -0,0 +1,38 @@
+package com.fix.gateway.dispatch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Fan-out of enhanced INPUT routes to their destinations through {@link DestinationFanOutDispatcher}.
+ * When disabled, every message is copied into one new Exchange per destination and sent with a
+ * new ProducerTemplate, as before.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.fan-out")
+@Data
+public class FanOutConfig {
+
+    /**
+     * Whether enhanced INPUT routes dispatch through a ring buffer with one consumer per destination.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Events in each route's ring buffer, rounded up to a power of two. A full ring blocks the
+     * Kafka consumer until the slowest destination catches up.
+     */
+    private int ringSize = 1024;
+
+    /**
+     * Largest batch a destination consumer takes from the ring before waiting for its sends to complete.
+     */
+    private int maxBatchSize = 64;
+
+    /**
+     * Longest time the route's consumer waits for a slot in a full ring. The message then fails
+     * like any other and goes through the route's error handling.
+     */
+    private long claimTimeoutMs = 30000;
+}
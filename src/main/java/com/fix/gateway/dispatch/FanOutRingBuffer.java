@@ -0,0 +1,227 @@
+package com.fix.gateway.dispatch;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Bounded ring of pre-allocated events with many publishers and a fixed set of consumers, each of
+ * which sees every event in sequence order (Disruptor-style fan-out).
+ * <p>
+ * Publishers {@link #claim claim} a sequence, fill the event at that slot in place and {@link #publish}
+ * it. A slot is reused only once every consumer has {@link #release released} it, so a full ring
+ * blocks publishers instead of growing. Consumers {@link #waitFor} the next sequence and receive the
+ * highest contiguous published sequence, i.e. a batch. Waiting spins briefly and then blocks, so
+ * idle consumers do not burn CPU.
+ *
+ * @param <E> Mutable event type
+ */
+public final class FanOutRingBuffer<E> {
+
+    private static final int SPIN_TRIES = 100;
+
+    private final Object[] entries;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    /**
+     * Sequence last published in each slot.
+     */
+    private final AtomicLongArray published;
+    /**
+     * Highest sequence released by each consumer.
+     */
+    private final AtomicLong[] consumed;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition eventPublished = lock.newCondition();
+    private final Condition slotReleased = lock.newCondition();
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingPublishers = new AtomicInteger();
+    private volatile boolean closed;
+
+    /**
+     * @param size      Slots, rounded up to a power of two
+     * @param factory   Creates the pre-allocated events
+     * @param consumers Number of consumers, identified by index 0..consumers-1
+     */
+    public FanOutRingBuffer(int size, Supplier<E> factory, int consumers) {
+        int capacity = Integer.highestOneBit(Math.max(2, size) - 1) << 1;
+        this.entries = new Object[capacity];
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+            published.set(i, -1);
+        }
+        this.consumed = new AtomicLong[consumers];
+        for (int i = 0; i < consumers; i++) {
+            consumed[i] = new AtomicLong(-1);
+        }
+    }
+
+    /**
+     * Claims the next sequence, waiting while its slot is still held by a consumer. A sequence is
+     * only taken once its slot is free, so giving up leaves no gap: every claimed sequence must be
+     * published, or the consumers would stop at it.
+     *
+     * @throws TimeoutException      if no slot was released within the timeout
+     * @throws InterruptedException  if interrupted while waiting
+     * @throws IllegalStateException if the ring is closed
+     */
+    public long claim(long timeoutNanos) throws InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + timeoutNanos;
+        int tries = 0;
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Ring buffer is closed");
+            }
+            long current = claimed.get();
+            if (minConsumed() >= current + 1 - entries.length) {
+                if (claimed.compareAndSet(current, current + 1)) {
+                    return current + 1;
+                }
+                continue;
+            }
+            if (++tries < SPIN_TRIES) {
+                Thread.onSpinWait();
+                continue;
+            }
+            lock.lockInterruptibly();
+            waitingPublishers.incrementAndGet();
+            try {
+                while (minConsumed() < claimed.get() + 1 - entries.length && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new TimeoutException("No slot released within "
+                            + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + "ms");
+                    }
+                    slotReleased.awaitNanos(remaining);
+                }
+            } finally {
+                waitingPublishers.decrementAndGet();
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * @return Event of a claimed or published sequence
+     */
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    /**
+     * Makes a claimed sequence visible to the consumers.
+     */
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+        if (waitingConsumers.get() > 0) {
+            signalAll(eventPublished);
+        }
+    }
+
+    /**
+     * Waits until {@code sequence} is published.
+     *
+     * @return The highest sequence such that it and all before it down to {@code sequence} are
+     * published, or {@code sequence - 1} if the timeout elapsed first
+     */
+    public long waitFor(long sequence, long timeoutNanos) throws InterruptedException {
+        int index = (int) sequence & mask;
+        int tries = 0;
+        while (published.get(index) != sequence) {
+            if (++tries < SPIN_TRIES) {
+                Thread.onSpinWait();
+                continue;
+            }
+            lock.lock();
+            waitingConsumers.incrementAndGet();
+            try {
+                long remaining = timeoutNanos;
+                while (published.get(index) != sequence) {
+                    if (remaining <= 0) {
+                        return sequence - 1;
+                    }
+                    remaining = eventPublished.awaitNanos(remaining);
+                }
+            } finally {
+                waitingConsumers.decrementAndGet();
+                lock.unlock();
+            }
+        }
+        long available = sequence;
+        long limit = Math.min(claimed.get(), sequence + mask);
+        while (available < limit && published.get((int) (available + 1) & mask) == available + 1) {
+            available++;
+        }
+        return available;
+    }
+
+    /**
+     * Releases every slot up to and including {@code sequence} for one consumer.
+     */
+    public void release(int consumer, long sequence) {
+        consumed[consumer].set(sequence);
+        if (waitingPublishers.get() > 0) {
+            signalAll(slotReleased);
+        }
+    }
+
+    /**
+     * Wakes all waiting consumers, e.g. so that they notice a shutdown.
+     */
+    public void wakeConsumers() {
+        signalAll(eventPublished);
+    }
+
+    /**
+     * Refuses further claims and releases blocked publishers. Called once the consumers have
+     * stopped; events published afterwards are never consumed.
+     */
+    public void close() {
+        closed = true;
+        signalAll(slotReleased);
+    }
+
+    /**
+     * @return Highest sequence claimed so far, published or not
+     */
+    public long getClaimed() {
+        return claimed.get();
+    }
+
+    /**
+     * @return Highest sequence released by a consumer
+     */
+    public long getConsumed(int consumer) {
+        return consumed[consumer].get();
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    private long minConsumed() {
+        long min = Long.MAX_VALUE;
+        for (AtomicLong sequence : consumed) {
+            min = Math.min(min, sequence.get());
+        }
+        return min;
+    }
+
+    private void signalAll(Condition condition) {
+        lock.lock();
+        try {
+            condition.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
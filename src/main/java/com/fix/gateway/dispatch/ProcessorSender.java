@@ -0,0 +1,46 @@
+package com.fix.gateway.dispatch;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.support.service.ServiceHelper;
+import org.apache.camel.support.service.ServiceSupport;
+
+/**
+ * Sends through one processor resolved once per destination, e.g. a {@code SendProcessor} on the
+ * destination endpoint, instead of looking the endpoint's producer up for every message. The
+ * processor is started and stopped with the sender.
+ */
+public class ProcessorSender extends ServiceSupport implements DestinationSender {
+
+    private final Processor processor;
+
+    public ProcessorSender(Processor processor) {
+        this.processor = processor;
+    }
+
+    /**
+     * Sends synchronously, so that the caller keeps the destination's order.
+     */
+    @Override
+    public void send(Exchange exchange) throws Exception {
+        processor.process(exchange);
+        if (exchange.getException() != null) {
+            throw exchange.getException();
+        }
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        ServiceHelper.startService(processor);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        ServiceHelper.stopService(processor);
+    }
+
+    @Override
+    public String toString() {
+        return "Sender[" + processor + "]";
+    }
+}
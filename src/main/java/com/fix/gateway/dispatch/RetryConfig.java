@@ -0,0 +1,31 @@
+package com.fix.gateway.dispatch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Timer of the destination retries that run without holding a thread (see {@link RetryScheduler}).
+ * Backoff itself is configured per destination.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.retry")
+@Data
+public class RetryConfig {
+
+    /**
+     * Resolution of retry delays.
+     */
+    private long tickDurationMs = 10;
+
+    /**
+     * Slots of the timer wheel; delays longer than tickDurationMs * ticksPerWheel take extra rounds.
+     */
+    private int ticksPerWheel = 512;
+
+    @Bean(destroyMethod = "close")
+    public RetryScheduler retryScheduler() {
+        return new RetryScheduler(tickDurationMs, ticksPerWheel);
+    }
+}
@@ -0,0 +1,60 @@
+package com.fix.gateway.dispatch;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs destination deliveries and parks the ones waiting for a retry on a hashed-wheel timer, so a
+ * message in backoff holds no thread.
+ * <p>
+ * Tasks run on a cached pool: a destination that is delivering uses one thread, one that is idle or
+ * waiting for a retry uses none, and a stalled destination cannot take threads from the others.
+ * The timer has a single thread that only hands expired tasks to the pool; delays are rounded up to
+ * its tick.
+ */
+public class RetryScheduler implements Closeable {
+
+    private final HashedWheelTimer timer;
+    private final ExecutorService executor;
+
+    public RetryScheduler(long tickDurationMs, int ticksPerWheel) {
+        this.timer = new HashedWheelTimer(new DefaultThreadFactory("fix-retry-timer", true),
+            Math.max(1, tickDurationMs), TimeUnit.MILLISECONDS, Math.max(1, ticksPerWheel));
+        this.executor = Executors.newCachedThreadPool(new DefaultThreadFactory("fix-delivery", true));
+    }
+
+    /**
+     * Runs a task now.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs a task after a delay.
+     *
+     * @return Cancels the task if it has not expired yet
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        return timer.newTimeout(timeout -> executor.execute(task), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return Tasks waiting for their delay to expire
+     */
+    public long getPending() {
+        return timer.pendingTimeouts();
+    }
+
+    @Override
+    public void close() {
+        timer.stop();
+        executor.shutdown();
+    }
+}
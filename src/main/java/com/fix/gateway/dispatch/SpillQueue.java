@@ -0,0 +1,294 @@
+package com.fix.gateway.dispatch;
+
+import org.apache.camel.Message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * File-backed FIFO of the messages that did not fit a {@link DestinationBulkhead}'s queue.
+ * <p>
+ * Each record holds the body (String or byte[]) and the headers with String, Number or Boolean
+ * values, the latter restored as Strings. A header at the start of the file stores the position of
+ * the oldest record not yet {@link #acknowledge acknowledged}. Appends and acknowledgements are
+ * forced to disk before they return, so a record survives a crash once {@link #append} returns and
+ * is delivered again after a restart unless it was acknowledged. A record cut short by a crash is
+ * dropped.
+ * <p>
+ * The file is truncated whenever the queue drains. Otherwise, once {@value #COMPACT_BYTES} bytes
+ * of acknowledged records make up at least half the file, the remaining records are copied to a new
+ * file that atomically replaces it.
+ * <p>
+ * Not thread-safe.
+ */
+final class SpillQueue implements Closeable {
+
+    private static final int MAGIC = 0x46495853;
+    /**
+     * Magic number and acknowledged read position.
+     */
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    static final long COMPACT_BYTES = 16L * 1024 * 1024;
+
+    private static final byte NULL_BODY = 0;
+    private static final byte STRING_BODY = 1;
+    private static final byte BYTES_BODY = 2;
+
+    private final Path file;
+    private final ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    private FileChannel channel;
+    /**
+     * Next record to poll, and the oldest record not acknowledged; they differ while a polled
+     * record is being delivered.
+     */
+    private long readPosition;
+    private long ackedPosition;
+    private long writePosition;
+    private long size;
+    private long unacknowledged;
+
+    SpillQueue(Path file) throws IOException {
+        this.file = file;
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        this.channel = open(file);
+        recover();
+    }
+
+    /**
+     * Appends a message's body and headers.
+     */
+    void append(Message message) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        List<Map.Entry<String, Object>> headers = new ArrayList<>();
+        for (Map.Entry<String, Object> header : message.getHeaders().entrySet()) {
+            Object value = header.getValue();
+            if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+                headers.add(header);
+            }
+        }
+        out.writeInt(headers.size());
+        for (Map.Entry<String, Object> header : headers) {
+            out.writeUTF(header.getKey());
+            out.writeUTF(header.getValue().toString());
+        }
+        Object body = message.getBody();
+        if (body == null) {
+            out.writeByte(NULL_BODY);
+        } else if (body instanceof byte[] array) {
+            out.writeByte(BYTES_BODY);
+            out.writeInt(array.length);
+            out.write(array);
+        } else {
+            byte[] text = message.getBody(String.class).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING_BODY);
+            out.writeInt(text.length);
+            out.write(text);
+        }
+        out.flush();
+
+        ByteBuffer record = ByteBuffer.wrap(bytes.toByteArray());
+        record.putInt(0, record.capacity() - Integer.BYTES);
+        long position = writePosition;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        channel.force(false);
+        writePosition = position;
+        size++;
+    }
+
+    /**
+     * Copies the oldest message not yet polled into {@code target}. It stays in the file until
+     * {@link #acknowledge acknowledged}, so it is delivered again if the process stops before then.
+     *
+     * @return false if the queue is empty
+     */
+    boolean poll(Message target) throws IOException {
+        if (size == 0) {
+            return false;
+        }
+        byte[] record = new byte[readLength(readPosition)];
+        readFully(ByteBuffer.wrap(record), readPosition + Integer.BYTES);
+        readPosition += Integer.BYTES + record.length;
+        size--;
+        unacknowledged++;
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        int headers = in.readInt();
+        for (int i = 0; i < headers; i++) {
+            target.setHeader(in.readUTF(), in.readUTF());
+        }
+        byte bodyType = in.readByte();
+        if (bodyType == NULL_BODY) {
+            target.setBody(null);
+            return true;
+        }
+        byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        target.setBody(bodyType == BYTES_BODY ? body : new String(body, StandardCharsets.UTF_8));
+        return true;
+    }
+
+    /**
+     * Records that every polled message has been handled, so that none of them is delivered again
+     * after a restart. Truncates or compacts the file when worthwhile.
+     */
+    void acknowledge() throws IOException {
+        if (unacknowledged == 0) {
+            return;
+        }
+        unacknowledged = 0;
+        if (size == 0) {
+            clear();
+            return;
+        }
+        ackedPosition = readPosition;
+        if (ackedPosition - HEADER_BYTES >= COMPACT_BYTES && (ackedPosition - HEADER_BYTES) * 2 >= writePosition - HEADER_BYTES) {
+            compact();
+        } else {
+            writeHeader(channel, ackedPosition);
+        }
+    }
+
+    /**
+     * Drops all records.
+     */
+    void clear() throws IOException {
+        channel.truncate(HEADER_BYTES);
+        writeHeader(channel, HEADER_BYTES);
+        readPosition = HEADER_BYTES;
+        ackedPosition = HEADER_BYTES;
+        writePosition = HEADER_BYTES;
+        size = 0;
+        unacknowledged = 0;
+    }
+
+    /**
+     * @return Whether no message is left to poll
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return Messages left to poll
+     */
+    long size() {
+        return size;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Copies the records from the acknowledged position to a new file and swaps it in.
+     */
+    private void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compact");
+        long remaining = writePosition - ackedPosition;
+        try (FileChannel target = open(compacted)) {
+            target.truncate(0);
+            writeHeader(target, HEADER_BYTES);
+            target.position(HEADER_BYTES);
+            long copied = 0;
+            while (copied < remaining) {
+                copied += channel.transferTo(ackedPosition + copied, remaining - copied, target);
+            }
+            target.force(true);
+        }
+        channel.close();
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = open(file);
+        long shift = ackedPosition - HEADER_BYTES;
+        readPosition -= shift;
+        ackedPosition = HEADER_BYTES;
+        writePosition -= shift;
+    }
+
+    /**
+     * Reads the acknowledged position of an existing file, counts the complete records after it and
+     * cuts off an incomplete last one.
+     */
+    private void recover() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES) {
+            clear();
+            return;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Not a spill file: " + file);
+        }
+        long position = Math.max(HEADER_BYTES, Math.min(header.getLong(Integer.BYTES), fileSize));
+        readPosition = position;
+        ackedPosition = position;
+        while (position + Integer.BYTES <= fileSize) {
+            int recordLength = readLength(position);
+            if (recordLength < 0 || position + Integer.BYTES + recordLength > fileSize) {
+                break;
+            }
+            position += Integer.BYTES + recordLength;
+            size++;
+        }
+        if (position < fileSize) {
+            channel.truncate(position);
+        }
+        writePosition = position;
+        if (size == 0) {
+            clear();
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void writeHeader(FileChannel channel, long ackedPosition) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putLong(ackedPosition).flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        channel.force(false);
+    }
+
+    private int readLength(long position) throws IOException {
+        length.clear();
+        readFully(length, position);
+        return length.getInt(0);
+    }
+
+    private void readFully(ByteBuffer target, long position) throws IOException {
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of spill file " + file);
+            }
+            position += read;
+        }
+    }
+}
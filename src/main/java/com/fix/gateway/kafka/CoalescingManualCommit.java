@@ -0,0 +1,45 @@
+package com.fix.gateway.kafka;
+
+import org.apache.camel.component.kafka.consumer.DefaultKafkaManualCommit;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommitFactory;
+
+/**
+ * Commit handle that records the offset as processed instead of committing it.
+ * The partition state is resolved once when the handle is created, so {@link #commit()} is a
+ * single atomic update and may be called from any thread. The actual commit is sent by the
+ * {@link OffsetCommitManager} on the consumer's poll thread.
+ */
+public class CoalescingManualCommit extends DefaultKafkaManualCommit {
+
+    private final OffsetCommitManager offsetCommitManager;
+    private final OffsetCommitManager.ConsumerOffsets consumerOffsets;
+    private final OffsetCommitManager.PartitionOffsets partitionOffsets;
+
+    CoalescingManualCommit(KafkaManualCommitFactory.CamelExchangePayload camelExchangePayload,
+                           KafkaManualCommitFactory.KafkaRecordPayload kafkaRecordPayload,
+                           OffsetCommitManager offsetCommitManager,
+                           OffsetCommitManager.ConsumerOffsets consumerOffsets,
+                           OffsetCommitManager.PartitionOffsets partitionOffsets) {
+        super(camelExchangePayload, kafkaRecordPayload);
+        this.offsetCommitManager = offsetCommitManager;
+        this.consumerOffsets = consumerOffsets;
+        this.partitionOffsets = partitionOffsets;
+    }
+
+    /**
+     * Marks this record, and every earlier record of its partition, as processed.
+     */
+    @Override
+    public void commit() {
+        partitionOffsets.markProcessed(getRecordOffset());
+        offsetCommitManager.commitIfDue(consumerOffsets);
+    }
+
+    /**
+     * Sends a commit for offsets marked earlier if one is due, without marking this record.
+     * Only has an effect on the consumer's poll thread.
+     */
+    public void commitIfDue() {
+        offsetCommitManager.commitIfDue(consumerOffsets);
+    }
+}
@@ -0,0 +1,43 @@
+package com.fix.gateway.kafka;
+
+import org.apache.camel.component.kafka.consumer.CommitManager;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommitFactory;
+
+/**
+ * Creates {@link CoalescingManualCommit} handles bound to the {@link OffsetCommitManager}.
+ * Camel calls the factory on the consumer's poll thread for every record.
+ */
+public class CoalescingManualCommitFactory implements KafkaManualCommitFactory {
+
+    private final OffsetCommitManager offsetCommitManager;
+    private final long commitIntervalMs;
+
+    public CoalescingManualCommitFactory(OffsetCommitManager offsetCommitManager) {
+        this(offsetCommitManager, 0);
+    }
+
+    /**
+     * @param commitIntervalMs Commit interval of the consumers using this factory; 0 uses the manager's default
+     */
+    public CoalescingManualCommitFactory(OffsetCommitManager offsetCommitManager, long commitIntervalMs) {
+        this.offsetCommitManager = offsetCommitManager;
+        this.commitIntervalMs = commitIntervalMs > 0 ? commitIntervalMs : offsetCommitManager.getCommitIntervalMs();
+    }
+
+    /**
+     * @return Longest time in milliseconds a processed offset of these consumers stays uncommitted
+     */
+    public long getCommitIntervalMs() {
+        return commitIntervalMs;
+    }
+
+    @Override
+    public KafkaManualCommit newInstance(CamelExchangePayload camelExchangePayload,
+                                         KafkaRecordPayload kafkaRecordPayload,
+                                         CommitManager commitManager) {
+        OffsetCommitManager.ConsumerOffsets consumerOffsets = offsetCommitManager.register(camelExchangePayload.consumer, commitIntervalMs);
+        return new CoalescingManualCommit(camelExchangePayload, kafkaRecordPayload, offsetCommitManager,
+            consumerOffsets, consumerOffsets.partition(kafkaRecordPayload.partition));
+    }
+}
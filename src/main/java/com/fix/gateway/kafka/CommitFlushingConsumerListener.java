@@ -0,0 +1,38 @@
+package com.fix.gateway.kafka;
+
+import org.apache.camel.component.kafka.consumer.errorhandler.KafkaConsumerListener;
+import org.apache.camel.component.kafka.consumer.support.ProcessingResult;
+import org.apache.kafka.clients.consumer.Consumer;
+
+/**
+ * Consumer listener that lets the {@link OffsetCommitManager} send due commits after every poll,
+ * including polls that return no records. Without it, offsets processed before a partition goes
+ * idle would only be committed when the next record arrives or the partition is revoked.
+ * <p>
+ * Attached to a route with {@code .pausable(listener, resumable -> true)}; Camel calls it on the
+ * consumer's poll thread. Consuming and processing are never paused.
+ */
+public class CommitFlushingConsumerListener extends KafkaConsumerListener {
+
+    private final OffsetCommitManager offsetCommitManager;
+
+    public CommitFlushingConsumerListener(OffsetCommitManager offsetCommitManager) {
+        this.offsetCommitManager = offsetCommitManager;
+    }
+
+    /**
+     * @param consumer The Kafka consumer that just polled; one listener serves every consumer of the route
+     */
+    @Override
+    public boolean afterConsume(Object consumer) {
+        if (consumer instanceof Consumer<?, ?> kafkaConsumer) {
+            offsetCommitManager.commitIfDue(kafkaConsumer);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean afterProcess(ProcessingResult result) {
+        return true;
+    }
+}
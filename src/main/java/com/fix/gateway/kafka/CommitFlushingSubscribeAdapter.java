@@ -0,0 +1,47 @@
+package com.fix.gateway.kafka;
+
+import org.apache.camel.component.kafka.consumer.support.subcription.DefaultSubscribeAdapter;
+import org.apache.camel.component.kafka.consumer.support.subcription.SubscribeAdapter;
+import org.apache.camel.component.kafka.consumer.support.subcription.TopicInfo;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+
+/**
+ * Subscribes like Camel's default adapter, with a rebalance listener that synchronously commits
+ * the offsets pending in the {@link OffsetCommitManager} before partitions are revoked.
+ * Consumer shutdown revokes all partitions, so it flushes as well.
+ */
+public class CommitFlushingSubscribeAdapter implements SubscribeAdapter {
+
+    private final OffsetCommitManager offsetCommitManager;
+    private final SubscribeAdapter delegate = new DefaultSubscribeAdapter();
+
+    public CommitFlushingSubscribeAdapter(OffsetCommitManager offsetCommitManager) {
+        this.offsetCommitManager = offsetCommitManager;
+    }
+
+    @Override
+    public void subscribe(Consumer<?, ?> consumer, ConsumerRebalanceListener reassignListener, TopicInfo topicInfo) {
+        delegate.subscribe(consumer, new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                offsetCommitManager.flush(consumer, partitions);
+                reassignListener.onPartitionsRevoked(partitions);
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                reassignListener.onPartitionsAssigned(partitions);
+            }
+
+            @Override
+            public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                offsetCommitManager.discard(consumer, partitions);
+                reassignListener.onPartitionsLost(partitions);
+            }
+        }, topicInfo);
+    }
+}
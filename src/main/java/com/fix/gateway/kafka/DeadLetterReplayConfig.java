@@ -0,0 +1,44 @@
+package com.fix.gateway.kafka;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Replay of dead letter topics through destination routes (see {@code /api/replay}).
+ * Replays read with assigned partitions and no consumer group, so they commit nothing and can be
+ * repeated; each stops at the end offsets seen when it started, so messages that fail again and
+ * are dead-lettered anew are not picked up by the same replay.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.kafka.replay")
+@Data
+public class DeadLetterReplayConfig {
+
+    /**
+     * Messages per second of a replay that does not set its own rate.
+     */
+    private double ratePerSecond = 50;
+
+    /**
+     * Highest rate a replay may ask for.
+     */
+    private double maxRatePerSecond = 1000;
+
+    /**
+     * Messages a replay sends at the same time unless it sets its own; 1 keeps partition order.
+     */
+    private int concurrency = 4;
+
+    /**
+     * Highest concurrency a replay may ask for.
+     */
+    private int maxConcurrency = 32;
+
+    private int maxPollRecords = 200;
+
+    /**
+     * Finished replays kept for their progress reports.
+     */
+    private int retainedJobs = 20;
+}
@@ -0,0 +1,288 @@
+package com.fix.gateway.kafka;
+
+import org.apache.camel.component.kafka.DefaultKafkaClientFactory;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.Uuid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Kafka client factory handing out one shared producer per cluster, serializers and delivery settings.
+ * <p>
+ * Camel creates a producer per endpoint URI and closes it when the endpoint stops. This factory
+ * returns reference-counted handles instead: the first endpoint for a key creates the producer,
+ * using its properties with the registry's batching settings applied (see {@link ProducerRegistryConfig}),
+ * and the producer is closed when the last handle is closed. Endpoints only share a producer when
+ * they agree on acks, idempotence, retries, in-flight requests and request/delivery timeouts, so no
+ * endpoint gets weaker delivery guarantees than it asked for. Other per-endpoint producer settings
+ * of later endpoints are not applied and are logged. Transactional producers are never shared.
+ * Consumers are created as by Camel's default factory.
+ */
+public class KafkaProducerRegistry extends DefaultKafkaClientFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaProducerRegistry.class);
+
+    /**
+     * Properties set by the registry; ignored when comparing settings.
+     */
+    private static final Set<String> REGISTRY_PROPERTIES = Set.of(
+        ProducerConfig.CLIENT_ID_CONFIG, ProducerConfig.LINGER_MS_CONFIG,
+        ProducerConfig.BATCH_SIZE_CONFIG, ProducerConfig.COMPRESSION_TYPE_CONFIG,
+        ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG);
+
+    private final ProducerRegistryConfig config;
+    private final Function<Properties, Producer<Object, Object>> producerCreator;
+    private final Map<ProducerKey, SharedProducer> producers = new HashMap<>();
+
+    public KafkaProducerRegistry(ProducerRegistryConfig config) {
+        this(config, KafkaProducer::new);
+    }
+
+    KafkaProducerRegistry(ProducerRegistryConfig config, Function<Properties, Producer<Object, Object>> producerCreator) {
+        this.config = config;
+        this.producerCreator = producerCreator;
+    }
+
+    @Override
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public Producer getProducer(Properties kafkaProps) {
+        if (kafkaProps.getProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG) != null) {
+            return producerCreator.apply(kafkaProps);
+        }
+
+        ProducerKey key = ProducerKey.of(kafkaProps);
+
+        synchronized (producers) {
+            SharedProducer shared = producers.get(key);
+            if (shared == null) {
+                Properties sharedProps = sharedProperties(key, kafkaProps);
+                shared = new SharedProducer(key, producerCreator.apply(sharedProps), sharedProps);
+                producers.put(key, shared);
+                log.info("Created shared Kafka producer for {} (linger.ms={}, batch.size={}, compression.type={})",
+                    key, sharedProps.get(ProducerConfig.LINGER_MS_CONFIG),
+                    sharedProps.get(ProducerConfig.BATCH_SIZE_CONFIG), sharedProps.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+            } else {
+                logIgnoredSettings(shared, kafkaProps);
+            }
+            shared.references++;
+            return new ProducerHandle(shared);
+        }
+    }
+
+    /**
+     * @return Number of open shared producers
+     */
+    int size() {
+        synchronized (producers) {
+            return producers.size();
+        }
+    }
+
+    private Properties sharedProperties(ProducerKey key, Properties endpointProps) {
+        int lingerMs = config.getLingerMs();
+        int batchSize = config.getBatchSize();
+        String compressionType = config.getCompressionType();
+        for (ProducerRegistryConfig.Entry entry : config.getEntries()) {
+            if (entry.matches(key.brokers(), key.valueSerializer())) {
+                lingerMs = entry.getLingerMs() != null ? entry.getLingerMs() : lingerMs;
+                batchSize = entry.getBatchSize() != null ? entry.getBatchSize() : batchSize;
+                compressionType = entry.getCompressionType() != null ? entry.getCompressionType() : compressionType;
+                break;
+            }
+        }
+
+        Properties props = new Properties();
+        props.putAll(endpointProps);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, String.valueOf(lingerMs));
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(batchSize));
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+
+        // Kafka rejects delivery.timeout.ms < linger.ms + request.timeout.ms
+        Object requestTimeout = props.get(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG);
+        Object deliveryTimeout = props.get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG);
+        if (requestTimeout != null && deliveryTimeout != null) {
+            long minimum = lingerMs + Long.parseLong(requestTimeout.toString());
+            if (Long.parseLong(deliveryTimeout.toString()) < minimum) {
+                props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, String.valueOf(minimum));
+            }
+        }
+        return props;
+    }
+
+    private void logIgnoredSettings(SharedProducer shared, Properties endpointProps) {
+        Map<Object, Object> ignored = new HashMap<>();
+        for (Map.Entry<Object, Object> property : endpointProps.entrySet()) {
+            if (!REGISTRY_PROPERTIES.contains(property.getKey())
+                    && !Objects.equals(String.valueOf(property.getValue()),
+                        String.valueOf(shared.properties.get(property.getKey())))) {
+                ignored.put(property.getKey(), property.getValue());
+            }
+        }
+        if (!ignored.isEmpty()) {
+            log.info("Shared Kafka producer for {} keeps its settings; endpoint settings {} are not applied",
+                shared.key, ignored);
+        }
+    }
+
+    private void release(SharedProducer shared, Duration timeout) {
+        synchronized (producers) {
+            if (--shared.references > 0) {
+                return;
+            }
+            producers.remove(shared.key, shared);
+        }
+        log.info("Closing shared Kafka producer for {}", shared.key);
+        if (timeout != null) {
+            shared.producer.close(timeout);
+        } else {
+            shared.producer.close();
+        }
+    }
+
+    /**
+     * Settings a producer can only be shared on: where and how records are written, and the
+     * delivery guarantees of the endpoints using it.
+     */
+    record ProducerKey(String brokers, String keySerializer, String valueSerializer,
+                       String acks, String enableIdempotence, String retries, String maxInFlightRequests,
+                       String requestTimeoutMs, String deliveryTimeoutMs) {
+
+        static ProducerKey of(Properties props) {
+            return new ProducerKey(
+                props.getProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG),
+                String.valueOf(props.get(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG)),
+                String.valueOf(props.get(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG)),
+                String.valueOf(props.get(ProducerConfig.ACKS_CONFIG)),
+                String.valueOf(props.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG)),
+                String.valueOf(props.get(ProducerConfig.RETRIES_CONFIG)),
+                String.valueOf(props.get(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION)),
+                String.valueOf(props.get(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG)),
+                String.valueOf(props.get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG)));
+        }
+    }
+
+    private static final class SharedProducer {
+        private final ProducerKey key;
+        private final Producer<Object, Object> producer;
+        private final Properties properties;
+        /**
+         * Open handles; guarded by the registry's producer map.
+         */
+        private int references;
+
+        private SharedProducer(ProducerKey key, Producer<Object, Object> producer, Properties properties) {
+            this.key = key;
+            this.producer = producer;
+            this.properties = properties;
+        }
+    }
+
+    /**
+     * Producer handle of one endpoint. Closing it releases the endpoint's reference only;
+     * transactions are not supported on shared producers.
+     */
+    private final class ProducerHandle implements Producer<Object, Object> {
+
+        private final SharedProducer shared;
+        private boolean closed;
+
+        private ProducerHandle(SharedProducer shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<Object, Object> record) {
+            return shared.producer.send(record);
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<Object, Object> record, Callback callback) {
+            return shared.producer.send(record, callback);
+        }
+
+        @Override
+        public void flush() {
+            shared.producer.flush();
+        }
+
+        @Override
+        public List<PartitionInfo> partitionsFor(String topic) {
+            return shared.producer.partitionsFor(topic);
+        }
+
+        @Override
+        public Map<MetricName, ? extends Metric> metrics() {
+            return shared.producer.metrics();
+        }
+
+        @Override
+        public Uuid clientInstanceId(Duration timeout) {
+            return shared.producer.clientInstanceId(timeout);
+        }
+
+        @Override
+        public void close() {
+            close(null);
+        }
+
+        @Override
+        public synchronized void close(Duration timeout) {
+            if (!closed) {
+                closed = true;
+                release(shared, timeout);
+            }
+        }
+
+        @Override
+        public void initTransactions() {
+            throw new UnsupportedOperationException("Transactions are not supported on shared producers");
+        }
+
+        @Override
+        public void beginTransaction() {
+            throw new UnsupportedOperationException("Transactions are not supported on shared producers");
+        }
+
+        @Override
+        @Deprecated
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, String consumerGroupId) {
+            throw new UnsupportedOperationException("Transactions are not supported on shared producers");
+        }
+
+        @Override
+        public void sendOffsetsToTransaction(Map<TopicPartition, OffsetAndMetadata> offsets, ConsumerGroupMetadata groupMetadata) {
+            throw new UnsupportedOperationException("Transactions are not supported on shared producers");
+        }
+
+        @Override
+        public void commitTransaction() {
+            throw new UnsupportedOperationException("Transactions are not supported on shared producers");
+        }
+
+        @Override
+        public void abortTransaction() {
+            throw new UnsupportedOperationException("Transactions are not supported on shared producers");
+        }
+    }
+}
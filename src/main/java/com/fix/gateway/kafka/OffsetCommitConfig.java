@@ -0,0 +1,50 @@
+package com.fix.gateway.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Data;
+import org.apache.camel.component.kafka.consumer.support.subcription.SubscribeAdapter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Coalesced Kafka offset commits.
+ * Ordered consumer endpoints use a {@link CoalescingManualCommitFactory} set on the endpoint by the
+ * router. It is not registered as a bean because Camel would autowire a single
+ * KafkaManualCommitFactory into every Kafka endpoint. The {@code subscribeAdapter} bean is picked
+ * up by every Camel Kafka consumer and flushes pending offsets when partitions are revoked.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.kafka.commit")
+@Data
+public class OffsetCommitConfig {
+
+    /**
+     * Longest time, in milliseconds, between asynchronous commits while records are processed.
+     */
+    private long intervalMs = 1000;
+
+    /**
+     * Processed but uncommitted records per consumer that trigger a commit before the interval elapses.
+     */
+    private long maxUncommittedRecords = 500;
+
+    /**
+     * Timeout, in milliseconds, of the synchronous commit on rebalance and shutdown.
+     */
+    private long syncCommitTimeoutMs = 5000;
+
+    @Bean
+    public OffsetCommitManager offsetCommitManager(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new OffsetCommitManager(this, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Looked up by name by the Camel Kafka consumer.
+     */
+    @Bean
+    public SubscribeAdapter subscribeAdapter(OffsetCommitManager offsetCommitManager) {
+        return new CommitFlushingSubscribeAdapter(offsetCommitManager);
+    }
+}
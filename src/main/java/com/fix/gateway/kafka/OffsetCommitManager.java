@@ -0,0 +1,324 @@
+package com.fix.gateway.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks processed offsets per Kafka consumer and partition and commits them in coalesced batches.
+ * <p>
+ * Commit handles ({@link CoalescingManualCommit}) only record the processed offset, from any thread.
+ * On the consumer's poll thread the manager issues one {@code commitAsync} covering every partition
+ * with uncommitted progress, once {@code maxUncommittedRecords} records are pending or the commit
+ * interval has passed since the last commit. The interval is {@code intervalMs} unless the consumer
+ * was registered with its own. Due commits are checked when records are processed and, through
+ * {@link CommitFlushingConsumerListener}, after every poll, so an idle partition is committed within
+ * one interval plus one poll timeout. Pending offsets are committed synchronously when partitions
+ * are revoked, which includes consumer shutdown (see {@link CommitFlushingSubscribeAdapter}).
+ * <p>
+ * Metrics: {@value #LATENCY_METRIC} (commit round trip, tagged async/sync),
+ * {@value #LAG_METRIC} (processed but uncommitted records per partition) and {@value #FAILURE_METRIC}.
+ */
+public class OffsetCommitManager {
+
+    private static final Logger log = LoggerFactory.getLogger(OffsetCommitManager.class);
+
+    static final String LATENCY_METRIC = "fix.kafka.commit.latency";
+    static final String LAG_METRIC = "fix.kafka.commit.lag";
+    static final String FAILURE_METRIC = "fix.kafka.commit.failures";
+
+    private final long commitIntervalNanos;
+    private final long maxUncommittedRecords;
+    private final Duration syncCommitTimeout;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier nanoClock;
+
+    private final Timer asyncLatency;
+    private final Timer syncLatency;
+    private final Counter failures;
+
+    private final Map<Consumer<?, ?>, ConsumerOffsets> consumers = new ConcurrentHashMap<>();
+
+    public OffsetCommitManager(OffsetCommitConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::nanoTime);
+    }
+
+    OffsetCommitManager(OffsetCommitConfig config, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getIntervalMs());
+        this.maxUncommittedRecords = Math.max(1, config.getMaxUncommittedRecords());
+        this.syncCommitTimeout = Duration.ofMillis(config.getSyncCommitTimeoutMs());
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+
+        if (meterRegistry != null) {
+            asyncLatency = latencyTimer("async");
+            syncLatency = latencyTimer("sync");
+            failures = Counter.builder(FAILURE_METRIC)
+                .description("Failed Kafka offset commits")
+                .register(meterRegistry);
+        } else {
+            asyncLatency = null;
+            syncLatency = null;
+            failures = null;
+        }
+    }
+
+    /**
+     * @return Default longest time in milliseconds between commits while offsets are pending
+     */
+    public long getCommitIntervalMs() {
+        return TimeUnit.NANOSECONDS.toMillis(commitIntervalNanos);
+    }
+
+    /**
+     * Returns the offsets of a consumer, registering it on first use.
+     * Must be called on the consumer's poll thread, which is recorded for later commits.
+     *
+     * @param commitIntervalMs Commit interval of this consumer; 0 or less uses {@code intervalMs}
+     */
+    ConsumerOffsets register(Consumer<?, ?> consumer, long commitIntervalMs) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        if (offsets == null) {
+            long intervalNanos = commitIntervalMs > 0 ? TimeUnit.MILLISECONDS.toNanos(commitIntervalMs) : commitIntervalNanos;
+            offsets = consumers.computeIfAbsent(consumer,
+                c -> new ConsumerOffsets(c, Thread.currentThread(), groupIdOf(c), intervalNanos));
+        }
+        return offsets;
+    }
+
+    /**
+     * Commits the offsets of a registered consumer if a commit is due; called after every poll.
+     * Does nothing for unknown consumers or off the consumer's poll thread.
+     */
+    void commitIfDue(Consumer<?, ?> consumer) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        if (offsets != null) {
+            commitIfDue(offsets);
+        }
+    }
+
+    /**
+     * Commits asynchronously if enough records are pending or the commit interval has elapsed.
+     * Does nothing unless called on the consumer's poll thread.
+     */
+    void commitIfDue(ConsumerOffsets offsets) {
+        if (Thread.currentThread() != offsets.pollThread) {
+            return;
+        }
+        long uncommitted = 0;
+        for (PartitionOffsets partition : offsets.partitions.values()) {
+            uncommitted += partition.unrequested();
+        }
+        if (uncommitted == 0) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        if (uncommitted < maxUncommittedRecords && now - offsets.lastCommitNanos < offsets.commitIntervalNanos) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<>();
+        for (PartitionOffsets partition : offsets.partitions.values()) {
+            long next = partition.processedNext.get();
+            if (next > partition.requestedNext) {
+                partition.requestedNext = next;
+                commit.put(partition.topicPartition, new OffsetAndMetadata(next));
+            }
+        }
+        offsets.lastCommitNanos = now;
+        offsets.consumer.commitAsync(commit, (committed, exception) ->
+            onCommitComplete(offsets, commit, exception, now, asyncLatency));
+    }
+
+    /**
+     * Synchronously commits the pending offsets of the given partitions and stops tracking them.
+     * Called on the poll thread when partitions are revoked.
+     */
+    public void flush(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        if (offsets == null) {
+            return;
+        }
+        Map<TopicPartition, OffsetAndMetadata> commit = new HashMap<>();
+        for (TopicPartition topicPartition : partitions) {
+            PartitionOffsets partition = offsets.partitions.get(topicPartition);
+            if (partition != null && partition.uncommitted() > 0) {
+                commit.put(topicPartition, new OffsetAndMetadata(partition.processedNext.get()));
+            }
+        }
+        if (!commit.isEmpty()) {
+            long start = nanoClock.getAsLong();
+            Exception failure = null;
+            try {
+                consumer.commitSync(commit, syncCommitTimeout);
+            } catch (Exception e) {
+                failure = e;
+            }
+            onCommitComplete(offsets, commit, failure, start, syncLatency);
+        }
+        discard(consumer, partitions);
+    }
+
+    /**
+     * Stops tracking partitions without committing, e.g. when they were lost to another consumer.
+     */
+    public void discard(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        if (offsets == null) {
+            return;
+        }
+        for (TopicPartition topicPartition : partitions) {
+            PartitionOffsets partition = offsets.partitions.remove(topicPartition);
+            if (partition != null && partition.lagGauge != null) {
+                meterRegistry.remove(partition.lagGauge);
+            }
+        }
+        if (offsets.partitions.isEmpty()) {
+            consumers.remove(consumer, offsets);
+        }
+    }
+
+    /**
+     * @return Records processed but not yet committed for the partition, or 0 if it is not tracked
+     */
+    public long getUncommitted(Consumer<?, ?> consumer, TopicPartition topicPartition) {
+        ConsumerOffsets offsets = consumers.get(consumer);
+        PartitionOffsets partition = offsets != null ? offsets.partitions.get(topicPartition) : null;
+        return partition != null ? partition.uncommitted() : 0;
+    }
+
+    private void onCommitComplete(ConsumerOffsets offsets, Map<TopicPartition, OffsetAndMetadata> commit,
+                                  Exception exception, long startNanos, Timer latency) {
+        if (latency != null) {
+            latency.record(nanoClock.getAsLong() - startNanos, TimeUnit.NANOSECONDS);
+        }
+        for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : commit.entrySet()) {
+            PartitionOffsets partition = offsets.partitions.get(entry.getKey());
+            if (partition == null) {
+                continue;
+            }
+            if (exception == null) {
+                partition.committedNext = Math.max(partition.committedNext, entry.getValue().offset());
+            } else {
+                // Resend on the next commit
+                partition.requestedNext = partition.committedNext;
+            }
+        }
+        if (exception != null) {
+            if (failures != null) {
+                failures.increment();
+            }
+            log.warn("Failed to commit offsets {} for group {}: {}", commit, offsets.groupId, exception.getMessage());
+        } else {
+            log.debug("Committed offsets {} for group {}", commit, offsets.groupId);
+        }
+    }
+
+    private Timer latencyTimer(String mode) {
+        return Timer.builder(LATENCY_METRIC)
+            .description("Kafka offset commit round trip")
+            .tag("mode", mode)
+            .register(meterRegistry);
+    }
+
+    private static String groupIdOf(Consumer<?, ?> consumer) {
+        try {
+            return consumer.groupMetadata().groupId();
+        } catch (RuntimeException e) {
+            return "unknown";
+        }
+    }
+
+    /**
+     * Offsets of one Kafka consumer. The consumer itself is only used on {@link #pollThread}.
+     */
+    final class ConsumerOffsets {
+        private final Consumer<?, ?> consumer;
+        private final Thread pollThread;
+        private final String groupId;
+        private final long commitIntervalNanos;
+        private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+        private long lastCommitNanos = nanoClock.getAsLong();
+
+        private ConsumerOffsets(Consumer<?, ?> consumer, Thread pollThread, String groupId, long commitIntervalNanos) {
+            this.consumer = consumer;
+            this.pollThread = pollThread;
+            this.groupId = groupId;
+            this.commitIntervalNanos = commitIntervalNanos;
+        }
+
+        PartitionOffsets partition(TopicPartition topicPartition) {
+            PartitionOffsets partition = partitions.get(topicPartition);
+            if (partition == null) {
+                partition = partitions.computeIfAbsent(topicPartition, tp -> new PartitionOffsets(tp, groupId));
+            }
+            return partition;
+        }
+    }
+
+    /**
+     * Offsets of one partition, in Kafka's "next offset to consume" form.
+     */
+    final class PartitionOffsets {
+        private final TopicPartition topicPartition;
+        private final AtomicLong processedNext = new AtomicLong(-1);
+        private final Gauge lagGauge;
+        private volatile long committedNext = -1;
+        /**
+         * Highest offset sent for commit; poll thread only.
+         */
+        private volatile long requestedNext = -1;
+
+        private PartitionOffsets(TopicPartition topicPartition, String groupId) {
+            this.topicPartition = topicPartition;
+            this.lagGauge = meterRegistry == null ? null : Gauge.builder(LAG_METRIC, this, PartitionOffsets::uncommitted)
+                .description("Records processed but not yet committed")
+                .tag("group", groupId)
+                .tag("topic", topicPartition.topic())
+                .tag("partition", String.valueOf(topicPartition.partition()))
+                .strongReference(true)
+                .register(meterRegistry);
+        }
+
+        /**
+         * Records that the given offset and everything before it on this partition is processed.
+         * Safe to call from any thread.
+         */
+        void markProcessed(long offset) {
+            if (committedNext < 0) {
+                // Records before the first one seen here were committed by an earlier owner
+                synchronized (this) {
+                    if (committedNext < 0) {
+                        committedNext = offset;
+                        requestedNext = offset;
+                    }
+                }
+            }
+            processedNext.accumulateAndGet(offset + 1, Math::max);
+        }
+
+        long uncommitted() {
+            long committed = committedNext;
+            return committed < 0 ? 0 : Math.max(0, processedNext.get() - committed);
+        }
+
+        private long unrequested() {
+            return Math.max(0, processedNext.get() - requestedNext);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.fix.gateway.kafka;
+
+import lombok.Data;
+import org.apache.camel.component.kafka.KafkaClientFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared Kafka producers.
+ * The {@code kafkaClientFactory} bean is picked up by the Camel Kafka component, so OUTPUT routes,
+ * Kafka destinations and dead letter endpoints with the same brokers, serializers and delivery
+ * settings (acks, idempotence, retries, timeouts) share one producer instead of one per endpoint URI. Batching is configured here rather than per endpoint:
+ * the defaults below, optionally overridden per registry entry.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.kafka.producers")
+@Data
+public class ProducerRegistryConfig {
+
+    /**
+     * Whether endpoints share producers; false gives every endpoint its own producer as before.
+     */
+    private boolean shared = true;
+
+    /**
+     * Default linger.ms of shared producers.
+     */
+    private int lingerMs = 5;
+
+    /**
+     * Default batch.size of shared producers, in bytes.
+     */
+    private int batchSize = 65536;
+
+    /**
+     * Default compression.type of shared producers (none, gzip, snappy, lz4, zstd).
+     */
+    private String compressionType = "lz4";
+
+    /**
+     * Batching overrides per registry entry; the first entry matching a producer's brokers and value serializer applies.
+     */
+    private List<Entry> entries = new ArrayList<>();
+
+    @Bean
+    @ConditionalOnProperty(prefix = "fix.kafka.producers", name = "shared", havingValue = "true", matchIfMissing = true)
+    public KafkaClientFactory kafkaClientFactory() {
+        return new KafkaProducerRegistry(this);
+    }
+
+    /**
+     * Settings of the shared producers matching {@link #brokers} and {@link #valueSerializer}.
+     * Unset batching values fall back to the defaults.
+     */
+    @Data
+    public static class Entry {
+
+        /**
+         * bootstrap.servers to match; null matches any cluster.
+         */
+        private String brokers;
+
+        /**
+         * Value serializer class to match, fully qualified or simple name; null matches any.
+         */
+        private String valueSerializer;
+
+        private Integer lingerMs;
+
+        private Integer batchSize;
+
+        private String compressionType;
+
+        boolean matches(String producerBrokers, String producerValueSerializer) {
+            if (brokers != null && !brokers.equals(producerBrokers)) {
+                return false;
+            }
+            return valueSerializer == null
+                || valueSerializer.equals(producerValueSerializer)
+                || (producerValueSerializer != null && producerValueSerializer.endsWith("." + valueSerializer));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.fix.gateway.kafka;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.Processor;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Failure step of a destination route with retry topics: points the message at the next retry
+ * tier, or at the dead letter topic once every tier has been tried, by setting
+ * {@link KafkaConstants#OVERRIDE_TOPIC}. The Kafka producer that follows sends it there.
+ * <p>
+ * The retry headers travel with the record: {@link #TIER} is the tier the message was published
+ * to, {@link #NOT_BEFORE} the epoch milliseconds before which it is not re-sent and
+ * {@link #DESTINATION} the destination route that re-sends it. A message re-sent by a
+ * {@link RetryTopicConsumer} still carries its tier, so a further failure moves it on.
+ */
+public class RetryTierProcessor implements Processor {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryTierProcessor.class);
+
+    public static final String TIER = "fixRetryTier";
+    public static final String NOT_BEFORE = "fixRetryNotBefore";
+    public static final String DESTINATION = "fixRetryDestination";
+    public static final String CAUSE = "fixRetryCause";
+
+    private final String destinationRouteId;
+    private final List<String> tierTopics;
+    private final List<Duration> delays;
+    private final String deadLetterTopic;
+    private final LongSupplier clock;
+
+    /**
+     * @param tierTopics Retry topic of each tier, in the order of {@code delays}
+     */
+    public RetryTierProcessor(String destinationRouteId, List<String> tierTopics, List<Duration> delays, String deadLetterTopic) {
+        this(destinationRouteId, tierTopics, delays, deadLetterTopic, System::currentTimeMillis);
+    }
+
+    RetryTierProcessor(String destinationRouteId, List<String> tierTopics, List<Duration> delays, String deadLetterTopic,
+                       LongSupplier clock) {
+        if (tierTopics.size() != delays.size()) {
+            throw new IllegalArgumentException(delays.size() + " retry tiers but " + tierTopics.size() + " topics");
+        }
+        this.destinationRouteId = destinationRouteId;
+        this.tierTopics = tierTopics;
+        this.delays = delays;
+        this.deadLetterTopic = deadLetterTopic;
+        this.clock = clock;
+    }
+
+    @Override
+    public void process(Exchange exchange) {
+        Message in = exchange.getIn();
+        Exception cause = exchange.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+        if (cause != null) {
+            in.setHeader(CAUSE, cause.getMessage() != null ? cause.getMessage() : cause.getClass().getName());
+        }
+        int tier = nextTier(in);
+        if (tier >= tierTopics.size()) {
+            log.error("Destination {}: Failed after {} retry tiers, sending to {}", destinationRouteId, tierTopics.size(), deadLetterTopic);
+            in.setHeader(KafkaConstants.OVERRIDE_TOPIC, deadLetterTopic);
+            return;
+        }
+        long notBefore = clock.getAsLong() + delays.get(tier).toMillis();
+        // Strings, so that the record headers read back the same whatever the header serializer
+        in.setHeader(TIER, String.valueOf(tier));
+        in.setHeader(NOT_BEFORE, String.valueOf(notBefore));
+        in.setHeader(DESTINATION, destinationRouteId);
+        in.setHeader(KafkaConstants.OVERRIDE_TOPIC, tierTopics.get(tier));
+        log.warn("Destination {}: Send failed, retrying from {} in {}ms", destinationRouteId, tierTopics.get(tier), delays.get(tier).toMillis());
+    }
+
+    private static int nextTier(Message in) {
+        String current = in.getHeader(TIER, String.class);
+        if (current == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(current) + 1;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.fix.gateway.kafka;
+
+import com.fix.gateway.model.PayloadFormat;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.camel.support.service.ServiceSupport;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Consumer of one retry tier: subscribes to the tier's retry topics and re-sends each record to
+ * the destination route named in its {@link RetryTierProcessor#DESTINATION} header once its
+ * {@link RetryTierProcessor#NOT_BEFORE} time has passed. A failure is handled by the destination
+ * route, which moves the message on to the next tier.
+ * <p>
+ * Records of a tier all have the same delay, so each partition is in not-before order: when the
+ * next record of a partition is not due yet, the consumer seeks back to it and pauses the
+ * partition until then. Nothing sleeps; the poll timeout is cut short for the earliest paused
+ * partition. Offsets are committed after each poll, once its due records have been re-sent.
+ * <p>
+ * A record that cannot be re-sent, e.g. because the next tier's topic cannot be written, is not
+ * committed: the partition is paused at it and tried again after a backoff. A consumer that fails
+ * is closed and, after a backoff, replaced by a new one that resumes from the committed offsets;
+ * the tier only stops consuming when it is stopped.
+ */
+public class RetryTopicConsumer extends ServiceSupport implements Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryTopicConsumer.class);
+
+    /**
+     * Wait before a failed re-send is tried again, and first wait before a failed consumer is replaced.
+     */
+    static final long RETRY_BACKOFF_MS = 1000;
+
+    /**
+     * Longest wait before a consumer that keeps failing is replaced.
+     */
+    static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final CamelContext camelContext;
+    private final String tier;
+    private final Pattern topicPattern;
+    private final Supplier<Consumer<String, byte[]>> consumerFactory;
+    private final Function<String, PayloadFormat> payloadFormats;
+    private final long pollTimeoutMs;
+    private final LongSupplier clock;
+
+    /**
+     * Paused partitions and when their next record is due; only used by the poll thread.
+     */
+    private final Map<TopicPartition, Long> paused = new HashMap<>();
+    private final Map<TopicPartition, OffsetAndMetadata> processed = new HashMap<>();
+
+    private volatile Consumer<String, byte[]> consumer;
+    private volatile boolean stopping;
+    private volatile CountDownLatch stopSignal;
+    private ExecutorService executor;
+    private ProducerTemplate producerTemplate;
+
+    /**
+     * @param payloadFormats Payload format of the parent route of a destination route, or null for unknown routes
+     */
+    public RetryTopicConsumer(CamelContext camelContext, String tier, Pattern topicPattern,
+                              Supplier<Consumer<String, byte[]>> consumerFactory,
+                              Function<String, PayloadFormat> payloadFormats, long pollTimeoutMs) {
+        this(camelContext, tier, topicPattern, consumerFactory, payloadFormats, pollTimeoutMs, System::currentTimeMillis);
+    }
+
+    RetryTopicConsumer(CamelContext camelContext, String tier, Pattern topicPattern,
+                       Supplier<Consumer<String, byte[]>> consumerFactory,
+                       Function<String, PayloadFormat> payloadFormats, long pollTimeoutMs, LongSupplier clock) {
+        this.camelContext = camelContext;
+        this.tier = tier;
+        this.topicPattern = topicPattern;
+        this.consumerFactory = consumerFactory;
+        this.payloadFormats = payloadFormats;
+        this.pollTimeoutMs = Math.max(1, pollTimeoutMs);
+        this.clock = clock;
+    }
+
+    @Override
+    protected void doStart() throws Exception {
+        stopping = false;
+        stopSignal = new CountDownLatch(1);
+        producerTemplate = camelContext.createProducerTemplate();
+        executor = camelContext.getExecutorServiceManager().newSingleThreadExecutor(this, "retry-" + tier);
+        executor.execute(this);
+        log.info("Retry tier {}: Consuming topics matching {}", tier, topicPattern);
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        stopping = true;
+        stopSignal.countDown();
+        Consumer<String, byte[]> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (executor != null) {
+            camelContext.getExecutorServiceManager().shutdownGraceful(executor, TimeUnit.SECONDS.toMillis(10));
+            executor = null;
+        }
+        if (producerTemplate != null) {
+            producerTemplate.stop();
+            producerTemplate = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        long backoffMs = RETRY_BACKOFF_MS;
+        while (!stopping) {
+            Consumer<String, byte[]> current = null;
+            try {
+                current = consumerFactory.get();
+                consumer = current;
+                if (stopping) {
+                    break;
+                }
+                subscribe(current);
+                while (!stopping) {
+                    resumeDue(current);
+                    ConsumerRecords<String, byte[]> records = current.poll(Duration.ofMillis(pollTimeout()));
+                    for (TopicPartition partition : records.partitions()) {
+                        handle(current, partition, records);
+                    }
+                    commit(current);
+                    backoffMs = RETRY_BACKOFF_MS;
+                }
+            } catch (WakeupException e) {
+                if (!stopping) {
+                    log.error("Retry tier {}: Consumer woken up unexpectedly, replacing it in {}ms", tier, backoffMs, e);
+                }
+            } catch (Exception e) {
+                log.error("Retry tier {}: Consumer failed, replacing it in {}ms: {}", tier, backoffMs, e.getMessage(), e);
+            } finally {
+                close(current);
+            }
+            if (!stopping) {
+                try {
+                    stopSignal.await(backoffMs, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoffMs = Math.min(backoffMs * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    private void subscribe(Consumer<String, byte[]> current) {
+        current.subscribe(topicPattern, new ConsumerRebalanceListener() {
+            @Override
+            public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                partitions.forEach(paused::remove);
+                // Still owned here; the new owner starts after these records
+                Map<TopicPartition, OffsetAndMetadata> revoked = new HashMap<>();
+                for (TopicPartition partition : partitions) {
+                    OffsetAndMetadata offset = processed.remove(partition);
+                    if (offset != null) {
+                        revoked.put(partition, offset);
+                    }
+                }
+                if (!revoked.isEmpty()) {
+                    current.commitSync(revoked);
+                }
+            }
+
+            @Override
+            public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            }
+        });
+    }
+
+    /**
+     * Commits what was re-sent and closes a consumer. Its positions and pauses are gone with it,
+     * so its replacement starts again from the committed offsets.
+     */
+    private void close(Consumer<String, byte[]> current) {
+        consumer = null;
+        if (current == null) {
+            return;
+        }
+        try {
+            commit(current);
+        } catch (Exception e) {
+            log.warn("Retry tier {}: Failed to commit before closing the consumer: {}", tier, e.getMessage());
+        }
+        processed.clear();
+        paused.clear();
+        try {
+            current.close();
+        } catch (Exception e) {
+            log.warn("Retry tier {}: Failed to close the consumer: {}", tier, e.getMessage());
+        }
+    }
+
+    private void handle(Consumer<String, byte[]> current, TopicPartition partition, ConsumerRecords<String, byte[]> records) {
+        for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+            if (stopping) {
+                current.seek(partition, record.offset());
+                return;
+            }
+            long notBefore = notBefore(record);
+            if (notBefore > clock.getAsLong()) {
+                // Later records of this partition are due later still
+                pauseAt(current, partition, record, notBefore);
+                return;
+            }
+            if (!redeliver(record)) {
+                // Not committed; the record and the ones after it are tried again after the backoff
+                pauseAt(current, partition, record, clock.getAsLong() + RETRY_BACKOFF_MS);
+                return;
+            }
+            processed.put(partition, new OffsetAndMetadata(record.offset() + 1));
+        }
+    }
+
+    private void pauseAt(Consumer<String, byte[]> current, TopicPartition partition, ConsumerRecord<String, byte[]> record, long until) {
+        current.seek(partition, record.offset());
+        current.pause(List.of(partition));
+        paused.put(partition, until);
+    }
+
+    /**
+     * @return Whether the record is done with: re-sent, or dropped for an unknown destination route
+     */
+    private boolean redeliver(ConsumerRecord<String, byte[]> record) {
+        String destination = header(record, RetryTierProcessor.DESTINATION);
+        PayloadFormat payloadFormat = destination != null ? payloadFormats.apply(destination) : null;
+        if (payloadFormat == null) {
+            log.error("Retry tier {}: Dropping record {}-{}@{}, destination route {} does not exist",
+                tier, record.topic(), record.partition(), record.offset(), destination);
+            return true;
+        }
+        Exchange exchange = new DefaultExchange(camelContext);
+        copyRecord(record, payloadFormat, exchange.getIn());
+        log.debug("Retry tier {}: Re-sending {}-{}@{} to {}", tier, record.topic(), record.partition(), record.offset(), destination);
+        Exchange sent = producerTemplate.send("direct:" + destination, exchange);
+        if (sent.getException() != null) {
+            log.error("Retry tier {}: Failed to re-send {}-{}@{} to {}, trying again in {}ms: {}", tier,
+                record.topic(), record.partition(), record.offset(), destination, RETRY_BACKOFF_MS, sent.getException().getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private void resumeDue(Consumer<String, byte[]> current) {
+        if (paused.isEmpty()) {
+            return;
+        }
+        long now = clock.getAsLong();
+        List<TopicPartition> due = paused.entrySet().stream()
+            .filter(entry -> entry.getValue() <= now)
+            .map(Map.Entry::getKey)
+            .toList();
+        if (!due.isEmpty()) {
+            due.forEach(paused::remove);
+            current.resume(due);
+        }
+    }
+
+    private long pollTimeout() {
+        long timeout = pollTimeoutMs;
+        long now = clock.getAsLong();
+        for (long notBefore : paused.values()) {
+            timeout = Math.min(timeout, Math.max(1, notBefore - now));
+        }
+        return timeout;
+    }
+
+    private void commit(Consumer<String, byte[]> current) {
+        if (!processed.isEmpty()) {
+            current.commitSync(new HashMap<>(processed));
+            processed.clear();
+        }
+    }
+
+    private static long notBefore(ConsumerRecord<String, byte[]> record) {
+        String value = header(record, RetryTierProcessor.NOT_BEFORE);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Sets a message to the value and headers of a record written by a destination route's
+     * Kafka producer: the value as the route's payload type, headers as Strings.
+     */
+    public static void copyRecord(ConsumerRecord<String, byte[]> record, PayloadFormat payloadFormat, Message message) {
+        byte[] value = record.value();
+        message.setBody(payloadFormat == PayloadFormat.BYTES || value == null
+            ? value : new String(value, StandardCharsets.UTF_8));
+        for (Header header : record.headers()) {
+            if (header.value() != null) {
+                message.setHeader(header.key(), new String(header.value(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * @return Last value of a record header as a String, or null
+     */
+    public static String header(ConsumerRecord<String, byte[]> record, String key) {
+        Header header = record.headers().lastHeader(key);
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.fix.gateway.kafka;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tiered retry topics for the destinations of enhanced INPUT routes.
+ * When enabled, a failed send is not redelivered in-line: the destination route publishes the
+ * message to its first retry topic with a not-before timestamp, and a {@link RetryTopicConsumer}
+ * per tier re-sends it once that time has passed. A message that fails again moves on to the next
+ * tier, and to the destination's dead letter topic after the last one.
+ * Retry topics are named {@code <topicPrefix><tier>-<route>-<destination>}, e.g. {@code retry-5s-route-1-host-9999}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.kafka.retry-topics")
+@Data
+public class RetryTopicsConfig {
+
+    /**
+     * Whether destination routes use retry topics instead of in-line redelivery.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Delay of each tier, in order. Each tier has its own topics and consumer group.
+     */
+    private List<Duration> delays = new ArrayList<>(List.of(Duration.ofSeconds(5), Duration.ofMinutes(1), Duration.ofMinutes(10)));
+
+    private String topicPrefix = "retry-";
+
+    /**
+     * Consumer group prefix; the tier is appended, e.g. {@code fix-router-retry-5s}.
+     */
+    private String groupId = "fix-router-retry";
+
+    private int maxPollRecords = 100;
+
+    /**
+     * Longest time, in milliseconds, a tier's consumer waits in poll; shorter when a paused partition is due sooner.
+     */
+    private long pollTimeoutMs = 1000;
+
+    /**
+     * Metadata refresh interval, in milliseconds; bounds how long a new retry topic goes unnoticed.
+     */
+    private int metadataMaxAgeMs = 30000;
+
+    /**
+     * Short name of a tier's delay, as used in topic names: {@code 5s}, {@code 1m}, {@code 2h}, {@code 500ms}.
+     */
+    public static String tierName(Duration delay) {
+        long millis = delay.toMillis();
+        if (millis > 0 && millis % 3_600_000 == 0) {
+            return millis / 3_600_000 + "h";
+        }
+        if (millis > 0 && millis % 60_000 == 0) {
+            return millis / 60_000 + "m";
+        }
+        if (millis > 0 && millis % 1000 == 0) {
+            return millis / 1000 + "s";
+        }
+        return millis + "ms";
+    }
+}
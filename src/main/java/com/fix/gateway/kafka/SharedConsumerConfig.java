@@ -0,0 +1,51 @@
+package com.fix.gateway.kafka;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Shared consumer for ordered INPUT routes.
+ * When enabled, ordered and key-ordered INPUT routes no longer get a consumer group each: one
+ * consumer group subscribes to {@link #topicPattern} and hands every record to the pipeline of
+ * the route configured for its topic. Records of a partition stay on one consumer thread, so
+ * per-topic-partition ordering and the routes' manual commits are unchanged. Topics of sessions
+ * without a route get one from the routing configuration's {@code dynamicRouteTemplate}, if set.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.kafka.shared-consumer")
+@Data
+public class SharedConsumerConfig {
+
+    /**
+     * Whether ordered INPUT routes share one consumer group instead of one group per route.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Regular expression of the topics the shared consumer subscribes to.
+     * Matching topics without a configured route are skipped and committed.
+     */
+    private String topicPattern = "fix\\..+\\..+\\.input";
+
+    /**
+     * Consumer group of the shared consumer. Switching from per-route groups starts from the
+     * committed offsets of this group, or {@code kafka.autoOffsetReset} if it has none.
+     */
+    private String groupId = "fix-router-shared-input";
+
+    /**
+     * Number of consumers (and poll threads) in the group; partitions are spread across them.
+     */
+    private int consumersCount = 1;
+
+    /**
+     * Records fetched per poll across all subscribed topics.
+     */
+    private int maxPollRecords = 500;
+
+    /**
+     * Metadata refresh interval, in milliseconds; bounds how long a new topic matching the pattern goes unnoticed.
+     */
+    private int metadataMaxAgeMs = 30000;
+}
@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Configuration for a single destination with individual exception handling
@@ -24,10 +25,26 @@ public class DestinationConfig {
     private int maxRetries = 3;
     
     /**
-     * Delay between retries in milliseconds
+     * Delay before the first retry in milliseconds
      */
     private long retryDelay = 1000;
     
+    /**
+     * Factor by which the delay grows with each further retry (1 = fixed delay)
+     */
+    private double backoffMultiplier = 2.0;
+    
+    /**
+     * Upper bound of the delay between retries in milliseconds
+     */
+    private long maxRetryDelay = 30000;
+    
+    /**
+     * Random spread of each delay as a fraction of it (0.2 = +/-20%), so that messages failing
+     * together do not all retry at the same moment
+     */
+    private double retryJitter = 0.2;
+    
     /**
      * Connection/request timeout in milliseconds
      */
@@ -40,7 +57,11 @@ public class DestinationConfig {
     private String deadLetterTopic;
     
     /**
-     * Additional endpoint parameters specific to this destination
+     * Additional endpoint parameters specific to this destination.
+     * Pooled netty:tcp destinations also accept pipelined, ackCorrelation and maxInFlight
+     * (pipelined sends) and coalesceWindowMicros and coalesceMaxBytes (write coalescing).
+     * Pipelining only overlaps messages of one sender with parallelProcessing; sequential and
+     * ordered delivery waits for each ack before sending the next message.
      */
     private Map<String, String> endpointParameters = new HashMap<>();
     
@@ -50,7 +71,8 @@ public class DestinationConfig {
     private boolean parallelProcessing = true;
     
     /**
-     * Whether to stop processing other destinations if this one fails
+     * Whether to stop processing other destinations if this one fails (ordered routes with
+     * fix.bulkhead.enabled=false only)
      */
     private boolean stopOnException = false;
     
@@ -61,6 +83,44 @@ public class DestinationConfig {
      */
     private List<String> msgTypes = new ArrayList<>();
     
+    /**
+     * Capacity of this destination's bulkhead queue (ordered routes with fix.bulkhead.enabled).
+     * If 0, uses fix.bulkhead.queue-capacity
+     */
+    private int queueCapacity;
+    
+    /**
+     * What to do when this destination's bulkhead queue is full.
+     * If null, uses fix.bulkhead.overflow-policy
+     */
+    private OverflowPolicy overflowPolicy;
+    
+    /**
+     * Circuit breaker that fails sends fast while this destination is down
+     */
+    private CircuitBreakerConfig circuitBreaker = new CircuitBreakerConfig();
+    
+    /**
+     * Exception classes whose classification differs from fix.error-classification for this destination
+     */
+    private ErrorClassificationConfig errorClassification = new ErrorClassificationConfig();
+    
+    /**
+     * Delay before a retry: retryDelay grown by backoffMultiplier per earlier retry, capped at
+     * maxRetryDelay and spread by retryJitter.
+     * @param retry The retry, 1 for the first
+     * @return Delay in milliseconds
+     */
+    public long retryDelayFor(int retry) {
+        double delay = retryDelay * Math.pow(Math.max(1.0, backoffMultiplier), Math.max(0, retry - 1));
+        long cap = Math.max(retryDelay, maxRetryDelay);
+        delay = Math.min(delay, cap);
+        if (retryJitter > 0) {
+            delay *= 1 + retryJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        }
+        return Math.max(0, Math.round(Math.min(delay, cap)));
+    }
+    
     /**
      * Builds the complete URI with all parameters
      * @return Complete URI string with query parameters
@@ -105,7 +165,20 @@ public class DestinationConfig {
             routeId.toLowerCase().replaceAll("[^a-z0-9]", "-"),
             destName.toLowerCase().replaceAll("[^a-z0-9]", "-"));
     }
-    
+
+    /**
+     * Gets the retry topic of one tier, named like the default dead letter topic
+     * @param prefix Topic prefix of all retry topics, e.g. "retry-"
+     * @param tier Short name of the tier's delay, e.g. "5s"
+     * @param routeId The parent route ID
+     * @return Retry topic name
+     */
+    public String getRetryTopic(String prefix, String tier, String routeId) {
+        return String.format("%s%s-%s-%s", prefix, tier,
+            routeId.toLowerCase().replaceAll("[^a-z0-9]", "-"),
+            extractDestinationName().toLowerCase().replaceAll("[^a-z0-9]", "-"));
+    }
+
     /**
      * Extracts a simple name from the URI for logging and topic naming
      * @return Simplified destination name
@@ -149,4 +222,57 @@ public class DestinationConfig {
         // Case-sensitive exact match (FIX msgTypes are typically uppercase)
         return msgTypes.contains(msgType);
     }
-}
\ No newline at end of file
+    
+    /**
+     * Circuit breaker settings of a destination
+     */
+    @Data
+    public static class CircuitBreakerConfig {
+        /**
+         * Whether sends are refused while the destination keeps failing
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Number of most recent sends whose outcomes make up the failure rate
+         */
+        private int slidingWindowSize = 20;
+        
+        /**
+         * Sends recorded before the failure rate is evaluated
+         */
+        private int minimumCalls = 10;
+        
+        /**
+         * Failure rate in percent at which the breaker opens
+         */
+        private int failureRateThreshold = 50;
+        
+        /**
+         * How long the breaker stays open before a single probe is let through
+         */
+        private long openDurationMs = 30000;
+    }
+    
+    /**
+     * Error classification overrides of a destination; exception classes are given by name and
+     * also match their subclasses
+     */
+    @Data
+    public static class ErrorClassificationConfig {
+        private List<String> retry = new ArrayList<>();
+        
+        private List<String> failFast = new ArrayList<>();
+        
+        private List<String> dlq = new ArrayList<>();
+        
+        /**
+         * Classification of exceptions matching no class; if null, uses fix.error-classification.default-classification
+         */
+        private ErrorClassification defaultClassification;
+        
+        public boolean hasOverrides() {
+            return !retry.isEmpty() || !failFast.isEmpty() || !dlq.isEmpty() || defaultClassification != null;
+        }
+    }
+}
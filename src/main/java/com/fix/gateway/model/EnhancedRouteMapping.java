@@ -42,6 +42,17 @@ public class EnhancedRouteMapping extends RoutingConfig.RouteMapping {
      */
     private String partitionExpression;
     
+    /**
+     * Payload representation between Kafka and the destinations.
+     * STRING (default) uses String (de)serializers; BYTES keeps the payload as byte[] end to end.
+     */
+    private PayloadFormat payloadFormat = PayloadFormat.STRING;
+    
+    /**
+     * Ordered consumption settings (only applicable for INPUT routes)
+     */
+    private OrderedProcessingConfig orderedProcessing = new OrderedProcessingConfig();
+    
     /**
      * Gets the destination configurations, falling back to simple URI strings
      * if destinationConfigs is empty but destinations is populated.
@@ -73,6 +84,58 @@ public class EnhancedRouteMapping extends RoutingConfig.RouteMapping {
         return destinationConfigs;
     }
     
+    /**
+     * Creates the INPUT route of a FIX session from this mapping used as a template.
+     * {@code {senderCompId}} and {@code {targetCompId}} in the route ID, destination URIs,
+     * endpoint parameters and dead letter topics are replaced by the session's values; without a
+     * route ID the template yields {@code FIX4.4:<targetCompId>-><senderCompId>}. The input topic
+     * follows the {@code fix.{senderCompId}.{targetCompId}.input} convention.
+     *
+     * @return A new route mapping; error handling and ordered processing settings are shared with the template
+     */
+    public EnhancedRouteMapping forSession(String senderCompId, String targetCompId) {
+        EnhancedRouteMapping route = new EnhancedRouteMapping();
+        String templateRouteId = getRouteId() != null ? getRouteId() : "FIX4.4:{targetCompId}->{senderCompId}";
+        route.setRouteId(resolvePlaceholders(templateRouteId, senderCompId, targetCompId));
+        route.setSenderCompId(senderCompId);
+        route.setTargetCompId(targetCompId);
+        route.setType(RouteType.INPUT);
+        route.setEnhancedRouting(true);
+        route.setPayloadFormat(payloadFormat);
+        route.setErrorHandling(errorHandling);
+        route.setOrderedProcessing(orderedProcessing);
+        
+        for (DestinationConfig template : getDestinationConfigs()) {
+            DestinationConfig destination = new DestinationConfig();
+            destination.setUri(resolvePlaceholders(template.getUri(), senderCompId, targetCompId));
+            destination.setMaxRetries(template.getMaxRetries());
+            destination.setRetryDelay(template.getRetryDelay());
+            destination.setBackoffMultiplier(template.getBackoffMultiplier());
+            destination.setMaxRetryDelay(template.getMaxRetryDelay());
+            destination.setRetryJitter(template.getRetryJitter());
+            destination.setTimeout(template.getTimeout());
+            destination.setDeadLetterTopic(resolvePlaceholders(template.getDeadLetterTopic(), senderCompId, targetCompId));
+            destination.setParallelProcessing(template.isParallelProcessing());
+            destination.setStopOnException(template.isStopOnException());
+            destination.setMsgTypes(template.getMsgTypes());
+            destination.setQueueCapacity(template.getQueueCapacity());
+            destination.setOverflowPolicy(template.getOverflowPolicy());
+            destination.setCircuitBreaker(template.getCircuitBreaker());
+            destination.setErrorClassification(template.getErrorClassification());
+            template.getEndpointParameters().forEach((name, value) ->
+                destination.getEndpointParameters().put(name, resolvePlaceholders(value, senderCompId, targetCompId)));
+            route.getDestinationConfigs().add(destination);
+        }
+        return route;
+    }
+    
+    private static String resolvePlaceholders(String value, String senderCompId, String targetCompId) {
+        if (value == null) {
+            return null;
+        }
+        return value.replace("{senderCompId}", senderCompId).replace("{targetCompId}", targetCompId);
+    }
+    
     /**
      * Gets all destination URIs from the configuration
      * @return List of destination URIs
@@ -110,4 +173,46 @@ public class EnhancedRouteMapping extends RoutingConfig.RouteMapping {
          */
         private String deadLetterChannelUri = "direct:deadLetterChannel";
     }
+    
+    /**
+     * Configuration for ordered INPUT consumption with manual offset commits
+     */
+    @Data
+    public static class OrderedProcessingConfig {
+        /**
+         * Whether records are processed in offset order per partition with manual commits.
+         * When false the route uses enhanced (parallel) destination routing.
+         */
+        private boolean enabled = true;
+        
+        /**
+         * Maximum records fetched per poll (maxPollRecords).
+         * Records of a partition are still processed one after another in offset order.
+         */
+        private int batchSize = 1;
+        
+        /**
+         * Maximum time in milliseconds a processed offset may stay uncommitted, also while the
+         * partition is idle. 0 uses {@code fix.kafka.commit.interval-ms}, which also applies to
+         * routes read by the shared consumer.
+         */
+        private long commitIntervalMs = 0;
+        
+        /**
+         * Scope of the ordering guarantee. PARTITION (default) processes each partition sequentially;
+         * the other keys process records with different keys concurrently and keep order per key.
+         */
+        private OrderingKey orderingKey = OrderingKey.PARTITION;
+        
+        /**
+         * Number of worker lanes for key-ordered processing; records with the same key share a lane
+         */
+        private int concurrency = 4;
+        
+        /**
+         * Maximum records dispatched but not yet completed for key-ordered processing.
+         * The consumer waits for capacity once the limit is reached.
+         */
+        private int maxInFlight = 1000;
+    }
 }
\ No newline at end of file
@@ -32,6 +32,14 @@ public class EnhancedRoutingConfig {
      */
     private DestinationConfig defaultDestinationConfig = new DestinationConfig();
     
+    /**
+     * Template for INPUT routes of FIX sessions without a configured route.
+     * When set and the shared consumer is enabled, a route is created from it (see
+     * {@link EnhancedRouteMapping#forSession}) the first time records arrive on a new
+     * {@code fix.{senderCompId}.{targetCompId}.input} topic. Null disables dynamic routes.
+     */
+    private EnhancedRouteMapping dynamicRouteTemplate;
+    
     /**
      * Gets all INPUT routes
      * @return List of INPUT route mappings
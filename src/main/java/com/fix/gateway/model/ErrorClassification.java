@@ -0,0 +1,23 @@
+package com.fix.gateway.model;
+
+/**
+ * What to do with a message whose send to a destination failed.
+ */
+public enum ErrorClassification {
+    /**
+     * Transient failure, e.g. the destination is unreachable: retry with backoff
+     */
+    RETRY,
+    
+    /**
+     * Retrying will not help: give up at once and report the failure. Paths with no caller to
+     * report to (destination routes, bulkheads) send the message to the dead letter topic
+     */
+    FAIL_FAST,
+    
+    /**
+     * The message itself cannot be delivered: send it to the dead letter topic without retrying,
+     * and let ordered routes carry on with the next destination even with stopOnException
+     */
+    DLQ
+}
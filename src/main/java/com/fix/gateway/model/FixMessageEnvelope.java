@@ -3,12 +3,17 @@ package com.fix.gateway.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fix.gateway.util.FixTagMap;
+import com.fix.gateway.util.FixTagScanner;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import lombok.ToString;
 
 import java.time.Instant;
 import java.util.HashMap;
@@ -18,6 +23,8 @@ import java.util.Map;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@ToString(doNotUseGetters = true)
+@EqualsAndHashCode(doNotUseGetters = true)
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class FixMessageEnvelope {
    @JsonProperty("sessionId")
@@ -36,19 +43,23 @@ public class FixMessageEnvelope {
     private String clOrdID;
     
     
-    @Getter(onMethod = @__({@JsonIgnore}))
+    /**
+     * Common order fields. When not set explicitly they are read on demand
+     * from the raw message (tags 55, 54, 38 and 44).
+     */
+    @Getter(AccessLevel.NONE)
     @Setter(onMethod = @__({@JsonIgnore}))
     private String symbol;
     
-    @Getter(onMethod = @__({@JsonIgnore}))
+    @Getter(AccessLevel.NONE)
     @Setter(onMethod = @__({@JsonIgnore}))
     private String side;
     
-    @Getter(onMethod = @__({@JsonIgnore}))
+    @Getter(AccessLevel.NONE)
     @Setter(onMethod = @__({@JsonIgnore}))
     private String orderQty;
     
-    @Getter(onMethod = @__({@JsonIgnore}))
+    @Getter(AccessLevel.NONE)
     @Setter(onMethod = @__({@JsonIgnore}))
     private String price;
     
@@ -73,13 +84,136 @@ public class FixMessageEnvelope {
     
     /**
      * Map of parsed FIX tags for efficient access during expression evaluation.
-     * This is populated during envelope creation to avoid repeated parsing.
-     * Should not be serialized to Kafka.
+     * Callers may supply it explicitly; otherwise it is built lazily from the raw message
+     * the first time all tags are requested. Should not be serialized to Kafka.
      */
-    @Getter(onMethod = @__({@JsonIgnore}))
+    @Getter(AccessLevel.NONE)
     @Setter(onMethod = @__({@JsonIgnore}))
     @Builder.Default
     private Map<Integer, String> parsedTags = new HashMap<>();
+    
+    /**
+     * Lazily built index over rawMessage. Routes that never look at tags never scan the message.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private final transient LazyTagIndex tagIndex = new LazyTagIndex();
+    
+    @JsonIgnore
+    public String getSymbol() {
+        return symbol != null ? symbol : getTag(55);
+    }
+    
+    @JsonIgnore
+    public String getSide() {
+        return side != null ? side : getTag(54);
+    }
+    
+    @JsonIgnore
+    public String getOrderQty() {
+        return orderQty != null ? orderQty : getTag(38);
+    }
+    
+    @JsonIgnore
+    public String getPrice() {
+        return price != null ? price : getTag(44);
+    }
+    
+    /**
+     * Returns the explicitly supplied tag map, or a read-only view of {@link #getTagMap()}.
+     * Prefer {@link #getTag(int)} or {@link #getTagMap()} to avoid boxed keys.
+     */
+    @JsonIgnore
+    public Map<Integer, String> getParsedTags() {
+        if (parsedTags != null && !parsedTags.isEmpty()) {
+            return parsedTags;
+        }
+        return tagIndex.map(rawMessage).asMap();
+    }
+    
+    /**
+     * Returns all tags in a primitive int-keyed map, built once per raw message
+     * (or once from an explicitly supplied parsedTags map).
+     * The map belongs to this envelope and must not be modified by callers.
+     *
+     * @return Tag map, empty if there is no raw message
+     */
+    @JsonIgnore
+    public FixTagMap getTagMap() {
+        if (parsedTags != null && !parsedTags.isEmpty()) {
+            return tagIndex.map(parsedTags);
+        }
+        return tagIndex.map(rawMessage);
+    }
+    
+    /**
+     * Reads a single FIX tag, scanning the raw message on first use.
+     * Only the requested value is materialised.
+     *
+     * @param tag The FIX tag number
+     * @return The tag value, or null if absent
+     */
+    @JsonIgnore
+    public String getTag(int tag) {
+        if (parsedTags != null && !parsedTags.isEmpty()) {
+            return parsedTags.get(tag);
+        }
+        return tagIndex.scanner(rawMessage).getValue(tag);
+    }
+    
+    /**
+     * Index over the raw message, rebuilt whenever rawMessage is replaced.
+     * Not thread-safe; an envelope is owned by a single exchange at a time.
+     */
+    private static final class LazyTagIndex {
+        private String source;
+        private FixTagScanner scanner;
+        private FixTagMap map;
+        private boolean mapBuilt;
+        private Map<Integer, String> mapSource;
+        
+        FixTagScanner scanner(String rawMessage) {
+            if (scanner == null) {
+                scanner = new FixTagScanner(32);
+            }
+            if (source != rawMessage) {
+                scanner.scan(rawMessage);
+                source = rawMessage;
+                mapBuilt = false;
+            }
+            return scanner;
+        }
+        
+        FixTagMap map(String rawMessage) {
+            FixTagScanner current = scanner(rawMessage);
+            if (!mapBuilt || mapSource != null) {
+                current.copyTo(emptyMap());
+                mapBuilt = true;
+                mapSource = null;
+            }
+            return map;
+        }
+        
+        FixTagMap map(Map<Integer, String> parsedTags) {
+            if (!mapBuilt || mapSource != parsedTags) {
+                emptyMap().putAll(parsedTags);
+                mapBuilt = true;
+                mapSource = parsedTags;
+            }
+            return map;
+        }
+        
+        private FixTagMap emptyMap() {
+            if (map == null) {
+                map = new FixTagMap();
+            } else {
+                map.clear();
+            }
+            return map;
+        }
+    }
 
 /*
     public static FixMessageEnvelope create(String rawMessage, String sessionId, String senderCompId, String targetCompId) {
@@ -0,0 +1,26 @@
+package com.fix.gateway.model;
+
+/**
+ * Enum representing the scope within which ordered INPUT routes preserve message order.
+ */
+public enum OrderingKey {
+    /**
+     * Strict order per Kafka partition - one record at a time on the consumer thread
+     */
+    PARTITION,
+    
+    /**
+     * Order per FIX session (envelope sessionId); different sessions are processed concurrently
+     */
+    SESSION_ID,
+    
+    /**
+     * Order per order chain (ClOrdID, tag 11); different orders are processed concurrently
+     */
+    CL_ORD_ID,
+    
+    /**
+     * Order per instrument (Symbol, tag 55); different symbols are processed concurrently
+     */
+    SYMBOL
+}
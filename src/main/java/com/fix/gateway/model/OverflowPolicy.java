@@ -0,0 +1,23 @@
+package com.fix.gateway.model;
+
+/**
+ * What a destination bulkhead does with a message when its queue is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Wait for room in the queue, holding up the route's consumer (back-pressure), for at most
+     * fix.bulkhead.block-timeout-ms; then send the message to the destination's dead letter topic
+     */
+    BLOCK,
+    
+    /**
+     * Append the message to the destination's spill file; it is delivered from there in order
+     * once the queue has drained, also after a restart
+     */
+    SPILL,
+    
+    /**
+     * Send the message straight to the destination's dead letter topic
+     */
+    DEAD_LETTER
+}
@@ -0,0 +1,22 @@
+package com.fix.gateway.model;
+
+/**
+ * Enum representing how a route carries the FIX payload between Kafka and Netty.
+ */
+public enum PayloadFormat {
+    /**
+     * Kafka records are (de)serialized as Strings and the raw FIX message is forwarded as a String
+     */
+    STRING,
+    
+    /**
+     * Kafka records are (de)serialized as byte arrays and the raw FIX message is forwarded as byte[].
+     * Netty destinations should set useByteBuf=true so the bytes are written without a String round trip.
+     */
+    BYTES;
+    
+    /**
+     * Exchange property carrying the payload format of the route that created the exchange.
+     */
+    public static final String EXCHANGE_PROPERTY = "fixPayloadFormat";
+}
@@ -0,0 +1,60 @@
+package com.fix.gateway.model;
+
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A dead letter topic, or a range of it, to re-drive through a destination route.
+ * Offsets and times narrow the range; without them the whole topic up to its end at the start
+ * of the replay is replayed.
+ */
+@Data
+public class ReplayRequest {
+
+    /**
+     * Dead letter topic to read
+     */
+    private String topic;
+
+    /**
+     * Destination route to send to (e.g. route-1_DEST_0); defaults to each record's
+     * fixRetryDestination header, which destination routes set when dead-lettering
+     */
+    private String destination;
+
+    /**
+     * Only this partition, if set
+     */
+    private Integer partition;
+
+    /**
+     * First offset to replay, in each partition
+     */
+    private Long fromOffset;
+
+    /**
+     * Last offset to replay (inclusive), in each partition
+     */
+    private Long toOffset;
+
+    /**
+     * First record timestamp to replay
+     */
+    private Instant fromTime;
+
+    /**
+     * Replay records before this timestamp
+     */
+    private Instant toTime;
+
+    /**
+     * Messages per second; defaults to fix.kafka.replay.rate-per-second
+     */
+    private Double ratePerSecond;
+
+    /**
+     * Messages sent at the same time; defaults to fix.kafka.replay.concurrency
+     */
+    private Integer concurrency;
+}
@@ -0,0 +1,72 @@
+package com.fix.gateway.netty;
+
+import com.fix.gateway.util.FixTagScanner;
+
+/**
+ * How replies on a pipelined connection are matched to the messages they acknowledge.
+ */
+public enum AckCorrelation {
+
+    /**
+     * The request's MsgSeqNum(34) is matched against the reply's RefSeqNum(45),
+     * as carried by session-level Rejects and sequence-number acks.
+     */
+    MSG_SEQ_NUM(34, 45),
+
+    /**
+     * The request's ClOrdID(11) is matched against the reply's ClOrdID(11),
+     * as carried by ExecutionReports and OrderCancelRejects.
+     */
+    CL_ORD_ID(11, 11);
+
+    private final int requestTag;
+    private final int replyTag;
+
+    AckCorrelation(int requestTag, int replyTag) {
+        this.requestTag = requestTag;
+        this.replyTag = replyTag;
+    }
+
+    /**
+     * Parses a URI value such as {@code clOrdId}, {@code CL_ORD_ID} or {@code msgSeqNum}.
+     */
+    public static AckCorrelation parse(String value) {
+        String normalized = value.replace("_", "");
+        for (AckCorrelation correlation : values()) {
+            if (correlation.name().replace("_", "").equalsIgnoreCase(normalized)) {
+                return correlation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ackCorrelation '" + value + "', expected msgSeqNum or clOrdId");
+    }
+
+    /**
+     * @return The correlation key of an outgoing String or byte[] message, or null if it has none
+     */
+    public String requestKey(Object message) {
+        return valueOf(message, requestTag);
+    }
+
+    /**
+     * @return The correlation key of a received message, or null if it acknowledges nothing
+     */
+    public String replyKey(Object message) {
+        return valueOf(message, replyTag);
+    }
+
+    private static String valueOf(Object message, int tag) {
+        FixTagScanner scanner = FixTagScanner.forCurrentThread();
+        try {
+            if (message instanceof byte[] bytes) {
+                scanner.scan(bytes);
+            } else if (message instanceof CharSequence chars) {
+                scanner.scan(chars);
+            } else {
+                return null;
+            }
+            return scanner.getValue(tag);
+        } finally {
+            scanner.reset();
+        }
+    }
+}
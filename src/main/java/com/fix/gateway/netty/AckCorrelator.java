@@ -0,0 +1,76 @@
+package com.fix.gateway.netty;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Outstanding requests of one pipelined channel, keyed by their correlation value.
+ * Replies may arrive in any order; each completes the request with the same key.
+ */
+class AckCorrelator {
+
+    private static final Logger log = LoggerFactory.getLogger(AckCorrelator.class);
+
+    private final AckCorrelation correlation;
+    private final Map<String, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+
+    AckCorrelator(AckCorrelation correlation) {
+        this.correlation = correlation;
+    }
+
+    /**
+     * Registers a request before it is written.
+     *
+     * @throws IllegalStateException if a request with the same key is still in flight
+     */
+    CompletableFuture<Object> register(String key) {
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        if (pending.putIfAbsent(key, reply) != null) {
+            throw new IllegalStateException("A request with " + correlation + " " + key + " is already in flight");
+        }
+        return reply;
+    }
+
+    /**
+     * Stops waiting for a request that completed, timed out or failed; a late reply is then ignored.
+     */
+    void remove(String key, CompletableFuture<Object> reply) {
+        pending.remove(key, reply);
+    }
+
+    /**
+     * Completes the request acknowledged by a received message.
+     *
+     * @return Whether a pending request matched
+     */
+    boolean onReply(Object message) {
+        String key = correlation.replyKey(message);
+        CompletableFuture<Object> reply = key != null ? pending.remove(key) : null;
+        if (reply == null) {
+            log.debug("No request in flight for {} {}", correlation, key);
+            return false;
+        }
+        reply.complete(message);
+        return true;
+    }
+
+    /**
+     * Fails every request in flight, e.g. when the connection closes.
+     */
+    void failAll(Throwable cause) {
+        for (String key : pending.keySet()) {
+            CompletableFuture<Object> reply = pending.remove(key);
+            if (reply != null) {
+                reply.completeExceptionally(cause);
+            }
+        }
+    }
+
+    int getInFlight() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,93 @@
+package com.fix.gateway.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Completes the reply futures of a pooled client channel.
+ * A request/reply channel has at most one outstanding request, completed by the next decoded message.
+ * A pipelined channel hands every message to its {@link AckCorrelator} instead. Outstanding requests
+ * are failed when the connection closes or errors.
+ */
+@ChannelHandler.Sharable
+class FixClientHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(FixClientHandler.class);
+
+    static final FixClientHandler INSTANCE = new FixClientHandler();
+
+    private static final AttributeKey<CompletableFuture<Object>> PENDING_REPLY = AttributeKey.valueOf("fixPendingReply");
+
+    private static final AttributeKey<AckCorrelator> CORRELATOR = AttributeKey.valueOf("fixAckCorrelator");
+
+    /**
+     * Registers the future completed by the next message received on the channel.
+     */
+    static CompletableFuture<Object> expectReply(Channel channel) {
+        CompletableFuture<Object> reply = new CompletableFuture<>();
+        channel.attr(PENDING_REPLY).set(reply);
+        return reply;
+    }
+
+    /**
+     * Makes the channel pipelined: received messages complete the correlator's requests.
+     */
+    static void correlate(Channel channel, AckCorrelator correlator) {
+        channel.attr(CORRELATOR).set(correlator);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        Object reply;
+        try {
+            reply = msg instanceof ByteBuf frame ? frame.toString(StandardCharsets.ISO_8859_1) : msg;
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+        AckCorrelator correlator = ctx.channel().attr(CORRELATOR).get();
+        if (correlator != null) {
+            correlator.onReply(reply);
+            return;
+        }
+        CompletableFuture<Object> pending = ctx.channel().attr(PENDING_REPLY).getAndSet(null);
+        if (pending != null) {
+            pending.complete(reply);
+        } else {
+            log.debug("Ignoring unsolicited message from {}", ctx.channel().remoteAddress());
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        fail(ctx.channel(), new IOException("Connection to " + ctx.channel().remoteAddress() + " closed"));
+        super.channelInactive(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        fail(ctx.channel(), cause);
+        ctx.close();
+    }
+
+    private static void fail(Channel channel, Throwable cause) {
+        CompletableFuture<Object> pending = channel.attr(PENDING_REPLY).getAndSet(null);
+        if (pending != null) {
+            pending.completeExceptionally(cause);
+        }
+        AckCorrelator correlator = channel.attr(CORRELATOR).get();
+        if (correlator != null) {
+            correlator.failAll(cause);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.fix.gateway.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.net.ConnectException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded pool of long-lived connections to one destination host:port.
+ * <p>
+ * A connection is leased to one sender at a time. At most {@code maxConnections} are leased or
+ * idle; further senders wait up to {@code acquireTimeoutMs}. Idle connections are reused most
+ * recently used first, checked on acquire and closed by {@link #evictIdle()} once inactive or idle
+ * for longer than {@code idleTimeoutMs}. After a failed connect, new connects are refused for an
+ * exponentially growing backoff, so an unreachable destination fails fast instead of stacking
+ * connect timeouts. A {@link Lease} returns its connection exactly once, whichever of success,
+ * failure or timeout handling gets there first.
+ */
+public class FixConnectionPool implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FixConnectionPool.class);
+
+    private final String address;
+    private final Bootstrap bootstrap;
+    private final FixNettyConfig.Pool settings;
+    private final LongSupplier nanoClock;
+    private final Semaphore permits;
+    private final Deque<IdleChannel> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger open = new AtomicInteger();
+
+    private int consecutiveFailures;
+    private long nextConnectNanos;
+    private volatile boolean closed;
+
+    /**
+     * @param bootstrap Bootstrap with group, channel type, handler and remote address
+     */
+    FixConnectionPool(String address, Bootstrap bootstrap, FixNettyConfig.Pool settings, LongSupplier nanoClock) {
+        this.address = address;
+        this.bootstrap = bootstrap;
+        this.settings = settings;
+        this.nanoClock = nanoClock;
+        this.permits = new Semaphore(Math.max(1, settings.getMaxConnections()));
+    }
+
+    /**
+     * Leases an idle connection, or opens one if the pool is below its size.
+     *
+     * @param connectTimeoutMs Connect timeout for a new connection
+     * @throws TimeoutException if no connection becomes available within {@code acquireTimeoutMs}
+     * @throws ConnectException if connecting fails or the destination is backing off after failures
+     */
+    public Lease acquire(long connectTimeoutMs) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("Connection pool for " + address + " is closed");
+        }
+        if (!permits.tryAcquire(settings.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("No connection to " + address + " available within "
+                + settings.getAcquireTimeoutMs() + "ms (maxConnections=" + settings.getMaxConnections() + ")");
+        }
+        try {
+            IdleChannel candidate;
+            while ((candidate = idle.pollFirst()) != null) {
+                if (candidate.channel.isActive()) {
+                    return new Lease(candidate.channel);
+                }
+                candidate.channel.close();
+            }
+            return new Lease(connect(connectTimeoutMs));
+        } catch (Exception | Error e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes idle connections that are no longer active or have been idle for longer than {@code idleTimeoutMs}.
+     * Called periodically by {@link FixConnectionPools}.
+     */
+    public void evictIdle() {
+        long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(settings.getIdleTimeoutMs());
+        long now = nanoClock.getAsLong();
+        for (IdleChannel candidate : idle) {
+            boolean stale = !candidate.channel.isActive() || now - candidate.idleSinceNanos > idleTimeoutNanos;
+            // remove() fails if a sender leased the connection meanwhile
+            if (stale && idle.remove(candidate)) {
+                log.debug("Closing idle connection {} to {}", candidate.channel.localAddress(), address);
+                candidate.channel.close();
+            }
+        }
+    }
+
+    /**
+     * @return Open connections, leased or idle
+     */
+    public int getOpenCount() {
+        return open.get();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        IdleChannel candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            candidate.channel.close();
+        }
+    }
+
+    private Channel connect(long connectTimeoutMs) throws Exception {
+        synchronized (this) {
+            long backoffNanos = nextConnectNanos - nanoClock.getAsLong();
+            if (consecutiveFailures > 0 && backoffNanos > 0) {
+                throw new ConnectException("Connection to " + address + " is backing off for "
+                    + TimeUnit.NANOSECONDS.toMillis(backoffNanos) + "ms after " + consecutiveFailures + " failed attempts");
+            }
+        }
+
+        ChannelFuture future = bootstrap.clone()
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs)
+            .connect();
+        future.await();
+        if (!future.isSuccess()) {
+            onConnectFailure();
+            Throwable cause = future.cause();
+            if (cause instanceof Exception e) {
+                throw e;
+            }
+            throw new ConnectException("Failed to connect to " + address + ": " + cause);
+        }
+
+        onConnectSuccess();
+        Channel channel = future.channel();
+        open.incrementAndGet();
+        channel.closeFuture().addListener(f -> open.decrementAndGet());
+        log.debug("Opened connection {} to {}", channel.localAddress(), address);
+        return channel;
+    }
+
+    private synchronized void onConnectFailure() {
+        consecutiveFailures++;
+        long backoffMs = settings.getReconnectBackoffInitialMs() << Math.min(consecutiveFailures - 1, 20);
+        backoffMs = Math.min(backoffMs, settings.getReconnectBackoffMaxMs());
+        nextConnectNanos = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(backoffMs);
+        log.warn("Failed to connect to {} ({} consecutive failures), next attempt in {}ms",
+            address, consecutiveFailures, backoffMs);
+    }
+
+    private synchronized void onConnectSuccess() {
+        if (consecutiveFailures > 0) {
+            log.info("Reconnected to {} after {} failed attempts", address, consecutiveFailures);
+        }
+        consecutiveFailures = 0;
+    }
+
+    private void release(Channel channel, boolean reusable) {
+        try {
+            if (reusable && !closed && channel.isActive()) {
+                idle.offerFirst(new IdleChannel(channel, nanoClock.getAsLong()));
+            } else {
+                channel.close();
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private record IdleChannel(Channel channel, long idleSinceNanos) {
+    }
+
+    /**
+     * Exclusive use of one pooled connection.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Channel channel;
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        private Lease(Channel channel) {
+            this.channel = channel;
+        }
+
+        public Channel channel() {
+            return channel;
+        }
+
+        /**
+         * Returns the connection to the pool for reuse. Only the first release or invalidate has an effect.
+         */
+        public void release() {
+            if (returned.compareAndSet(false, true)) {
+                FixConnectionPool.this.release(channel, true);
+            }
+        }
+
+        /**
+         * Closes the connection instead of reusing it, e.g. after a timeout left a reply outstanding.
+         */
+        public void invalidate() {
+            if (returned.compareAndSet(false, true)) {
+                FixConnectionPool.this.release(channel, false);
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+}
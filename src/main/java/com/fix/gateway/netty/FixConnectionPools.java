@@ -0,0 +1,312 @@
+package com.fix.gateway.netty;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pooled Netty client connections for {@code netty:tcp} destinations, one {@link FixConnectionPool}
+ * per host:port and framing.
+ * <p>
+ * Replaces Camel's Netty producer for these destinations, which the routes configure with
+ * {@code disconnect=true}/{@code reuseChannel=false} and so connect once per message. A message is
+ * written on a leased connection and, for {@code sync=true} destinations, the next message received
+ * is the reply, as with the Camel producer. A connection whose reply timed out or failed is closed
+ * rather than reused, so a late reply can never be taken for the next message's.
+ * <p>
+ * {@code pipelined=true} destinations instead share one {@link PipelinedConnection}: messages are
+ * written back to back and acks are matched by MsgSeqNum or ClOrdID, with up to {@code maxInFlight}
+ * unacknowledged. {@link #sendAsync} returns without waiting for the ack.
+ * <p>
+ * Destinations with {@code coalesceWindowMicros} get connections whose flushes are coalesced
+ * ({@link FlushCoalescingHandler}); fire-and-forget ones also share one connection so that the
+ * messages of concurrent senders can be flushed together.
+ */
+public class FixConnectionPools implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FixConnectionPools.class);
+
+    /**
+     * Pooled allocator, direct buffers where the platform allows; also used to encode messages
+     * so that they are written without a heap-to-direct copy.
+     */
+    private static final ByteBufAllocator ALLOCATOR = PooledByteBufAllocator.DEFAULT;
+
+    private final FixNettyConfig.Pool settings;
+    private final int maxFrameLength;
+    private final NettyTransport transport;
+    private final EventLoopGroup group;
+    private final Map<String, FixConnectionPool> pools = new ConcurrentHashMap<>();
+    private final Map<String, NettyDestination> destinations = new ConcurrentHashMap<>();
+    private final Map<String, PipelinedConnection> pipelines = new ConcurrentHashMap<>();
+    private final Set<String> unpooledDestinations = ConcurrentHashMap.newKeySet();
+    private final ScheduledFuture<?> healthCheck;
+
+    public FixConnectionPools(FixNettyConfig.Pool settings, int maxFrameLength) {
+        this(settings, maxFrameLength, NettyTransport.NIO);
+    }
+
+    /**
+     * @param transport Transport of the client connections, with {@code ioThreads} event-loop threads
+     */
+    public FixConnectionPools(FixNettyConfig.Pool settings, int maxFrameLength, NettyTransport transport) {
+        this.settings = settings;
+        this.maxFrameLength = maxFrameLength;
+        this.transport = transport;
+        this.group = transport.newEventLoopGroup(settings.getIoThreads(), "fix-netty-client");
+        long interval = Math.max(1, settings.getHealthCheckIntervalMs());
+        this.healthCheck = group.scheduleAtFixedRate(this::evictIdle, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Destinations with custom encoders/decoders are left to Camel's Netty producer,
+     * which applies them; the pool would silently frame their messages its own way.
+     *
+     * @return Whether messages to the URI go through a pooled connection
+     */
+    public boolean isPooled(String uri) {
+        if (!settings.isEnabled() || !NettyDestination.isTcp(uri)) {
+            return false;
+        }
+        if (NettyDestination.hasCustomCodecs(uri)) {
+            if (unpooledDestinations.add(uri)) {
+                log.info("Netty destination {} has custom encoders/decoders; sending through Camel's Netty producer", uri);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends the exchange body to a Netty TCP destination over a pooled connection.
+     * For {@code sync} destinations the reply replaces the body, like Camel's Netty producer.
+     */
+    public void send(String uri, Exchange exchange) throws Exception {
+        Object reply = send(uri, exchange.getIn().getBody());
+        if (reply != null) {
+            exchange.getMessage().setBody(reply);
+        }
+    }
+
+    /**
+     * Sends a String or byte[] message to a Netty TCP destination over a pooled connection.
+     * For destinations sharing a connection this waits for the message's ack or flush.
+     *
+     * @return The reply for {@code sync} and pipelined destinations, otherwise null
+     */
+    public Object send(String uri, Object body) throws Exception {
+        NettyDestination destination = destination(uri);
+        if (destination.sharesConnection()) {
+            try {
+                return sendAsync(uri, body).get();
+            } catch (ExecutionException e) {
+                throw asException(e.getCause());
+            }
+        }
+        return sendLeased(destination, body);
+    }
+
+    /**
+     * Sends a String or byte[] message without waiting for its ack or flush if the destination
+     * shares a connection. Other destinations are sent synchronously and return a completed future.
+     *
+     * @return Completed with the reply (null when none is awaited), or exceptionally if the send failed
+     */
+    public CompletableFuture<Object> sendAsync(String uri, Object body) {
+        NettyDestination destination;
+        try {
+            destination = destination(uri);
+            if (!destination.sharesConnection()) {
+                return CompletableFuture.completedFuture(sendLeased(destination, body));
+            }
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        PipelinedConnection pipeline = pipelines.computeIfAbsent(uri, key -> newPipeline(destination));
+        return pipeline.send(body, encode(destination, body));
+    }
+
+    /**
+     * Closes idle connections that are inactive or past their idle timeout.
+     */
+    public void evictIdle() {
+        for (FixConnectionPool pool : pools.values()) {
+            try {
+                pool.evictIdle();
+            } catch (RuntimeException e) {
+                log.warn("Idle connection check failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return Pool of a destination URI, or null if nothing was sent to it yet
+     */
+    FixConnectionPool getPool(String uri) {
+        NettyDestination destination = destinations.get(uri);
+        return destination != null ? pools.get(destination.poolKey()) : null;
+    }
+
+    /**
+     * @return Pipelined connection of a destination URI, or null if nothing was sent to it yet
+     */
+    PipelinedConnection getPipeline(String uri) {
+        return pipelines.get(uri);
+    }
+
+    @Override
+    public void close() {
+        healthCheck.cancel(false);
+        pipelines.values().forEach(PipelinedConnection::close);
+        pipelines.clear();
+        pools.values().forEach(FixConnectionPool::close);
+        pools.clear();
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS);
+    }
+
+    private Object sendLeased(NettyDestination destination, Object body) throws Exception {
+        FixConnectionPool pool = pool(destination);
+        long connectTimeoutMs = connectTimeoutMs(destination);
+        long requestTimeoutMs = requestTimeoutMs(destination);
+
+        FixConnectionPool.Lease lease = pool.acquire(connectTimeoutMs);
+        boolean reusable = false;
+        try {
+            Channel channel = lease.channel();
+            CompletableFuture<Object> reply = destination.sync() ? FixClientHandler.expectReply(channel) : null;
+
+            ChannelFuture write = channel.writeAndFlush(encode(destination, body));
+            if (!write.await(requestTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("Write to " + destination.poolKey() + " timed out after " + requestTimeoutMs + "ms");
+            }
+            if (!write.isSuccess()) {
+                throw asException(write.cause());
+            }
+
+            Object result = null;
+            if (reply != null) {
+                try {
+                    result = reply.get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+                } catch (ExecutionException e) {
+                    throw asException(e.getCause());
+                }
+            }
+            reusable = true;
+            return result;
+        } finally {
+            if (reusable) {
+                lease.release();
+            } else {
+                lease.invalidate();
+            }
+        }
+    }
+
+
+    private NettyDestination destination(String uri) {
+        return destinations.computeIfAbsent(uri, NettyDestination::parse);
+    }
+
+    private FixConnectionPool pool(NettyDestination destination) {
+        return pools.computeIfAbsent(destination.poolKey(), key -> newPool(destination));
+    }
+
+    private PipelinedConnection newPipeline(NettyDestination destination) {
+        int maxInFlight = destination.maxInFlight() > 0 ? destination.maxInFlight() : settings.getMaxInFlight();
+        log.info("Created pipelined connection to {} (ackCorrelation={}, maxInFlight={})",
+            destination.poolKey(), destination.pipelined() ? destination.ackCorrelation() : "none", maxInFlight);
+        return new PipelinedConnection(destination, pool(destination), maxInFlight,
+            settings.getAcquireTimeoutMs(), connectTimeoutMs(destination), requestTimeoutMs(destination));
+    }
+
+    private long connectTimeoutMs(NettyDestination destination) {
+        return destination.connectTimeoutMs() > 0 ? destination.connectTimeoutMs() : settings.getConnectTimeoutMs();
+    }
+
+    private long requestTimeoutMs(NettyDestination destination) {
+        return destination.requestTimeoutMs() > 0 ? destination.requestTimeoutMs() : settings.getRequestTimeoutMs();
+    }
+
+    private FixConnectionPool newPool(NettyDestination destination) {
+        Bootstrap bootstrap = new Bootstrap()
+            .group(group)
+            .channel(transport.socketChannelClass())
+            .option(ChannelOption.ALLOCATOR, ALLOCATOR)
+            .option(ChannelOption.TCP_NODELAY, true)
+            .option(ChannelOption.SO_KEEPALIVE, true)
+            .remoteAddress(destination.host(), destination.port())
+            .handler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel channel) {
+                    if (destination.coalescing()) {
+                        channel.pipeline().addLast(new FlushCoalescingHandler(
+                            TimeUnit.MICROSECONDS.toNanos(destination.coalesceWindowMicros()), destination.coalesceMaxBytes()));
+                    }
+                    if (destination.textline()) {
+                        channel.pipeline().addLast(new LineBasedFrameDecoder(maxFrameLength));
+                        channel.pipeline().addLast(new StringDecoder(StandardCharsets.UTF_8));
+                    } else {
+                        channel.pipeline().addLast(new FixFrameDecoder(maxFrameLength));
+                    }
+                    channel.pipeline().addLast(FixClientHandler.INSTANCE);
+                }
+            });
+        log.info("Created connection pool for {} (maxConnections={})", destination.poolKey(), settings.getMaxConnections());
+        if (destination.coalescing() && !destination.sharesConnection()) {
+            log.warn("Write coalescing on request/reply destination {} delays every message by up to {}us; "
+                + "use pipelined=true or sync=false", destination.poolKey(), destination.coalesceWindowMicros());
+        }
+        return new FixConnectionPool(destination.poolKey(), bootstrap, settings, System::nanoTime);
+    }
+
+    /**
+     * Encodes a message like the Camel Netty producer: textline messages as UTF-8 with a trailing
+     * newline appended if missing, FIX-framed messages as raw ISO-8859-1 bytes.
+     */
+    private static ByteBuf encode(NettyDestination destination, Object body) {
+        ByteBuf buffer;
+        if (body instanceof byte[] raw) {
+            buffer = ALLOCATOR.buffer(raw.length + 1);
+            buffer.writeBytes(raw);
+        } else {
+            CharSequence text = body instanceof CharSequence chars ? chars : String.valueOf(body);
+            buffer = ALLOCATOR.buffer(text.length() + 1);
+            buffer.writeCharSequence(text, destination.textline() ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1);
+        }
+        if (destination.textline() && (!buffer.isReadable() || buffer.getByte(buffer.writerIndex() - 1) != '\n')) {
+            buffer.writeByte('\n');
+        }
+        return buffer;
+    }
+
+    private static Exception asException(Throwable cause) {
+        if (cause instanceof Exception e) {
+            return e;
+        }
+        return new IOException(cause);
+    }
+}
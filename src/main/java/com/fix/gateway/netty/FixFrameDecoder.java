@@ -0,0 +1,251 @@
+package com.fix.gateway.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.util.ByteProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Frames a TCP byte stream into FIX messages using the standard header and trailer:
+ * {@code 8=BeginString|9=BodyLength|...body...|10=NNN|}.
+ * <p>
+ * BodyLength gives the exact offset of the CheckSum field, so a frame is located without
+ * scanning the body for delimiters; the CheckSum value is then verified against the sum of the
+ * frame's bytes. Each frame is emitted as a retained slice of the inbound buffer - no bytes
+ * are copied - and several messages coalesced into one read are emitted in order.
+ * Bytes before a BeginString (e.g. a trailing newline from a textline peer) are discarded,
+ * and a frame with a malformed header or trailer or a wrong CheckSum is skipped by
+ * resynchronising on the next BeginString, so one bad message does not close the session.
+ * Only an "8=" right after a SOH, or at a frame boundary, counts as a BeginString; one inside a
+ * field value (e.g. {@code 58=x8=FIX}) does not.
+ * <p>
+ * Not sharable; create one instance per channel (see {@link FixNettyConfig}).
+ */
+public class FixFrameDecoder extends ByteToMessageDecoder {
+
+    private static final Logger log = LoggerFactory.getLogger(FixFrameDecoder.class);
+
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024;
+
+    private static final byte SOH = 0x01;
+
+    /**
+     * Longest BeginString value accepted (e.g. "FIXT.1.1").
+     */
+    private static final int MAX_BEGIN_STRING_LENGTH = 16;
+
+    /**
+     * Maximum digits of the BodyLength value.
+     */
+    private static final int MAX_BODY_LENGTH_DIGITS = 8;
+
+    /**
+     * Length of the trailer field "10=NNN" plus SOH.
+     */
+    private static final int TRAILER_LENGTH = 7;
+
+    /**
+     * Result of header parsing when more bytes are needed.
+     */
+    private static final int NEED_MORE = -1;
+
+    /**
+     * Result of header parsing when the frame is malformed.
+     */
+    private static final int CORRUPT = -2;
+
+    private final int maxFrameLength;
+
+    /**
+     * Whether the byte before the reader index ends a field or frame, so that an "8=" at the
+     * reader index starts a BeginString. True at the start of the stream and after each frame.
+     */
+    private boolean atFieldStart = true;
+
+    /**
+     * Sums the bytes of a frame for its CheckSum.
+     */
+    private final ChecksumProcessor checksum = new ChecksumProcessor();
+
+    public FixFrameDecoder() {
+        this(DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param maxFrameLength Largest complete message, in bytes, that will be accepted
+     */
+    public FixFrameDecoder(int maxFrameLength) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength must be positive: " + maxFrameLength);
+        }
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        while (in.isReadable()) {
+            int start = findBeginString(in);
+            if (start < 0) {
+                // Keep a trailing '8' that may be the start of the next BeginString
+                int last = in.writerIndex() - 1;
+                int keep = in.getByte(last) == '8' && isFieldStart(in, last) ? 1 : 0;
+                discard(ctx, in, in.readableBytes() - keep);
+                return;
+            }
+            if (start > in.readerIndex()) {
+                discard(ctx, in, start - in.readerIndex());
+            }
+
+            int frameLength = frameLength(in, start);
+            if (frameLength == NEED_MORE) {
+                return;
+            }
+            if (frameLength == CORRUPT) {
+                log.warn("Discarding malformed FIX frame from {} at offset {}", ctx.channel().remoteAddress(), start);
+                in.readerIndex(start + 1);
+                atFieldStart = false;
+                continue;
+            }
+
+            out.add(in.retainedSlice(start, frameLength));
+            in.readerIndex(start + frameLength);
+            atFieldStart = true;
+        }
+    }
+
+    /**
+     * Computes the length of the frame starting at {@code start} from its BodyLength field.
+     *
+     * @return The frame length, {@link #NEED_MORE} or {@link #CORRUPT}
+     */
+    private int frameLength(ByteBuf in, int start) {
+        int end = in.writerIndex();
+
+        // 8=<BeginString><SOH>
+        int beginStringEnd = in.indexOf(start + 2, Math.min(end, start + 3 + MAX_BEGIN_STRING_LENGTH), SOH);
+        if (beginStringEnd < 0) {
+            return end - start < 3 + MAX_BEGIN_STRING_LENGTH ? NEED_MORE : CORRUPT;
+        }
+
+        // 9=<BodyLength><SOH>
+        int pos = beginStringEnd + 1;
+        if (end < pos + 2) {
+            return NEED_MORE;
+        }
+        if (in.getByte(pos) != '9' || in.getByte(pos + 1) != '=') {
+            return CORRUPT;
+        }
+        pos += 2;
+        int bodyLength = 0;
+        int digits = 0;
+        while (true) {
+            if (pos >= end) {
+                return NEED_MORE;
+            }
+            byte b = in.getByte(pos++);
+            if (b == SOH) {
+                break;
+            }
+            if (b < '0' || b > '9' || ++digits > MAX_BODY_LENGTH_DIGITS) {
+                return CORRUPT;
+            }
+            bodyLength = bodyLength * 10 + (b - '0');
+        }
+        if (digits == 0) {
+            return CORRUPT;
+        }
+
+        long frameLength = (long) (pos - start) + bodyLength + TRAILER_LENGTH;
+        if (frameLength > maxFrameLength) {
+            log.warn("FIX frame of {} bytes exceeds maximum of {} bytes", frameLength, maxFrameLength);
+            return CORRUPT;
+        }
+        if (end - start < frameLength) {
+            return NEED_MORE;
+        }
+
+        // 10=NNN<SOH>
+        int trailer = pos + bodyLength;
+        if (in.getByte(trailer) != '1' || in.getByte(trailer + 1) != '0' || in.getByte(trailer + 2) != '='
+                || !isDigit(in.getByte(trailer + 3)) || !isDigit(in.getByte(trailer + 4))
+                || !isDigit(in.getByte(trailer + 5)) || in.getByte(trailer + 6) != SOH) {
+            return CORRUPT;
+        }
+        int expected = (in.getByte(trailer + 3) - '0') * 100 + (in.getByte(trailer + 4) - '0') * 10
+            + (in.getByte(trailer + 5) - '0');
+        checksum.sum = 0;
+        in.forEachByte(start, trailer - start, checksum);
+        if ((checksum.sum & 0xFF) != expected) {
+            log.warn("FIX frame CheckSum {} does not match computed {}", expected, checksum.sum & 0xFF);
+            return CORRUPT;
+        }
+        return (int) frameLength;
+    }
+
+    /**
+     * Finds the next "8=" that starts a field (see {@link #isFieldStart}).
+     *
+     * @return Index of the '8', or -1 if none is readable
+     */
+    private int findBeginString(ByteBuf in) {
+        int from = in.readerIndex();
+        int end = in.writerIndex();
+        while (from < end - 1) {
+            int idx = in.indexOf(from, end - 1, (byte) '8');
+            if (idx < 0) {
+                return -1;
+            }
+            if (in.getByte(idx + 1) == '=' && isFieldStart(in, idx)) {
+                return idx;
+            }
+            from = idx + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether a field can start at {@code index}: right after a SOH, or at a frame boundary,
+     * optionally followed by line breaks (textline peers).
+     */
+    private boolean isFieldStart(ByteBuf in, int index) {
+        for (int i = index - 1; i >= in.readerIndex(); i--) {
+            byte b = in.getByte(i);
+            if (b == SOH) {
+                return true;
+            }
+            if (b != '\r' && b != '\n') {
+                return false;
+            }
+        }
+        return atFieldStart;
+    }
+
+    private void discard(ChannelHandlerContext ctx, ByteBuf in, int length) {
+        if (length <= 0) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Discarding {} bytes before FIX BeginString from {}", length, ctx.channel().remoteAddress());
+        }
+        atFieldStart = isFieldStart(in, in.readerIndex() + length);
+        in.skipBytes(length);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static final class ChecksumProcessor implements ByteProcessor {
+        int sum;
+
+        @Override
+        public boolean process(byte value) {
+            sum += value & 0xFF;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.fix.gateway.netty;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.internal.PlatformDependent;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.component.netty.ChannelHandlerFactories;
+import org.apache.camel.component.netty.ChannelHandlerFactory;
+import org.apache.camel.component.netty.DefaultChannelHandlerFactory;
+import org.apache.camel.component.netty.NettyComponent;
+import org.apache.camel.component.netty.NettyConfiguration;
+import org.apache.camel.spi.ComponentCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Netty codecs for FIX endpoints, pooled client connections and the socket transport.
+ * Endpoints opt in to the codecs through their endpoint parameters, e.g.
+ * {@code textline=false&decoders=#fixFrameDecoder&encoders=#fixStringEncoder}.
+ * {@code netty:tcp} destinations are sent over {@link FixConnectionPools} unless {@code pool.enabled} is false.
+ * Camel's Netty endpoints (OUTPUT listeners, unpooled destinations) share the boss and worker
+ * event loops of the selected {@link NettyTransport}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fix.netty")
+@Data
+@Slf4j
+public class FixNettyConfig {
+
+    /**
+     * Largest FIX message, in bytes, accepted by {@link FixFrameDecoder}.
+     */
+    private int maxFrameLength = FixFrameDecoder.DEFAULT_MAX_FRAME_LENGTH;
+
+    /**
+     * Pooled client connections to Netty TCP destinations.
+     */
+    private Pool pool = new Pool();
+
+    /**
+     * Socket transport and event loops.
+     */
+    private Transport transport = new Transport();
+
+    /**
+     * Decoder factory; Camel asks it for a new {@link FixFrameDecoder} per channel
+     * because the decoder keeps per-connection cumulation state.
+     */
+    @Bean
+    public ChannelHandlerFactory fixFrameDecoder() {
+        return new DefaultChannelHandlerFactory() {
+            @Override
+            public ChannelHandler newChannelHandler() {
+                return new FixFrameDecoder(maxFrameLength);
+            }
+        };
+    }
+
+    /**
+     * Encoder writing String bodies as raw FIX bytes, without a line delimiter.
+     */
+    @Bean
+    public ChannelHandlerFactory fixStringEncoder() {
+        return ChannelHandlerFactories.newStringEncoder(StandardCharsets.ISO_8859_1, "tcp");
+    }
+
+    @Bean
+    public NettyTransport nettyTransport() {
+        NettyTransport selected = NettyTransport.select(transport.getType());
+        log.info("Using Netty {} transport (client connections), {} for Camel endpoints; direct buffers preferred: {}",
+            selected, selected.forCamel(), PlatformDependent.directBufferPreferred());
+        return selected;
+    }
+
+    @Bean(destroyMethod = "close")
+    public FixConnectionPools fixConnectionPools(NettyTransport nettyTransport) {
+        return new FixConnectionPools(pool, maxFrameLength, nettyTransport);
+    }
+
+    @Bean(destroyMethod = "shutdownGracefully")
+    public EventLoopGroup fixNettyBossGroup(NettyTransport nettyTransport) {
+        return nettyTransport.forCamel().newEventLoopGroup(transport.getBossThreads(), "fix-netty-boss");
+    }
+
+    @Bean(destroyMethod = "shutdownGracefully")
+    public EventLoopGroup fixNettyWorkerGroup(NettyTransport nettyTransport) {
+        return nettyTransport.forCamel().newEventLoopGroup(transport.getWorkerThreads(), "fix-netty-worker");
+    }
+
+    /**
+     * Makes every Camel Netty endpoint use the shared event loops, with {@code nativeTransport}
+     * when they are epoll loops. Endpoints may still override these through URI parameters.
+     */
+    @Bean
+    public ComponentCustomizer fixNettyComponentCustomizer(NettyTransport nettyTransport,
+                                                           EventLoopGroup fixNettyBossGroup,
+                                                           EventLoopGroup fixNettyWorkerGroup) {
+        return ComponentCustomizer.forType(NettyComponent.class, component -> {
+            NettyConfiguration configuration = component.getConfiguration();
+            configuration.setNativeTransport(nettyTransport.forCamel() == NettyTransport.EPOLL);
+            configuration.setBossGroup(fixNettyBossGroup);
+            configuration.setWorkerGroup(fixNettyWorkerGroup);
+        });
+    }
+
+    /**
+     * Socket transport settings.
+     */
+    @Data
+    public static class Transport {
+
+        /**
+         * auto (io_uring, then epoll, then NIO), io_uring, epoll or nio; unavailable transports fall back in that order.
+         */
+        private String type = "auto";
+
+        /**
+         * Threads accepting connections on OUTPUT listeners.
+         */
+        private int bossThreads = 1;
+
+        /**
+         * Event-loop threads of Camel Netty endpoints; 0 uses Netty's default.
+         */
+        private int workerThreads = 0;
+    }
+
+    /**
+     * Connection pool settings, applied to every destination host:port.
+     */
+    @Data
+    public static class Pool {
+
+        /**
+         * Whether Netty TCP destinations use pooled connections instead of Camel's connect-per-message producer.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum connections per destination, leased or idle.
+         */
+        private int maxConnections = 4;
+
+        /**
+         * How long a sender waits for a connection when all are leased, in milliseconds.
+         */
+        private long acquireTimeoutMs = 2000;
+
+        /**
+         * Connect timeout when the destination URI has no connectTimeout, in milliseconds.
+         */
+        private long connectTimeoutMs = 2000;
+
+        /**
+         * Reply (and write) timeout when the destination URI has no requestTimeout, in milliseconds.
+         */
+        private long requestTimeoutMs = 5000;
+
+        /**
+         * Unacknowledged messages per pipelined destination when the URI has no maxInFlight.
+         */
+        private int maxInFlight = 64;
+
+        /**
+         * Idle connections are closed after this long without use, in milliseconds.
+         */
+        private long idleTimeoutMs = 60000;
+
+        /**
+         * Interval of the check closing inactive and expired idle connections, in milliseconds.
+         */
+        private long healthCheckIntervalMs = 10000;
+
+        /**
+         * Wait after the first failed connect before connecting again; doubles per failure.
+         */
+        private long reconnectBackoffInitialMs = 100;
+
+        /**
+         * Upper bound of the reconnect backoff, in milliseconds.
+         */
+        private long reconnectBackoffMaxMs = 5000;
+
+        /**
+         * Event-loop threads of pooled client connections; 0 uses Netty's default.
+         */
+        private int ioThreads = 0;
+    }
+}
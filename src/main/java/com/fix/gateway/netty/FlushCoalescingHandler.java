@@ -0,0 +1,69 @@
+package com.fix.gateway.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces flushes of a client channel so that messages written back to back go out in one
+ * syscall. A flush is passed on once {@code maxBytes} are pending, otherwise it is delayed by up to
+ * {@code windowNanos} and merged with the flushes that follow. Writes are never reordered or held
+ * back from the channel's outbound buffer; only the flush is deferred.
+ * <p>
+ * Runs on the channel's event loop, so it needs no synchronization, but keeps per-channel state
+ * and must not be shared.
+ */
+class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    private final long windowNanos;
+    private final int maxBytes;
+
+    private long pendingBytes;
+    private ScheduledFuture<?> scheduledFlush;
+
+    FlushCoalescingHandler(long windowNanos, int maxBytes) {
+        this.windowNanos = windowNanos;
+        this.maxBytes = Math.max(1, maxBytes);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf buffer) {
+            pendingBytes += buffer.readableBytes();
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        if (pendingBytes >= maxBytes) {
+            flushNow(ctx);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = ctx.executor().schedule(() -> flushNow(ctx), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushNow(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushNow(ctx);
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingBytes = 0;
+        ctx.flush();
+    }
+}
@@ -0,0 +1,128 @@
+package com.fix.gateway.netty;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A Netty TCP destination as written in the routing configuration, e.g.
+ * {@code netty:tcp://localhost:9999?textline=true&sync=true&requestTimeout=5000}.
+ * Only the parameters that matter to {@link FixConnectionPools} are kept; connection handling
+ * parameters such as {@code disconnect} or {@code reuseChannel} do not apply to pooled connections
+ * but keep Camel's producer from reusing channels when the pool is disabled. Destinations with custom
+ * {@code encoders}/{@code decoders} are not pooled (see {@link #hasCustomCodecs}).
+ * <p>
+ * {@code pipelined=true&ackCorrelation=clOrdId&maxInFlight=128} selects pipelined sends and
+ * {@code coalesceWindowMicros=200&coalesceMaxBytes=16384} write coalescing. Camel's Netty producer
+ * does not know these parameters; such destinations require {@code fix.netty.pool.enabled}.
+ *
+ * @param textline         Newline-delimited messages instead of FIX framing
+ * @param sync             Whether a reply is awaited for every message
+ * @param connectTimeoutMs Connect timeout, or 0 for the pool default
+ * @param requestTimeoutMs Reply timeout, or 0 for the pool default
+ * @param pipelined        Whether messages are written back to back and acks matched by {@code ackCorrelation}
+ * @param ackCorrelation   How acks are matched to messages on a pipelined connection; ClOrdID unless set,
+ *                         since order flow is acked by ExecutionReports, which carry no RefSeqNum
+ * @param maxInFlight      Unacknowledged messages allowed on a pipelined connection, or 0 for the pool default
+ * @param coalesceWindowMicros Longest delay of a flush so that following writes share it, or 0 to flush every message
+ * @param coalesceMaxBytes Pending bytes that trigger a flush before the window ends
+ */
+public record NettyDestination(String host, int port, boolean textline, boolean sync,
+                               long connectTimeoutMs, long requestTimeoutMs,
+                               boolean pipelined, AckCorrelation ackCorrelation, int maxInFlight,
+                               long coalesceWindowMicros, int coalesceMaxBytes) {
+
+    private static final String TCP_PREFIX = "netty:tcp://";
+
+    private static final int DEFAULT_COALESCE_MAX_BYTES = 16384;
+
+    /**
+     * @return Whether the URI is a Netty TCP client endpoint that can use pooled connections
+     */
+    public static boolean isTcp(String uri) {
+        return uri != null && uri.startsWith(TCP_PREFIX);
+    }
+
+    /**
+     * The pool frames messages itself (FIX or textline), so destinations with their own Netty
+     * encoders or decoders are sent through Camel's Netty producer instead.
+     *
+     * @return Whether the URI sets {@code encoders}, {@code decoders}, {@code encoder} or {@code decoder}
+     */
+    public static boolean hasCustomCodecs(String uri) {
+        Map<String, String> params = params(uri);
+        return params.containsKey("encoders") || params.containsKey("decoders")
+            || params.containsKey("encoder") || params.containsKey("decoder");
+    }
+
+    /**
+     * Parses a {@code netty:tcp://host:port[?params]} URI.
+     *
+     * @throws IllegalArgumentException if the URI is not a Netty TCP endpoint with host and port
+     */
+    public static NettyDestination parse(String uri) {
+        if (!isTcp(uri)) {
+            throw new IllegalArgumentException("Not a Netty TCP endpoint: " + uri);
+        }
+        int query = uri.indexOf('?');
+        String address = uri.substring(TCP_PREFIX.length(), query < 0 ? uri.length() : query);
+        if (address.endsWith("/")) {
+            address = address.substring(0, address.length() - 1);
+        }
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0 || colon == address.length() - 1) {
+            throw new IllegalArgumentException("Netty endpoint without host and port: " + uri);
+        }
+
+        Map<String, String> params = params(uri);
+        return new NettyDestination(
+            address.substring(0, colon),
+            Integer.parseInt(address.substring(colon + 1)),
+            Boolean.parseBoolean(params.getOrDefault("textline", "false")),
+            Boolean.parseBoolean(params.getOrDefault("sync", "true")),
+            Long.parseLong(params.getOrDefault("connectTimeout", "0")),
+            Long.parseLong(params.getOrDefault("requestTimeout", "0")),
+            Boolean.parseBoolean(params.getOrDefault("pipelined", "false")),
+            AckCorrelation.parse(params.getOrDefault("ackCorrelation", "clOrdId")),
+            Integer.parseInt(params.getOrDefault("maxInFlight", "0")),
+            Long.parseLong(params.getOrDefault("coalesceWindowMicros", "0")),
+            Integer.parseInt(params.getOrDefault("coalesceMaxBytes", String.valueOf(DEFAULT_COALESCE_MAX_BYTES))));
+    }
+
+    private static Map<String, String> params(String uri) {
+        Map<String, String> params = new HashMap<>();
+        int query = uri.indexOf('?');
+        if (query >= 0) {
+            for (String param : uri.substring(query + 1).split("&")) {
+                int eq = param.indexOf('=');
+                if (eq > 0) {
+                    params.put(param.substring(0, eq), param.substring(eq + 1));
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * @return Whether flushes are coalesced over {@code coalesceWindowMicros}
+     */
+    public boolean coalescing() {
+        return coalesceWindowMicros > 0;
+    }
+
+    /**
+     * Pipelined destinations, and fire-and-forget destinations with coalescing, send every message
+     * over one shared connection instead of leasing a connection per message, so that writes of
+     * concurrent senders follow each other on the wire.
+     */
+    public boolean sharesConnection() {
+        return pipelined || (!sync && coalescing());
+    }
+
+    /**
+     * Destinations with the same address, framing and coalescing share a connection pool.
+     */
+    String poolKey() {
+        String key = host + ":" + port + (textline ? "/textline" : "/fix");
+        return coalescing() ? key + "/coalesce=" + coalesceWindowMicros + "us," + coalesceMaxBytes + "b" : key;
+    }
+}
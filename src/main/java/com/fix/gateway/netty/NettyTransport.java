@@ -0,0 +1,155 @@
+package com.fix.gateway.netty;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Netty socket transports, from fastest to most portable.
+ * <p>
+ * epoll needs the {@code netty-transport-native-epoll} library for the platform and io_uring the
+ * {@code netty-incubator-transport-native-io_uring} artifact, both added by the
+ * {@code native-transport} Maven profile. io_uring is loaded reflectively so the router builds and
+ * runs without it. {@link #select} falls back to the next available transport.
+ */
+public enum NettyTransport {
+
+    IO_URING,
+    EPOLL,
+    NIO;
+
+    private static final Logger log = LoggerFactory.getLogger(NettyTransport.class);
+
+    private static final String IO_URING_PACKAGE = "io.netty.incubator.channel.uring.";
+
+    /**
+     * Returns the preferred transport if it is available, otherwise the next available one.
+     *
+     * @param preferred {@code auto} (io_uring, then epoll, then NIO) or a transport name such as {@code epoll}
+     */
+    public static NettyTransport select(String preferred) {
+        String name = preferred == null ? "auto" : preferred.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        NettyTransport first = "AUTO".equals(name) ? IO_URING : valueOf(name);
+        for (NettyTransport transport : values()) {
+            if (transport.ordinal() < first.ordinal()) {
+                continue;
+            }
+            if (transport.isAvailable()) {
+                if (transport != first) {
+                    log.info("Netty transport {} is not available ({}), using {}", first, first.unavailabilityCause(), transport);
+                }
+                return transport;
+            }
+        }
+        return NIO;
+    }
+
+    public boolean isAvailable() {
+        switch (this) {
+            case IO_URING:
+                try {
+                    return (Boolean) Class.forName(IO_URING_PACKAGE + "IOUring").getMethod("isAvailable").invoke(null);
+                } catch (ReflectiveOperationException | LinkageError e) {
+                    return false;
+                }
+            case EPOLL:
+                return Epoll.isAvailable();
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return Why the transport cannot be used, or null if it is available
+     */
+    public String unavailabilityCause() {
+        if (isAvailable()) {
+            return null;
+        }
+        switch (this) {
+            case IO_URING:
+                return "netty-incubator-transport-native-io_uring missing or unsupported by the kernel";
+            case EPOLL:
+                return String.valueOf(Epoll.unavailabilityCause());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param threads  Event-loop threads; 0 uses Netty's default of twice the available processors
+     * @param poolName Thread name prefix
+     */
+    public EventLoopGroup newEventLoopGroup(int threads, String poolName) {
+        ThreadFactory threadFactory = new DefaultThreadFactory(poolName, true);
+        switch (this) {
+            case IO_URING:
+                return ioUring("IOUringEventLoopGroup", EventLoopGroup.class, threads, threadFactory);
+            case EPOLL:
+                return new EpollEventLoopGroup(threads, threadFactory);
+            default:
+                return new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+
+    public Class<? extends SocketChannel> socketChannelClass() {
+        switch (this) {
+            case IO_URING:
+                return ioUringClass("IOUringSocketChannel", SocketChannel.class);
+            case EPOLL:
+                return EpollSocketChannel.class;
+            default:
+                return NioSocketChannel.class;
+        }
+    }
+
+    public Class<? extends ServerSocketChannel> serverSocketChannelClass() {
+        switch (this) {
+            case IO_URING:
+                return ioUringClass("IOUringServerSocketChannel", ServerSocketChannel.class);
+            case EPOLL:
+                return EpollServerSocketChannel.class;
+            default:
+                return NioServerSocketChannel.class;
+        }
+    }
+
+    /**
+     * Camel's Netty component only knows NIO and epoll ({@code nativeTransport=true}),
+     * so its endpoints use epoll when io_uring is selected.
+     */
+    public NettyTransport forCamel() {
+        return this == IO_URING ? select(EPOLL.name()) : this;
+    }
+
+    private static <T> Class<? extends T> ioUringClass(String name, Class<T> type) {
+        try {
+            return Class.forName(IO_URING_PACKAGE + name).asSubclass(type);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("io_uring transport is not on the classpath", e);
+        }
+    }
+
+    private static <T> T ioUring(String name, Class<T> type, int threads, ThreadFactory threadFactory) {
+        try {
+            return type.cast(ioUringClass(name, type)
+                .getConstructor(int.class, ThreadFactory.class)
+                .newInstance(threads, threadFactory));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create io_uring " + name, e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.fix.gateway.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.ReferenceCountUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A pipelined connection to one destination: messages are written back to back without waiting
+ * for replies, and each reply completes the message it acknowledges via an {@link AckCorrelator}.
+ * Fire-and-forget destinations that coalesce writes use the same connection without acks: a
+ * message completes once it is flushed.
+ * <p>
+ * The connection is a long-lived lease from the destination's {@link FixConnectionPool} and is
+ * replaced on the next send once it has closed. At most {@code maxInFlight} messages are
+ * unacknowledged; further senders wait up to {@code acquireTimeoutMs} for the window. A message
+ * whose ack times out only frees its slot: replies are matched by key, so a late ack cannot be
+ * taken for another message's and the connection stays in use.
+ */
+class PipelinedConnection implements Closeable {
+
+    private final NettyDestination destination;
+    private final FixConnectionPool pool;
+    private final Semaphore window;
+    private final int maxInFlight;
+    private final long acquireTimeoutMs;
+    private final long connectTimeoutMs;
+    private final long requestTimeoutMs;
+
+    private FixConnectionPool.Lease lease;
+    private AckCorrelator correlator;
+    private boolean closed;
+
+    PipelinedConnection(NettyDestination destination, FixConnectionPool pool, int maxInFlight,
+                        long acquireTimeoutMs, long connectTimeoutMs, long requestTimeoutMs) {
+        this.destination = destination;
+        this.pool = pool;
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.window = new Semaphore(this.maxInFlight);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.requestTimeoutMs = requestTimeoutMs;
+    }
+
+    /**
+     * Writes a message and returns the future of its ack. Blocks only while the window is full.
+     *
+     * @param body    The message, used for its correlation key
+     * @param encoded The message as written; released if it is not written
+     * @return Completed with the ack (null without acks), or exceptionally on timeout, write failure or connection loss
+     */
+    CompletableFuture<Object> send(Object body, ByteBuf encoded) {
+        boolean acked = destination.pipelined();
+        String key = acked ? destination.ackCorrelation().requestKey(body) : null;
+        if (acked && key == null) {
+            ReferenceCountUtil.release(encoded);
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                "Message to " + destination.poolKey() + " has no " + destination.ackCorrelation() + " to correlate its ack"));
+        }
+
+        boolean acquired = false;
+        try {
+            if (!window.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new TimeoutException("In-flight window to " + destination.poolKey() + " still full after "
+                    + acquireTimeoutMs + "ms (maxInFlight=" + maxInFlight + ")");
+            }
+            acquired = true;
+
+            Channel channel;
+            AckCorrelator current;
+            CompletableFuture<Object> reply;
+            synchronized (this) {
+                channel = connect();
+                current = correlator;
+                // Registered before the write so that a fast ack finds it
+                reply = acked ? current.register(key) : new CompletableFuture<>();
+            }
+            reply.orTimeout(requestTimeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((ack, failure) -> {
+                    if (acked) {
+                        current.remove(key, reply);
+                    }
+                    window.release();
+                });
+            acquired = false;
+
+            channel.writeAndFlush(encoded).addListener(write -> {
+                if (!write.isSuccess()) {
+                    reply.completeExceptionally(write.cause());
+                } else if (!acked) {
+                    reply.complete(null);
+                }
+            });
+            return reply;
+        } catch (Exception e) {
+            if (acquired) {
+                window.release();
+            }
+            ReferenceCountUtil.release(encoded);
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * @return Messages written and not yet acknowledged, timed out or failed
+     */
+    int getInFlight() {
+        return maxInFlight - window.availablePermits();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (lease != null) {
+            lease.invalidate();
+            correlator.failAll(new IOException("Connection to " + destination.poolKey() + " closed"));
+            lease = null;
+        }
+    }
+
+    /**
+     * Returns the active channel, replacing a closed one. Requests of a closed channel were
+     * already failed by {@link FixClientHandler}.
+     */
+    private Channel connect() throws Exception {
+        if (closed) {
+            throw new IllegalStateException("Pipelined connection to " + destination.poolKey() + " is closed");
+        }
+        if (lease != null && lease.channel().isActive()) {
+            return lease.channel();
+        }
+        if (lease != null) {
+            lease.invalidate();
+            lease = null;
+        }
+        FixConnectionPool.Lease next = pool.acquire(connectTimeoutMs);
+        correlator = new AckCorrelator(destination.ackCorrelation());
+        FixClientHandler.correlate(next.channel(), correlator);
+        lease = next;
+        return next.channel();
+    }
+}
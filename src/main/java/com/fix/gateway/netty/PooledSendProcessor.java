@@ -0,0 +1,58 @@
+package com.fix.gateway.netty;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.support.AsyncProcessorSupport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends the exchange body to a pooled Netty TCP destination. For pipelined destinations the
+ * route continues when the ack arrives, on the connection's I/O thread like Camel's Netty
+ * producer, so the calling thread is free to send the next message meanwhile. The ack replaces
+ * the body; a failed or timed out send is set as the exchange exception.
+ */
+public class PooledSendProcessor extends AsyncProcessorSupport {
+
+    private final FixConnectionPools connectionPools;
+    private final String uri;
+
+    public PooledSendProcessor(FixConnectionPools connectionPools, String uri) {
+        this.connectionPools = connectionPools;
+        this.uri = uri;
+    }
+
+    @Override
+    public boolean process(Exchange exchange, AsyncCallback callback) {
+        CompletableFuture<Object> reply = connectionPools.sendAsync(uri, exchange.getIn().getBody());
+        if (reply.isDone()) {
+            complete(exchange, reply);
+            callback.done(true);
+            return true;
+        }
+        reply.whenComplete((ack, failure) -> {
+            complete(exchange, reply);
+            callback.done(false);
+        });
+        return false;
+    }
+
+    private static void complete(Exchange exchange, CompletableFuture<Object> reply) {
+        try {
+            Object ack = reply.join();
+            if (ack != null) {
+                exchange.getMessage().setBody(ack);
+            }
+        } catch (CompletionException e) {
+            exchange.setException(e.getCause() != null ? e.getCause() : e);
+        } catch (RuntimeException e) {
+            exchange.setException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PooledSend[" + uri + "]";
+    }
+}
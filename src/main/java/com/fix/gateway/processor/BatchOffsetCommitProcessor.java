@@ -0,0 +1,53 @@
+package com.fix.gateway.processor;
+
+import com.fix.gateway.kafka.CoalescingManualCommit;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Commits Kafka offsets for ordered INPUT routes once per batch instead of once per record.
+ * <p>
+ * The Kafka consumer hands the records of a poll to the route one at a time, in offset order
+ * per partition, so every record that reaches this processor has been fully processed together
+ * with all earlier records of its partition. Committing the current record therefore commits the
+ * highest processed offset of the partition. A crash can only replay records processed after the
+ * last commit; nothing is ever committed ahead of processing.
+ * <p>
+ * Ordered routes consume with {@link CoalescingManualCommit} handles, which only mark the record
+ * processed, so every record is marked here and the {@link com.fix.gateway.kafka.OffsetCommitManager}
+ * alone decides when to commit, per batch of records or the route's commit interval
+ * (see {@link com.fix.gateway.kafka.CoalescingManualCommitFactory}).
+ */
+public class BatchOffsetCommitProcessor implements Processor {
+    
+    private static final Logger log = LoggerFactory.getLogger(BatchOffsetCommitProcessor.class);
+    
+    private final String routeId;
+    
+    public BatchOffsetCommitProcessor(String routeId) {
+        this.routeId = routeId;
+    }
+    
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        KafkaManualCommit manualCommit = exchange.getIn().getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class);
+        if (manualCommit == null) {
+            log.debug("Ordered route {}: No manual commit available (auto-commit may be enabled)", routeId);
+            return;
+        }
+        
+        try {
+            // Marks the record; the commit manager sends the commit when it is due
+            manualCommit.commit();
+        } catch (Exception e) {
+            // The next commit on this partition covers this record; until then it may be replayed
+            log.warn("Ordered route {}: Failed to commit {}-{} offset {}: {}", routeId,
+                exchange.getIn().getHeader(KafkaConstants.TOPIC), exchange.getIn().getHeader(KafkaConstants.PARTITION),
+                exchange.getIn().getHeader(KafkaConstants.OFFSET), e.getMessage());
+        }
+    }
+}
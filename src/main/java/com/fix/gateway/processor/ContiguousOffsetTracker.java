@@ -0,0 +1,114 @@
+package com.fix.gateway.processor;
+
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks records that are processed out of order and commits, per topic-partition, only the
+ * contiguous prefix of completed records.
+ * <p>
+ * Records are {@link #track tracked} in the order they are polled and may {@link #complete complete}
+ * in any order. When the oldest outstanding record of a partition completes, the tracker walks
+ * forward over every completed record and commits the last one, so the committed offset never
+ * passes a record that is still in flight.
+ */
+public class ContiguousOffsetTracker {
+    
+    private final Map<String, PartitionRecords> partitions = new ConcurrentHashMap<>();
+    
+    /**
+     * Registers a polled record. Must be called in poll order for each partition.
+     *
+     * @param topicPartition Topic-partition of the record
+     * @param offset Offset of the record
+     * @param manualCommit Commit handle of the record, or null if offsets are not committed manually
+     * @return Ticket to pass to {@link #complete} once the record is processed
+     */
+    public Ticket track(String topicPartition, long offset, KafkaManualCommit manualCommit) {
+        PartitionRecords records = partitions.computeIfAbsent(topicPartition, key -> new PartitionRecords());
+        Ticket ticket = new Ticket(records, offset, manualCommit);
+        synchronized (records) {
+            records.outstanding.addLast(ticket);
+        }
+        return ticket;
+    }
+    
+    /**
+     * Marks a record as processed and commits the contiguous completed prefix of its partition.
+     *
+     * @return The highest offset committed by this call, or -1 if the prefix did not advance
+     */
+    public long complete(Ticket ticket) {
+        PartitionRecords records = ticket.records;
+        synchronized (records) {
+            ticket.completed = true;
+            Ticket last = null;
+            while (!records.outstanding.isEmpty() && records.outstanding.peekFirst().completed) {
+                last = records.outstanding.pollFirst();
+            }
+            if (last == null) {
+                return -1;
+            }
+            // Committed while holding the lock so commits of a partition are issued in offset order
+            if (last.manualCommit != null) {
+                last.manualCommit.commit();
+            }
+            records.committedOffset = last.offset;
+            return last.offset;
+        }
+    }
+    
+    /**
+     * @return The highest offset committed for the topic-partition, or -1 if none
+     */
+    public long getCommittedOffset(String topicPartition) {
+        PartitionRecords records = partitions.get(topicPartition);
+        if (records == null) {
+            return -1;
+        }
+        synchronized (records) {
+            return records.committedOffset;
+        }
+    }
+    
+    /**
+     * @return Number of tracked records of the topic-partition that are not yet committed
+     */
+    public int getOutstanding(String topicPartition) {
+        PartitionRecords records = partitions.get(topicPartition);
+        if (records == null) {
+            return 0;
+        }
+        synchronized (records) {
+            return records.outstanding.size();
+        }
+    }
+    
+    /**
+     * Handle for a tracked record.
+     */
+    public static final class Ticket {
+        private final PartitionRecords records;
+        private final long offset;
+        private final KafkaManualCommit manualCommit;
+        private boolean completed;
+        
+        private Ticket(PartitionRecords records, long offset, KafkaManualCommit manualCommit) {
+            this.records = records;
+            this.offset = offset;
+            this.manualCommit = manualCommit;
+        }
+        
+        public long getOffset() {
+            return offset;
+        }
+    }
+    
+    private static final class PartitionRecords {
+        private final ArrayDeque<Ticket> outstanding = new ArrayDeque<>();
+        private long committedOffset = -1;
+    }
+}
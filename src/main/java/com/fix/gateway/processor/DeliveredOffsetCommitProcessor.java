@@ -0,0 +1,73 @@
+package com.fix.gateway.processor;
+
+import com.fix.gateway.dispatch.BulkheadDispatchProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Commits Kafka offsets for ordered INPUT routes with bulkheads, where the route finishes a record
+ * before its destinations have it.
+ * <p>
+ * Every record is tracked in poll order by a {@link ContiguousOffsetTracker} and completes once its
+ * {@link BulkheadDispatchProcessor#DELIVERED} future does, or right away if it was not dispatched.
+ * Bulkheads of different destinations deliver at their own pace, so only the contiguous prefix of
+ * completed records is committed and the committed offset never passes a record that a destination
+ * still holds in memory.
+ */
+public class DeliveredOffsetCommitProcessor implements Processor {
+    
+    private static final Logger log = LoggerFactory.getLogger(DeliveredOffsetCommitProcessor.class);
+    
+    private final String routeId;
+    private final ContiguousOffsetTracker offsetTracker = new ContiguousOffsetTracker();
+    
+    public DeliveredOffsetCommitProcessor(String routeId) {
+        this.routeId = routeId;
+    }
+    
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        KafkaManualCommit manualCommit = exchange.getIn().getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class);
+        if (manualCommit == null) {
+            log.debug("Ordered route {}: No manual commit available (auto-commit may be enabled)", routeId);
+            return;
+        }
+        
+        String topicPartition = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class)
+            + "-" + exchange.getIn().getHeader(KafkaConstants.PARTITION, Integer.class);
+        Long offset = exchange.getIn().getHeader(KafkaConstants.OFFSET, Long.class);
+        ContiguousOffsetTracker.Ticket ticket = offsetTracker.track(topicPartition, offset != null ? offset : -1, manualCommit);
+        
+        CompletableFuture<?> delivered = exchange.getProperty(BulkheadDispatchProcessor.DELIVERED, CompletableFuture.class);
+        if (delivered == null) {
+            complete(ticket, topicPartition);
+        } else {
+            delivered.whenComplete((result, failure) -> complete(ticket, topicPartition));
+        }
+    }
+    
+    /**
+     * @return Records of the topic-partition waiting for delivery or for an earlier record
+     */
+    int getOutstanding(String topicPartition) {
+        return offsetTracker.getOutstanding(topicPartition);
+    }
+    
+    private void complete(ContiguousOffsetTracker.Ticket ticket, String topicPartition) {
+        try {
+            long committed = offsetTracker.complete(ticket);
+            if (committed >= 0) {
+                log.debug("Ordered route {}: Committed {} up to offset {}", routeId, topicPartition, committed);
+            }
+        } catch (Exception e) {
+            // The next commit on this partition covers this record; until then it may be replayed
+            log.warn("Ordered route {}: Failed to commit {} offset {}: {}", routeId, topicPartition, ticket.getOffset(), e.getMessage());
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package com.fix.gateway.processor;
 
 import com.fix.gateway.model.FixMessageEnvelope;
+import com.fix.gateway.model.PayloadFormat;
 import com.fix.gateway.model.RouteType;
 import com.fix.gateway.model.RoutingConfig;
 import com.fix.gateway.util.FixMessageUtils;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -16,6 +19,8 @@ import java.util.stream.Collectors;
 @Component
 public class FixMessageProcessor implements Processor {
 
+    private static final Logger log = LoggerFactory.getLogger(FixMessageProcessor.class);
+
     @Autowired
     private RoutingConfig routingConfig;
 
@@ -32,10 +37,6 @@ public class FixMessageProcessor implements Processor {
         String sessionId = envelope.getSessionId();
         String msgType = envelope.getMsgType();
         
-        // Debug log the msgType
-        System.out.println("[DEBUG] FixMessageProcessor - Extracted msgType from envelope: " + msgType);
-        System.out.println("[DEBUG] FixMessageProcessor - Envelope toString: " + envelope.toString());
-        
         // Get routeId from headers (set by FixMessageRouter)
         String routeId = exchange.getIn().getHeader("routeId", String.class);
         
@@ -68,11 +69,7 @@ public class FixMessageProcessor implements Processor {
             }
         }
         
-        // Log destinations found
-        System.out.println("[DEBUG] FixMessageProcessor - Found " + destinations.size() + " destinations for route " + routeId);
-        if (!destinations.isEmpty()) {
-            System.out.println("[DEBUG] FixMessageProcessor - Destinations: " + destinations);
-        }
+        log.debug("FixMessageProcessor: msgType {} of route {} has destinations {}", msgType, routeId, destinations);
         
         // Set headers for routing
         exchange.getIn().setHeader("sessionId", sessionId);
@@ -89,23 +86,19 @@ public class FixMessageProcessor implements Processor {
         if (rawMessage != null && !rawMessage.isEmpty()) {
             rawMessage = FixMessageUtils.ensureTrailingSOH(rawMessage);
             
-            // Log raw message details for debugging SOH issue
-            int length = rawMessage.length();
-            char lastChar = rawMessage.charAt(length - 1);
-            System.out.println("[DEBUG] FixMessageProcessor - Raw message length: " + length +
-                             ", last char code: " + (int)lastChar +
-                             " (0x" + Integer.toHexString(lastChar) + ")");
-            // Also check for SOH characters in the message
-            int sohCount = FixMessageUtils.countSOH(rawMessage);
-            System.out.println("[DEBUG] FixMessageProcessor - Total SOH characters in message: " + sohCount);
-            
             // Validate FIX message structure
             if (!FixMessageUtils.isValidFixMessage(rawMessage)) {
-                System.out.println("[WARN] FixMessageProcessor - Message may not be valid FIX format");
+                log.warn("FixMessageProcessor: Message of route {} may not be valid FIX format", routeId);
             }
         }
         
-        exchange.getIn().setBody(rawMessage);
+        // BYTES routes forward the raw message as the bytes it was read from the wire as
+        PayloadFormat payloadFormat = exchange.getProperty(PayloadFormat.EXCHANGE_PROPERTY, PayloadFormat.class);
+        if (payloadFormat == PayloadFormat.BYTES && rawMessage != null) {
+            exchange.getIn().setBody(FixMessageUtils.toWireBytes(rawMessage));
+        } else {
+            exchange.getIn().setBody(rawMessage);
+        }
         
         // Log routing decision
         if (destinations.isEmpty()) {
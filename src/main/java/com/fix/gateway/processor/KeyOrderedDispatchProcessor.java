@@ -0,0 +1,186 @@
+package com.fix.gateway.processor;
+
+import com.fix.gateway.dispatch.BulkheadDispatchProcessor;
+import com.fix.gateway.kafka.CoalescingManualCommit;
+import com.fix.gateway.model.EnhancedRouteMapping;
+import com.fix.gateway.model.FixMessageEnvelope;
+import com.fix.gateway.model.OrderingKey;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.support.service.ServiceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Hands records of a key-ordered INPUT route from the Kafka consumer thread to worker lanes.
+ * <p>
+ * Every record is assigned to a lane by the hash of its ordering key (sessionId, ClOrdID or
+ * Symbol, see {@link OrderingKey}). Each lane is a single thread, so records with the same key
+ * are processed in poll order while records with other keys run concurrently on other lanes.
+ * A lane sends a copy of the exchange to the route's pipeline endpoint and then reports the record
+ * to a {@link ContiguousOffsetTracker}, which commits only the contiguous completed prefix of each
+ * partition; with bulkheads, once every destination has handled it ({@link BulkheadDispatchProcessor#DELIVERED}).
+ * At most {@code maxInFlight} records are outstanding; beyond that the consumer waits.
+ * <p>
+ * The consumer endpoint must use a commit factory whose handles may be called from other threads,
+ * such as {@link com.fix.gateway.kafka.CoalescingManualCommitFactory}: commits from the lanes are recorded and sent by the
+ * consumer thread as it dispatches further records, or when partitions are revoked.
+ */
+public class KeyOrderedDispatchProcessor extends ServiceSupport implements Processor {
+    
+    private static final Logger log = LoggerFactory.getLogger(KeyOrderedDispatchProcessor.class);
+    
+    private final CamelContext camelContext;
+    private final String routeId;
+    private final String pipelineUri;
+    private final OrderingKey orderingKey;
+    private final int concurrency;
+    private final Semaphore inFlight;
+    private final ContiguousOffsetTracker offsetTracker = new ContiguousOffsetTracker();
+    
+    private ExecutorService[] lanes;
+    private ProducerTemplate producerTemplate;
+    
+    public KeyOrderedDispatchProcessor(CamelContext camelContext, String routeId, String pipelineUri,
+                                       EnhancedRouteMapping.OrderedProcessingConfig config) {
+        this.camelContext = camelContext;
+        this.routeId = routeId;
+        this.pipelineUri = pipelineUri;
+        this.orderingKey = config.getOrderingKey();
+        this.concurrency = Math.max(1, config.getConcurrency());
+        this.inFlight = new Semaphore(Math.max(1, config.getMaxInFlight()));
+    }
+    
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        String topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class);
+        Integer partition = exchange.getIn().getHeader(KafkaConstants.PARTITION, Integer.class);
+        Long offset = exchange.getIn().getHeader(KafkaConstants.OFFSET, Long.class);
+        KafkaManualCommit manualCommit = exchange.getIn().getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class);
+        String topicPartition = topic + "-" + partition;
+        
+        // Records without a key keep partition order among themselves
+        String key = extractKey(exchange.getIn().getBody(FixMessageEnvelope.class), orderingKey);
+        if (key == null) {
+            key = topicPartition;
+        }
+        int lane = laneOf(key, concurrency);
+        
+        inFlight.acquire();
+        try {
+            Exchange copy = exchange.copy();
+            ContiguousOffsetTracker.Ticket ticket = offsetTracker.track(topicPartition, offset != null ? offset : -1, manualCommit);
+            lanes[lane].execute(() -> processInLane(copy, ticket, topicPartition));
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+        log.debug("Key-ordered route {}: Dispatched {} offset {} to lane {}", routeId, topicPartition, offset, lane);
+        
+        // Lanes only record completed offsets; commits are sent from this (the consumer) thread
+        if (manualCommit instanceof CoalescingManualCommit coalescing) {
+            coalescing.commitIfDue();
+        }
+    }
+    
+    private void processInLane(Exchange exchange, ContiguousOffsetTracker.Ticket ticket, String topicPartition) {
+        try {
+            producerTemplate.send(pipelineUri, exchange);
+            if (exchange.getException() != null) {
+                log.error("Key-ordered route {}: Failed to process {} offset {}: {}",
+                    routeId, topicPartition, ticket.getOffset(), exchange.getException().getMessage());
+            }
+        } catch (Exception e) {
+            log.error("Key-ordered route {}: Failed to process {} offset {}: {}",
+                routeId, topicPartition, ticket.getOffset(), e.getMessage());
+        } finally {
+            // Failed records were handled by the error handler (dead letter); ordering moves on like the ordered route.
+            // With bulkheads the record is only done once its destinations have it
+            CompletableFuture<?> delivered = exchange.getProperty(BulkheadDispatchProcessor.DELIVERED, CompletableFuture.class);
+            if (delivered == null) {
+                complete(ticket, topicPartition);
+            } else {
+                delivered.whenComplete((result, failure) -> complete(ticket, topicPartition));
+            }
+        }
+    }
+    
+    private void complete(ContiguousOffsetTracker.Ticket ticket, String topicPartition) {
+        try {
+            long committed = offsetTracker.complete(ticket);
+            if (committed >= 0) {
+                log.debug("Key-ordered route {}: Committed {} up to offset {}", routeId, topicPartition, committed);
+            }
+        } catch (Exception e) {
+            log.warn("Key-ordered route {}: Failed to commit {} offset {}: {}",
+                routeId, topicPartition, ticket.getOffset(), e.getMessage());
+        } finally {
+            inFlight.release();
+        }
+    }
+    
+    /**
+     * Extracts the ordering key of an envelope.
+     *
+     * @return The key, or null if the envelope has no value for it
+     */
+    static String extractKey(FixMessageEnvelope envelope, OrderingKey orderingKey) {
+        if (envelope == null) {
+            return null;
+        }
+        switch (orderingKey) {
+            case SESSION_ID:
+                return envelope.getSessionId();
+            case CL_ORD_ID:
+                return envelope.getClOrdID() != null ? envelope.getClOrdID() : envelope.getTag(11);
+            case SYMBOL:
+                return envelope.getSymbol();
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Maps a key to a lane; the same key always maps to the same lane.
+     */
+    static int laneOf(String key, int concurrency) {
+        int hash = key.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), concurrency);
+    }
+    
+    ContiguousOffsetTracker getOffsetTracker() {
+        return offsetTracker;
+    }
+    
+    @Override
+    protected void doStart() throws Exception {
+        producerTemplate = camelContext.createProducerTemplate();
+        lanes = new ExecutorService[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            lanes[i] = camelContext.getExecutorServiceManager().newSingleThreadExecutor(this, routeId + "-lane-" + i);
+        }
+    }
+    
+    @Override
+    protected void doStop() throws Exception {
+        // Let in-flight records finish so their offsets can still be committed
+        if (lanes != null) {
+            for (ExecutorService lane : lanes) {
+                camelContext.getExecutorServiceManager().shutdownGraceful(lane);
+            }
+            lanes = null;
+        }
+        if (producerTemplate != null) {
+            producerTemplate.stop();
+            producerTemplate = null;
+        }
+    }
+}
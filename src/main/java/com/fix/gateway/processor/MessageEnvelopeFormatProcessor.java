@@ -1,18 +1,42 @@
 package com.fix.gateway.processor;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fix.gateway.model.FixMessageEnvelope;
+import com.fix.gateway.util.FixMessageEnvelopeCodec;
 import com.fix.gateway.util.StringMessageEnvelopeParser;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.apache.camel.component.kafka.KafkaConstants;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts an incoming Kafka payload into a {@link FixMessageEnvelope}.
+ * The format is detected from the first non-whitespace character ('{' for JSON,
+ * "MessageEnvelope(" for the toString format) and dispatched straight to
+ * {@link FixMessageEnvelopeCodec} or {@link StringMessageEnvelopeParser}, so no message
+ * pays for a failed parse attempt. Messages are counted per input topic and format in the
+ * {@value #FORMAT_METRIC} metric.
+ */
 @Component
 public class MessageEnvelopeFormatProcessor implements Processor {
     
-    @Autowired
-    private ObjectMapper objectMapper;
+    static final String FORMAT_METRIC = "fix.envelope.messages";
+    
+    private static final String STRING_FORMAT_PREFIX = "MessageEnvelope(";
+    
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+    
+    /**
+     * Counters per input topic, indexed by {@link EnvelopeFormat#ordinal()}.
+     */
+    private final Map<String, Counter[]> formatCounters = new ConcurrentHashMap<>();
     
     @Override
     public void process(Exchange exchange) throws Exception {
@@ -22,37 +46,150 @@ public class MessageEnvelopeFormatProcessor implements Processor {
             throw new IllegalArgumentException("Message body is null");
         }
         
-        String bodyStr = body.toString();
-        
         // Check if it's already a FixMessageEnvelope object
         if (body instanceof FixMessageEnvelope) {
             // Already parsed, nothing to do
             return;
         }
         
-        // Try to parse as JSON first
-        try {
-            FixMessageEnvelope envelope = objectMapper.readValue(bodyStr, FixMessageEnvelope.class);
-            exchange.getIn().setBody(envelope);
-            exchange.getIn().setHeader("messageFormat", "json");
-            return;
-        } catch (Exception e) {
-            // JSON parsing failed, try string format
+        if (!(body instanceof byte[]) && !(body instanceof CharSequence)) {
+            body = exchange.getIn().getBody(String.class);
         }
         
-        // Try to parse as string format
-        if (StringMessageEnvelopeParser.isStringFormat(bodyStr)) {
-            try {
-                FixMessageEnvelope envelope = StringMessageEnvelopeParser.parse(bodyStr);
-                exchange.getIn().setBody(envelope);
-                exchange.getIn().setHeader("messageFormat", "string");
-                return;
-            } catch (Exception e) {
-                throw new IllegalArgumentException("Failed to parse MessageEnvelope in string format: " + e.getMessage(), e);
+        EnvelopeFormat format = detectFormat(body);
+        countMessage(exchange, format);
+        
+        switch (format) {
+            case JSON:
+                try {
+                    FixMessageEnvelope envelope = body instanceof byte[]
+                        ? FixMessageEnvelopeCodec.read((byte[]) body)
+                        : FixMessageEnvelopeCodec.read(body.toString());
+                    exchange.getIn().setBody(envelope);
+                    exchange.getIn().setHeader("messageFormat", format.getHeaderValue());
+                    return;
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Failed to parse MessageEnvelope in JSON format: " + e.getMessage(), e);
+                }
+            case STRING:
+                try {
+                    String bodyStr = body instanceof byte[]
+                        ? new String((byte[]) body, StandardCharsets.UTF_8)
+                        : body.toString();
+                    FixMessageEnvelope envelope = StringMessageEnvelopeParser.parse(bodyStr.trim());
+                    exchange.getIn().setBody(envelope);
+                    exchange.getIn().setHeader("messageFormat", format.getHeaderValue());
+                    return;
+                } catch (Exception e) {
+                    throw new IllegalArgumentException("Failed to parse MessageEnvelope in string format: " + e.getMessage(), e);
+                }
+            default:
+                // If we get here, the format is unrecognized
+                throw new IllegalArgumentException("Unrecognized message format. Expected JSON or MessageEnvelope string format.");
+        }
+    }
+    
+    /**
+     * Detects the envelope format from the first non-whitespace character of the payload.
+     *
+     * @param body String or byte[] payload
+     * @return The detected format
+     */
+    static EnvelopeFormat detectFormat(Object body) {
+        if (body instanceof byte[] bytes) {
+            int i = 0;
+            while (i < bytes.length && Character.isWhitespace(bytes[i])) {
+                i++;
+            }
+            if (i == bytes.length) {
+                return EnvelopeFormat.UNKNOWN;
+            }
+            if (bytes[i] == '{') {
+                return EnvelopeFormat.JSON;
+            }
+            return startsWith(bytes, i, STRING_FORMAT_PREFIX) ? EnvelopeFormat.STRING : EnvelopeFormat.UNKNOWN;
+        }
+        if (body instanceof CharSequence chars) {
+            int length = chars.length();
+            int i = 0;
+            while (i < length && Character.isWhitespace(chars.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                return EnvelopeFormat.UNKNOWN;
+            }
+            if (chars.charAt(i) == '{') {
+                return EnvelopeFormat.JSON;
+            }
+            return startsWith(chars, i, STRING_FORMAT_PREFIX) ? EnvelopeFormat.STRING : EnvelopeFormat.UNKNOWN;
+        }
+        return EnvelopeFormat.UNKNOWN;
+    }
+    
+    private static boolean startsWith(byte[] bytes, int offset, String prefix) {
+        if (bytes.length - offset < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (bytes[offset + i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static boolean startsWith(CharSequence chars, int offset, String prefix) {
+        if (chars.length() - offset < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (chars.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
             }
         }
+        return true;
+    }
+    
+    private void countMessage(Exchange exchange, EnvelopeFormat format) {
+        if (meterRegistry == null) {
+            return;
+        }
+        String topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class);
+        if (topic == null) {
+            topic = exchange.getIn().getHeader("inputTopic", "unknown", String.class);
+        }
+        formatCounters.computeIfAbsent(topic, this::registerCounters)[format.ordinal()].increment();
+    }
+    
+    private Counter[] registerCounters(String topic) {
+        EnvelopeFormat[] formats = EnvelopeFormat.values();
+        Counter[] counters = new Counter[formats.length];
+        for (EnvelopeFormat format : formats) {
+            counters[format.ordinal()] = Counter.builder(FORMAT_METRIC)
+                .description("Envelopes received per input topic and payload format")
+                .tag("topic", topic)
+                .tag("format", format.getHeaderValue())
+                .register(meterRegistry);
+        }
+        return counters;
+    }
+    
+    /**
+     * Payload formats accepted on INPUT topics.
+     */
+    enum EnvelopeFormat {
+        JSON("json"),
+        STRING("string"),
+        UNKNOWN("unknown");
+        
+        private final String headerValue;
         
-        // If we get here, the format is unrecognized
-        throw new IllegalArgumentException("Unrecognized message format. Expected JSON or MessageEnvelope string format.");
+        EnvelopeFormat(String headerValue) {
+            this.headerValue = headerValue;
+        }
+        
+        String getHeaderValue() {
+            return headerValue;
+        }
     }
-}
\ No newline at end of file
+}
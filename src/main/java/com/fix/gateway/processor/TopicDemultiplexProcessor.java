@@ -0,0 +1,142 @@
+package com.fix.gateway.processor;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.support.service.ServiceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hands records of the shared INPUT consumer to the pipeline of the route configured for their topic.
+ * <p>
+ * The exchange is sent synchronously on the consumer thread, so records of a partition are still
+ * processed one after the other and the route's pipeline commits them through the same manual
+ * commit handle as a dedicated consumer would. For a topic without a route, the {@link PipelineFactory}
+ * (if any) may create one on the fly; otherwise its records are committed and skipped, and each such
+ * topic is logged once.
+ */
+public class TopicDemultiplexProcessor extends ServiceSupport implements Processor {
+    
+    private static final Logger log = LoggerFactory.getLogger(TopicDemultiplexProcessor.class);
+    
+    private final CamelContext camelContext;
+    private final Map<String, String> pipelines = new ConcurrentHashMap<>();
+    private final Set<String> unroutedTopics = ConcurrentHashMap.newKeySet();
+    
+    private final PipelineFactory pipelineFactory;
+    
+    private ProducerTemplate producerTemplate;
+    
+    public TopicDemultiplexProcessor(CamelContext camelContext) {
+        this(camelContext, null);
+    }
+    
+    public TopicDemultiplexProcessor(CamelContext camelContext, PipelineFactory pipelineFactory) {
+        this.camelContext = camelContext;
+        this.pipelineFactory = pipelineFactory;
+    }
+    
+    /**
+     * Routes records of a topic to a pipeline endpoint.
+     *
+     * @throws IllegalArgumentException if another pipeline already consumes the topic
+     */
+    public void register(String topic, String pipelineUri) {
+        String existing = pipelines.putIfAbsent(topic, pipelineUri);
+        if (existing != null && !existing.equals(pipelineUri)) {
+            throw new IllegalArgumentException("Topic " + topic + " is already consumed by " + existing
+                + "; the shared consumer delivers each record to one pipeline only");
+        }
+        unroutedTopics.remove(topic);
+    }
+    
+    /**
+     * Stops routing records of a topic; later records are committed and skipped.
+     *
+     * @return The pipeline the topic was routed to, or null
+     */
+    public String unregister(String topic) {
+        return pipelines.remove(topic);
+    }
+    
+    /**
+     * @return Pipeline endpoint URI for the topic, or null if it has no route
+     */
+    public String getPipeline(String topic) {
+        return topic != null ? pipelines.get(topic) : null;
+    }
+    
+    public boolean isEmpty() {
+        return pipelines.isEmpty();
+    }
+    
+    @Override
+    public void process(Exchange exchange) throws Exception {
+        String topic = exchange.getIn().getHeader(KafkaConstants.TOPIC, String.class);
+        String pipelineUri = getPipeline(topic);
+        if (pipelineUri == null && pipelineFactory != null && topic != null && !unroutedTopics.contains(topic)) {
+            pipelineUri = createPipeline(topic);
+        }
+        
+        if (pipelineUri == null) {
+            if (unroutedTopics.add(String.valueOf(topic))) {
+                log.warn("Shared INPUT consumer: No route configured for topic {}, skipping its records", topic);
+            }
+            KafkaManualCommit manualCommit = exchange.getIn().getHeader(KafkaConstants.MANUAL_COMMIT, KafkaManualCommit.class);
+            if (manualCommit != null) {
+                manualCommit.commit();
+            }
+            return;
+        }
+        
+        producerTemplate.send(pipelineUri, exchange);
+    }
+    
+    /**
+     * Creates the pipeline of a new topic once, even if several consumer threads see the topic at the same time.
+     */
+    private synchronized String createPipeline(String topic) throws Exception {
+        String pipelineUri = pipelines.get(topic);
+        if (pipelineUri == null) {
+            pipelineUri = pipelineFactory.createPipeline(topic);
+            if (pipelineUri != null) {
+                register(topic, pipelineUri);
+                log.info("Shared INPUT consumer: Created pipeline {} for new topic {}", pipelineUri, topic);
+            }
+        }
+        return pipelineUri;
+    }
+    
+    @Override
+    protected void doStart() throws Exception {
+        producerTemplate = camelContext.createProducerTemplate();
+    }
+    
+    @Override
+    protected void doStop() throws Exception {
+        if (producerTemplate != null) {
+            producerTemplate.stop();
+            producerTemplate = null;
+        }
+    }
+    
+    /**
+     * Creates the route pipeline for a topic seen for the first time.
+     */
+    @FunctionalInterface
+    public interface PipelineFactory {
+        
+        /**
+         * @return URI of the started pipeline endpoint, or null if the topic should not be routed
+         */
+        String createPipeline(String topic) throws Exception;
+    }
+}
@@ -1,27 +1,74 @@
 package com.fix.gateway.route;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fix.gateway.dispatch.BulkheadConfig;
+import com.fix.gateway.dispatch.BulkheadDispatchProcessor;
+import com.fix.gateway.dispatch.CircuitBreaker;
+import com.fix.gateway.dispatch.CircuitBreakerOpenException;
+import com.fix.gateway.dispatch.CircuitBreakerProcessor;
+import com.fix.gateway.dispatch.DestinationBulkhead;
+import com.fix.gateway.dispatch.DestinationFanOutDispatcher;
+import com.fix.gateway.dispatch.DestinationSender;
+import com.fix.gateway.dispatch.ErrorClassifier;
+import com.fix.gateway.dispatch.FanOutConfig;
+import com.fix.gateway.dispatch.ProcessorSender;
+import com.fix.gateway.dispatch.RetryScheduler;
+import com.fix.gateway.kafka.CoalescingManualCommitFactory;
+import com.fix.gateway.kafka.CommitFlushingConsumerListener;
+import com.fix.gateway.kafka.OffsetCommitManager;
+import com.fix.gateway.kafka.RetryTierProcessor;
+import com.fix.gateway.kafka.RetryTopicConsumer;
+import com.fix.gateway.kafka.RetryTopicsConfig;
+import com.fix.gateway.kafka.SharedConsumerConfig;
 import com.fix.gateway.model.*;
+import com.fix.gateway.netty.FixConnectionPools;
+import com.fix.gateway.netty.NettyDestination;
+import com.fix.gateway.netty.PooledSendProcessor;
+import com.fix.gateway.processor.BatchOffsetCommitProcessor;
+import com.fix.gateway.processor.DeliveredOffsetCommitProcessor;
+import com.fix.gateway.processor.FixMessageEnvelopeDataFormat;
 import com.fix.gateway.processor.FixMessageProcessor;
+import com.fix.gateway.processor.KeyOrderedDispatchProcessor;
 import com.fix.gateway.processor.MessageEnvelopeFormatProcessor;
+import com.fix.gateway.processor.TopicDemultiplexProcessor;
 import com.fix.gateway.util.FixMessageUtils;
 import com.fix.gateway.util.MvelExpressionEvaluator;
 import com.fix.gateway.util.StringMessageEnvelopeParser;
+import io.netty.buffer.ByteBuf;
+import org.apache.camel.AsyncProcessor;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.ErrorHandlerFactory;
 import org.apache.camel.Exchange;
 import org.apache.camel.ExchangePattern;
+import org.apache.camel.LoggingLevel;
 import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
 import org.apache.camel.builder.RouteBuilder;
-import org.apache.camel.component.jackson.JacksonDataFormat;
 import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.KafkaEndpoint;
 import org.apache.camel.model.RouteDefinition;
+import org.apache.camel.processor.SendProcessor;
+import org.apache.camel.spi.DataFormat;
+import org.apache.camel.support.service.ServiceHelper;
+import org.apache.camel.support.service.ServiceSupport;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Enhanced FIX message router that creates individual routes for each destination
@@ -33,6 +80,21 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
 
     private static final Logger log = LoggerFactory.getLogger(EnhancedFixMessageRouter.class);
     
+    /**
+     * Exchange property set when the body was framed by {@link com.fix.gateway.netty.FixFrameDecoder}.
+     */
+    private static final String FIX_FRAMED_PROPERTY = "fixFramed";
+    
+    private static final String STRING_DESERIALIZER = "org.apache.kafka.common.serialization.StringDeserializer";
+    private static final String BYTE_ARRAY_DESERIALIZER = "org.apache.kafka.common.serialization.ByteArrayDeserializer";
+    private static final String STRING_SERIALIZER = "org.apache.kafka.common.serialization.StringSerializer";
+    private static final String BYTE_ARRAY_SERIALIZER = "org.apache.kafka.common.serialization.ByteArraySerializer";
+    
+    /**
+     * Input topic of a FIX session: fix.{senderCompId}.{targetCompId}.input (see RoutingConfig.RouteMapping).
+     */
+    private static final Pattern SESSION_INPUT_TOPIC = Pattern.compile("fix\\.([^.]+)\\.([^.]+)\\.input");
+    
     @Autowired
     private EnhancedRoutingConfig enhancedRoutingConfig;
     
@@ -46,14 +108,63 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     private DestinationRouteFactory destinationRouteFactory;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private OffsetCommitManager offsetCommitManager;
+    
+    @Autowired
+    private SharedConsumerConfig sharedConsumerConfig;
+    
+    @Autowired
+    private FixConnectionPools fixConnectionPools;
+    
+    @Autowired
+    private FanOutConfig fanOutConfig;
+    
+    @Autowired
+    private BulkheadConfig bulkheadConfig;
+    
+    @Autowired
+    private RetryScheduler retryScheduler;
+    
+    @Autowired
+    private RetryTopicsConfig retryTopicsConfig;
+    
+    @Autowired
+    private ErrorClassifier errorClassifier;
+    
+    /**
+     * Commit handles of the shared consumer, which uses the default commit interval.
+     */
+    private CoalescingManualCommitFactory manualCommitFactory;
+    
+    /**
+     * Demultiplexer of the shared INPUT consumer; null when every ordered route has its own consumer.
+     */
+    private TopicDemultiplexProcessor topicDemultiplexer;
+    
+    /**
+     * Circuit breaker of each destination, by destination route ID.
+     */
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    
+    /**
+     * Payload format of each destination route with retry topics, by destination route ID.
+     */
+    private final Map<String, PayloadFormat> retryDestinations = new ConcurrentHashMap<>();
 
     @Override
     public void configure() throws Exception {
         
-        // Configure JSON data format for FixMessageEnvelope
-        JacksonDataFormat envelopeFormat = new JacksonDataFormat(objectMapper, FixMessageEnvelope.class);
-        envelopeFormat.setPrettyPrint(false);
+        // Coalesced offset commits for the shared INPUT consumer; own consumers get their route's interval
+        manualCommitFactory = new CoalescingManualCommitFactory(offsetCommitManager);
+        topicDemultiplexer = sharedConsumerConfig.isEnabled()
+            ? new TopicDemultiplexProcessor(getContext(), this::createDynamicInputPipeline)
+            : null;
+        if (enhancedRoutingConfig.getDynamicRouteTemplate() != null && topicDemultiplexer == null) {
+            log.warn("dynamicRouteTemplate is ignored: dynamic routes need fix.kafka.shared-consumer.enabled=true");
+        }
+        
+        // Configure JSON data format for FixMessageEnvelope (streaming codec, same JSON as JacksonConfig)
+        DataFormat envelopeFormat = new FixMessageEnvelopeDataFormat();
         
         // Configure global error handling
         configureGlobalErrorHandling();
@@ -61,11 +172,17 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
         // Process INPUT routes with enhanced routing
         configureInputRoutes(envelopeFormat);
         
+        // One consumer for all ordered INPUT routes, if enabled
+        configureSharedInputConsumer();
+        
         // Process OUTPUT routes (can also be enhanced if needed)
         configureOutputRoutes(envelopeFormat);
         
         // Configure dead letter channel
         configureDeadLetterChannel();
+        
+        // Re-send messages from the retry topics of destination routes, if enabled
+        configureRetryTopicConsumers();
 
         // Configure local Netty 9999 listner
         //configureLocalNetty9999Listener();
@@ -75,35 +192,47 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
      * Configures global error handling for the router.
      */
     private void configureGlobalErrorHandling() {
+        errorHandler(globalErrorHandler(this));
+    }
+    
+    /**
+     * Builds the global error handler; routes added at runtime by another builder get the same one.
+     */
+    private ErrorHandlerFactory globalErrorHandler(RouteBuilder builder) {
         EnhancedRoutingConfig.GlobalErrorHandlingConfig globalConfig = 
             enhancedRoutingConfig.getGlobalErrorHandling();
         
-        errorHandler(deadLetterChannel("direct:enhancedDeadLetterChannel")
+        return builder.deadLetterChannel("direct:enhancedDeadLetterChannel")
             .maximumRedeliveries(globalConfig.getDefaultMaxRedeliveries())
             .redeliveryDelay(globalConfig.getDefaultRedeliveryDelay())
-            .retryAttemptedLogLevel(org.apache.camel.LoggingLevel.WARN));
+            .retryAttemptedLogLevel(org.apache.camel.LoggingLevel.WARN);
     }
     
     /**
      * Configures INPUT routes with enhanced destination routing.
      */
-    private void configureInputRoutes(JacksonDataFormat envelopeFormat) {
+    private void configureInputRoutes(DataFormat envelopeFormat) {
         List<EnhancedRouteMapping> inputRoutes = enhancedRoutingConfig.getInputRoutes();
         
         for (EnhancedRouteMapping route : inputRoutes) {
             String routeId = route.getRouteId();
             
             if (route.isEnhancedRouting()) {
-                // Check if ordered processing is enabled (default to true for safety)
-                boolean orderedProcessingEnabled = true; // Default to ordered processing
-                
-                // In a real implementation, you would read this from configuration
-                // boolean orderedProcessingEnabled = enhancedRoutingConfig.isOrderedProcessingEnabled();
-                
-                if (orderedProcessingEnabled) {
+                // Ordered processing is enabled by default for safety
+                EnhancedRouteMapping.OrderedProcessingConfig orderedConfig = route.getOrderedProcessing();
+                if (orderedConfig.isEnabled() && orderedConfig.getOrderingKey() != OrderingKey.PARTITION) {
+                    // Order per session/order/symbol, unrelated keys in parallel
+                    configureKeyOrderedInputRoute(this, route, routeId, envelopeFormat);
+                    // Not used by the route itself: replays of its dead letter topics go through them
+                    createDestinationRoutes(this, route);
+                    log.info("Configured key-ordered processing for route {} (orderingKey={}, concurrency={})",
+                        routeId, orderedConfig.getOrderingKey(), orderedConfig.getConcurrency());
+                } else if (orderedConfig.isEnabled()) {
                     // Use ordered processing with manual commits for guaranteed ordering
-                    configureOrderedInputRoute(route, routeId, envelopeFormat);
-                    log.info("Configured ordered processing for route {}", routeId);
+                    configureOrderedInputRoute(this, route, routeId, envelopeFormat);
+                    createDestinationRoutes(this, route);
+                    log.info("Configured ordered processing for route {} (batchSize={}, commitIntervalMs={})",
+                        routeId, orderedConfig.getBatchSize(), orderedConfig.getCommitIntervalMs());
                 } else {
                     // Use enhanced routing (parallel processing)
                     configureEnhancedInputRoute(route, routeId, envelopeFormat);
@@ -120,17 +249,23 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     /**
      * Configures an INPUT route with ordered processing and manual offset commits.
      * This guarantees strict ordering per partition with crash safety.
+     * Records are polled in batches of {@code orderedProcessing.batchSize} and the offset is
+     * committed once per partition per batch (or commit interval): {@link BatchOffsetCommitProcessor}
+     * marks each record and the {@link OffsetCommitManager} coalesces the commits.
      */
     private void configureOrderedInputRoute(
+            RouteBuilder builder,
             EnhancedRouteMapping route,
             String routeId,
-            JacksonDataFormat envelopeFormat) {
+            DataFormat envelopeFormat) {
         
         String inputTopic = route.getInputTopic();
         String consumerGroup = "ordered-fix-router-" + routeId.toLowerCase().replaceAll("[^a-zA-Z0-9]", "-");
+        PayloadFormat payloadFormat = route.getPayloadFormat();
+        EnhancedRouteMapping.OrderedProcessingConfig orderedConfig = route.getOrderedProcessing();
         
-        from(buildOrderedKafkaConsumerUri(inputTopic, consumerGroup))
-            .routeId(routeId + "_ORDERED_INPUT")
+        orderedInputRoute(builder, orderedInputEndpoint(routeId, inputTopic, consumerGroup, payloadFormat, orderedConfig),
+                routeId + "_ORDERED_INPUT")
             .process(exchange -> {
                 // Log partition/offset for debugging
                 Integer partition = exchange.getIn().getHeader("kafka.PARTITION", Integer.class);
@@ -141,55 +276,134 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                 exchange.getIn().setHeader("routeId", routeId);
                 exchange.getIn().setHeader("routeType", RouteType.INPUT);
                 exchange.getIn().setHeader("inputTopic", inputTopic);
+                exchange.setProperty(PayloadFormat.EXCHANGE_PROPERTY, payloadFormat);
             })
             .process(messageEnvelopeFormatProcessor)
             .process(fixMessageProcessor)
             .log("Ordered INPUT route " + routeId + ": Processed FIX message for session: ${header.sessionId}")
             .choice()
                 .when(header("destinations").isNotNull())
-                    // Use sequential destination processing
-                    .process(new SequentialDestinationProcessor(route))
+                    // Use sequential destination processing, or per-destination bulkheads
+                    .process(createOrderedDestinationProcessor(route))
                 .otherwise()
                     .log("Ordered INPUT route " + routeId + ": No destinations found")
             .end()
-            // MANUAL COMMIT after successful processing
+            // MANUAL COMMIT after successful processing, coalesced per partition and batch;
+            // with bulkheads only once the destinations have delivered
+            .process(bulkheadConfig.isEnabled()
+                ? new DeliveredOffsetCommitProcessor(routeId)
+                : new BatchOffsetCommitProcessor(routeId))
+            .log(LoggingLevel.DEBUG, "Ordered route " + routeId + ": Completed processing");
+    }
+    
+    /**
+     * Configures an INPUT route that keeps order per key (sessionId, ClOrdID or Symbol) instead of
+     * per partition. The consumer thread parses the envelope and hands the record to
+     * {@link KeyOrderedDispatchProcessor}; the worker lanes run the rest of the route from
+     * {@code direct:<routeId>_KEY_ORDERED} and offsets are committed up to the contiguous completed prefix.
+     */
+    private void configureKeyOrderedInputRoute(
+            RouteBuilder builder,
+            EnhancedRouteMapping route,
+            String routeId,
+            DataFormat envelopeFormat) {
+        
+        String inputTopic = route.getInputTopic();
+        String consumerGroup = "ordered-fix-router-" + routeId.toLowerCase().replaceAll("[^a-zA-Z0-9]", "-");
+        PayloadFormat payloadFormat = route.getPayloadFormat();
+        EnhancedRouteMapping.OrderedProcessingConfig orderedConfig = route.getOrderedProcessing();
+        String pipelineUri = "direct:" + routeId + "_KEY_ORDERED";
+        
+        orderedInputRoute(builder, orderedInputEndpoint(routeId, inputTopic, consumerGroup, payloadFormat, orderedConfig),
+                routeId + "_KEY_ORDERED_INPUT")
             .process(exchange -> {
-                // Get the manual commit from headers
-                Object manualCommit = exchange.getIn().getHeader(KafkaConstants.MANUAL_COMMIT);
-                if (manualCommit != null) {
-                    // Use a more efficient approach without reflection
-                    // The manual commit object should implement a known interface
-                    try {
-                        // Try to cast to common interface or use toString to identify
-                        String className = manualCommit.getClass().getName();
-                        
-                        // For Camel Kafka, we can try to find the commit method
-                        // This is a workaround - in production, you'd want to check the actual Camel version
-                        if (className.contains("KafkaManualCommit")) {
-                            // Use Java's MethodHandle for better performance than reflection
-                            java.lang.invoke.MethodHandles.Lookup lookup =
-                                java.lang.invoke.MethodHandles.lookup();
-                            java.lang.invoke.MethodType mt =
-                                java.lang.invoke.MethodType.methodType(void.class);
-                            java.lang.invoke.MethodHandle mh =
-                                lookup.findVirtual(manualCommit.getClass(), "commit", mt);
-                            mh.invoke(manualCommit);
-                            
-                            Integer partition = exchange.getIn().getHeader("kafka.PARTITION", Integer.class);
-                            Long offset = exchange.getIn().getHeader("kafka.OFFSET", Long.class);
-                            log.debug("Ordered route {}: Committed offset for partition {} offset {}",
-                                routeId, partition, offset);
-                        } else {
-                            log.warn("Ordered route {}: Unknown manual commit type: {}", routeId, className);
-                        }
-                    } catch (Throwable e) {
-                        log.warn("Ordered route {}: Failed to commit offset: {}", routeId, e.getMessage());
-                    }
+                // Set route-specific headers
+                exchange.getIn().setHeader("routeId", routeId);
+                exchange.getIn().setHeader("routeType", RouteType.INPUT);
+                exchange.getIn().setHeader("inputTopic", inputTopic);
+                exchange.setProperty(PayloadFormat.EXCHANGE_PROPERTY, payloadFormat);
+            })
+            .process(messageEnvelopeFormatProcessor)
+            .process(new KeyOrderedDispatchProcessor(getContext(), routeId, pipelineUri, orderedConfig));
+        
+        builder.from(pipelineUri)
+            .routeId(routeId + "_KEY_ORDERED_PIPELINE")
+            .process(fixMessageProcessor)
+            .log(LoggingLevel.DEBUG, "Key-ordered INPUT route " + routeId + ": Processed FIX message for session: ${header.sessionId}")
+            .choice()
+                .when(header("destinations").isNotNull())
+                    // Sequential per record; records of one key never overlap
+                    .process(createOrderedDestinationProcessor(route))
+                .otherwise()
+                    .log("Key-ordered INPUT route " + routeId + ": No destinations found")
+            .end();
+    }
+    
+    /**
+     * Configures the consumer shared by ordered INPUT routes (see {@link SharedConsumerConfig}).
+     * It subscribes to the topic pattern and hands each record to the pipeline of its topic's route
+     * on the consumer thread. Records are fetched as byte[]; the envelope parser accepts both payload types.
+     */
+    private void configureSharedInputConsumer() {
+        if (topicDemultiplexer == null
+                || (topicDemultiplexer.isEmpty() && enhancedRoutingConfig.getDynamicRouteTemplate() == null)) {
+            return;
+        }
+        
+        KafkaEndpoint endpoint = orderedKafkaEndpoint(
+            buildKafkaConsumerUri(sharedConsumerConfig.getGroupId(), sharedConsumerConfig.getGroupId(),
+                PayloadFormat.BYTES, sharedConsumerConfig.getMaxPollRecords())
+            + "&consumersCount=" + Math.max(1, sharedConsumerConfig.getConsumersCount()),
+            manualCommitFactory);
+        // The pattern is set here rather than in the URI, which would have to escape it
+        endpoint.getConfiguration().setTopic(sharedConsumerConfig.getTopicPattern());
+        endpoint.getConfiguration().setTopicIsPattern(true);
+        // How soon new session topics are picked up by the pattern subscription
+        endpoint.getConfiguration().setMetadataMaxAgeMs(sharedConsumerConfig.getMetadataMaxAgeMs());
+        
+        orderedInputRoute(this, endpoint, "SHARED_INPUT")
+            .process(topicDemultiplexer);
+        
+        log.info("Configured shared INPUT consumer (group={}, topicPattern={}, consumersCount={})",
+            sharedConsumerConfig.getGroupId(), sharedConsumerConfig.getTopicPattern(),
+            sharedConsumerConfig.getConsumersCount());
+    }
+    
+    /**
+     * Creates and starts the INPUT route of a new FIX session topic from the dynamic route template.
+     * Called by the shared consumer the first time it sees a {@code fix.{senderCompId}.{targetCompId}.input}
+     * topic without a route, so onboarding a session needs neither a restart nor a new consumer group.
+     *
+     * @return The route's pipeline endpoint URI, or null if the topic is not a session topic or there is no template
+     */
+    private String createDynamicInputPipeline(String topic) throws Exception {
+        EnhancedRouteMapping template = enhancedRoutingConfig.getDynamicRouteTemplate();
+        Matcher matcher = SESSION_INPUT_TOPIC.matcher(topic);
+        if (template == null || !matcher.matches()) {
+            return null;
+        }
+        
+        EnhancedRouteMapping route = template.forSession(matcher.group(1), matcher.group(2));
+        String routeId = route.getRouteId();
+        EnhancedRouteMapping.OrderedProcessingConfig orderedConfig = route.getOrderedProcessing();
+        
+        // Dynamic routes always consume through the shared consumer, i.e. ordered
+        getContext().addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                errorHandler(globalErrorHandler(this));
+                if (orderedConfig.getOrderingKey() != OrderingKey.PARTITION) {
+                    configureKeyOrderedInputRoute(this, route, routeId, null);
                 } else {
-                    log.debug("Ordered route {}: No manual commit available (auto-commit may be enabled)", routeId);
+                    configureOrderedInputRoute(this, route, routeId, null);
                 }
-            })
-            .log("Ordered route " + routeId + ": Completed processing with commit");
+                // Targets of replays of the session's dead letter topics, as for static routes
+                createDestinationRoutes(this, route);
+            }
+        });
+        log.info("Configured dynamic INPUT route {} for topic {} (orderingKey={})",
+            routeId, topic, orderedConfig.getOrderingKey());
+        return "direct:" + routeId + "_PIPELINE";
     }
     
     /**
@@ -198,13 +412,14 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     private void configureEnhancedInputRoute(
             EnhancedRouteMapping route, 
             String routeId,
-            JacksonDataFormat envelopeFormat) {
+            DataFormat envelopeFormat) {
         
         String inputTopic = route.getInputTopic();
         String consumerGroup = "enhanced-fix-router-input-" + routeId.toLowerCase().replaceAll("[^a-zA-Z0-9]", "-");
+        PayloadFormat payloadFormat = route.getPayloadFormat();
         
         // Main input route that consumes from Kafka
-        from(buildKafkaConsumerUri(inputTopic, consumerGroup))
+        from(buildKafkaConsumerUri(inputTopic, consumerGroup, payloadFormat))
             .routeId(routeId + "_ENHANCED_INPUT")
             .log("Enhanced INPUT route " + routeId + ": Received FIX message envelope from Kafka topic " + inputTopic + ": msg=${body}")
             .process(messageEnvelopeFormatProcessor)
@@ -213,19 +428,20 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                 exchange.getIn().setHeader("routeId", routeId);
                 exchange.getIn().setHeader("routeType", RouteType.INPUT);
                 exchange.getIn().setHeader("inputTopic", inputTopic);
+                exchange.setProperty(PayloadFormat.EXCHANGE_PROPERTY, payloadFormat);
             })
             .process(fixMessageProcessor)
             .log("Enhanced INPUT route " + routeId + ": Processed FIX message for session: ${header.sessionId}")
             .choice()
                 .when(header("destinations").isNotNull())
                     // Use enhanced destination routing
-                    .process(new EnhancedDestinationRouter(route))
+                    .process(createDestinationDispatcher(route))
                 .otherwise()
                     .log("Enhanced INPUT route " + routeId + ": No destinations found")
             .end();
         
         // Create individual destination routes
-        createDestinationRoutes(route);
+        createDestinationRoutes(this, route);
     }
     
     /**
@@ -234,13 +450,14 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     private void configureLegacyInputRoute(
             EnhancedRouteMapping route, 
             String routeId,
-            JacksonDataFormat envelopeFormat) {
+            DataFormat envelopeFormat) {
         
         // This would use the existing toD-based approach
         // For now, we'll log that legacy routing is being used
-        from(buildKafkaConsumerUri(route.getInputTopic(), "legacy-" + routeId))
+        from(buildKafkaConsumerUri(route.getInputTopic(), "legacy-" + routeId, route.getPayloadFormat()))
             .routeId(routeId + "_LEGACY_INPUT")
             .log("Using legacy routing for route " + routeId + " (enhancedRouting=false)")
+            .setProperty(PayloadFormat.EXCHANGE_PROPERTY, constant(route.getPayloadFormat()))
             .process(messageEnvelopeFormatProcessor)
             .process(fixMessageProcessor)
             .log("Legacy route processing complete");
@@ -248,46 +465,148 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     
     /**
      * Creates individual destination routes for an enhanced route.
-     * This method creates routes directly using from() within configure().
+     * This method creates routes directly using from() within the builder's configure().
      */
-    private void createDestinationRoutes(EnhancedRouteMapping route) {
+    private void createDestinationRoutes(RouteBuilder builder, EnhancedRouteMapping route) {
         List<DestinationConfig> destinationConfigs = route.getDestinationConfigs();
+        List<CircuitBreaker> breakers = circuitBreakers(route);
         
         for (int i = 0; i < destinationConfigs.size(); i++) {
             DestinationConfig destConfig = destinationConfigs.get(i);
             String routeId = buildDestinationRouteId(route.getRouteId(), i);
             String destinationUri = destConfig.buildCompleteUri();
+            String deadLetterUri = buildKafkaProducerUri(destConfig.getDeadLetterTopic(route.getRouteId()), route.getPayloadFormat());
             
             // Create destination route directly
-            from("direct:" + routeId)
+            RouteDefinition destinationRoute = builder.from("direct:" + routeId)
                 .routeId(routeId)
                 .log("Destination route " + routeId + ": Processing message for " + destinationUri)
                 .setProperty("destinationUri", org.apache.camel.builder.Builder.constant(destinationUri))
                 .setProperty("parentRouteId", org.apache.camel.builder.Builder.constant(route.getRouteId()))
-                .setProperty("destinationIndex", org.apache.camel.builder.Builder.constant(i))
-                // Configure exception handling
+                .setProperty("destinationIndex", org.apache.camel.builder.Builder.constant(i));
+            // Failures that retrying cannot fix skip the retries
+            ErrorClassifier classifier = errorClassifier.withOverrides(destConfig.getErrorClassification());
+            destinationRoute
                 .onException(Exception.class)
+                    .onWhen(exchange -> !classifier.isRetryable(exchange.getException()))
                     .handled(true)
-                    .maximumRedeliveries(destConfig.getMaxRetries())
-                    .redeliveryDelay(destConfig.getRetryDelay())
                     .useOriginalMessage()
-                    .log("Destination " + destinationUri + " failed after ${header.CamelRedeliveryCounter} attempts: ${exception.message}")
-                    .choice()
-                        .when(simple("${header.CamelRedeliveryCounter} >= " + destConfig.getMaxRetries()))
-                            .log("Destination " + destinationUri + ": Maximum retries exceeded, sending to dead letter topic")
-                            .toF("kafka:%s?brokers={{kafka.brokers:localhost:9092}}"
-                                + "&keySerializer=org.apache.kafka.common.serialization.StringSerializer"
-                                + "&valueSerializer=org.apache.kafka.common.serialization.StringSerializer"
-                                + "&requestTimeoutMs=10000", destConfig.getDeadLetterTopic(route.getRouteId()))
-                        .endChoice()
-                    .end()
-                .end()
-                // Send to destination
-                .to(destinationUri)
+                    .log(LoggingLevel.ERROR, "Destination " + destinationUri + ": Failed, not retrying: ${exception.message}")
+                    .setHeader(RetryTierProcessor.DESTINATION, constant(routeId))
+                    .to(deadLetterUri)
+                .end();
+            if (retryTopicsConfig.isEnabled()) {
+                configureRetryTopics(destinationRoute, route, destConfig, routeId);
+            } else {
+                configureInlineRedelivery(destinationRoute, destConfig, routeId, destinationUri, deadLetterUri);
+            }
+            
+            // Send to destination, over a pooled connection for Netty TCP destinations;
+            // pipelined destinations continue asynchronously once the ack arrives
+            AsyncProcessor send = destinationProducer(destinationUri);
+            if (fixConnectionPools.isPooled(destinationUri) && !destConfig.isParallelProcessing() && NettyDestination.parse(destinationUri).pipelined()) {
+                log.warn("Destination {} is pipelined but not parallelProcessing: each message waits for its ack "
+                    + "before the next is sent", destinationUri);
+            }
+            // Guarded by the circuit breaker, which redeliveries pass through again
+            destinationRoute.process(new CircuitBreakerProcessor(breakers.get(i), send, classifier::isRetryable))
                 .log("Destination route " + routeId + ": Successfully sent to " + destinationUri);
         }
     }
     
+    /**
+     * Redelivers failed sends in-line, with backoff, and dead-letters them after {@code maxRetries}.
+     */
+    private void configureInlineRedelivery(RouteDefinition destinationRoute, DestinationConfig destConfig,
+                                           String destinationRouteId, String destinationUri, String deadLetterUri) {
+        destinationRoute
+            // Fail fast while the destination is down
+            .onException(CircuitBreakerOpenException.class)
+                .handled(true)
+                .log(LoggingLevel.WARN, "Destination " + destinationUri + ": Circuit breaker open, sending to dead letter topic")
+                // Lets a replay of the dead letter topic find the destination
+                .setHeader(RetryTierProcessor.DESTINATION, constant(destinationRouteId))
+                .to(deadLetterUri)
+            .end()
+            // Configure exception handling
+            .onException(Exception.class)
+                .handled(true)
+                .maximumRedeliveries(destConfig.getMaxRetries())
+                .redeliveryDelay(destConfig.getRetryDelay())
+                .backOffMultiplier(Math.max(1.0, destConfig.getBackoffMultiplier()))
+                .useExponentialBackOff()
+                .maximumRedeliveryDelay(Math.max(destConfig.getRetryDelay(), destConfig.getMaxRetryDelay()))
+                .collisionAvoidanceFactor(destConfig.getRetryJitter())
+                .useCollisionAvoidance()
+                // Wait for redeliveries on Camel's scheduler instead of the sending thread
+                .asyncDelayedRedelivery()
+                .useOriginalMessage()
+                .log("Destination " + destinationUri + " failed after ${header.CamelRedeliveryCounter} attempts: ${exception.message}")
+                .choice()
+                    .when(simple("${header.CamelRedeliveryCounter} >= " + destConfig.getMaxRetries()))
+                        .log("Destination " + destinationUri + ": Maximum retries exceeded, sending to dead letter topic")
+                        .setHeader(RetryTierProcessor.DESTINATION, constant(destinationRouteId))
+                        .to(deadLetterUri)
+                    .endChoice()
+                .end()
+            .end();
+    }
+    
+    /**
+     * Sends failed messages, including those refused by an open circuit breaker, to the next
+     * retry tier without redelivering them here; see {@link RetryTopicsConfig}.
+     */
+    private void configureRetryTopics(RouteDefinition destinationRoute, EnhancedRouteMapping route,
+                                      DestinationConfig destConfig, String destinationRouteId) {
+        List<Duration> delays = retryTopicsConfig.getDelays();
+        List<String> tierTopics = new ArrayList<>(delays.size());
+        for (Duration delay : delays) {
+            tierTopics.add(destConfig.getRetryTopic(retryTopicsConfig.getTopicPrefix(),
+                RetryTopicsConfig.tierName(delay), route.getRouteId()));
+        }
+        RetryTierProcessor retryTier = new RetryTierProcessor(destinationRouteId, tierTopics, delays,
+            destConfig.getDeadLetterTopic(route.getRouteId()));
+        // The topic is chosen per message by the tier processor
+        String retryUri = buildKafkaProducerUri(tierTopics.isEmpty() ? destConfig.getDeadLetterTopic(route.getRouteId()) : tierTopics.get(0),
+            route.getPayloadFormat());
+        retryDestinations.put(destinationRouteId, route.getPayloadFormat());
+        
+        destinationRoute
+            .onException(Exception.class)
+                .handled(true)
+                .useOriginalMessage()
+                .process(retryTier)
+                .to(retryUri)
+            .end();
+    }
+    
+    /**
+     * One consumer per retry tier, re-sending due messages to their destination routes.
+     */
+    private void configureRetryTopicConsumers() throws Exception {
+        if (!retryTopicsConfig.isEnabled()) {
+            return;
+        }
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, getContext().resolvePropertyPlaceholders("{{kafka.brokers:localhost:9092}}"));
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, STRING_DESERIALIZER);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BYTE_ARRAY_DESERIALIZER);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        // Retry topics are created by their first record, which must not be skipped
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, retryTopicsConfig.getMaxPollRecords()));
+        properties.put(ConsumerConfig.METADATA_MAX_AGE_CONFIG, retryTopicsConfig.getMetadataMaxAgeMs());
+        
+        for (Duration delay : retryTopicsConfig.getDelays()) {
+            String tier = RetryTopicsConfig.tierName(delay);
+            Map<String, Object> tierProperties = new HashMap<>(properties);
+            tierProperties.put(ConsumerConfig.GROUP_ID_CONFIG, retryTopicsConfig.getGroupId() + "-" + tier);
+            Pattern topics = Pattern.compile(Pattern.quote(retryTopicsConfig.getTopicPrefix() + tier + "-") + ".+");
+            getContext().addService(new RetryTopicConsumer(getContext(), tier, topics,
+                () -> new KafkaConsumer<>(tierProperties), retryDestinations::get, retryTopicsConfig.getPollTimeoutMs()));
+        }
+    }
+    
     /**
      * Builds destination route ID.
      */
@@ -295,10 +614,107 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
         return parentRouteId + "_DEST_" + destinationIndex;
     }
     
+    /**
+     * Sends to a destination: over a pooled connection for Netty TCP destinations, otherwise
+     * through the endpoint's own producer, resolved once.
+     */
+    private AsyncProcessor destinationProducer(String destinationUri) {
+        return fixConnectionPools.isPooled(destinationUri)
+            ? new PooledSendProcessor(fixConnectionPools, destinationUri)
+            : new SendProcessor(getContext().getEndpoint(destinationUri));
+    }
+    
+    /**
+     * Sender of each of a route's destinations, in order.
+     */
+    private List<DestinationSender> destinationSenders(EnhancedRouteMapping route) {
+        return route.getDestinationConfigs().stream()
+            .map(destConfig -> (DestinationSender) new ProcessorSender(destinationProducer(destConfig.buildCompleteUri())))
+            .toList();
+    }
+    
+    /**
+     * Destination step of an ordered INPUT route: the destinations one after another on the
+     * route's thread, or a {@link DestinationBulkhead} per destination when bulkheads are enabled.
+     */
+    private Processor createOrderedDestinationProcessor(EnhancedRouteMapping route) {
+        if (!bulkheadConfig.isEnabled()) {
+            return new SequentialDestinationProcessor(route, destinationSenders(route), circuitBreakers(route),
+                errorClassifiers(route), deadLetterUris(route));
+        }
+        List<DestinationConfig> destinations = route.getDestinationConfigs();
+        List<DestinationSender> senders = destinationSenders(route);
+        List<CircuitBreaker> breakers = circuitBreakers(route);
+        List<DestinationBulkhead> bulkheads = new ArrayList<>(destinations.size());
+        for (int i = 0; i < destinations.size(); i++) {
+            DestinationConfig destConfig = destinations.get(i);
+            String name = buildDestinationRouteId(route.getRouteId(), i);
+            bulkheads.add(new DestinationBulkhead(getContext(), name, destConfig,
+                senders.get(i),
+                errorClassifier.withOverrides(destConfig.getErrorClassification())::isRetryable,
+                breakers.get(i),
+                buildKafkaProducerUri(destConfig.getDeadLetterTopic(route.getRouteId()), route.getPayloadFormat()),
+                retryScheduler,
+                destConfig.getQueueCapacity() > 0 ? destConfig.getQueueCapacity() : bulkheadConfig.getQueueCapacity(),
+                destConfig.getOverflowPolicy() != null ? destConfig.getOverflowPolicy() : bulkheadConfig.getOverflowPolicy(),
+                bulkheadConfig.getBlockTimeoutMs(),
+                Path.of(bulkheadConfig.getSpillDirectory(), name.replaceAll("[^a-zA-Z0-9_.-]", "-") + ".spill")));
+        }
+        return new BulkheadDispatchProcessor(destinations, bulkheads);
+    }
+    
+    /**
+     * Error classifiers of a route's destinations, in order.
+     */
+    private List<ErrorClassifier> errorClassifiers(EnhancedRouteMapping route) {
+        return route.getDestinationConfigs().stream()
+            .map(destConfig -> errorClassifier.withOverrides(destConfig.getErrorClassification()))
+            .toList();
+    }
+    
+    /**
+     * Dead letter endpoints of a route's destinations, in order.
+     */
+    private List<String> deadLetterUris(EnhancedRouteMapping route) {
+        return route.getDestinationConfigs().stream()
+            .map(destConfig -> buildKafkaProducerUri(destConfig.getDeadLetterTopic(route.getRouteId()), route.getPayloadFormat()))
+            .toList();
+    }
+    
+    /**
+     * Circuit breakers of a route's destinations, one per destination route ID.
+     */
+    private List<CircuitBreaker> circuitBreakers(EnhancedRouteMapping route) {
+        List<DestinationConfig> destinations = route.getDestinationConfigs();
+        List<CircuitBreaker> breakers = new ArrayList<>(destinations.size());
+        for (int i = 0; i < destinations.size(); i++) {
+            DestinationConfig destConfig = destinations.get(i);
+            breakers.add(circuitBreakers.computeIfAbsent(buildDestinationRouteId(route.getRouteId(), i),
+                name -> new CircuitBreaker(name, destConfig.getCircuitBreaker())));
+        }
+        return breakers;
+    }
+    
+    /**
+     * Dispatcher from an enhanced INPUT route to its destination routes: a ring-buffer fan-out
+     * with one consumer per destination, or a per-message copy when fan-out is disabled.
+     */
+    private Processor createDestinationDispatcher(EnhancedRouteMapping route) {
+        if (!fanOutConfig.isEnabled()) {
+            return new EnhancedDestinationRouter(getContext(), route);
+        }
+        List<DestinationConfig> destinations = route.getDestinationConfigs();
+        List<String> destinationUris = new ArrayList<>(destinations.size());
+        for (int i = 0; i < destinations.size(); i++) {
+            destinationUris.add("direct:" + buildDestinationRouteId(route.getRouteId(), i));
+        }
+        return new DestinationFanOutDispatcher(getContext(), route.getRouteId(), destinations, destinationUris, fanOutConfig);
+    }
+    
     /**
      * Configures OUTPUT routes.
      */
-    private void configureOutputRoutes(JacksonDataFormat envelopeFormat) {
+    private void configureOutputRoutes(DataFormat envelopeFormat) {
         List<EnhancedRouteMapping> outputRoutes = enhancedRoutingConfig.getOutputRoutes();
         
         for (EnhancedRouteMapping route : outputRoutes) {
@@ -319,48 +735,35 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                 
                 from(destinationUri)
                     .routeId(listenerRouteId)
+                    .process(EnhancedFixMessageRouter::decodeFixFrame)
                     .log("Enhanced OUTPUT route " + routeId + ": Received raw FIX message from " + destinationUri+ " : msg= ${body}")
                     .process(exchange -> {
                         // Build envelope from raw message
                         String rawMessage = exchange.getIn().getBody(String.class);
+                        boolean framed = exchange.getProperty(FIX_FRAMED_PROPERTY, false, Boolean.class);
                         String properSessionId = "FIX.4.4:" + senderCompId + "->" + targetCompId;
                         
-                        // Debug logging for raw message analysis
-                        if (rawMessage != null) {
-                            
-                            if (rawMessage.contains("\\u0001")) {
-                                System.out.println("[DEBUG] EnhancedFixMessageRouter OUTPUT - Message contains \\u0001 escape sequence");
-                            }
-                            // Check for actual SOH character
-                            boolean hasActualSOH = rawMessage.indexOf('\u0001') >= 0;
+                        // Textline input may carry escaped SOHs and lacks the trailing delimiter
+                        if (rawMessage != null && !framed) {
                             
                             // Process the raw message to handle escape sequences
                             String processedMessage = FixMessageUtils.processRawMessage(rawMessage);
                             if (!processedMessage.equals(rawMessage)) {
-                                System.out.println("[DEBUG] EnhancedFixMessageRouter OUTPUT - Message was processed (escape sequences converted)");
+                                log.debug("Enhanced OUTPUT route {}: Converted escape sequences in raw message", routeId);
                                 rawMessage = processedMessage;
                             }
                         }
                         
-                        // Parse FIX tags and extract common fields
-                        Map<Integer, String> parsedTags = MvelExpressionEvaluator.parseFixTags(rawMessage);
-                        
-                        // Extract common fields for easy access
-                        String symbol = parsedTags.get(55);
-                        String side = parsedTags.get(54);
-                        String orderQty = parsedTags.get(38);
-                        String price = parsedTags.get(44);
-                        
+                        boolean partitioned = partitionStrategy != PartitionStrategy.NONE
+                            && partitionExpression != null && !partitionExpression.trim().isEmpty();
+
+                        // Tags (symbol, side, ...) are read lazily from rawMessage, so
+                        // routes without a partition expression never scan the message
                         FixMessageEnvelope envelope = FixMessageEnvelope.builder()
                                 .sessionId(properSessionId)
                                 .senderCompId(senderCompId)
                                 .targetCompId(targetCompId)
                                 .rawMessage(rawMessage)
-                                .symbol(symbol)
-                                .side(side)
-                                .orderQty(orderQty)
-                                .price(price)
-                                .parsedTags(parsedTags)
                                 .build();
                         exchange.getIn().setBody(envelope);
                         
@@ -375,7 +778,7 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                         exchange.getIn().setHeader("partitionExpression", partitionExpression);
                         
                         // Apply content-based routing if configured
-                        if (partitionStrategy != PartitionStrategy.NONE && partitionExpression != null && !partitionExpression.trim().isEmpty()) {
+                        if (partitioned) {
                             // Use already parsed tags from envelope
                             Object partitionResult = MvelExpressionEvaluator.evaluatePartitionExpression(
                                 partitionExpression, envelope, envelope.getParsedTags());
@@ -384,7 +787,7 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                                 if (partitionStrategy == PartitionStrategy.KEY) {
                                     // Set partition key (will be used as Kafka message key)
                                     exchange.getIn().setHeader("kafka.KEY", partitionResult.toString());
-                                    System.out.println("[DEBUG] EnhancedFixMessageRouter OUTPUT - Setting partition key: " + partitionResult);
+                                    log.debug("Enhanced OUTPUT route {}: Setting partition key: {}", routeId, partitionResult);
                                 } else if (partitionStrategy == PartitionStrategy.EXPR) {
                                     // Set partition number (must be integer)
                                     try {
@@ -395,9 +798,9 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                                             partitionNum = Integer.parseInt(partitionResult.toString());
                                         }
                                         exchange.getIn().setHeader("kafka.PARTITION", partitionNum);
-                                        System.out.println("[DEBUG] EnhancedFixMessageRouter OUTPUT - Setting partition number: " + partitionNum);
+                                        log.debug("Enhanced OUTPUT route {}: Setting partition number: {}", routeId, partitionNum);
                                     } catch (NumberFormatException e) {
-                                        System.out.println("[ERROR] EnhancedFixMessageRouter OUTPUT - Invalid partition number from expression: " + partitionResult);
+                                        log.error("Enhanced OUTPUT route {}: Invalid partition number from expression: {}", routeId, partitionResult);
                                     }
                                 }
                             }
@@ -405,12 +808,24 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                     })
                     .marshal(envelopeFormat)
                     .log("Enhanced OUTPUT route " + routeId + ": Forwarding envelope to output topic " + outputTopic)
-                    .to(buildKafkaProducerUri(outputTopic, route.getPartitionStrategy()))
+                    .to(buildKafkaProducerUri(outputTopic, route.getPartitionStrategy(), route.getPayloadFormat()))
                     .transform().constant("OK");
             }
         }
     }
     
+    /**
+     * Turns a frame from FixFrameDecoder into the String body used by the rest of the route.
+     * Framed messages already carry real SOH delimiters, including the trailing one.
+     */
+    private static void decodeFixFrame(Exchange exchange) {
+        Object body = exchange.getIn().getBody();
+        if (body instanceof ByteBuf frame) {
+            exchange.getIn().setBody(frame.toString(StandardCharsets.ISO_8859_1));
+            exchange.setProperty(FIX_FRAMED_PROPERTY, true);
+        }
+    }
+    
     /**
      * Configures the dead letter channel for enhanced routing.
      */
@@ -426,16 +841,24 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     
     /**
      * Builds Kafka consumer URI for single-record processing with manual commits.
+     * BYTES routes receive the record value as byte[] without a String decode.
      */
-    private String buildKafkaConsumerUri(String topic, String groupId) {
+    private String buildKafkaConsumerUri(String topic, String groupId, PayloadFormat payloadFormat) {
+        return buildKafkaConsumerUri(topic, groupId, payloadFormat, 1);
+    }
+    
+    /**
+     * Builds Kafka consumer URI fetching up to {@code maxPollRecords} records per poll with manual commits.
+     */
+    private String buildKafkaConsumerUri(String topic, String groupId, PayloadFormat payloadFormat, int maxPollRecords) {
         return "kafka:" + topic
             + "?brokers={{kafka.brokers:localhost:9092}}"
             + "&groupId=" + groupId
             + "&autoOffsetReset={{kafka.autoOffsetReset:earliest}}"
-            + "&keyDeserializer=org.apache.kafka.common.serialization.StringDeserializer"
-            + "&valueDeserializer=org.apache.kafka.common.serialization.StringDeserializer"
+            + "&keyDeserializer=" + STRING_DESERIALIZER
+            + "&valueDeserializer=" + (payloadFormat == PayloadFormat.BYTES ? BYTE_ARRAY_DESERIALIZER : STRING_DESERIALIZER)
             + "&sessionTimeoutMs=30000"
-            + "&maxPollRecords=1"  // Process ONE record at a time
+            + "&maxPollRecords=" + Math.max(1, maxPollRecords)
             + "&autoCommitEnable=false"  // Disable auto-commit
             + "&allowManualCommit=true"  // Enable manual commits
             + "&breakOnFirstError=false";  // Continue on error for transient network issues
@@ -445,18 +868,65 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
      * Builds Kafka consumer URI for ordered processing with manual commits.
      * This is the recommended configuration for guaranteed ordering per partition.
      */
-    private String buildOrderedKafkaConsumerUri(String topic, String groupId) {
-        return buildKafkaConsumerUri(topic, groupId);
+    private String buildOrderedKafkaConsumerUri(String topic, String groupId, PayloadFormat payloadFormat, int batchSize) {
+        return buildKafkaConsumerUri(topic, groupId, payloadFormat, batchSize);
+    }
+    
+    /**
+     * Resolves an ordered consumer endpoint whose commits go through the {@link OffsetCommitManager}.
+     * Commit handles only record the processed offset (from any thread, which key-ordered lanes
+     * rely on) and the manager sends coalesced commits from the consumer thread.
+     * The poll timeout is capped at the commit interval so an idle consumer still flushes in time.
+     */
+    private KafkaEndpoint orderedKafkaEndpoint(String uri, CoalescingManualCommitFactory commitFactory) {
+        KafkaEndpoint endpoint = getContext().getEndpoint(uri, KafkaEndpoint.class);
+        endpoint.setKafkaManualCommitFactory(commitFactory);
+        Long pollTimeoutMs = endpoint.getConfiguration().getPollTimeoutMs();
+        if (commitFactory.getCommitIntervalMs() > 0
+                && (pollTimeoutMs == null || pollTimeoutMs > commitFactory.getCommitIntervalMs())) {
+            endpoint.getConfiguration().setPollTimeoutMs(commitFactory.getCommitIntervalMs());
+        }
+        return endpoint;
+    }
+    
+    /**
+     * Starts an ordered INPUT route. Kafka consumers get a {@link CommitFlushingConsumerListener}
+     * so due offset commits are also sent after polls that return no records.
+     */
+    private RouteDefinition orderedInputRoute(RouteBuilder builder, Endpoint endpoint, String routeId) {
+        RouteDefinition definition = builder.from(endpoint).routeId(routeId);
+        if (endpoint instanceof KafkaEndpoint) {
+            definition.pausable(new CommitFlushingConsumerListener(offsetCommitManager), resumable -> true);
+        }
+        return definition;
+    }
+    
+    /**
+     * Resolves the endpoint an ordered INPUT route consumes from: its own Kafka consumer, or with the
+     * shared consumer enabled, {@code direct:<routeId>_PIPELINE} fed by that consumer for the route's topic.
+     */
+    private Endpoint orderedInputEndpoint(String routeId, String inputTopic, String consumerGroup,
+                                          PayloadFormat payloadFormat,
+                                          EnhancedRouteMapping.OrderedProcessingConfig orderedConfig) {
+        if (topicDemultiplexer != null) {
+            String pipelineUri = "direct:" + routeId + "_PIPELINE";
+            topicDemultiplexer.register(inputTopic, pipelineUri);
+            return getContext().getEndpoint(pipelineUri);
+        }
+        return orderedKafkaEndpoint(
+            buildOrderedKafkaConsumerUri(inputTopic, consumerGroup, payloadFormat, orderedConfig.getBatchSize()),
+            new CoalescingManualCommitFactory(offsetCommitManager, orderedConfig.getCommitIntervalMs()));
     }
     
     /**
      * Builds Kafka producer URI.
+     * BYTES routes send the marshalled envelope bytes as-is instead of converting them to a String.
      */
-    private String buildKafkaProducerUri(String topic) {
+    private String buildKafkaProducerUri(String topic, PayloadFormat payloadFormat) {
         return "kafka:" + topic
             + "?brokers={{kafka.brokers:localhost:9092}}"
-            + "&keySerializer=org.apache.kafka.common.serialization.StringSerializer"
-            + "&valueSerializer=org.apache.kafka.common.serialization.StringSerializer"
+            + "&keySerializer=" + STRING_SERIALIZER
+            + "&valueSerializer=" + (payloadFormat == PayloadFormat.BYTES ? BYTE_ARRAY_SERIALIZER : STRING_SERIALIZER)
             + "&requestTimeoutMs=10000";
     }
     
@@ -464,9 +934,9 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
      * Builds Kafka producer URI with partition strategy support.
      * The actual partition/key will be set via headers (kafka.KEY or kafka.PARTITION).
      */
-    private String buildKafkaProducerUri(String topic, PartitionStrategy partitionStrategy) {
+    private String buildKafkaProducerUri(String topic, PartitionStrategy partitionStrategy, PayloadFormat payloadFormat) {
         // Base URI is the same, partition/key will be determined by headers
-        return buildKafkaProducerUri(topic);
+        return buildKafkaProducerUri(topic, payloadFormat);
     }
     
     /**
@@ -488,65 +958,55 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     
     /**
      * Processor for routing messages to enhanced destination routes.
+     * Sends through one producer template, created at start and stopped at stop.
      */
-    private static class EnhancedDestinationRouter implements Processor {
+    private static class EnhancedDestinationRouter extends ServiceSupport implements Processor {
+        private final CamelContext camelContext;
         private final EnhancedRouteMapping route;
+        private ProducerTemplate producerTemplate;
         
-        EnhancedDestinationRouter(EnhancedRouteMapping route) {
+        EnhancedDestinationRouter(CamelContext camelContext, EnhancedRouteMapping route) {
+            this.camelContext = camelContext;
             this.route = route;
         }
         
+        @Override
+        protected void doStart() throws Exception {
+            producerTemplate = camelContext.createProducerTemplate();
+        }
+        
+        @Override
+        protected void doStop() throws Exception {
+            if (producerTemplate != null) {
+                producerTemplate.stop();
+                producerTemplate = null;
+            }
+        }
+        
         @Override
         public void process(Exchange exchange) throws Exception {
-            String messageBody = exchange.getIn().getBody(String.class);
+            // String or byte[] depending on the route's payload format; forwarded unconverted
+            Object messageBody = exchange.getIn().getBody();
             List<DestinationConfig> destinationConfigs = route.getDestinationConfigs();
             
             // Get msgType from headers (set by FixMessageProcessor)
             String msgType = exchange.getIn().getHeader("msgType", String.class);
             
-            // Log message body details for debugging SOH issue
-            if (messageBody != null && !messageBody.isEmpty()) {
-                int length = messageBody.length();
-                char lastChar = messageBody.charAt(length - 1);
-                System.out.println("[DEBUG] EnhancedDestinationRouter - Message body length: " + length +
-                                 ", last char code: " + (int)lastChar +
-                                 " (0x" + Integer.toHexString(lastChar) + ")");
-                // Also check for SOH characters
-                int sohCount = 0;
-                for (int i = 0; i < messageBody.length(); i++) {
-                    if (messageBody.charAt(i) == '\u0001') {
-                        sohCount++;
-                    }
-                }
-                System.out.println("[DEBUG] EnhancedDestinationRouter - Total SOH characters: " + sohCount);
-            }
-            
-            // Log msgType for debugging
-            System.out.println("[DEBUG] EnhancedDestinationRouter - msgType: " + msgType);
-            System.out.println("[DEBUG] EnhancedDestinationRouter - Total destinations: " + destinationConfigs.size());
-            
-            // Log all headers for debugging
-            System.out.println("[DEBUG] EnhancedDestinationRouter - All headers: " + exchange.getIn().getHeaders());
+            log.debug("EnhancedDestinationRouter: Routing msgType {} of route {} to {} destinations",
+                msgType, route.getRouteId(), destinationConfigs.size());
             
             for (int i = 0; i < destinationConfigs.size(); i++) {
                 DestinationConfig destConfig = destinationConfigs.get(i);
-                System.out.println("[DEBUG] EnhancedDestinationRouter - Processing destination " + i +
-                                 " (uri: " + destConfig.getUri() + ")");
-                System.out.println("[DEBUG] EnhancedDestinationRouter - Destination msgTypes: " + destConfig.getMsgTypes());
                 
                 // Check if destination should receive this message type
-                boolean matches = destConfig.matchesMsgType(msgType);
-                System.out.println("[DEBUG] EnhancedDestinationRouter - matchesMsgType(" + msgType + ") = " + matches);
-                
-                if (!matches) {
-                    System.out.println("[DEBUG] EnhancedDestinationRouter - Skipping destination " + i +
-                                     " (uri: " + destConfig.getUri() + ") because msgType " + msgType +
-                                     " not in allowed list: " + destConfig.getMsgTypes());
+                if (!destConfig.matchesMsgType(msgType)) {
+                    log.debug("EnhancedDestinationRouter: Skipping destination {} (uri: {}) because msgType {} not in allowed list: {}",
+                        i, destConfig.getUri(), msgType, destConfig.getMsgTypes());
                     continue;
                 }
                 
                 String destRouteId = route.getRouteId() + "_DEST_" + i;
-                System.out.println("[DEBUG] EnhancedDestinationRouter - Sending to destination route: " + destRouteId);
+                log.debug("EnhancedDestinationRouter: Sending to destination route: {}", destRouteId);
                 
                 // Create new exchange for each destination
                 Exchange destExchange = exchange.getContext()
@@ -565,12 +1025,10 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                 // Apply destination-specific parallel processing
                 if (destConfig.isParallelProcessing()) {
                     // Send asynchronously
-                    exchange.getContext().createProducerTemplate()
-                        .asyncSend("direct:" + destRouteId, destExchange);
+                    producerTemplate.asyncSend("direct:" + destRouteId, destExchange);
                 } else {
                     // Send synchronously
-                    exchange.getContext().createProducerTemplate()
-                        .send("direct:" + destRouteId, destExchange);
+                    producerTemplate.send("direct:" + destRouteId, destExchange);
                 }
                 
                 // Check if we should stop on exception
@@ -585,18 +1043,43 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
     /**
      * Processor for sequential destination processing with guaranteed ordering.
      * Processes destinations one by one, waiting for each to complete before moving to the next.
-     * Includes retry logic for transient network issues.
+     * Includes retry logic for transient network issues, which waits on the consumer thread;
+     * used only when bulkheads are disabled.
      */
-    private static class SequentialDestinationProcessor implements Processor {
+    private static class SequentialDestinationProcessor extends ServiceSupport implements Processor {
         private final EnhancedRouteMapping route;
+        private final List<DestinationSender> senders;
+        private final List<CircuitBreaker> circuitBreakers;
+        private final List<ErrorClassifier> errorClassifiers;
+        private final List<String> deadLetterUris;
+        private volatile ProducerTemplate producerTemplate;
         
-        SequentialDestinationProcessor(EnhancedRouteMapping route) {
+        SequentialDestinationProcessor(EnhancedRouteMapping route, List<DestinationSender> senders,
+                                       List<CircuitBreaker> circuitBreakers, List<ErrorClassifier> errorClassifiers,
+                                       List<String> deadLetterUris) {
             this.route = route;
+            this.senders = senders;
+            this.circuitBreakers = circuitBreakers;
+            this.errorClassifiers = errorClassifiers;
+            this.deadLetterUris = deadLetterUris;
+        }
+        
+        @Override
+        protected void doStart() throws Exception {
+            ServiceHelper.startService(senders);
+        }
+        
+        @Override
+        protected void doStop() throws Exception {
+            ServiceHelper.stopService(senders);
+            if (producerTemplate != null) {
+                producerTemplate.stop();
+                producerTemplate = null;
+            }
         }
         
         @Override
         public void process(Exchange exchange) throws Exception {
-            String messageBody = exchange.getIn().getBody(String.class);
             List<DestinationConfig> destinationConfigs = route.getDestinationConfigs();
             
             // Get msgType from headers (set by FixMessageProcessor)
@@ -615,116 +1098,137 @@ public class EnhancedFixMessageRouter extends RouteBuilder {
                     continue;
                 }
                 
-                String destinationUri = destConfig.buildCompleteUri();
-                log.debug("SequentialDestinationProcessor: Sending to destination {}: {}", i, destinationUri);
-                
-                // Retry logic for network errors
-                boolean success = false;
-                Exception lastException = null;
-                int maxRetries = destConfig.getMaxRetries();
-                
-                for (int retry = 0; retry <= maxRetries; retry++) {
-                    try {
-                        // Send SYNCHRONOUSLY to maintain ordering
-                        exchange.getContext().createProducerTemplate()
-                            .send(destinationUri, exchange);
-                        
-                        // Check for failure
-                        if (exchange.getException() != null) {
-                            throw exchange.getException();
-                        }
-                        
-                        success = true;
-                        log.debug("SequentialDestinationProcessor: Successfully sent to destination {} (attempt {})",
-                            i, retry + 1);
-                        break;
-                        
-                    } catch (Exception e) {
-                        lastException = e;
-                        
-                        // Check if this is a network-related error
-                        boolean isNetworkError = isNetworkError(e);
-                        
-                        if (isNetworkError && retry < maxRetries) {
-                            // Wait before retry
-                            long retryDelay = destConfig.getRetryDelay();
-                            String errorMsg = e.getMessage();
-                            if (errorMsg == null || errorMsg.isEmpty()) {
-                                errorMsg = e.getClass().getName();
-                            }
-                            log.warn("SequentialDestinationProcessor: Network error sending to destination {} (attempt {}): {}. Retrying in {}ms",
-                                i, retry + 1, errorMsg, retryDelay);
-                            try {
-                                Thread.sleep(retryDelay);
-                            } catch (InterruptedException ie) {
-                                Thread.currentThread().interrupt();
-                                throw ie;
-                            }
-                        } else {
-                            // Not a network error or retries exhausted
-                            String errorMsg = e.getMessage();
-                            if (errorMsg == null || errorMsg.isEmpty()) {
-                                errorMsg = e.getClass().getName();
-                            }
-                            log.debug("SequentialDestinationProcessor: Non-network error or retries exhausted for destination {} (attempt {}): {}",
-                                i, retry + 1, errorMsg);
-                            break;
-                        }
+                try {
+                    sendWithRetries(exchange, i, destConfig, senders.get(i), circuitBreakers.get(i), errorClassifiers.get(i));
+                } catch (Exception e) {
+                    // A message this destination can never take, or cannot take while it is down,
+                    // must not hold up the route or be redelivered to the other destinations
+                    boolean skipDestination = e instanceof CircuitBreakerOpenException
+                        || errorClassifiers.get(i).classify(e) == ErrorClassification.DLQ;
+                    // Check if we should stop on exception
+                    if (destConfig.isStopOnException() && !skipDestination) {
+                        throw e;
                     }
+                    // Otherwise dead-letter it for this destination, as the destination routes and
+                    // bulkheads do, and continue to next destination
+                    deadLetter(exchange, i, e);
                 }
-                
-                if (!success) {
-                    String errorMessage = "Unknown error";
-                    if (lastException != null) {
-                        if (lastException.getMessage() != null && !lastException.getMessage().isEmpty()) {
-                            errorMessage = lastException.getMessage();
-                        } else {
-                            errorMessage = lastException.getClass().getName() + " (no message)";
-                        }
-                    }
+            }
+        }
+        
+        /**
+         * Sends a message to one destination, retrying failures classified RETRY after the destination's retry delay.
+         * Fails fast with {@link CircuitBreakerOpenException} while the destination's circuit breaker is open.
+         *
+         * @throws Exception The last failure once retries are exhausted or for a failure not worth retrying
+         */
+        static void sendWithRetries(Exchange exchange, int index, DestinationConfig destConfig,
+                                    DestinationSender sender, CircuitBreaker circuitBreaker,
+                                    ErrorClassifier errorClassifier) throws Exception {
+            String destinationUri = destConfig.buildCompleteUri();
+            log.debug("SequentialDestinationProcessor: Sending to destination {}: {}", index, destinationUri);
+            
+            // Retry logic for network errors
+            Exception lastException = null;
+            int maxRetries = destConfig.getMaxRetries();
+            
+            for (int retry = 0; retry <= maxRetries; retry++) {
+                // No connect attempts while the destination is known to be down
+                if (!circuitBreaker.tryAcquire()) {
+                    log.warn("SequentialDestinationProcessor: Circuit breaker of destination {} (uri: {}) is open, not sending",
+                        index, destinationUri);
+                    throw new CircuitBreakerOpenException(circuitBreaker);
+                }
+                try {
+                    sender.send(exchange);
+                    circuitBreaker.onSuccess();
+                    
+                    log.debug("SequentialDestinationProcessor: Successfully sent to destination {} (attempt {})",
+                        index, retry + 1);
+                    return;
                     
-                    log.error("SequentialDestinationProcessor: Failed to send to destination {} (uri: {}) after {} attempts: {}",
-                        i, destinationUri, maxRetries + 1, errorMessage);
+                } catch (Exception e) {
+                    lastException = e;
                     
-                    // Log the full exception for debugging if it's a network error
-                    if (lastException != null && isNetworkError(lastException)) {
-                        log.debug("SequentialDestinationProcessor: Network error details for destination {}:", i, lastException);
+                    // Only transient failures say the destination is unhealthy
+                    boolean retryable = errorClassifier.isRetryable(e);
+                    if (retryable) {
+                        circuitBreaker.onFailure();
+                    } else {
+                        circuitBreaker.onSuccess();
                     }
                     
-                    // Check if we should stop on exception
-                    if (destConfig.isStopOnException()) {
-                        throw lastException != null ? lastException : new RuntimeException("Failed to send to destination " + i + " (uri: " + destinationUri + ")");
+                    if (retryable && retry < maxRetries) {
+                        // Wait before retry, with the destination's backoff; the offset is committed
+                        // after delivery, so this thread has to wait (only with fix.bulkhead.enabled=false,
+                        // bulkheads retry on the RetryScheduler without holding it)
+                        long retryDelay = destConfig.retryDelayFor(retry + 1);
+                        String errorMsg = e.getMessage();
+                        if (errorMsg == null || errorMsg.isEmpty()) {
+                            errorMsg = e.getClass().getName();
+                        }
+                        log.warn("SequentialDestinationProcessor: Transient error sending to destination {} (attempt {}): {}. Retrying in {}ms",
+                            index, retry + 1, errorMsg, retryDelay);
+                        // Clear the failure so that the next attempt starts clean
+                        exchange.setException(null);
+                        try {
+                            Thread.sleep(retryDelay);
+                        } catch (InterruptedException ie) {
+                            Thread.currentThread().interrupt();
+                            throw ie;
+                        }
+                    } else {
+                        // Not worth retrying or retries exhausted
+                        String errorMsg = e.getMessage();
+                        if (errorMsg == null || errorMsg.isEmpty()) {
+                            errorMsg = e.getClass().getName();
+                        }
+                        log.debug("SequentialDestinationProcessor: {} error or retries exhausted for destination {} (attempt {}): {}",
+                            errorClassifier.classify(e), index, retry + 1, errorMsg);
+                        break;
                     }
-                    // Otherwise continue to next destination
                 }
             }
+            
+            String errorMessage = "Unknown error";
+            if (lastException != null) {
+                if (lastException.getMessage() != null && !lastException.getMessage().isEmpty()) {
+                    errorMessage = lastException.getMessage();
+                } else {
+                    errorMessage = lastException.getClass().getName() + " (no message)";
+                }
+            }
+            
+            log.error("SequentialDestinationProcessor: Failed to send to destination {} (uri: {}) after {} attempts: {}",
+                index, destinationUri, maxRetries + 1, errorMessage);
+            
+            // Log the full exception for debugging if it's a transient error
+            if (lastException != null && errorClassifier.isRetryable(lastException)) {
+                log.debug("SequentialDestinationProcessor: Transient error details for destination {}:", index, lastException);
+            }
+            
+            throw lastException != null ? lastException : new RuntimeException("Failed to send to destination " + index + " (uri: " + destinationUri + ")");
         }
         
         /**
-         * Determines if an exception is likely a network-related error.
+         * Sends a message that one destination cannot take to its dead letter topic, and clears the failure.
+         * The {@link RetryTierProcessor#DESTINATION} header lets a replay re-drive that destination only.
          */
-        private boolean isNetworkError(Exception e) {
-            if (e == null || e.getMessage() == null) {
-                return false;
+        private void deadLetter(Exchange exchange, int index, Exception cause) {
+            String deadLetterUri = deadLetterUris.get(index);
+            log.error("SequentialDestinationProcessor: Message cannot be delivered to destination {}, sending to {}: {}",
+                index, deadLetterUri, cause.getMessage());
+            exchange.setException(null);
+            Exchange copy = exchange.copy();
+            copy.getIn().setHeader(RetryTierProcessor.DESTINATION, route.getRouteId() + "_DEST_" + index);
+            if (producerTemplate == null) {
+                producerTemplate = exchange.getContext().createProducerTemplate();
+            }
+            Exchange sent = producerTemplate.send(deadLetterUri, copy);
+            if (sent.getException() != null) {
+                log.error("SequentialDestinationProcessor: Failed to dead-letter message for destination {}: {}",
+                    index, sent.getException().getMessage());
             }
-            
-            String message = e.getMessage().toLowerCase();
-            String className = e.getClass().getName().toLowerCase();
-            
-            // Check for common network error patterns
-            return message.contains("connection") ||
-                   message.contains("timeout") ||
-                   message.contains("network") ||
-                   message.contains("socket") ||
-                   message.contains("io") ||
-                   message.contains("connect") ||
-                   message.contains("refused") ||
-                   className.contains("connect") ||
-                   className.contains("timeout") ||
-                   className.contains("io") ||
-                   e instanceof java.net.ConnectException ||
-                   e instanceof java.net.SocketTimeoutException ||
-                   e instanceof java.io.IOException;
         }
     }
 
@@ -1,14 +1,15 @@
 package com.fix.gateway.route;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fix.gateway.model.FixMessageEnvelope;
 import com.fix.gateway.model.RouteType;
 import com.fix.gateway.model.RoutingConfig;
+import com.fix.gateway.netty.FixConnectionPools;
+import com.fix.gateway.processor.FixMessageEnvelopeDataFormat;
 import com.fix.gateway.processor.FixMessageProcessor;
 import com.fix.gateway.processor.MessageEnvelopeFormatProcessor;
 import com.fix.gateway.util.FixMessageUtils;
 import org.apache.camel.builder.RouteBuilder;
-import org.apache.camel.component.jackson.JacksonDataFormat;
+import org.apache.camel.spi.DataFormat;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
@@ -27,16 +28,15 @@ public class FixMessageRouter extends RouteBuilder {
     private MessageEnvelopeFormatProcessor messageEnvelopeFormatProcessor;
     
     @Autowired
-    private ObjectMapper objectMapper;
+    private FixConnectionPools fixConnectionPools;
 
     @Override
     public void configure() throws Exception {
 
         
             
-        // Configure JSON data format for FixMessageEnvelope using the Spring-configured ObjectMapper
-        JacksonDataFormat envelopeFormat = new JacksonDataFormat(objectMapper, FixMessageEnvelope.class);
-        envelopeFormat.setPrettyPrint(false);
+        // Configure JSON data format for FixMessageEnvelope (streaming codec, same JSON as JacksonConfig)
+        DataFormat envelopeFormat = new FixMessageEnvelopeDataFormat();
         
         // Configure error handling with minimal retries to prevent infinite loops
         errorHandler(deadLetterChannel("direct:deadLetterChannel")
@@ -97,8 +97,10 @@ public class FixMessageRouter extends RouteBuilder {
                                 .setProperty("destinationUri", body())
                                 // Restore the original message body for sending (raw FIX message)
                                 .setBody(exchangeProperty("originalBody"))
-                                // Add timeout for Netty connections (5 seconds) and disable connection pooling
+                                // Netty TCP destinations use pooled connections; otherwise add timeouts and disable connection pooling
                                 .choice()
+                                    .when(exchange -> fixConnectionPools.isPooled(exchange.getProperty("destinationUri", String.class)))
+                                        .process(exchange -> fixConnectionPools.send(exchange.getProperty("destinationUri", String.class), exchange))
                                     .when(simple("${exchangeProperty.destinationUri} contains 'netty:'"))
                                         // Properly construct Netty URI by merging parameters
                                         .process(exchange -> {
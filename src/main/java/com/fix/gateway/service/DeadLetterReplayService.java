@@ -0,0 +1,205 @@
+package com.fix.gateway.service;
+
+import com.fix.gateway.kafka.DeadLetterReplayConfig;
+import com.fix.gateway.kafka.RetryTierProcessor;
+import com.fix.gateway.kafka.RetryTopicConsumer;
+import com.fix.gateway.model.EnhancedRouteMapping;
+import com.fix.gateway.model.EnhancedRoutingConfig;
+import com.fix.gateway.model.PayloadFormat;
+import com.fix.gateway.model.ReplayRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays dead letter topics through destination routes, at a bounded rate and concurrency, so
+ * that recovering after an outage does not overwhelm the counterparty. Replays run one thread each
+ * and can be paused, resumed and cancelled; finished ones are kept for their progress reports.
+ */
+@Service
+@Slf4j
+public class DeadLetterReplayService {
+
+    private static final String DESTINATION_ROUTE_SEPARATOR = "_DEST_";
+
+    private final CamelContext camelContext;
+    private final EnhancedRoutingConfig routingConfig;
+    private final DeadLetterReplayConfig config;
+    private final String bootstrapServers;
+    private final Map<String, ReplayJob> jobs = new LinkedHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile ProducerTemplate producerTemplate;
+
+    public DeadLetterReplayService(
+            CamelContext camelContext,
+            EnhancedRoutingConfig routingConfig,
+            DeadLetterReplayConfig config,
+            @Value("${kafka.brokers:localhost:9092}") String bootstrapServers) {
+        this.camelContext = camelContext;
+        this.routingConfig = routingConfig;
+        this.config = config;
+        this.bootstrapServers = bootstrapServers;
+    }
+
+    /**
+     * Starts a replay.
+     *
+     * @throws IllegalArgumentException if the request is invalid
+     */
+    public ReplayJob start(ReplayRequest request) {
+        if (request.getTopic() == null || request.getTopic().isBlank()) {
+            throw new IllegalArgumentException("topic is required");
+        }
+        if (request.getDestination() != null && camelContext.getRoute(request.getDestination()) == null) {
+            throw new IllegalArgumentException("No destination route " + request.getDestination());
+        }
+        if (request.getFromOffset() != null && request.getToOffset() != null && request.getFromOffset() > request.getToOffset()) {
+            throw new IllegalArgumentException("fromOffset is after toOffset");
+        }
+        double rate = request.getRatePerSecond() != null ? request.getRatePerSecond() : config.getRatePerSecond();
+        if (rate <= 0 || rate > config.getMaxRatePerSecond()) {
+            throw new IllegalArgumentException("ratePerSecond must be above 0 and at most " + config.getMaxRatePerSecond());
+        }
+        int concurrency = request.getConcurrency() != null ? request.getConcurrency() : config.getConcurrency();
+        if (concurrency < 1 || concurrency > config.getMaxConcurrency()) {
+            throw new IllegalArgumentException("concurrency must be between 1 and " + config.getMaxConcurrency());
+        }
+
+        String id = "replay-" + sequence.incrementAndGet();
+        ExecutorService senders = camelContext.getExecutorServiceManager().newFixedThreadPool(this, id, concurrency);
+        ReplayJob job = new ReplayJob(id, request, rate, concurrency, this::createConsumer, this::send, senders);
+        synchronized (jobs) {
+            pruneFinished();
+            jobs.put(id, job);
+        }
+        camelContext.getExecutorServiceManager().newThread(id, job).start();
+        log.info("Started {} of {} (destination={}, ratePerSecond={}, concurrency={})",
+            id, request.getTopic(), request.getDestination(), rate, concurrency);
+        return job;
+    }
+
+    public List<ReplayJob> getJobs() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * @throws NoSuchElementException if there is no such replay
+     */
+    public ReplayJob getJob(String id) {
+        synchronized (jobs) {
+            ReplayJob job = jobs.get(id);
+            if (job == null) {
+                throw new NoSuchElementException("No replay " + id);
+            }
+            return job;
+        }
+    }
+
+    public ReplayJob pause(String id) {
+        ReplayJob job = getJob(id);
+        job.pause();
+        return job;
+    }
+
+    public ReplayJob resume(String id) {
+        ReplayJob job = getJob(id);
+        job.resume();
+        return job;
+    }
+
+    public ReplayJob cancel(String id) {
+        ReplayJob job = getJob(id);
+        job.cancel();
+        return job;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        getJobs().forEach(ReplayJob::cancel);
+    }
+
+    /**
+     * Sends a record through a destination route; a failure handled by the route counts as failed.
+     */
+    private void send(String destination, ConsumerRecord<String, byte[]> record) throws Exception {
+        if (camelContext.getRoute(destination) == null) {
+            throw new IllegalStateException("No destination route " + destination);
+        }
+        Exchange exchange = new DefaultExchange(camelContext);
+        RetryTopicConsumer.copyRecord(record, payloadFormatOf(destination), exchange.getIn());
+        // Start over from the first retry tier
+        exchange.getIn().removeHeader(RetryTierProcessor.TIER);
+        exchange.getIn().removeHeader(RetryTierProcessor.NOT_BEFORE);
+        Exchange sent = producerTemplate().send("direct:" + destination, exchange);
+        if (sent.getException() != null) {
+            throw sent.getException();
+        }
+        Exception handled = sent.getProperty(Exchange.EXCEPTION_CAUGHT, Exception.class);
+        if (handled != null) {
+            throw handled;
+        }
+    }
+
+    /**
+     * Payload format of a destination route's parent route, STRING for routes not in the routing configuration.
+     */
+    private PayloadFormat payloadFormatOf(String destination) {
+        int separator = destination.lastIndexOf(DESTINATION_ROUTE_SEPARATOR);
+        EnhancedRouteMapping route = separator > 0 ? routingConfig.findRouteById(destination.substring(0, separator)) : null;
+        return route != null ? route.getPayloadFormat() : PayloadFormat.STRING;
+    }
+
+    private KafkaConsumer<String, byte[]> createConsumer() {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(1, config.getMaxPollRecords()));
+        return new KafkaConsumer<>(props);
+    }
+
+    private ProducerTemplate producerTemplate() {
+        if (producerTemplate == null) {
+            synchronized (this) {
+                if (producerTemplate == null) {
+                    producerTemplate = camelContext.createProducerTemplate();
+                }
+            }
+        }
+        return producerTemplate;
+    }
+
+    private void pruneFinished() {
+        long finished = jobs.values().stream().filter(ReplayJob::isFinished).count();
+        Iterator<ReplayJob> oldest = jobs.values().iterator();
+        while (finished > config.getRetainedJobs() - 1 && oldest.hasNext()) {
+            if (oldest.next().isFinished()) {
+                oldest.remove();
+                finished--;
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.fix.gateway.service;
+
+import com.fix.gateway.kafka.RetryTierProcessor;
+import com.fix.gateway.kafka.RetryTopicConsumer;
+import com.fix.gateway.model.ReplayRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * One replay of a dead letter topic: reads the requested range with assigned partitions and sends
+ * each record to its destination route at no more than {@code ratePerSecond}, with at most
+ * {@code concurrency} sends in flight. The range ends at the end offsets seen at start.
+ * <p>
+ * A record counts as failed when the destination route could not deliver it; the route has then
+ * dead-lettered it again (or moved it to a retry topic). Records without a destination are skipped.
+ */
+@Slf4j
+public class ReplayJob implements Runnable {
+
+    public enum Status {
+        RUNNING, PAUSED, COMPLETED, CANCELLED, FAILED
+    }
+
+    /**
+     * Sends a record to a destination route.
+     */
+    @FunctionalInterface
+    public interface Target {
+        /**
+         * @throws Exception if the destination route could not deliver the record
+         */
+        void send(String destination, ConsumerRecord<String, byte[]> record) throws Exception;
+    }
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+    private static final long PAUSE_CHECK_MS = 100;
+
+    private final String id;
+    private final ReplayRequest request;
+    private final double ratePerSecond;
+    private final int concurrency;
+    private final Supplier<Consumer<String, byte[]>> consumerFactory;
+    private final Target target;
+    private final ExecutorService senders;
+    private final long intervalNanos;
+    private final Semaphore inFlight;
+
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile long total;
+    private volatile Status status = Status.RUNNING;
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private long nextSendNanos;
+
+    /**
+     * @param senders Runs the sends, with at least {@code concurrency} threads; shut down when the replay ends
+     */
+    public ReplayJob(String id, ReplayRequest request, double ratePerSecond, int concurrency,
+                     Supplier<Consumer<String, byte[]>> consumerFactory, Target target, ExecutorService senders) {
+        this.id = id;
+        this.request = request;
+        this.ratePerSecond = ratePerSecond;
+        this.concurrency = concurrency;
+        this.consumerFactory = consumerFactory;
+        this.target = target;
+        this.senders = senders;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.inFlight = new Semaphore(concurrency);
+    }
+
+    @Override
+    public void run() {
+        startedAt = Instant.now();
+        try (Consumer<String, byte[]> consumer = consumerFactory.get()) {
+            Map<TopicPartition, Long> ends = assign(consumer);
+            log.info("Replay {}: Replaying {} records of {} at {} msgs/s", id, total, request.getTopic(), ratePerSecond);
+            nextSendNanos = System.nanoTime();
+            while (!ends.isEmpty() && !cancelled) {
+                ConsumerRecords<String, byte[]> records = consumer.poll(POLL_TIMEOUT);
+                for (TopicPartition partition : records.partitions()) {
+                    Long end = ends.get(partition);
+                    for (ConsumerRecord<String, byte[]> record : records.records(partition)) {
+                        if (end == null || record.offset() >= end || !replay(record)) {
+                            break;
+                        }
+                    }
+                }
+                // Partitions read up to their end offset are done
+                List<TopicPartition> done = ends.entrySet().stream()
+                    .filter(entry -> consumer.position(entry.getKey()) >= entry.getValue())
+                    .map(Map.Entry::getKey)
+                    .toList();
+                if (!done.isEmpty()) {
+                    consumer.pause(done);
+                    done.forEach(ends::remove);
+                }
+            }
+            // Wait for the sends in flight
+            inFlight.acquire(concurrency);
+            inFlight.release(concurrency);
+            status = cancelled ? Status.CANCELLED : Status.COMPLETED;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status = Status.CANCELLED;
+        } catch (Exception e) {
+            error = e.getMessage();
+            status = Status.FAILED;
+            log.error("Replay {}: Failed: {}", id, e.getMessage(), e);
+        } finally {
+            senders.shutdown();
+            finishedAt = Instant.now();
+            log.info("Replay {}: {} ({} replayed, {} failed, {} skipped of {})",
+                id, status, replayed.get(), failed.get(), skipped.get(), total);
+        }
+    }
+
+    public void pause() {
+        if (status == Status.RUNNING) {
+            paused = true;
+        }
+    }
+
+    public void resume() {
+        paused = false;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTopic() {
+        return request.getTopic();
+    }
+
+    public String getDestination() {
+        return request.getDestination();
+    }
+
+    public Status getStatus() {
+        Status current = status;
+        return current == Status.RUNNING && paused ? Status.PAUSED : current;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return Records in the replayed range, including those not read yet
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Assigns the partitions to replay and seeks to the start of their range.
+     *
+     * @return End offset (exclusive) of each partition with records to replay
+     */
+    private Map<TopicPartition, Long> assign(Consumer<String, byte[]> consumer) {
+        List<PartitionInfo> infos = consumer.partitionsFor(request.getTopic());
+        if (infos == null || infos.isEmpty()) {
+            throw new IllegalStateException("Topic " + request.getTopic() + " not found");
+        }
+        List<TopicPartition> partitions = infos.stream()
+            .filter(info -> request.getPartition() == null || info.partition() == request.getPartition())
+            .map(info -> new TopicPartition(info.topic(), info.partition()))
+            .toList();
+        if (partitions.isEmpty()) {
+            throw new IllegalStateException("Topic " + request.getTopic() + " has no partition " + request.getPartition());
+        }
+        Map<TopicPartition, Long> starts = new HashMap<>(consumer.beginningOffsets(partitions));
+        Map<TopicPartition, Long> ends = new HashMap<>(consumer.endOffsets(partitions));
+        if (request.getFromTime() != null) {
+            offsetsAt(consumer, partitions, request.getFromTime(), ends)
+                .forEach((partition, offset) -> starts.merge(partition, offset, Math::max));
+        }
+        if (request.getToTime() != null) {
+            offsetsAt(consumer, partitions, request.getToTime(), ends)
+                .forEach((partition, offset) -> ends.merge(partition, offset, Math::min));
+        }
+        if (request.getFromOffset() != null) {
+            partitions.forEach(partition -> starts.merge(partition, request.getFromOffset(), Math::max));
+        }
+        if (request.getToOffset() != null) {
+            partitions.forEach(partition -> ends.merge(partition, request.getToOffset() + 1, Math::min));
+        }
+        ends.entrySet().removeIf(entry -> starts.get(entry.getKey()) >= entry.getValue());
+        total = ends.entrySet().stream().mapToLong(entry -> entry.getValue() - starts.get(entry.getKey())).sum();
+        consumer.assign(ends.keySet());
+        ends.keySet().forEach(partition -> consumer.seek(partition, starts.get(partition)));
+        return ends;
+    }
+
+    /**
+     * @return Offset of the first record at or after {@code time} in each partition, or its end offset
+     */
+    private static Map<TopicPartition, Long> offsetsAt(Consumer<String, byte[]> consumer, List<TopicPartition> partitions,
+                                                       Instant time, Map<TopicPartition, Long> ends) {
+        Map<TopicPartition, Long> query = new HashMap<>();
+        partitions.forEach(partition -> query.put(partition, time.toEpochMilli()));
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        Map<TopicPartition, OffsetAndTimestamp> found = consumer.offsetsForTimes(query);
+        for (TopicPartition partition : partitions) {
+            OffsetAndTimestamp offset = found.get(partition);
+            offsets.put(partition, offset != null ? offset.offset() : ends.get(partition));
+        }
+        return offsets;
+    }
+
+    /**
+     * Waits for the rate and a free send slot, then hands the record to a sender.
+     *
+     * @return false if the replay was cancelled
+     */
+    private boolean replay(ConsumerRecord<String, byte[]> record) throws InterruptedException {
+        String destination = request.getDestination() != null
+            ? request.getDestination()
+            : RetryTopicConsumer.header(record, RetryTierProcessor.DESTINATION);
+        if (destination == null) {
+            skipped.incrementAndGet();
+            log.warn("Replay {}: Skipping {}-{}@{}, it names no destination", id, record.topic(), record.partition(), record.offset());
+            return true;
+        }
+        while (paused && !cancelled) {
+            Thread.sleep(PAUSE_CHECK_MS);
+        }
+        if (cancelled) {
+            return false;
+        }
+        long now = System.nanoTime();
+        while (nextSendNanos - now > 0) {
+            TimeUnit.NANOSECONDS.sleep(nextSendNanos - now);
+            now = System.nanoTime();
+        }
+        // No burst after a pause or a slow poll
+        nextSendNanos = Math.max(nextSendNanos, now) + intervalNanos;
+        inFlight.acquire();
+        try {
+            senders.execute(() -> send(destination, record));
+        } catch (RejectedExecutionException e) {
+            inFlight.release();
+            throw e;
+        }
+        return true;
+    }
+
+    private void send(String destination, ConsumerRecord<String, byte[]> record) {
+        try {
+            target.send(destination, record);
+            replayed.incrementAndGet();
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            log.warn("Replay {}: Failed to replay {}-{}@{} to {}: {}",
+                id, record.topic(), record.partition(), record.offset(), destination, e.getMessage());
+        } finally {
+            inFlight.release();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.fix.gateway.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fix.gateway.model.FixMessageEnvelope;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streaming JSON codec for {@link FixMessageEnvelope}, written directly against
+ * {@link JsonParser}/{@link JsonGenerator} so the hot path avoids reflective databinding.
+ * <p>
+ * The output is byte-for-byte identical to the ObjectMapper from
+ * {@link com.fix.gateway.config.JacksonConfig}: same field order, null fields written,
+ * Instants as ISO-8601 strings. Reading accepts the same input as that ObjectMapper:
+ * unknown fields are ignored, Instants may be ISO-8601 strings or epoch seconds, and an
+ * absent createdTimestamp keeps the envelope's default.
+ */
+public final class FixMessageEnvelopeCodec {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reusable output buffer per thread; reset after each write.
+     */
+    private static final ThreadLocal<ByteArrayBuilder> OUTPUT_BUFFER =
+        ThreadLocal.withInitial(() -> new ByteArrayBuilder(1024));
+
+    private FixMessageEnvelopeCodec() {
+    }
+
+    /**
+     * Reads an envelope from UTF-8 JSON bytes (e.g. a Kafka record value).
+     */
+    public static FixMessageEnvelope read(byte[] json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Reads an envelope from a JSON string.
+     */
+    public static FixMessageEnvelope read(String json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            return read(parser);
+        }
+    }
+
+    /**
+     * Reads an envelope from a stream of UTF-8 JSON. The stream is not closed.
+     */
+    public static FixMessageEnvelope read(InputStream json) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            return read(parser);
+        }
+    }
+
+    /**
+     * Writes an envelope as UTF-8 JSON into a per-thread buffer and returns a copy of the bytes.
+     */
+    public static byte[] write(FixMessageEnvelope envelope) throws IOException {
+        ByteArrayBuilder buffer = fill(envelope);
+        try {
+            return buffer.toByteArray();
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Writes an envelope as UTF-8 JSON to a stream, encoded in the per-thread buffer and handed
+     * to the stream in one write. The stream is not closed.
+     */
+    public static void write(FixMessageEnvelope envelope, OutputStream out) throws IOException {
+        ByteArrayBuilder buffer = fill(envelope);
+        try {
+            if (buffer.size() == buffer.getCurrentSegmentLength()) {
+                // Fits in one segment, which reset() keeps for the next write
+                out.write(buffer.getCurrentSegment(), 0, buffer.getCurrentSegmentLength());
+            } else {
+                out.write(buffer.toByteArray());
+            }
+        } finally {
+            buffer.reset();
+        }
+    }
+
+    /**
+     * Encodes an envelope into the per-thread buffer; the caller resets it.
+     */
+    private static ByteArrayBuilder fill(FixMessageEnvelope envelope) throws IOException {
+        ByteArrayBuilder buffer = OUTPUT_BUFFER.get();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer, JsonEncoding.UTF8)) {
+            write(envelope, generator);
+        } catch (IOException | RuntimeException e) {
+            buffer.reset();
+            throw e;
+        }
+        return buffer;
+    }
+
+    private static FixMessageEnvelope read(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected JSON object for FixMessageEnvelope but found " + parser.currentToken());
+        }
+
+        FixMessageEnvelope envelope = new FixMessageEnvelope();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "sessionId" -> envelope.setSessionId(readString(parser, value));
+                case "senderCompId" -> envelope.setSenderCompId(readString(parser, value));
+                case "targetCompId" -> envelope.setTargetCompId(readString(parser, value));
+                case "msgType" -> envelope.setMsgType(readString(parser, value));
+                case "clOrdID" -> envelope.setClOrdID(readString(parser, value));
+                case "createdTimestamp" -> envelope.setCreatedTimestamp(readInstant(parser, value));
+                case "rawMessage" -> envelope.setRawMessage(readString(parser, value));
+                case "errorMessage" -> envelope.setErrorMessage(readString(parser, value));
+                case "errorType" -> envelope.setErrorType(readString(parser, value));
+                case "errorTimestamp" -> envelope.setErrorTimestamp(readInstant(parser, value));
+                case "errorRouteId" -> envelope.setErrorRouteId(readString(parser, value));
+                // Unknown and ignored properties (symbol, parsedTags, ...)
+                default -> parser.skipChildren();
+            }
+        }
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new IOException("Malformed FixMessageEnvelope JSON at " + parser.currentLocation());
+        }
+        return envelope;
+    }
+
+    private static String readString(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getText();
+        }
+        throw new IOException("Expected string for '" + parser.currentName() + "' but found " + value);
+    }
+
+    private static Instant readInstant(JsonParser parser, JsonToken value) throws IOException {
+        switch (value) {
+            case VALUE_NULL:
+                return null;
+            case VALUE_STRING:
+                String text = parser.getText().trim();
+                if (text.isEmpty()) {
+                    return null;
+                }
+                try {
+                    return Instant.parse(text);
+                } catch (DateTimeParseException e) {
+                    try {
+                        return OffsetDateTime.parse(text).toInstant();
+                    } catch (DateTimeParseException ignored) {
+                        throw new IOException("Invalid timestamp for '" + parser.currentName() + "': " + text, e);
+                    }
+                }
+            case VALUE_NUMBER_INT:
+                // Epoch seconds, as read by JavaTimeModule
+                return Instant.ofEpochSecond(parser.getLongValue());
+            case VALUE_NUMBER_FLOAT:
+                BigDecimal seconds = parser.getDecimalValue();
+                long wholeSeconds = seconds.longValue();
+                int nanos = seconds.subtract(BigDecimal.valueOf(wholeSeconds)).movePointRight(9).intValue();
+                return Instant.ofEpochSecond(wholeSeconds, nanos);
+            default:
+                throw new IOException("Expected timestamp for '" + parser.currentName() + "' but found " + value);
+        }
+    }
+
+    private static void write(FixMessageEnvelope envelope, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("sessionId", envelope.getSessionId());
+        generator.writeStringField("senderCompId", envelope.getSenderCompId());
+        generator.writeStringField("targetCompId", envelope.getTargetCompId());
+        generator.writeStringField("msgType", envelope.getMsgType());
+        generator.writeStringField("clOrdID", envelope.getClOrdID());
+        writeInstantField(generator, "createdTimestamp", envelope.getCreatedTimestamp());
+        generator.writeStringField("rawMessage", envelope.getRawMessage());
+        generator.writeStringField("errorMessage", envelope.getErrorMessage());
+        generator.writeStringField("errorType", envelope.getErrorType());
+        writeInstantField(generator, "errorTimestamp", envelope.getErrorTimestamp());
+        generator.writeStringField("errorRouteId", envelope.getErrorRouteId());
+        generator.writeEndObject();
+    }
+
+    private static void writeInstantField(JsonGenerator generator, String name, Instant value) throws IOException {
+        if (value == null) {
+            generator.writeNullField(name);
+        } else {
+            // Instant.toString() is DateTimeFormatter.ISO_INSTANT, as used by JavaTimeModule
+            generator.writeStringField(name, value.toString());
+        }
+    }
+}
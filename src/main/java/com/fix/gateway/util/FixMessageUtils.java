@@ -38,6 +38,28 @@ public class FixMessageUtils {
         return fixMessage;
     }
     
+    /**
+     * Encodes a raw FIX message for the wire. Raw messages read from the wire are decoded as
+     * ISO-8859-1, one char per byte, so such a message is turned back into its exact bytes; a
+     * message holding chars beyond that range (Unicode text from an upstream producer) is
+     * encoded as UTF-8 rather than having those chars replaced.
+     *
+     * @param fixMessage The FIX message to encode
+     * @return The message bytes
+     */
+    public static byte[] toWireBytes(String fixMessage) {
+        int length = fixMessage.length();
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = fixMessage.charAt(i);
+            if (c > 0xFF) {
+                return fixMessage.getBytes(StandardCharsets.UTF_8);
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+    
     /**
      * Counts the number of SOH characters in a FIX message.
      *
@@ -0,0 +1,332 @@
+package com.fix.gateway.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map of FIX tag numbers to values without boxed keys or entry objects.
+ * Tags below {@value #DENSE_LIMIT} (all standard FIX tags) live in a directly indexed array
+ * that grows to the highest tag seen; user-defined tags above that use open addressing
+ * with linear probing.
+ * <p>
+ * Entries cannot be removed individually; {@link #clear()} resets the map in time proportional
+ * to its size so an instance can be reused per message. Not thread-safe - use
+ * {@link #forCurrentThread()} for a per-thread instance.
+ */
+public final class FixTagMap {
+
+    /**
+     * Tags below this value are stored in the dense array.
+     */
+    public static final int DENSE_LIMIT = 1024;
+
+    private static final int INITIAL_DENSE_CAPACITY = 64;
+    private static final int INITIAL_SPARSE_CAPACITY = 16;
+
+    private static final ThreadLocal<FixTagMap> THREAD_MAP = ThreadLocal.withInitial(FixTagMap::new);
+
+    private String[] dense = new String[INITIAL_DENSE_CAPACITY];
+
+    /**
+     * Dense tags in insertion order, so clear() and iteration only touch used slots.
+     */
+    private int[] denseTags = new int[INITIAL_DENSE_CAPACITY];
+    private int denseSize;
+
+    /**
+     * Open-addressing table for tags >= DENSE_LIMIT; a key of 0 marks an empty slot.
+     */
+    private int[] sparseKeys;
+    private String[] sparseValues;
+    private int sparseSize;
+
+    private Map<Integer, String> mapView;
+
+    /**
+     * Returns the map bound to the current thread, cleared and ready for reuse.
+     * The instance is shared by all callers on the thread, so it must not be held
+     * beyond the current unit of work.
+     *
+     * @return The per-thread map, empty
+     */
+    public static FixTagMap forCurrentThread() {
+        FixTagMap map = THREAD_MAP.get();
+        map.clear();
+        return map;
+    }
+
+    /**
+     * @param tag The FIX tag number
+     * @return The value, or null if the tag is not present
+     */
+    public String get(int tag) {
+        if (tag < 0) {
+            return null;
+        }
+        if (tag < DENSE_LIMIT) {
+            return tag < dense.length ? dense[tag] : null;
+        }
+        if (sparseSize == 0) {
+            return null;
+        }
+        int mask = sparseKeys.length - 1;
+        for (int slot = mix(tag) & mask; ; slot = (slot + 1) & mask) {
+            int key = sparseKeys[slot];
+            if (key == tag) {
+                return sparseValues[slot];
+            }
+            if (key == 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * @param tag The FIX tag number
+     * @return true if the tag is present
+     */
+    public boolean containsKey(int tag) {
+        return get(tag) != null;
+    }
+
+    /**
+     * Stores a tag value, replacing any previous value for the tag.
+     *
+     * @param tag The FIX tag number (must be positive)
+     * @param value The value (must not be null)
+     * @return The previous value, or null
+     */
+    public String put(int tag, String value) {
+        if (tag <= 0) {
+            throw new IllegalArgumentException("FIX tag must be positive: " + tag);
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null for tag " + tag);
+        }
+        if (tag < DENSE_LIMIT) {
+            return putDense(tag, value);
+        }
+        return putSparse(tag, value);
+    }
+
+    /**
+     * Copies all entries of a boxed map into this map.
+     *
+     * @param tags Map of tag numbers to values
+     */
+    public void putAll(Map<Integer, String> tags) {
+        for (Map.Entry<Integer, String> entry : tags.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return Number of tags in the map
+     */
+    public int size() {
+        return denseSize + sparseSize;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Removes all entries, keeping the allocated capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < denseSize; i++) {
+            dense[denseTags[i]] = null;
+        }
+        denseSize = 0;
+        if (sparseSize > 0) {
+            Arrays.fill(sparseKeys, 0);
+            Arrays.fill(sparseValues, null);
+            sparseSize = 0;
+        }
+    }
+
+    /**
+     * Visits every entry without boxing. Standard tags are visited in insertion order first.
+     *
+     * @param consumer Receives each tag and value
+     */
+    public void forEach(TagConsumer consumer) {
+        for (int i = 0; i < denseSize; i++) {
+            int tag = denseTags[i];
+            consumer.accept(tag, dense[tag]);
+        }
+        if (sparseSize > 0) {
+            for (int slot = 0; slot < sparseKeys.length; slot++) {
+                if (sparseKeys[slot] != 0) {
+                    consumer.accept(sparseKeys[slot], sparseValues[slot]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns a read-only {@link Map} view for APIs that need boxed keys.
+     * Lookups through the view go straight to the primitive storage.
+     *
+     * @return Live, unmodifiable view of this map
+     */
+    public Map<Integer, String> asMap() {
+        if (mapView == null) {
+            mapView = new MapView();
+        }
+        return mapView;
+    }
+
+    private String putDense(int tag, String value) {
+        if (tag >= dense.length) {
+            int capacity = Math.min(DENSE_LIMIT, Integer.highestOneBit(tag) << 1);
+            dense = Arrays.copyOf(dense, capacity);
+        }
+        String previous = dense[tag];
+        dense[tag] = value;
+        if (previous == null) {
+            if (denseSize == denseTags.length) {
+                denseTags = Arrays.copyOf(denseTags, denseTags.length * 2);
+            }
+            denseTags[denseSize++] = tag;
+        }
+        return previous;
+    }
+
+    private String putSparse(int tag, String value) {
+        if (sparseKeys == null) {
+            sparseKeys = new int[INITIAL_SPARSE_CAPACITY];
+            sparseValues = new String[INITIAL_SPARSE_CAPACITY];
+        } else if ((sparseSize + 1) * 2 > sparseKeys.length) {
+            rehash(sparseKeys.length * 2);
+        }
+
+        int mask = sparseKeys.length - 1;
+        int slot = mix(tag) & mask;
+        while (sparseKeys[slot] != 0) {
+            if (sparseKeys[slot] == tag) {
+                String previous = sparseValues[slot];
+                sparseValues[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        sparseKeys[slot] = tag;
+        sparseValues[slot] = value;
+        sparseSize++;
+        return null;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = sparseKeys;
+        String[] oldValues = sparseValues;
+        sparseKeys = new int[capacity];
+        sparseValues = new String[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (sparseKeys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                sparseKeys[slot] = oldKeys[i];
+                sparseValues[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int mix(int tag) {
+        int h = tag * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Receives entries from {@link #forEach(TagConsumer)}.
+     */
+    @FunctionalInterface
+    public interface TagConsumer {
+        void accept(int tag, String value);
+    }
+
+    /**
+     * Boxed, read-only view used for MVEL contexts and legacy Map-based APIs.
+     */
+    private final class MapView extends AbstractMap<Integer, String> {
+
+        @Override
+        public String get(Object key) {
+            return key instanceof Integer ? FixTagMap.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return FixTagMap.this.size();
+        }
+
+        @Override
+        public Set<Entry<Integer, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<Integer, String>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return FixTagMap.this.size();
+                }
+            };
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<Integer, String>> {
+        private int denseIndex;
+        private int sparseSlot = -1;
+
+        EntryIterator() {
+            advanceSparse();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return denseIndex < denseSize || (sparseKeys != null && sparseSlot < sparseKeys.length);
+        }
+
+        @Override
+        public Map.Entry<Integer, String> next() {
+            if (denseIndex < denseSize) {
+                int tag = denseTags[denseIndex++];
+                return new AbstractMap.SimpleImmutableEntry<>(tag, dense[tag]);
+            }
+            if (sparseKeys == null || sparseSlot >= sparseKeys.length) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<Integer, String> entry =
+                new AbstractMap.SimpleImmutableEntry<>(sparseKeys[sparseSlot], sparseValues[sparseSlot]);
+            advanceSparse();
+            return entry;
+        }
+
+        private void advanceSparse() {
+            if (sparseKeys == null) {
+                return;
+            }
+            do {
+                sparseSlot++;
+            } while (sparseSlot < sparseKeys.length && sparseKeys[sparseSlot] == 0);
+        }
+    }
+}
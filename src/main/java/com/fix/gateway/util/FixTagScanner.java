@@ -0,0 +1,355 @@
+package com.fix.gateway.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single-pass scanner for FIX tag=value fields.
+ * Each field is recorded as a tag/offset/length triple in reusable primitive arrays,
+ * so scanning a message allocates nothing; a String is only created when a value is read.
+ * <p>
+ * A scanner keeps a reference to the scanned source until it is reset or reused, and is
+ * not thread-safe. Use {@link #forCurrentThread()} to obtain a per-thread instance.
+ */
+public final class FixTagScanner {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * Tags with more digits than this are treated as invalid (would overflow an int).
+     */
+    private static final int MAX_TAG_DIGITS = 9;
+
+    private static final ThreadLocal<FixTagScanner> THREAD_SCANNER = ThreadLocal.withInitial(FixTagScanner::new);
+
+    private int[] tags;
+    private int[] offsets;
+    private int[] lengths;
+    private int count;
+
+    private byte[] bytes;
+    private CharSequence chars;
+
+    /**
+     * Scratch copy used when scanning a direct ByteBuffer that has no backing array.
+     */
+    private byte[] scratch;
+
+    public FixTagScanner() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param initialCapacity Number of fields the scanner can record before growing
+     */
+    public FixTagScanner(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 4);
+        tags = new int[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+    }
+
+    /**
+     * Returns the scanner bound to the current thread.
+     * The returned instance is shared by all callers on the thread, so it must not be held
+     * across calls into code that may scan another message.
+     *
+     * @return The per-thread scanner
+     */
+    public static FixTagScanner forCurrentThread() {
+        return THREAD_SCANNER.get();
+    }
+
+    /**
+     * Scans a FIX message held in a byte array.
+     *
+     * @param data The message bytes
+     * @return This scanner, positioned on the scanned fields
+     */
+    public FixTagScanner scan(byte[] data) {
+        return scan(data, 0, data != null ? data.length : 0);
+    }
+
+    /**
+     * Scans a region of a byte array holding a FIX message.
+     * The array is referenced, not copied.
+     *
+     * @param data The message bytes
+     * @param offset Start of the message within the array
+     * @param length Length of the message
+     * @return This scanner, positioned on the scanned fields
+     */
+    public FixTagScanner scan(byte[] data, int offset, int length) {
+        reset();
+        if (data == null || length <= 0) {
+            return this;
+        }
+        bytes = data;
+
+        int pos = offset;
+        int end = offset + length;
+        while (pos < end) {
+            int fieldStart = pos;
+            int tag = 0;
+            boolean validTag = true;
+            byte b = 0;
+
+            // Tag digits up to '='
+            while (pos < end) {
+                b = data[pos];
+                if (b == '=' || b == FixMessageUtils.SOH) {
+                    break;
+                }
+                if (b >= '0' && b <= '9' && pos - fieldStart < MAX_TAG_DIGITS) {
+                    tag = tag * 10 + (b - '0');
+                } else {
+                    validTag = false;
+                }
+                pos++;
+            }
+            if (pos >= end) {
+                break;
+            }
+            if (b == FixMessageUtils.SOH) {
+                // Field without '=' - skip it
+                pos++;
+                continue;
+            }
+
+            int valueStart = ++pos;
+            while (pos < end && data[pos] != FixMessageUtils.SOH) {
+                pos++;
+            }
+            if (validTag && valueStart - 1 > fieldStart) {
+                add(tag, valueStart, pos - valueStart);
+            }
+            pos++;
+        }
+        return this;
+    }
+
+    /**
+     * Scans the remaining bytes of a buffer without changing its position.
+     * Heap buffers are scanned in place; direct buffers are copied once into a reusable scratch array.
+     *
+     * @param buffer The buffer holding the message between position and limit
+     * @return This scanner, positioned on the scanned fields
+     */
+    public FixTagScanner scan(ByteBuffer buffer) {
+        if (buffer == null) {
+            reset();
+            return this;
+        }
+        if (buffer.hasArray()) {
+            return scan(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+
+        int length = buffer.remaining();
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 256)];
+        }
+        buffer.get(buffer.position(), scratch, 0, length);
+        return scan(scratch, 0, length);
+    }
+
+    /**
+     * Scans a FIX message held as characters (e.g. a String from Kafka).
+     *
+     * @param message The FIX message
+     * @return This scanner, positioned on the scanned fields
+     */
+    public FixTagScanner scan(CharSequence message) {
+        reset();
+        if (message == null || message.length() == 0) {
+            return this;
+        }
+        chars = message;
+
+        int pos = 0;
+        int end = message.length();
+        while (pos < end) {
+            int fieldStart = pos;
+            int tag = 0;
+            boolean validTag = true;
+            char c = 0;
+
+            while (pos < end) {
+                c = message.charAt(pos);
+                if (c == '=' || c == FixMessageUtils.SOH) {
+                    break;
+                }
+                if (c >= '0' && c <= '9' && pos - fieldStart < MAX_TAG_DIGITS) {
+                    tag = tag * 10 + (c - '0');
+                } else {
+                    validTag = false;
+                }
+                pos++;
+            }
+            if (pos >= end) {
+                break;
+            }
+            if (c == FixMessageUtils.SOH) {
+                pos++;
+                continue;
+            }
+
+            int valueStart = ++pos;
+            while (pos < end && message.charAt(pos) != FixMessageUtils.SOH) {
+                pos++;
+            }
+            if (validTag && valueStart - 1 > fieldStart) {
+                add(tag, valueStart, pos - valueStart);
+            }
+            pos++;
+        }
+        return this;
+    }
+
+    /**
+     * Clears the recorded fields and drops the reference to the scanned source.
+     */
+    public void reset() {
+        count = 0;
+        bytes = null;
+        chars = null;
+    }
+
+    /**
+     * @return Number of fields recorded by the last scan
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param index Field index, in message order
+     * @return Tag number of the field at the given index
+     */
+    public int tagAt(int index) {
+        checkIndex(index);
+        return tags[index];
+    }
+
+    /**
+     * Finds the field index of a tag. When a tag repeats (e.g. inside a repeating group)
+     * the last occurrence wins, matching the map returned by {@link #toMap()}.
+     *
+     * @param tag The FIX tag number
+     * @return Field index, or -1 if the tag is not present
+     */
+    public int indexOf(int tag) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param tag The FIX tag number
+     * @return true if the tag is present in the scanned message
+     */
+    public boolean contains(int tag) {
+        return indexOf(tag) >= 0;
+    }
+
+    /**
+     * Reads a tag value, materialising a String only for this field.
+     *
+     * @param tag The FIX tag number
+     * @return The tag value, or null if the tag is not present
+     */
+    public String getValue(int tag) {
+        int index = indexOf(tag);
+        return index >= 0 ? valueAt(index) : null;
+    }
+
+    /**
+     * @param index Field index, in message order
+     * @return Value of the field at the given index
+     */
+    public String valueAt(int index) {
+        checkIndex(index);
+        int offset = offsets[index];
+        int length = lengths[index];
+        if (bytes != null) {
+            return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        return chars.subSequence(offset, offset + length).toString();
+    }
+
+    /**
+     * Reads a numeric tag value without creating a String.
+     *
+     * @param tag The FIX tag number
+     * @param defaultValue Value returned when the tag is absent or not a non-negative integer
+     * @return The parsed value
+     */
+    public int getInt(int tag, int defaultValue) {
+        int index = indexOf(tag);
+        if (index < 0 || lengths[index] == 0 || lengths[index] > MAX_TAG_DIGITS) {
+            return defaultValue;
+        }
+        int offset = offsets[index];
+        int value = 0;
+        for (int i = offset; i < offset + lengths[index]; i++) {
+            int c = bytes != null ? bytes[i] : chars.charAt(i);
+            if (c < '0' || c > '9') {
+                return defaultValue;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Materialises every field into a map (tag number -> value).
+     * Only intended for consumers that genuinely need all tags.
+     *
+     * @return Map of tag numbers to values, last occurrence winning
+     */
+    public Map<Integer, String> toMap() {
+        Map<Integer, String> map = new HashMap<>(Math.max(16, count * 2));
+        for (int i = 0; i < count; i++) {
+            map.put(tags[i], valueAt(i));
+        }
+        return map;
+    }
+
+    /**
+     * Copies every field into a primitive tag map without boxing.
+     * The target is not cleared first; repeated tags resolve to the last occurrence.
+     *
+     * @param target Map receiving the fields
+     * @return The target map
+     */
+    public FixTagMap copyTo(FixTagMap target) {
+        for (int i = 0; i < count; i++) {
+            target.put(tags[i], valueAt(i));
+        }
+        return target;
+    }
+
+    private void add(int tag, int offset, int length) {
+        if (count == tags.length) {
+            int newCapacity = tags.length * 2;
+            tags = Arrays.copyOf(tags, newCapacity);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            lengths = Arrays.copyOf(lengths, newCapacity);
+        }
+        tags[count] = tag;
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Field index " + index + " out of range [0, " + count + ")");
+        }
+    }
+}
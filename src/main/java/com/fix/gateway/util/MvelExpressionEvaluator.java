@@ -7,8 +7,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
+import java.util.AbstractMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -26,6 +28,17 @@ public class MvelExpressionEvaluator {
      */
     private static final Map<String, Serializable> expressionCache = new ConcurrentHashMap<>();
     
+    /**
+     * Reverse of {@link #getTagName(int)} for the tags that have a readable name.
+     */
+    private static final Map<String, Integer> COMMON_TAG_NUMBERS = new HashMap<>();
+    
+    static {
+        for (int tag : new int[] {8, 9, 10, 11, 34, 35, 38, 40, 44, 49, 52, 54, 55, 56, 59}) {
+            COMMON_TAG_NUMBERS.put(getTagName(tag), tag);
+        }
+    }
+    
     /**
      * Evaluates an MVEL expression against a FIX message envelope.
      * The expression can access envelope fields and parsed FIX tags.
@@ -63,42 +76,22 @@ public class MvelExpressionEvaluator {
     
     /**
      * Creates evaluation context with envelope fields and parsed tags.
-     * Prefers envelope's parsedTags if available, otherwise uses provided parsedTags.
+     * Prefers envelope's tags if available, otherwise uses provided parsedTags.
+     * Variables are resolved on demand, so an expression that reads one tag costs one lookup
+     * rather than a copy of every tag under two names.
      */
     private static Map<String, Object> createEvaluationContext(FixMessageEnvelope envelope, Map<Integer, String> parsedTags) {
-        Map<String, Object> context = new HashMap<>();
-        
-        // Add envelope fields
-        context.put("envelope", envelope);
-        context.put("sessionId", envelope.getSessionId());
-        context.put("senderCompId", envelope.getSenderCompId());
-        context.put("targetCompId", envelope.getTargetCompId());
-        context.put("msgType", envelope.getMsgType());
-        context.put("clOrdID", envelope.getClOrdID());
-        context.put("symbol", envelope.getSymbol());
-        context.put("side", envelope.getSide());
-        context.put("orderQty", envelope.getOrderQty());
-        context.put("price", envelope.getPrice());
-        context.put("rawMessage", envelope.getRawMessage());
-        context.put("createdTimestamp", envelope.getCreatedTimestamp());
-        
-        // Use envelope's parsedTags if available, otherwise use provided parsedTags
-        Map<Integer, String> tagsToUse = envelope.getParsedTags() != null && !envelope.getParsedTags().isEmpty()
-            ? envelope.getParsedTags()
-            : parsedTags;
-        
-        // Add parsed FIX tags as variables
-        if (tagsToUse != null) {
-            // Add common FIX tags as direct variables for convenience
-            for (Map.Entry<Integer, String> entry : tagsToUse.entrySet()) {
-                String tagName = getTagName(entry.getKey());
-                context.put(tagName, entry.getValue());
-                context.put("Tag" + entry.getKey(), entry.getValue());
-            }
-            context.put("parsedTags", tagsToUse);
+        FixTagMap tags = envelope.getTagMap();
+        if (!tags.isEmpty()) {
+            return new EvaluationContext(envelope, tags, envelope.getParsedTags());
         }
         
-        return context;
+        // Envelope carries no tags; index the caller's map in the per-thread tag map
+        FixTagMap threadTags = FixTagMap.forCurrentThread();
+        if (parsedTags != null) {
+            threadTags.putAll(parsedTags);
+        }
+        return new EvaluationContext(envelope, threadTags, parsedTags);
     }
     
     /**
@@ -183,40 +176,148 @@ public class MvelExpressionEvaluator {
         }
     }
     
+    /**
+     * Resolves a context variable name (a common tag name or "TagN") to its tag number.
+     *
+     * @return The tag number, or -1 if the name does not denote a tag
+     */
+    private static int getTagNumber(String name) {
+        Integer common = COMMON_TAG_NUMBERS.get(name);
+        if (common != null) {
+            return common;
+        }
+        int length = name.length();
+        if (length < 4 || length > 12 || !name.startsWith("Tag")) {
+            return -1;
+        }
+        int tag = 0;
+        for (int i = 3; i < length; i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            tag = tag * 10 + (c - '0');
+        }
+        return tag;
+    }
+    
     /**
      * Parses FIX message raw string into a map of tag-value pairs.
      * This is a helper method to extract FIX tags from raw messages.
+     * Callers that only need a few tags should use {@link FixTagScanner} directly
+     * and avoid materialising every field.
      */
     public static Map<Integer, String> parseFixTags(String rawMessage) {
-        Map<Integer, String> tags = new HashMap<>();
-        
         if (rawMessage == null || rawMessage.isEmpty()) {
-            return tags;
+            return new HashMap<>();
         }
         
+        FixTagScanner scanner = FixTagScanner.forCurrentThread();
         try {
-            // Split by SOH character
-            String[] fields = rawMessage.split(String.valueOf(FixMessageUtils.SOH));
-            
-            for (String field : fields) {
-                if (field.isEmpty()) continue;
-                
-                int equalsIndex = field.indexOf('=');
-                if (equalsIndex > 0) {
-                    try {
-                        int tag = Integer.parseInt(field.substring(0, equalsIndex));
-                        String value = field.substring(equalsIndex + 1);
-                        tags.put(tag, value);
-                    } catch (NumberFormatException e) {
-                        // Skip invalid tag numbers
-                        log.debug("Invalid tag number in field: {}", field);
-                    }
-                }
+            return scanner.scan(rawMessage).toMap();
+        } finally {
+            scanner.reset();
+        }
+    }
+    
+    /**
+     * MVEL variable map over an envelope and its tags.
+     * Envelope fields and tags ("Symbol", "Tag55", ...) are looked up when the expression
+     * reads them; variables assigned by the expression are kept in a small local map.
+     */
+    private static final class EvaluationContext extends AbstractMap<String, Object> {
+        
+        private static final Set<String> ENVELOPE_FIELDS = Set.of(
+            "envelope", "sessionId", "senderCompId", "targetCompId", "msgType", "clOrdID",
+            "symbol", "side", "orderQty", "price", "rawMessage", "createdTimestamp");
+        
+        private final FixMessageEnvelope envelope;
+        private final FixTagMap tags;
+        private final Map<Integer, String> parsedTags;
+        private Map<String, Object> locals;
+        
+        EvaluationContext(FixMessageEnvelope envelope, FixTagMap tags, Map<Integer, String> parsedTags) {
+            this.envelope = envelope;
+            this.tags = tags;
+            this.parsedTags = parsedTags;
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            if (!(key instanceof String name)) {
+                return false;
             }
-        } catch (Exception e) {
-            log.warn("Failed to parse FIX tags from message: {}", e.getMessage());
+            if (locals != null && locals.containsKey(name)) {
+                return true;
+            }
+            if (ENVELOPE_FIELDS.contains(name)) {
+                return true;
+            }
+            if ("parsedTags".equals(name)) {
+                return parsedTags != null;
+            }
+            int tag = getTagNumber(name);
+            return tag >= 0 && tags.containsKey(tag);
         }
         
-        return tags;
+        @Override
+        public Object get(Object key) {
+            if (!(key instanceof String name)) {
+                return null;
+            }
+            if (locals != null && locals.containsKey(name)) {
+                return locals.get(name);
+            }
+            switch (name) {
+                case "envelope": return envelope;
+                case "sessionId": return envelope.getSessionId();
+                case "senderCompId": return envelope.getSenderCompId();
+                case "targetCompId": return envelope.getTargetCompId();
+                case "msgType": return envelope.getMsgType();
+                case "clOrdID": return envelope.getClOrdID();
+                case "symbol": return envelope.getSymbol();
+                case "side": return envelope.getSide();
+                case "orderQty": return envelope.getOrderQty();
+                case "price": return envelope.getPrice();
+                case "rawMessage": return envelope.getRawMessage();
+                case "createdTimestamp": return envelope.getCreatedTimestamp();
+                case "parsedTags": return parsedTags;
+                default:
+                    int tag = getTagNumber(name);
+                    return tag >= 0 ? tags.get(tag) : null;
+            }
+        }
+        
+        @Override
+        public Object put(String key, Object value) {
+            if (locals == null) {
+                locals = new HashMap<>();
+            }
+            Object previous = get(key);
+            locals.put(key, value);
+            return previous;
+        }
+        
+        /**
+         * Full materialisation, only used if MVEL enumerates the variables.
+         */
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            Map<String, Object> all = new HashMap<>();
+            for (String field : ENVELOPE_FIELDS) {
+                all.put(field, get(field));
+            }
+            if (parsedTags != null) {
+                all.put("parsedTags", parsedTags);
+            }
+            tags.forEach((tag, value) -> {
+                all.put(getTagName(tag), value);
+                all.put("Tag" + tag, value);
+            });
+            if (locals != null) {
+                all.putAll(locals);
+            }
+            return all.entrySet();
+        }
     }
-}
\ No newline at end of file
+}
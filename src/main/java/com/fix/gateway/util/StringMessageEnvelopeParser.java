@@ -2,77 +2,177 @@ package com.fix.gateway.util;
 
 import com.fix.gateway.model.FixMessageEnvelope;
 import java.time.Instant;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
+/**
+ * Parser for the {@code MessageEnvelope(...)} toString format:
+ * <pre>
+ * MessageEnvelope(messageId=.., sessionId=.., senderCompId=.., targetCompId=.., msgType=..,
+ *     clOrdID=.., msgSeqNum=.., createdTimestamp=.., rawMessage=.., messageFingerprint=..[, ...])
+ * </pre>
+ * The input is walked once from left to right without backtracking. Fields the envelope
+ * does not keep (messageId, msgSeqNum, messageFingerprint) are validated but never copied.
+ * The raw FIX message may contain commas: it extends up to the ", messageFingerprint=" separator.
+ */
 public class StringMessageEnvelopeParser {
     
-    private static final Pattern ENVELOPE_PATTERN = Pattern.compile(
-        "MessageEnvelope\\(messageId=([^,]+),\\s*sessionId=([^,]+),\\s*senderCompId=([^,]+),\\s*targetCompId=([^,]+),\\s*msgType=([^,]+),\\s*clOrdID=([^,]+),\\s*msgSeqNum=([^,]+),\\s*createdTimestamp=([^,]+),\\s*rawMessage=([^,]+),\\s*messageFingerprint=([^,]+)(?:,.+)?\\)"
-    );
+    private static final String PREFIX = "MessageEnvelope(";
+    private static final String RAW_MESSAGE_KEY = "rawMessage=";
+    private static final String FINGERPRINT_KEY = "messageFingerprint=";
     
-    private static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ISO_INSTANT;
+    /**
+     * Keys of the comma-separated fields before rawMessage, in order.
+     */
+    private static final String[] LEADING_KEYS = {
+        "messageId=", "sessionId=", "senderCompId=", "targetCompId=",
+        "msgType=", "clOrdID=", "msgSeqNum=", "createdTimestamp="
+    };
+    
+    private static final int MESSAGE_ID = 0;
+    private static final int SESSION_ID = 1;
+    private static final int SENDER_COMP_ID = 2;
+    private static final int TARGET_COMP_ID = 3;
+    private static final int MSG_TYPE = 4;
+    private static final int CL_ORD_ID = 5;
+    private static final int MSG_SEQ_NUM = 6;
+    private static final int CREATED_TIMESTAMP = 7;
     
     public static FixMessageEnvelope parse(String input) {
-        if (input == null || input.trim().isEmpty()) {
+        if (input == null || isBlank(input)) {
             throw new IllegalArgumentException("Input cannot be null or empty");
         }
         
-        // Try to match the pattern
-        Matcher matcher = ENVELOPE_PATTERN.matcher(input);
-        if (!matcher.matches()) {
-            throw new IllegalArgumentException("Input does not match expected MessageEnvelope string format");
+        int end = input.length() - 1;
+        if (!input.startsWith(PREFIX) || input.charAt(end) != ')') {
+            throw mismatch();
         }
         
-        try {
-            String messageId = matcher.group(1).trim();
-            String sessionId = matcher.group(2).trim();
-            String senderCompId = matcher.group(3).trim();
-            String targetCompId = matcher.group(4).trim();
-            String msgType = matcher.group(5).trim();
-            String clOrdID = matcher.group(6).trim();
-            String msgSeqNum = matcher.group(7).trim();
-            String createdTimestampStr = matcher.group(8).trim();
-            String rawMessage = matcher.group(9);
-            String messageFingerprint = matcher.group(10).trim();
-            
-            // Don't trim the raw message - preserve trailing SOH character
-            // Log raw message length and last character for debugging
-            if (rawMessage != null && !rawMessage.isEmpty()) {
-                int length = rawMessage.length();
-                char lastChar = rawMessage.charAt(length - 1);
-                System.out.println("[DEBUG] StringMessageEnvelopeParser - Raw message length: " + length +
-                                 ", last char code: " + (int)lastChar +
-                                 " (0x" + Integer.toHexString(lastChar) + ")");
+        String[] values = new String[LEADING_KEYS.length];
+        int pos = PREFIX.length();
+        
+        // messageId .. createdTimestamp: value runs to the next comma
+        for (int field = 0; field < LEADING_KEYS.length; field++) {
+            pos = expectKey(input, pos, LEADING_KEYS[field]);
+            int comma = input.indexOf(',', pos);
+            if (comma < 0 || comma >= end) {
+                throw mismatch();
             }
-            
-            // Parse timestamp
-            Instant timestamp;
-            try {
-                timestamp = Instant.parse(createdTimestampStr);
-            } catch (DateTimeParseException e) {
-                timestamp = Instant.now();
+            values[field] = trimmedValue(input, pos, comma, isKept(field));
+            pos = comma + 1;
+        }
+        
+        // rawMessage: value runs to ",<ws>messageFingerprint=" and is kept untrimmed
+        pos = expectKey(input, pos, RAW_MESSAGE_KEY);
+        int rawStart = pos;
+        int rawEnd = -1;
+        int fingerprintStart = -1;
+        int search = rawStart;
+        while (rawEnd < 0) {
+            int key = input.indexOf(FINGERPRINT_KEY, search);
+            if (key < 0 || key >= end) {
+                throw mismatch();
             }
-            
-            // Create FixMessageEnvelope using builder
-            return FixMessageEnvelope.builder()
-                    .sessionId(sessionId)
-                    .senderCompId(senderCompId)
-                    .targetCompId(targetCompId)
-                    .msgType(msgType)
-                    .clOrdID(clOrdID)
-                    .createdTimestamp(timestamp)
-                    .rawMessage(rawMessage)
-                    .build();
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Failed to parse MessageEnvelope string: " + e.getMessage(), e);
+            int separator = key - 1;
+            while (separator > rawStart && Character.isWhitespace(input.charAt(separator))) {
+                separator--;
+            }
+            if (separator > rawStart && input.charAt(separator) == ',') {
+                rawEnd = separator;
+                fingerprintStart = key + FINGERPRINT_KEY.length();
+            } else {
+                search = key + 1;
+            }
+        }
+        String rawMessage = input.substring(rawStart, rawEnd);
+        
+        // messageFingerprint: value runs to the next comma (further fields are ignored) or the closing ')'
+        int fingerprintEnd = input.indexOf(',', fingerprintStart);
+        if (fingerprintEnd < 0 || fingerprintEnd >= end) {
+            fingerprintEnd = end;
         }
+        if (fingerprintEnd == fingerprintStart) {
+            throw mismatch();
+        }
+        
+        // Parse timestamp
+        Instant timestamp;
+        try {
+            timestamp = Instant.parse(values[CREATED_TIMESTAMP]);
+        } catch (DateTimeParseException e) {
+            timestamp = Instant.now();
+        }
+        
+        // Create FixMessageEnvelope using builder
+        return FixMessageEnvelope.builder()
+                .sessionId(values[SESSION_ID])
+                .senderCompId(values[SENDER_COMP_ID])
+                .targetCompId(values[TARGET_COMP_ID])
+                .msgType(values[MSG_TYPE])
+                .clOrdID(values[CL_ORD_ID])
+                .createdTimestamp(timestamp)
+                .rawMessage(rawMessage)
+                .build();
     }
     
     public static boolean isStringFormat(String input) {
         if (input == null) return false;
-        return input.trim().startsWith("MessageEnvelope(");
+        int i = 0;
+        while (i < input.length() && Character.isWhitespace(input.charAt(i))) {
+            i++;
+        }
+        return input.startsWith(PREFIX, i);
+    }
+    
+    /**
+     * Skips whitespace, then requires {@code key} at the current position.
+     *
+     * @return Position just after the key
+     */
+    private static int expectKey(String input, int pos, String key) {
+        while (pos < input.length() && Character.isWhitespace(input.charAt(pos))) {
+            pos++;
+        }
+        if (!input.startsWith(key, pos)) {
+            throw new IllegalArgumentException("Input does not match expected MessageEnvelope string format: expected '"
+                + key + "' at position " + pos);
+        }
+        return pos + key.length();
+    }
+    
+    /**
+     * Returns the trimmed value between {@code from} and {@code to}, or null when it is not kept.
+     * Empty values are rejected.
+     */
+    private static String trimmedValue(String input, int from, int to, boolean keep) {
+        if (from == to) {
+            throw mismatch();
+        }
+        if (!keep) {
+            return null;
+        }
+        while (from < to && input.charAt(from) <= ' ') {
+            from++;
+        }
+        while (to > from && input.charAt(to - 1) <= ' ') {
+            to--;
+        }
+        return input.substring(from, to);
+    }
+    
+    private static boolean isKept(int field) {
+        return field != MESSAGE_ID && field != MSG_SEQ_NUM;
+    }
+    
+    private static boolean isBlank(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (input.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static IllegalArgumentException mismatch() {
+        return new IllegalArgumentException("Input does not match expected MessageEnvelope string format");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,162 @@
+package com.fix.gateway.benchmark;
+
+import com.fix.gateway.netty.FixFrameDecoder;
+import com.fix.gateway.netty.NettyTransport;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of a FIX order over loopback: the client writes the order and waits for the
+ * server to echo the frame back, on each {@link NettyTransport} with heap or pooled direct buffers.
+ * NIO with unpooled heap buffers is the setup the router used before; transports that are not
+ * available on the machine fail their trials.
+ * <p>
+ * Run with (epoll and io_uring need the native-transport profile):
+ * <pre>
+ * mvn -Pnative-transport test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.fix.gateway.benchmark.NettyTransportBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NettyTransportBenchmark {
+
+    private static final String ORDER_BODY = "35=D\u000134=1042\u000149=GTWY\u000152=20251222-23:00:00.123"
+        + "\u000156=EXEC\u000111=ORD-000123\u000121=1\u000138=100\u000140=2\u000144=150.25\u000154=1\u000155=AAPL"
+        + "\u000159=0\u000160=20251222-23:00:00.120\u0001";
+
+    private static final byte[] ORDER = withTrailer("8=FIX.4.4\u00019=" + ORDER_BODY.length() + "\u0001" + ORDER_BODY)
+        .getBytes(StandardCharsets.ISO_8859_1);
+
+    @Param({"NIO", "EPOLL", "IO_URING"})
+    public String transport;
+
+    @Param({"unpooledHeap", "pooledDirect"})
+    public String buffers;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel server;
+    private Channel client;
+    private ByteBufAllocator allocator;
+    private volatile CompletableFuture<ByteBuf> reply;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        NettyTransport selected = NettyTransport.valueOf(transport);
+        if (!selected.isAvailable()) {
+            throw new IllegalStateException(selected + " transport is not available: " + selected.unavailabilityCause());
+        }
+        allocator = "pooledDirect".equals(buffers)
+            ? PooledByteBufAllocator.DEFAULT
+            : new UnpooledByteBufAllocator(false);
+
+        serverGroup = selected.newEventLoopGroup(1, "bench-server");
+        clientGroup = selected.newEventLoopGroup(1, "bench-client");
+        server = new ServerBootstrap()
+            .group(serverGroup)
+            .channel(selected.serverSocketChannelClass())
+            .childOption(ChannelOption.ALLOCATOR, allocator)
+            .childOption(ChannelOption.TCP_NODELAY, true)
+            .childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel channel) {
+                    channel.pipeline().addLast(new FixFrameDecoder(4096), new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object frame) {
+                            ctx.writeAndFlush(frame);
+                        }
+                    });
+                }
+            })
+            .bind("127.0.0.1", 0).sync().channel();
+        client = new Bootstrap()
+            .group(clientGroup)
+            .channel(selected.socketChannelClass())
+            .option(ChannelOption.ALLOCATOR, allocator)
+            .option(ChannelOption.TCP_NODELAY, true)
+            .handler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel channel) {
+                    channel.pipeline().addLast(new FixFrameDecoder(4096), new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object frame) {
+                            reply.complete((ByteBuf) frame);
+                        }
+                    });
+                }
+            })
+            .connect(server.localAddress()).sync().channel();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.close().syncUninterruptibly();
+        server.close().syncUninterruptibly();
+        clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Benchmark
+    public int roundTrip() throws Exception {
+        reply = new CompletableFuture<>();
+        ByteBuf order = allocator.buffer(ORDER.length);
+        order.writeBytes(ORDER);
+        client.writeAndFlush(order);
+        ByteBuf echoed = reply.get(5, TimeUnit.SECONDS);
+        try {
+            return echoed.readableBytes();
+        } finally {
+            ReferenceCountUtil.release(echoed);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(NettyTransportBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+
+    private static String withTrailer(String message) {
+        int sum = 0;
+        for (int i = 0; i < message.length(); i++) {
+            sum += message.charAt(i);
+        }
+        return message + String.format("10=%03d\u0001", sum % 256);
+    }
+}
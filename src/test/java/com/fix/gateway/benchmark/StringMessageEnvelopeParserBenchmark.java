@@ -0,0 +1,96 @@
+package com.fix.gateway.benchmark;
+
+import com.fix.gateway.model.FixMessageEnvelope;
+import com.fix.gateway.util.StringMessageEnvelopeParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the single-pass {@link StringMessageEnvelopeParser} with the regex parser it replaced.
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.fix.gateway.benchmark.StringMessageEnvelopeParserBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringMessageEnvelopeParserBenchmark {
+
+    private static final String INPUT = "MessageEnvelope(messageId=7f3c2a9e-1b44-4c1e-9d7a-2f1e0c6b8a11, "
+        + "sessionId=FIX.4.4:GTWY->EXEC, senderCompId=GTWY, targetCompId=EXEC, msgType=D, clOrdID=ORD-000123, "
+        + "msgSeqNum=1042, createdTimestamp=2025-12-22T23:00:00.123Z, rawMessage="
+        + "8=FIX.4.4\u00019=178\u000135=D\u000134=1042\u000149=GTWY\u000152=20251222-23:00:00.123\u000156=EXEC"
+        + "\u000111=ORD-000123\u000121=1\u000138=100\u000140=2\u000144=150.25\u000154=1\u000155=AAPL"
+        + "\u000159=0\u000160=20251222-23:00:00.120\u000110=201\u0001, messageFingerprint=9f86d081884c7d65)";
+
+    @Benchmark
+    public FixMessageEnvelope linear() {
+        return StringMessageEnvelopeParser.parse(INPUT);
+    }
+
+    @Benchmark
+    public FixMessageEnvelope regex() {
+        return RegexEnvelopeParser.parse(INPUT);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(StringMessageEnvelopeParserBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+
+    /**
+     * The previous regex-based implementation, kept as the benchmark baseline
+     * (without its per-message System.out line).
+     */
+    static final class RegexEnvelopeParser {
+
+        private static final Pattern ENVELOPE_PATTERN = Pattern.compile(
+            "MessageEnvelope\\(messageId=([^,]+),\\s*sessionId=([^,]+),\\s*senderCompId=([^,]+),\\s*targetCompId=([^,]+),\\s*msgType=([^,]+),\\s*clOrdID=([^,]+),\\s*msgSeqNum=([^,]+),\\s*createdTimestamp=([^,]+),\\s*rawMessage=([^,]+),\\s*messageFingerprint=([^,]+)(?:,.+)?\\)"
+        );
+
+        static FixMessageEnvelope parse(String input) {
+            Matcher matcher = ENVELOPE_PATTERN.matcher(input);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Input does not match expected MessageEnvelope string format");
+            }
+            Instant timestamp;
+            try {
+                timestamp = Instant.parse(matcher.group(8).trim());
+            } catch (DateTimeParseException e) {
+                timestamp = Instant.now();
+            }
+            return FixMessageEnvelope.builder()
+                    .sessionId(matcher.group(2).trim())
+                    .senderCompId(matcher.group(3).trim())
+                    .targetCompId(matcher.group(4).trim())
+                    .msgType(matcher.group(5).trim())
+                    .clOrdID(matcher.group(6).trim())
+                    .createdTimestamp(timestamp)
+                    .rawMessage(matcher.group(9))
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.AsyncProcessorConverterHelper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void testOpensOnFailureRateAndClosesAfterSuccessfulProbe() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("dest", config(4, 4, 50, 50));
+
+        // 1 of 4 failed: below the threshold
+        for (boolean failure : new boolean[]{true, false, false, false}) {
+            assertTrue(breaker.tryAcquire());
+            if (failure) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        // The window slides: 2 of the last 4 failed
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertTrue(breaker.isOpen());
+
+        Thread.sleep(60);
+        // A single probe; a failed probe opens again
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(60);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testDisabledBreakerNeverOpens() {
+        DestinationConfig.CircuitBreakerConfig config = config(2, 2, 50, 1000);
+        config.setEnabled(false);
+        CircuitBreaker breaker = new CircuitBreaker("dest", config);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure();
+        }
+        assertFalse(breaker.isOpen());
+    }
+
+    @Test
+    void testOpenBreakerStopsRedeliveriesAndDeadLetters() throws Exception {
+        CircuitBreaker breaker = new CircuitBreaker("dest", config(2, 2, 50, 10_000));
+        AtomicInteger attempts = new AtomicInteger();
+        Queue<String> deadLetters = new ConcurrentLinkedQueue<>();
+        // Same error handling as the router's destination routes
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:dlq").process(exchange -> deadLetters.add(exchange.getIn().getBody(String.class)));
+                from("direct:dest")
+                    .onException(CircuitBreakerOpenException.class)
+                        .handled(true)
+                        .to("direct:dlq")
+                    .end()
+                    .onException(Exception.class)
+                        .handled(true)
+                        .maximumRedeliveries(5)
+                        .redeliveryDelay(1)
+                        .asyncDelayedRedelivery()
+                    .end()
+                    .process(new CircuitBreakerProcessor(breaker, AsyncProcessorConverterHelper.convert(exchange -> {
+                        attempts.incrementAndGet();
+                        throw new IOException("Connection refused");
+                    })));
+            }
+        });
+        context.start();
+
+        context.createProducerTemplate().sendBody("direct:dest", "M0");
+        // Two failed attempts open the breaker; the next redelivery is refused
+        assertEquals(2, attempts.get());
+        assertEquals(1, deadLetters.size());
+
+        context.createProducerTemplate().sendBody("direct:dest", "M1");
+        assertEquals(2, attempts.get());
+        assertEquals(2, deadLetters.size());
+    }
+
+    private static DestinationConfig.CircuitBreakerConfig config(int window, int minimumCalls, int threshold, long openMs) {
+        DestinationConfig.CircuitBreakerConfig config = new DestinationConfig.CircuitBreakerConfig();
+        config.setSlidingWindowSize(window);
+        config.setMinimumCalls(minimumCalls);
+        config.setFailureRateThreshold(threshold);
+        config.setOpenDurationMs(openMs);
+        return config;
+    }
+}
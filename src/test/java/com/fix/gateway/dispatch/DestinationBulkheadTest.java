@@ -0,0 +1,289 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import com.fix.gateway.model.OverflowPolicy;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.processor.SendProcessor;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DestinationBulkheadTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final Queue<String> deadLetters = new ConcurrentLinkedQueue<>();
+    private final List<DestinationBulkhead> bulkheads = new ArrayList<>();
+    private final RetryScheduler scheduler = new RetryScheduler(1, 64);
+
+    @TempDir
+    Path spillDirectory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:dlq").process(exchange -> deadLetters.add(exchange.getIn().getBody(String.class)));
+            }
+        });
+        context.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkheads.forEach(DestinationBulkhead::stop);
+        scheduler.close();
+        context.stop();
+    }
+
+    @Test
+    void testStalledDestinationDoesNotHoldUpOthers() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Queue<String> stalled = new ConcurrentLinkedQueue<>();
+        Queue<String> healthy = new ConcurrentLinkedQueue<>();
+        CountDownLatch healthyDone = new CountDownLatch(20);
+        DestinationConfig orders = new DestinationConfig();
+        orders.setMsgTypes(List.of("D"));
+        BulkheadDispatchProcessor processor = new BulkheadDispatchProcessor(List.of(new DestinationConfig(), orders), List.of(
+            bulkhead("stalled", exchange -> {
+                release.await();
+                stalled.add(exchange.getIn().getBody(String.class));
+            }, 100, OverflowPolicy.BLOCK),
+            bulkhead("healthy", exchange -> {
+                healthy.add(exchange.getIn().getBody(String.class));
+                healthyDone.countDown();
+            }, 100, OverflowPolicy.BLOCK)));
+
+        for (int i = 0; i < 40; i++) {
+            processor.process(message("M" + i, i % 2 == 0 ? "D" : "8"));
+        }
+
+        // The second destination only takes orders and gets all of them while the first is stuck
+        assertTrue(healthyDone.await(5, TimeUnit.SECONDS));
+        assertEquals(20, healthy.size());
+        assertTrue(stalled.isEmpty());
+
+        release.countDown();
+        awaitSize(stalled, 40);
+        assertEquals("M0", stalled.peek());
+    }
+
+    @Test
+    void testDeliveredCompletesOnceEveryDestinationHandledTheMessage() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DestinationConfig orders = new DestinationConfig();
+        orders.setMsgTypes(List.of("D"));
+        BulkheadDispatchProcessor processor = new BulkheadDispatchProcessor(List.of(new DestinationConfig(), orders), List.of(
+            bulkhead("slow", exchange -> release.await(), 10, OverflowPolicy.BLOCK),
+            bulkhead("rejecting", exchange -> {
+                throw new IllegalArgumentException("Invalid order");
+            }, 10, OverflowPolicy.BLOCK)));
+
+        Exchange order = message("M0", "D");
+        processor.process(order);
+        Exchange report = message("M1", "8");
+        processor.process(report);
+        CompletableFuture<?> orderDelivered = order.getProperty(BulkheadDispatchProcessor.DELIVERED, CompletableFuture.class);
+        CompletableFuture<?> reportDelivered = report.getProperty(BulkheadDispatchProcessor.DELIVERED, CompletableFuture.class);
+
+        // Dead-lettered by the second destination, still held by the first
+        awaitSize(deadLetters, 1);
+        assertFalse(orderDelivered.isDone());
+        assertFalse(reportDelivered.isDone());
+
+        release.countDown();
+        orderDelivered.get(5, TimeUnit.SECONDS);
+        reportDelivered.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testSpilledMessagesAreDeliveredInOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Queue<String> delivered = new ConcurrentLinkedQueue<>();
+        DestinationBulkhead bulkhead = bulkhead("spilling", exchange -> {
+            release.await();
+            delivered.add(exchange.getIn().getBody(String.class));
+        }, 2, OverflowPolicy.SPILL);
+
+        for (int i = 0; i < 50; i++) {
+            bulkhead.submit(message("M" + i, "D"));
+        }
+        assertTrue(bulkhead.getSpilled() > 0);
+
+        release.countDown();
+        awaitSize(delivered, 50);
+        int i = 0;
+        for (String body : delivered) {
+            assertEquals("M" + i++, body);
+        }
+        assertEquals(0, bulkhead.getSpilled());
+        assertTrue(deadLetters.isEmpty());
+    }
+
+    @Test
+    void testRetriesHoldLaterMessagesOfTheDestination() throws Exception {
+        Queue<String> delivered = new ConcurrentLinkedQueue<>();
+        AtomicInteger failures = new AtomicInteger();
+        DestinationConfig destination = new DestinationConfig();
+        destination.setMaxRetries(3);
+        destination.setRetryDelay(20);
+        destination.setRetryJitter(0);
+        DestinationBulkhead bulkhead = bulkhead("flaky", destination, exchange -> {
+            String body = exchange.getIn().getBody(String.class);
+            if ("M0".equals(body) && failures.incrementAndGet() <= 2) {
+                throw new IOException("Connection refused");
+            }
+            delivered.add(body);
+        }, 100, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 5; i++) {
+            bulkhead.submit(message("M" + i, "D"));
+        }
+
+        awaitSize(delivered, 5);
+        assertEquals(List.of("M0", "M1", "M2", "M3", "M4"), List.copyOf(delivered));
+        assertEquals(2, bulkhead.getRetries());
+        assertEquals(0, bulkhead.getDeadLettered());
+    }
+
+    @Test
+    void testOpenBreakerHoldsMessagesUntilProbeSucceeds() throws Exception {
+        Queue<String> delivered = new ConcurrentLinkedQueue<>();
+        AtomicInteger attempts = new AtomicInteger();
+        DestinationConfig destination = new DestinationConfig();
+        destination.setMaxRetries(0);
+        destination.getCircuitBreaker().setSlidingWindowSize(2);
+        destination.getCircuitBreaker().setMinimumCalls(2);
+        destination.getCircuitBreaker().setOpenDurationMs(200);
+        DestinationBulkhead bulkhead = bulkhead("down", destination, exchange -> {
+            // Down for the first two attempts
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IOException("Connection refused");
+            }
+            delivered.add(exchange.getIn().getBody(String.class));
+        }, 100, OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 5; i++) {
+            bulkhead.submit(message("M" + i, "D"));
+        }
+
+        // Without retries M0 and M1 are dead-lettered; the breaker then holds M2.. until the probe
+        awaitSize(delivered, 3);
+        assertEquals(List.of("M0", "M1"), List.copyOf(deadLetters));
+        assertEquals(List.of("M2", "M3", "M4"), List.copyOf(delivered));
+        assertEquals(5, attempts.get());
+    }
+
+    @Test
+    void testOverflowAndFailuresGoToDeadLetter() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DestinationBulkhead bulkhead = bulkhead("failing", exchange -> {
+            release.await();
+            throw new IllegalStateException("Rejected by counterparty");
+        }, 1, OverflowPolicy.DEAD_LETTER);
+
+        // M0 is taken by the worker, M1 waits in the queue, M2 and M3 overflow
+        bulkhead.submit(message("M0", "D"));
+        awaitCondition(() -> bulkhead.getQueued() == 0);
+        for (int i = 1; i < 4; i++) {
+            bulkhead.submit(message("M" + i, "D"));
+        }
+        assertEquals(List.of("M2", "M3"), List.copyOf(deadLetters));
+
+        release.countDown();
+        awaitSize(deadLetters, 4);
+        assertEquals(4, bulkhead.getDeadLettered());
+    }
+
+    @Test
+    void testBlockedSubmitDeadLettersAfterTimeout() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DestinationBulkhead bulkhead = bulkhead("stuck", exchange -> release.await(), 1, OverflowPolicy.BLOCK);
+
+        // M0 is being sent, M1 fills the queue, M2 waits for room until the timeout
+        bulkhead.submit(message("M0", "D"));
+        awaitCondition(() -> bulkhead.getQueued() == 0);
+        bulkhead.submit(message("M1", "D"));
+        bulkhead.submit(message("M2", "D"));
+        assertEquals(List.of("M2"), List.copyOf(deadLetters));
+        assertEquals(1, bulkhead.getQueued());
+
+        release.countDown();
+    }
+
+    @Test
+    void testSenderProducerIsStartedOnceWithTheBulkhead() throws Exception {
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:counterparty").process(exchange -> received.add(exchange.getIn().getBody(String.class)));
+            }
+        });
+        SendProcessor producer = new SendProcessor(context.getEndpoint("direct:counterparty"));
+        DestinationBulkhead bulkhead = bulkhead("counterparty", new ProcessorSender(producer), 10, OverflowPolicy.BLOCK);
+        assertTrue(producer.isStarted());
+
+        for (int i = 0; i < 3; i++) {
+            bulkhead.submit(message("M" + i, "D"));
+        }
+        awaitSize(received, 3);
+        assertEquals(List.of("M0", "M1", "M2"), List.copyOf(received));
+
+        bulkhead.stop();
+        assertTrue(producer.isStopped());
+    }
+
+    private DestinationBulkhead bulkhead(String name, DestinationSender sender, int capacity, OverflowPolicy policy) {
+        return bulkhead(name, new DestinationConfig(), sender, capacity, policy);
+    }
+
+    private DestinationBulkhead bulkhead(String name, DestinationConfig destination, DestinationSender sender,
+                                         int capacity, OverflowPolicy policy) {
+        // Only IOExceptions are retried, like network errors in the router
+        DestinationBulkhead bulkhead = new DestinationBulkhead(context, name, destination, sender,
+            e -> e instanceof IOException, new CircuitBreaker(name, destination.getCircuitBreaker()), "direct:dlq",
+            scheduler, capacity, policy, 50, spillDirectory.resolve(name + ".spill"));
+        bulkhead.start();
+        bulkheads.add(bulkhead);
+        return bulkhead;
+    }
+
+    private Exchange message(String body, String msgType) {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(body);
+        exchange.getIn().setHeader("msgType", msgType);
+        return exchange;
+    }
+
+    private static void awaitSize(Queue<?> queue, int size) throws InterruptedException {
+        awaitCondition(() -> queue.size() >= size);
+        assertEquals(size, queue.size());
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DestinationFanOutDispatcherTest {
+
+    private static final int MESSAGES = 300;
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private DestinationFanOutDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.stop();
+        }
+        context.stop();
+    }
+
+    @Test
+    void testEachDestinationReceivesItsMessagesInOrder() throws Exception {
+        Queue<String> orders = new ConcurrentLinkedQueue<>();
+        Queue<String> all = new ConcurrentLinkedQueue<>();
+        CountDownLatch done = new CountDownLatch(MESSAGES + MESSAGES / 2);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:R1_DEST_0").process(exchange -> {
+                    orders.add(exchange.getIn().getBody(String.class));
+                    done.countDown();
+                });
+                from("direct:R1_DEST_1").process(exchange -> {
+                    assertEquals("R1", exchange.getIn().getHeader("routeId"));
+                    all.add(exchange.getIn().getBody(String.class));
+                    done.countDown();
+                });
+            }
+        });
+        context.start();
+
+        DestinationConfig ordersOnly = destination("kafka:orders", false);
+        ordersOnly.setMsgTypes(List.of("D"));
+        DestinationConfig everything = destination("kafka:audit", true);
+        FanOutConfig config = new FanOutConfig();
+        config.setRingSize(32);
+        config.setMaxBatchSize(8);
+        dispatcher = new DestinationFanOutDispatcher(context, "R1", List.of(ordersOnly, everything),
+            List.of("direct:R1_DEST_0", "direct:R1_DEST_1"), config);
+        dispatcher.start();
+
+        for (int i = 0; i < MESSAGES; i++) {
+            DefaultExchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("M" + i);
+            exchange.getIn().setHeader("msgType", i % 2 == 0 ? "D" : "8");
+            exchange.getIn().setHeader("routeId", "R1");
+            dispatcher.process(exchange);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(MESSAGES / 2, orders.size());
+        int i = 0;
+        for (String body : orders) {
+            assertEquals("M" + i, body);
+            i += 2;
+        }
+        // Sent asynchronously, so only completeness is guaranteed
+        assertEquals(MESSAGES, all.size());
+        // Released once a batch's sends complete, which is just after the routes count them
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatcher.getBacklog() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, dispatcher.getBacklog());
+    }
+
+    @Test
+    void testStopDeliversPublishedMessages() throws Exception {
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:R2_DEST_0").delay(1).process(exchange -> received.add(exchange.getIn().getBody(String.class)));
+            }
+        });
+        context.start();
+
+        dispatcher = new DestinationFanOutDispatcher(context, "R2", List.of(destination("kafka:slow", false)),
+            List.of("direct:R2_DEST_0"), new FanOutConfig());
+        dispatcher.start();
+        for (int i = 0; i < 50; i++) {
+            DefaultExchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("M" + i);
+            dispatcher.process(exchange);
+        }
+        dispatcher.stop();
+
+        assertEquals(50, received.size());
+    }
+
+    @Test
+    void testUncheckedFailureDoesNotStopDestination() throws Exception {
+        Queue<String> received = new ConcurrentLinkedQueue<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:R3_DEST_0").process(exchange -> received.add(exchange.getIn().getBody(String.class)));
+            }
+        });
+        context.start();
+
+        DestinationConfig failing = new DestinationConfig() {
+            @Override
+            public boolean matchesMsgType(String msgType) {
+                if ("BROKEN".equals(msgType)) {
+                    throw new NoClassDefFoundError("Simulated failure");
+                }
+                return true;
+            }
+        };
+        failing.setUri("kafka:audit");
+        FanOutConfig config = new FanOutConfig();
+        config.setRingSize(4);
+        config.setClaimTimeoutMs(5000);
+        dispatcher = new DestinationFanOutDispatcher(context, "R3", List.of(failing), List.of("direct:R3_DEST_0"), config);
+        dispatcher.start();
+
+        // More messages than the ring holds: a dead lane would block the publisher here
+        for (int i = 0; i < 20; i++) {
+            DefaultExchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody("M" + i);
+            exchange.getIn().setHeader("msgType", i == 1 ? "BROKEN" : "D");
+            dispatcher.process(exchange);
+        }
+        dispatcher.stop();
+
+        assertEquals(19, received.size());
+        assertFalse(received.contains("M1"));
+    }
+
+    private static DestinationConfig destination(String uri, boolean parallel) {
+        DestinationConfig destination = new DestinationConfig();
+        destination.setUri(uri);
+        destination.setParallelProcessing(parallel);
+        return destination;
+    }
+}
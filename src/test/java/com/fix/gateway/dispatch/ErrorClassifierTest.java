@@ -0,0 +1,90 @@
+package com.fix.gateway.dispatch;
+
+import com.fix.gateway.model.DestinationConfig;
+import com.fix.gateway.model.ErrorClassification;
+import org.apache.camel.RuntimeCamelException;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.nio.charset.MalformedInputException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ErrorClassifierTest {
+
+    private final ErrorClassifier classifier = new ErrorClassifierConfig().errorClassifier();
+    private final DefaultCamelContext context = new DefaultCamelContext();
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void testClassifiesByClosestClassAlongCauseChain() {
+        // Wrappers are looked through
+        assertEquals(ErrorClassification.RETRY,
+            classifier.classify(new RuntimeCamelException(new ConnectException("Connection refused"))));
+        // CharacterCodingException is closer than its superclass IOException
+        assertEquals(ErrorClassification.DLQ, classifier.classify(new MalformedInputException(3)));
+        assertEquals(ErrorClassification.DLQ, classifier.classify(new NumberFormatException("35=?")));
+        assertEquals(ErrorClassification.FAIL_FAST, classifier.classify(new IllegalStateException("Connection reset")));
+        assertTrue(classifier.isRetryable(new CircuitBreakerOpenException(new CircuitBreaker("dest", new DestinationConfig.CircuitBreakerConfig()))));
+    }
+
+    @Test
+    void testDestinationOverridesAddToDefaults() {
+        DestinationConfig.ErrorClassificationConfig overrides = new DestinationConfig.ErrorClassificationConfig();
+        assertSame(classifier, classifier.withOverrides(overrides));
+
+        overrides.setRetry(List.of("java.lang.IllegalStateException"));
+        overrides.setDefaultClassification(ErrorClassification.DLQ);
+        ErrorClassifier destination = classifier.withOverrides(overrides);
+
+        assertEquals(ErrorClassification.RETRY, destination.classify(new IllegalStateException("Session not logged on")));
+        assertEquals(ErrorClassification.DLQ, destination.classify(new UnsupportedOperationException()));
+        assertEquals(ErrorClassification.RETRY, destination.classify(new ConnectException()));
+        assertEquals(ErrorClassification.FAIL_FAST, classifier.classify(new IllegalStateException()));
+    }
+
+    @Test
+    void testNonRetryableFailureSkipsRedelivery() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Queue<String> deadLetters = new ConcurrentLinkedQueue<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:dest")
+                    .onException(Exception.class)
+                        .onWhen(exchange -> !classifier.isRetryable(exchange.getException()))
+                        .handled(true)
+                        .process(exchange -> deadLetters.add("not retried"))
+                    .end()
+                    .onException(Exception.class)
+                        .handled(true)
+                        .maximumRedeliveries(2)
+                        .redeliveryDelay(0)
+                        .process(exchange -> deadLetters.add("retries exhausted"))
+                    .end()
+                    .process(exchange -> {
+                        attempts.incrementAndGet();
+                        throw exchange.getIn().getBody(Exception.class);
+                    });
+            }
+        });
+        context.start();
+
+        context.createProducerTemplate().sendBody("direct:dest", new IllegalArgumentException("Invalid tag"));
+        assertEquals(1, attempts.get());
+        context.createProducerTemplate().sendBody("direct:dest", new ConnectException("Connection refused"));
+        assertEquals(4, attempts.get());
+        assertEquals(List.of("not retried", "retries exhausted"), List.copyOf(deadLetters));
+    }
+}
@@ -0,0 +1,111 @@
+package com.fix.gateway.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FanOutRingBufferTest {
+
+    private static final long WAIT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    void testCapacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(1024, new FanOutRingBuffer<>(1000, AtomicLong::new, 1).getCapacity());
+        assertEquals(8, new FanOutRingBuffer<>(8, AtomicLong::new, 1).getCapacity());
+        assertEquals(2, new FanOutRingBuffer<>(0, AtomicLong::new, 1).getCapacity());
+    }
+
+    @Test
+    void testEveryConsumerSeesEveryEventInOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        long total = (long) producers * perProducer;
+        // Small ring so that publishers wrap and wait for the consumers many times
+        FanOutRingBuffer<AtomicLong> ring = new FanOutRingBuffer<>(16, AtomicLong::new, 2);
+        ExecutorService executor = Executors.newFixedThreadPool(producers + 2);
+        try {
+            List<Future<long[]>> consumers = new ArrayList<>();
+            for (int c = 0; c < 2; c++) {
+                int consumer = c;
+                consumers.add(executor.submit(() -> {
+                    // Per producer: count and last value seen, which must increase
+                    long[] seen = new long[producers * 2];
+                    long next = 0;
+                    while (next < total) {
+                        long available = ring.waitFor(next, WAIT_NANOS);
+                        assertTrue(available >= next, "Timed out waiting for " + next);
+                        for (long sequence = next; sequence <= available; sequence++) {
+                            long value = ring.get(sequence).get();
+                            int producer = (int) (value / perProducer);
+                            assertTrue(seen[producer * 2] == 0 || value > seen[producer * 2 + 1]);
+                            seen[producer * 2]++;
+                            seen[producer * 2 + 1] = value;
+                        }
+                        ring.release(consumer, available);
+                        next = available + 1;
+                    }
+                    return seen;
+                }));
+            }
+            for (int p = 0; p < producers; p++) {
+                int producer = p;
+                executor.submit(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        long sequence = ring.claim(WAIT_NANOS);
+                        ring.get(sequence).set((long) producer * perProducer + i);
+                        ring.publish(sequence);
+                    }
+                    return null;
+                });
+            }
+
+            for (Future<long[]> consumer : consumers) {
+                long[] seen = consumer.get(30, TimeUnit.SECONDS);
+                for (int p = 0; p < producers; p++) {
+                    assertEquals(perProducer, seen[p * 2]);
+                }
+            }
+            assertEquals(total - 1, ring.getClaimed());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testClaimTimesOutOnFullRingWithoutLeavingGap() throws Exception {
+        FanOutRingBuffer<AtomicLong> ring = new FanOutRingBuffer<>(2, AtomicLong::new, 1);
+        ring.publish(ring.claim(WAIT_NANOS));
+        ring.publish(ring.claim(WAIT_NANOS));
+
+        assertThrows(TimeoutException.class, () -> ring.claim(TimeUnit.MILLISECONDS.toNanos(50)));
+        assertEquals(1, ring.getClaimed());
+
+        ring.release(0, 0);
+        long sequence = ring.claim(WAIT_NANOS);
+        assertEquals(2, sequence);
+        ring.publish(sequence);
+        assertEquals(2, ring.waitFor(1, WAIT_NANOS));
+    }
+
+    @Test
+    void testWaitForTimesOutAndCloseRefusesClaims() throws Exception {
+        FanOutRingBuffer<AtomicLong> ring = new FanOutRingBuffer<>(4, AtomicLong::new, 1);
+        assertEquals(-1, ring.waitFor(0, TimeUnit.MILLISECONDS.toNanos(10)));
+
+        long sequence = ring.claim(WAIT_NANOS);
+        ring.publish(sequence);
+        assertEquals(0, ring.waitFor(0, WAIT_NANOS));
+
+        ring.close();
+        assertThrows(IllegalStateException.class, () -> ring.claim(WAIT_NANOS));
+    }
+}
@@ -0,0 +1,114 @@
+package com.fix.gateway.dispatch;
+
+import org.apache.camel.Message;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillQueueTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecordsSurviveReopenAndTornRecordIsDropped() throws Exception {
+        Path file = directory.resolve("dest.spill");
+        try (SpillQueue spill = new SpillQueue(file)) {
+            spill.append(message("8=FIX.4.4\u000135=D\u0001", "D"));
+            spill.append(message("8=FIX.4.4\u000135=F\u0001".getBytes(StandardCharsets.ISO_8859_1), "F"));
+        }
+        // A record cut short by a crash
+        Files.write(file, new byte[]{0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);
+
+        try (SpillQueue spill = new SpillQueue(file)) {
+            assertEquals(2, spill.size());
+
+            Message first = new DefaultMessage(context);
+            assertTrue(spill.poll(first));
+            assertEquals("8=FIX.4.4\u000135=D\u0001", first.getBody());
+            assertEquals("D", first.getHeader("msgType"));
+            assertEquals("7", first.getHeader("kafka.PARTITION"));
+            assertNull(first.getHeader("notSpilled"));
+
+            Message second = new DefaultMessage(context);
+            assertTrue(spill.poll(second));
+            assertArrayEquals("8=FIX.4.4\u000135=F\u0001".getBytes(StandardCharsets.ISO_8859_1), (byte[]) second.getBody());
+
+            assertFalse(spill.poll(new DefaultMessage(context)));
+            assertTrue(spill.isEmpty());
+            spill.acknowledge();
+        }
+        // Only the header is left
+        assertEquals(12, Files.size(file));
+    }
+
+    @Test
+    void testUnacknowledgedRecordsAreDeliveredAgainAfterReopen() throws Exception {
+        Path file = directory.resolve("dest.spill");
+        try (SpillQueue spill = new SpillQueue(file)) {
+            for (int i = 0; i < 3; i++) {
+                spill.append(message("M" + i, "D"));
+            }
+            assertTrue(spill.poll(new DefaultMessage(context)));
+            spill.acknowledge();
+            // Taken but not handled before the crash
+            assertTrue(spill.poll(new DefaultMessage(context)));
+        }
+
+        try (SpillQueue spill = new SpillQueue(file)) {
+            assertEquals(2, spill.size());
+            Message message = new DefaultMessage(context);
+            assertTrue(spill.poll(message));
+            assertEquals("M1", message.getBody());
+        }
+    }
+
+    @Test
+    void testCompactsOnceAcknowledgedRecordsDominate() throws Exception {
+        Path file = directory.resolve("dest.spill");
+        byte[] body = new byte[1024 * 1024];
+        int records = (int) (SpillQueue.COMPACT_BYTES / body.length) + 2;
+        try (SpillQueue spill = new SpillQueue(file)) {
+            for (int i = 0; i < records; i++) {
+                body[0] = (byte) i;
+                spill.append(message(body, "D"));
+            }
+            for (int i = 0; i < records - 1; i++) {
+                assertTrue(spill.poll(new DefaultMessage(context)));
+                spill.acknowledge();
+            }
+            // Compacted once 16 MB were acknowledged; two records were left then
+            assertTrue(Files.size(file) < 3L * body.length);
+            spill.append(message("after compaction", "D"));
+        }
+
+        try (SpillQueue spill = new SpillQueue(file)) {
+            assertEquals(2, spill.size());
+            Message last = new DefaultMessage(context);
+            assertTrue(spill.poll(last));
+            assertEquals((byte) (records - 1), ((byte[]) last.getBody())[0]);
+            Message appended = new DefaultMessage(context);
+            assertTrue(spill.poll(appended));
+            assertEquals("after compaction", appended.getBody());
+        }
+    }
+
+    private Message message(Object body, String msgType) {
+        Message message = new DefaultMessage(context);
+        message.setBody(body);
+        message.setHeader("msgType", msgType);
+        message.setHeader("kafka.PARTITION", 7);
+        message.setHeader("notSpilled", new Object());
+        return message;
+    }
+}
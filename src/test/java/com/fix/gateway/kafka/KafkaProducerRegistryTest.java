@@ -0,0 +1,101 @@
+package com.fix.gateway.kafka;
+
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaProducerRegistryTest {
+
+    private static final String STRING_SERIALIZER = "org.apache.kafka.common.serialization.StringSerializer";
+    private static final String BYTE_ARRAY_SERIALIZER = "org.apache.kafka.common.serialization.ByteArraySerializer";
+
+    private final List<Properties> created = new ArrayList<>();
+    private final List<MockProducer<Object, Object>> producers = new ArrayList<>();
+
+    private KafkaProducerRegistry registry(ProducerRegistryConfig config) {
+        return new KafkaProducerRegistry(config, props -> {
+            created.add(props);
+            MockProducer<Object, Object> producer = new MockProducer<>(true, (topic, data) -> null, (topic, data) -> null);
+            producers.add(producer);
+            return producer;
+        });
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSharesProducerPerClusterAndSerializersUntilLastHandleCloses() {
+        KafkaProducerRegistry registry = registry(new ProducerRegistryConfig());
+
+        Producer<Object, Object> output = registry.getProducer(props("localhost:9092", BYTE_ARRAY_SERIALIZER, "10000"));
+        Producer<Object, Object> deadLetter = registry.getProducer(props("localhost:9092", BYTE_ARRAY_SERIALIZER, "10000"));
+        Producer<Object, Object> destination = registry.getProducer(props("localhost:9092", STRING_SERIALIZER, "10000"));
+
+        assertEquals(2, registry.size());
+        output.send(new ProducerRecord<>("fix.GTWY.EXEC.output", new byte[]{1}));
+        deadLetter.send(new ProducerRecord<>("dead-letter", new byte[]{2}));
+        assertEquals(2, producers.get(0).history().size());
+
+        output.close();
+        output.close();
+        assertFalse(producers.get(0).closed());
+        deadLetter.close();
+        assertTrue(producers.get(0).closed());
+        assertEquals(1, registry.size());
+        destination.close();
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void testDifferentDeliverySettingsGetOwnProducer() {
+        KafkaProducerRegistry registry = registry(new ProducerRegistryConfig());
+
+        registry.getProducer(props("localhost:9092", BYTE_ARRAY_SERIALIZER, "10000"));
+        registry.getProducer(props("localhost:9092", BYTE_ARRAY_SERIALIZER, "30000"));
+        Properties fireAndForget = props("localhost:9092", BYTE_ARRAY_SERIALIZER, "10000");
+        fireAndForget.put(ProducerConfig.ACKS_CONFIG, "0");
+        fireAndForget.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "false");
+        registry.getProducer(fireAndForget);
+        registry.getProducer(props("localhost:9092", BYTE_ARRAY_SERIALIZER, "10000"));
+
+        assertEquals(3, registry.size());
+        assertEquals("0", created.get(2).get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("false", created.get(2).get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+    }
+
+    @Test
+    void testAppliesBatchingOfMatchingEntry() {
+        ProducerRegistryConfig config = new ProducerRegistryConfig();
+        ProducerRegistryConfig.Entry entry = new ProducerRegistryConfig.Entry();
+        entry.setValueSerializer("ByteArraySerializer");
+        entry.setLingerMs(20);
+        config.getEntries().add(entry);
+        KafkaProducerRegistry registry = registry(config);
+
+        registry.getProducer(props("localhost:9092", BYTE_ARRAY_SERIALIZER, "10000"));
+        registry.getProducer(props("localhost:9092", STRING_SERIALIZER, "10000"));
+
+        assertEquals("20", created.get(0).get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("lz4", created.get(0).get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("5", created.get(1).get(ProducerConfig.LINGER_MS_CONFIG));
+        // delivery.timeout.ms raised to linger.ms + request.timeout.ms
+        assertEquals("10020", created.get(0).get(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG));
+    }
+
+    private static Properties props(String brokers, String valueSerializer, String deliveryTimeoutMs) {
+        Properties props = new Properties();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, STRING_SERIALIZER);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializer);
+        props.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, "10000");
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs);
+        return props;
+    }
+}
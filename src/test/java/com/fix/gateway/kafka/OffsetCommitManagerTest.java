@@ -0,0 +1,133 @@
+package com.fix.gateway.kafka;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommitFactory;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffsetCommitManagerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("fix.input", 0);
+    private static final TopicPartition P1 = new TopicPartition("fix.input", 1);
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong();
+    private OffsetCommitManager manager;
+    private CoalescingManualCommitFactory factory;
+
+    @BeforeEach
+    void setUp() {
+        OffsetCommitConfig config = new OffsetCommitConfig();
+        config.setIntervalMs(1000);
+        config.setMaxUncommittedRecords(3);
+        manager = new OffsetCommitManager(config, meterRegistry, clock::get);
+        factory = new CoalescingManualCommitFactory(manager);
+        consumer.assign(List.of(P0, P1));
+    }
+
+    @Test
+    void testCoalescesUntilRecordThreshold() {
+        handle(P0, 10).commit();
+        handle(P1, 20).commit();
+        assertTrue(consumer.committed(Set.of(P0, P1)).isEmpty());
+        assertEquals(1, lag(P1));
+
+        handle(P0, 11).commit();
+
+        assertEquals(Map.of(P0, new OffsetAndMetadata(12), P1, new OffsetAndMetadata(21)), consumer.committed(Set.of(P0, P1)));
+        assertEquals(0, manager.getUncommitted(consumer, P0));
+        assertEquals(0, lag(P0));
+        assertEquals(1, meterRegistry.get(OffsetCommitManager.LATENCY_METRIC).tag("mode", "async").timer().count());
+    }
+
+    @Test
+    void testCommitsWhenIntervalElapses() {
+        KafkaManualCommit first = handle(P0, 10);
+        first.commit();
+        assertTrue(consumer.committed(Set.of(P0)).isEmpty());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        ((CoalescingManualCommit) handle(P0, 11)).commitIfDue();
+
+        assertEquals(new OffsetAndMetadata(11), consumer.committed(Set.of(P0)).get(P0));
+    }
+
+    @Test
+    void testIdleConsumerCommitsAfterIntervalFromPollLoop() {
+        CommitFlushingConsumerListener listener = new CommitFlushingConsumerListener(manager);
+        handle(P0, 10).commit();
+
+        // Empty polls before the interval has passed
+        assertTrue(listener.afterConsume(consumer));
+        assertTrue(consumer.committed(Set.of(P0)).isEmpty());
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(listener.afterConsume(consumer));
+
+        assertEquals(new OffsetAndMetadata(11), consumer.committed(Set.of(P0)).get(P0));
+    }
+
+    @Test
+    void testRouteCommitIntervalOverridesDefault() {
+        CoalescingManualCommitFactory routeFactory = new CoalescingManualCommitFactory(manager, 200);
+        assertEquals(200, routeFactory.getCommitIntervalMs());
+        assertEquals(1000, factory.getCommitIntervalMs());
+
+        routeFactory.newInstance(
+            new KafkaManualCommitFactory.CamelExchangePayload(new DefaultExchange(context), consumer, "poll-thread", null),
+            new KafkaManualCommitFactory.KafkaRecordPayload(P0, 10, 5000),
+            null).commit();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(200));
+        manager.commitIfDue(consumer);
+
+        assertEquals(new OffsetAndMetadata(11), consumer.committed(Set.of(P0)).get(P0));
+    }
+
+    @Test
+    void testOtherThreadsOnlyMarkAndRevokeFlushesSynchronously() throws Exception {
+        List<KafkaManualCommit> handles = List.of(handle(P0, 10), handle(P0, 11), handle(P0, 12), handle(P0, 13));
+        Thread worker = new Thread(() -> handles.forEach(KafkaManualCommit::commit));
+        worker.start();
+        worker.join();
+
+        assertTrue(consumer.committed(Set.of(P0)).isEmpty());
+        assertEquals(4, manager.getUncommitted(consumer, P0));
+
+        manager.flush(consumer, List.of(P0));
+
+        assertEquals(new OffsetAndMetadata(14), consumer.committed(Set.of(P0)).get(P0));
+        assertEquals(0, manager.getUncommitted(consumer, P0));
+        assertNull(meterRegistry.find(OffsetCommitManager.LAG_METRIC).tag("partition", "0").gauge());
+        assertEquals(1, meterRegistry.get(OffsetCommitManager.LATENCY_METRIC).tag("mode", "sync").timer().count());
+    }
+
+    private KafkaManualCommit handle(TopicPartition partition, long offset) {
+        return factory.newInstance(
+            new KafkaManualCommitFactory.CamelExchangePayload(new DefaultExchange(context), consumer, "poll-thread", null),
+            new KafkaManualCommitFactory.KafkaRecordPayload(partition, offset, 5000),
+            null);
+    }
+
+    private double lag(TopicPartition partition) {
+        return meterRegistry.get(OffsetCommitManager.LAG_METRIC)
+            .tag("partition", String.valueOf(partition.partition()))
+            .gauge().value();
+    }
+}
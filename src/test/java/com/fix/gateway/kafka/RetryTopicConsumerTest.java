@@ -0,0 +1,220 @@
+package com.fix.gateway.kafka;
+
+import com.fix.gateway.model.PayloadFormat;
+import org.apache.camel.Exchange;
+import org.apache.camel.Message;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryTopicConsumerTest {
+
+    private static final String DESTINATION = "route-1_DEST_0";
+    private static final TopicPartition P0 = new TopicPartition("retry-5s-route-1-host-9999", 0);
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final Queue<Message> delivered = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void tearDown() {
+        context.stop();
+    }
+
+    @Test
+    void testPausesPartitionUntilRecordIsDue() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:" + DESTINATION).process(exchange -> delivered.add(exchange.getIn().copy()));
+            }
+        });
+        context.start();
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(P0));
+            consumer.updateBeginningOffsets(Map.of(P0, 0L));
+        });
+        RetryTopicConsumer retryConsumer = new RetryTopicConsumer(context, "5s", Pattern.compile("retry-5s-.+"),
+            () -> consumer, destination -> DESTINATION.equals(destination) ? PayloadFormat.STRING : null, 10, clock::get);
+        retryConsumer.start();
+
+        ConsumerRecord<String, byte[]> due = record(0, clock.get() - 1);
+        ConsumerRecord<String, byte[]> later = record(1, clock.get() + 5000);
+        consumer.schedulePollTask(() -> {
+            consumer.addRecord(due);
+            consumer.addRecord(later);
+        });
+
+        await(() -> consumer.paused().contains(P0));
+        assertEquals(1, delivered.size());
+        Message first = delivered.poll();
+        assertEquals("8=FIX.4.4|35=D|11=0|", first.getBody());
+        assertEquals("D", first.getHeader("msgType"));
+        assertEquals("0", first.getHeader(RetryTierProcessor.TIER));
+        await(() -> new OffsetAndMetadata(1).equals(consumer.committed(Set.of(P0)).get(P0)));
+
+        // MockConsumer does not fetch again after a seek, as a broker would
+        consumer.schedulePollTask(() -> consumer.addRecord(later));
+        clock.addAndGet(5000);
+
+        await(() -> delivered.size() == 1);
+        assertEquals("8=FIX.4.4|35=D|11=1|", delivered.poll().getBody());
+        await(() -> new OffsetAndMetadata(2).equals(consumer.committed(Set.of(P0)).get(P0)));
+        assertTrue(consumer.paused().isEmpty());
+
+        retryConsumer.stop();
+        assertTrue(consumer.closed());
+    }
+
+    @Test
+    void testFailedResendIsNotCommittedAndTriedAgain() throws Exception {
+        AtomicLong failures = new AtomicLong(1);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:" + DESTINATION).process(exchange -> {
+                    if (failures.getAndDecrement() > 0) {
+                        throw new IllegalStateException("Retry topic not writable");
+                    }
+                    delivered.add(exchange.getIn().copy());
+                });
+            }
+        });
+        context.start();
+        consumer.schedulePollTask(() -> {
+            consumer.rebalance(List.of(P0));
+            consumer.updateBeginningOffsets(Map.of(P0, 0L));
+        });
+        RetryTopicConsumer retryConsumer = new RetryTopicConsumer(context, "5s", Pattern.compile("retry-5s-.+"),
+            () -> consumer, destination -> DESTINATION.equals(destination) ? PayloadFormat.STRING : null, 10, clock::get);
+        retryConsumer.start();
+
+        ConsumerRecord<String, byte[]> record = record(0, clock.get() - 1);
+        consumer.schedulePollTask(() -> consumer.addRecord(record));
+
+        await(() -> consumer.paused().contains(P0));
+        assertTrue(delivered.isEmpty());
+        assertNull(consumer.committed(Set.of(P0)).get(P0));
+
+        consumer.schedulePollTask(() -> consumer.addRecord(record));
+        clock.addAndGet(RetryTopicConsumer.RETRY_BACKOFF_MS);
+
+        await(() -> delivered.size() == 1);
+        await(() -> new OffsetAndMetadata(1).equals(consumer.committed(Set.of(P0)).get(P0)));
+        retryConsumer.stop();
+    }
+
+    @Test
+    void testFailedConsumerIsReplaced() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:" + DESTINATION).process(exchange -> delivered.add(exchange.getIn().copy()));
+            }
+        });
+        context.start();
+        consumer.setPollException(new KafkaException("Broker connection lost"));
+        MockConsumer<String, byte[]> replacement = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        replacement.schedulePollTask(() -> {
+            replacement.rebalance(List.of(P0));
+            replacement.updateBeginningOffsets(Map.of(P0, 0L));
+            replacement.addRecord(record(0, clock.get() - 1));
+        });
+        Queue<MockConsumer<String, byte[]>> consumers = new ConcurrentLinkedQueue<>(List.of(consumer, replacement));
+        RetryTopicConsumer retryConsumer = new RetryTopicConsumer(context, "5s", Pattern.compile("retry-5s-.+"),
+            consumers::poll, destination -> DESTINATION.equals(destination) ? PayloadFormat.STRING : null, 10, clock::get);
+        retryConsumer.start();
+
+        await(() -> delivered.size() == 1);
+        assertTrue(consumer.closed());
+        await(() -> new OffsetAndMetadata(1).equals(replacement.committed(Set.of(P0)).get(P0)));
+
+        retryConsumer.stop();
+        assertTrue(replacement.closed());
+    }
+
+    @Test
+    void testFailuresMoveThroughTiersToDeadLetterTopic() throws Exception {
+        RetryTierProcessor retryTier = new RetryTierProcessor(DESTINATION,
+            List.of("retry-5s-route", "retry-1m-route"), List.of(Duration.ofSeconds(5), Duration.ofMinutes(1)),
+            "dead-letter-route", clock::get);
+        Queue<Message> published = new ConcurrentLinkedQueue<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:" + DESTINATION)
+                    .onException(Exception.class)
+                        .handled(true)
+                        .useOriginalMessage()
+                        .process(retryTier)
+                        .process(exchange -> published.add(exchange.getIn().copy()))
+                    .end()
+                    .throwException(new IllegalStateException("Connection refused"));
+            }
+        });
+        context.start();
+
+        Exchange exchange = context.createProducerTemplate().send("direct:" + DESTINATION, e -> e.getIn().setBody("8=FIX.4.4|35=D|"));
+        Message first = published.poll();
+        assertNull(exchange.getException());
+        assertEquals("retry-5s-route", first.getHeader(KafkaConstants.OVERRIDE_TOPIC));
+        assertEquals("0", first.getHeader(RetryTierProcessor.TIER));
+        assertEquals(String.valueOf(clock.get() + 5000), first.getHeader(RetryTierProcessor.NOT_BEFORE));
+        assertEquals(DESTINATION, first.getHeader(RetryTierProcessor.DESTINATION));
+        assertEquals("Connection refused", first.getHeader(RetryTierProcessor.CAUSE));
+
+        // Re-sent from the first tier, as read back from the record headers
+        context.createProducerTemplate().send("direct:" + DESTINATION, e -> e.getIn().setHeaders(Map.of(RetryTierProcessor.TIER, "0")));
+        Message second = published.poll();
+        assertEquals("retry-1m-route", second.getHeader(KafkaConstants.OVERRIDE_TOPIC));
+        assertEquals(String.valueOf(clock.get() + 60_000), second.getHeader(RetryTierProcessor.NOT_BEFORE));
+
+        context.createProducerTemplate().send("direct:" + DESTINATION, e -> e.getIn().setHeaders(Map.of(RetryTierProcessor.TIER, "1")));
+        assertEquals("dead-letter-route", published.poll().getHeader(KafkaConstants.OVERRIDE_TOPIC));
+    }
+
+    private static ConsumerRecord<String, byte[]> record(long offset, long notBefore) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(RetryTierProcessor.TIER, "0".getBytes(StandardCharsets.UTF_8));
+        headers.add(RetryTierProcessor.NOT_BEFORE, String.valueOf(notBefore).getBytes(StandardCharsets.UTF_8));
+        headers.add(RetryTierProcessor.DESTINATION, DESTINATION.getBytes(StandardCharsets.UTF_8));
+        headers.add("msgType", "D".getBytes(StandardCharsets.UTF_8));
+        byte[] value = ("8=FIX.4.4|35=D|11=" + offset + "|").getBytes(StandardCharsets.UTF_8);
+        return new ConsumerRecord<>(P0.topic(), P0.partition(), offset, 0L, TimestampType.CREATE_TIME,
+            0, value.length, null, value, headers, Optional.empty());
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.fix.gateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DestinationConfigTest {
+
+    @Test
+    void testRetryDelayGrowsUpToCap() {
+        DestinationConfig destination = new DestinationConfig();
+        destination.setRetryDelay(100);
+        destination.setBackoffMultiplier(2.0);
+        destination.setMaxRetryDelay(500);
+        destination.setRetryJitter(0);
+
+        assertEquals(100, destination.retryDelayFor(1));
+        assertEquals(200, destination.retryDelayFor(2));
+        assertEquals(400, destination.retryDelayFor(3));
+        assertEquals(500, destination.retryDelayFor(4));
+        assertEquals(500, destination.retryDelayFor(30));
+    }
+
+    @Test
+    void testRetryJitterStaysWithinSpread() {
+        DestinationConfig destination = new DestinationConfig();
+        destination.setRetryDelay(1000);
+        destination.setBackoffMultiplier(1.0);
+        destination.setRetryJitter(0.2);
+
+        boolean varied = false;
+        for (int i = 0; i < 200; i++) {
+            long delay = destination.retryDelayFor(3);
+            assertTrue(delay >= 800 && delay <= 1200, "Delay " + delay);
+            varied |= delay != 1000;
+        }
+        assertTrue(varied);
+    }
+}
@@ -0,0 +1,29 @@
+package com.fix.gateway.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EnhancedRouteMappingTest {
+
+    @Test
+    void testForSessionResolvesPlaceholders() {
+        DestinationConfig destination = new DestinationConfig();
+        destination.setUri("kafka:fix.{senderCompId}.{targetCompId}.routed");
+        destination.setDeadLetterTopic("dead-letter-{targetCompId}");
+        destination.getEndpointParameters().put("clientId", "router-{senderCompId}");
+        EnhancedRouteMapping template = new EnhancedRouteMapping();
+        template.getDestinationConfigs().add(destination);
+
+        EnhancedRouteMapping route = template.forSession("GTWY", "NEWB");
+
+        assertEquals("FIX4.4:NEWB->GTWY", route.getRouteId());
+        assertEquals("fix.GTWY.NEWB.input", route.getInputTopic());
+        assertEquals(RouteType.INPUT, route.getType());
+        DestinationConfig resolved = route.getDestinationConfigs().get(0);
+        assertEquals("kafka:fix.GTWY.NEWB.routed?clientId=router-GTWY", resolved.buildCompleteUri());
+        assertEquals("dead-letter-NEWB", resolved.getDeadLetterTopic());
+        // The template itself is unchanged
+        assertEquals("kafka:fix.{senderCompId}.{targetCompId}.routed", destination.getUri());
+    }
+}
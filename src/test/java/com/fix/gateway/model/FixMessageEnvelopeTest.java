@@ -0,0 +1,74 @@
+package com.fix.gateway.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fix.gateway.config.JacksonConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixMessageEnvelopeTest {
+
+    private static final String RAW_MESSAGE =
+        "8=FIX.4.4\u00019=100\u000135=D\u000149=GTWY\u000156=EXEC\u000155=AAPL\u000154=1\u000138=100\u000144=150.25\u000110=000\u0001";
+
+    @Test
+    void testCommonFieldsAreReadLazilyFromRawMessage() {
+        FixMessageEnvelope envelope = FixMessageEnvelope.builder()
+                .rawMessage(RAW_MESSAGE)
+                .build();
+
+        assertEquals("AAPL", envelope.getSymbol());
+        assertEquals("1", envelope.getSide());
+        assertEquals("100", envelope.getOrderQty());
+        assertEquals("150.25", envelope.getPrice());
+        assertEquals("D", envelope.getTag(35));
+        assertNull(envelope.getTag(11));
+    }
+
+    @Test
+    void testExplicitValuesTakePrecedence() {
+        FixMessageEnvelope envelope = FixMessageEnvelope.builder()
+                .rawMessage(RAW_MESSAGE)
+                .symbol("MSFT")
+                .parsedTags(Map.of(55, "IBM"))
+                .build();
+
+        assertEquals("MSFT", envelope.getSymbol());
+        assertEquals("IBM", envelope.getTag(55));
+        assertEquals(Map.of(55, "IBM"), envelope.getParsedTags());
+    }
+
+    @Test
+    void testIndexFollowsRawMessageChanges() {
+        FixMessageEnvelope envelope = FixMessageEnvelope.builder()
+                .rawMessage(RAW_MESSAGE)
+                .build();
+        assertEquals("AAPL", envelope.getParsedTags().get(55));
+
+        envelope.setRawMessage("35=8\u000155=TSLA\u0001");
+
+        assertEquals("TSLA", envelope.getSymbol());
+        assertEquals(2, envelope.getParsedTags().size());
+    }
+
+    @Test
+    void testTagIndexIsNotSerialized() throws Exception {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        FixMessageEnvelope envelope = FixMessageEnvelope.builder()
+                .sessionId("TEST_SESSION")
+                .rawMessage(RAW_MESSAGE)
+                .createdTimestamp(Instant.parse("2025-12-22T23:00:00Z"))
+                .build();
+        envelope.getSymbol();
+
+        String json = objectMapper.writeValueAsString(envelope);
+
+        assertFalse(json.contains("symbol"), json);
+        assertFalse(json.contains("parsedTags"), json);
+        assertFalse(json.contains("tagIndex"), json);
+        assertEquals(envelope, objectMapper.readValue(json, FixMessageEnvelope.class));
+    }
+}
@@ -0,0 +1,158 @@
+package com.fix.gateway.netty;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixConnectionPoolsTest {
+
+    private final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+    private final Set<Channel> accepted = ConcurrentHashMap.newKeySet();
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private final FixNettyConfig.Pool settings = new FixNettyConfig.Pool();
+    private Channel server;
+    private FixConnectionPools pools;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Textline server acknowledging every line
+        server = new ServerBootstrap()
+            .group(serverGroup)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel channel) {
+                    accepted.add(channel);
+                    channel.pipeline().addLast(new LineBasedFrameDecoder(1024),
+                        new StringDecoder(StandardCharsets.UTF_8), new StringEncoder(StandardCharsets.UTF_8),
+                        new SimpleChannelInboundHandler<String>() {
+                            @Override
+                            protected void channelRead0(ChannelHandlerContext ctx, String line) {
+                                received.add(line);
+                                ctx.writeAndFlush("ACK " + line + "\n");
+                            }
+                        });
+                }
+            })
+            .bind("127.0.0.1", 0).sync().channel();
+        settings.setRequestTimeoutMs(2000);
+        pools = new FixConnectionPools(settings, 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.close();
+        server.close().syncUninterruptibly();
+        serverGroup.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test
+    void testReusesConnectionAcrossSends() throws Exception {
+        String uri = "netty:tcp://127.0.0.1:" + port() + "?textline=true&sync=true";
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ACK msg" + i, pools.send(uri, "msg" + i));
+        }
+
+        assertEquals(1, accepted.size());
+        assertEquals(1, pools.getPool(uri).getOpenCount());
+        assertEquals(1, pools.getPool(uri).getIdleCount());
+    }
+
+    @Test
+    void testCustomCodecsAreLeftToCamelProducer() {
+        assertTrue(pools.isPooled("netty:tcp://127.0.0.1:9999?textline=true&disconnect=true&reuseChannel=false"));
+        assertFalse(pools.isPooled("netty:tcp://127.0.0.1:9999?sync=true&decoders=#fixFrameDecoder&encoders=#fixStringEncoder"));
+        assertFalse(pools.isPooled("netty:tcp://127.0.0.1:9999?encoder=#fixStringEncoder"));
+
+        settings.setEnabled(false);
+        assertFalse(pools.isPooled("netty:tcp://127.0.0.1:9999?textline=true"));
+    }
+
+    @Test
+    void testBacksOffAfterFailedConnect() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        settings.setReconnectBackoffInitialMs(60000);
+        String uri = "netty:tcp://127.0.0.1:" + closedPort + "?textline=true";
+
+        assertThrows(ConnectException.class, () -> pools.send(uri, "msg"));
+        ConnectException backoff = assertThrows(ConnectException.class, () -> pools.send(uri, "msg"));
+        assertTrue(backoff.getMessage().contains("backing off"), backoff.getMessage());
+    }
+
+    @Test
+    void testLeaseReturnsConnectionOnce() throws Exception {
+        settings.setMaxConnections(1);
+        settings.setAcquireTimeoutMs(100);
+        String uri = "netty:tcp://127.0.0.1:" + port() + "?textline=true";
+        pools.send(uri, "open");
+        FixConnectionPool pool = pools.getPool(uri);
+
+        FixConnectionPool.Lease lease = pool.acquire(1000);
+        lease.release();
+        lease.invalidate();
+        lease.release();
+
+        // A double return would have granted a second permit
+        FixConnectionPool.Lease first = pool.acquire(1000);
+        assertThrows(TimeoutException.class, () -> pool.acquire(1000));
+        first.release();
+    }
+
+    @Test
+    void testCoalescedFireAndForgetKeepsOrderOnOneConnection() throws Exception {
+        String uri = "netty:tcp://127.0.0.1:" + port() + "?textline=true&sync=false&coalesceWindowMicros=2000";
+
+        List<CompletableFuture<Object>> sends = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            sends.add(pools.sendAsync(uri, "msg" + i));
+        }
+        CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (received.size() < 100 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add("msg" + i);
+        }
+        assertEquals(expected, new ArrayList<>(received));
+        assertEquals(1, accepted.size());
+    }
+
+    private int port() {
+        return ((InetSocketAddress) server.localAddress()).getPort();
+    }
+}
@@ -0,0 +1,129 @@
+package com.fix.gateway.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixFrameDecoderTest {
+
+    private static final String ORDER = fix("35=D\u000149=GTWY\u000156=EXEC\u000155=AAPL\u000158=8=not-a-header\u0001");
+    private static final String EXEC_REPORT = fix("35=8\u000149=EXEC\u000156=GTWY\u000155=MSFT\u0001");
+
+    @Test
+    void testSingleMessage() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder());
+
+        channel.writeInbound(buffer(ORDER));
+
+        assertEquals(ORDER, readFrame(channel));
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testCoalescedAndSplitMessages() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder());
+        String stream = ORDER + EXEC_REPORT + ORDER;
+        int split = ORDER.length() + EXEC_REPORT.length() + 12;
+
+        channel.writeInbound(buffer(stream.substring(0, split)));
+        assertEquals(ORDER, readFrame(channel));
+        assertEquals(EXEC_REPORT, readFrame(channel));
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(buffer(stream.substring(split)));
+        assertEquals(ORDER, readFrame(channel));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testFrameIsSliceOfInboundBuffer() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder());
+        ByteBuf inbound = buffer(ORDER + EXEC_REPORT);
+
+        channel.writeInbound(inbound);
+        ByteBuf first = channel.readInbound();
+        ByteBuf second = channel.readInbound();
+
+        assertSame(inbound, first.unwrap());
+        assertEquals(EXEC_REPORT, second.toString(StandardCharsets.ISO_8859_1));
+        first.release();
+        second.release();
+    }
+
+    @Test
+    void testGarbageAndCorruptFramesAreSkipped() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder());
+        String corrupt = "8=FIX.4.4\u00019=5\u000135=D\u000155=XX\u000110=000\u0001";
+
+        channel.writeInbound(buffer("\n\r\n" + corrupt + ORDER + "\n"));
+
+        assertEquals(ORDER, readFrame(channel));
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testFrameWithWrongCheckSumIsSkipped() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder());
+        String corrupt = ORDER.replace("AAPL", "AAPM");
+
+        channel.writeInbound(buffer(corrupt + EXEC_REPORT));
+
+        assertEquals(EXEC_REPORT, readFrame(channel));
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testBeginStringInsideFieldValueIsNotAFrame() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder());
+        // A valid frame hidden in a field value of a frame whose header is broken
+        String broken = "8=FIX.4.4\u00019=x\u000135=D\u000158=" + EXEC_REPORT.replace('\u0001', '|') + "\u0001";
+        String hidden = "8=FIX.4.4\u0001x\u000158=a" + EXEC_REPORT;
+
+        channel.writeInbound(buffer(broken + hidden + ORDER));
+
+        assertEquals(ORDER, readFrame(channel));
+        assertNull(channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    void testFrameLongerThanMaximumIsDropped() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FixFrameDecoder(64));
+
+        channel.writeInbound(buffer(fix("35=D\u000158=" + "x".repeat(100) + "\u0001") + EXEC_REPORT));
+
+        assertEquals(EXEC_REPORT, readFrame(channel));
+        assertNull(channel.readInbound());
+    }
+
+    private static String readFrame(EmbeddedChannel channel) {
+        ByteBuf frame = channel.readInbound();
+        assertNotNull(frame, "expected a frame");
+        try {
+            return frame.toString(StandardCharsets.ISO_8859_1);
+        } finally {
+            frame.release();
+        }
+    }
+
+    private static ByteBuf buffer(String data) {
+        return Unpooled.copiedBuffer(data, StandardCharsets.ISO_8859_1);
+    }
+
+    static String fix(String body) {
+        String message = "8=FIX.4.4\u00019=" + body.length() + "\u0001" + body;
+        int sum = 0;
+        for (int i = 0; i < message.length(); i++) {
+            sum += message.charAt(i);
+        }
+        return message + String.format("10=%03d\u0001", sum % 256);
+    }
+}
@@ -0,0 +1,73 @@
+package com.fix.gateway.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlushCoalescingHandlerTest {
+
+    @Test
+    void testFlushesOnceWhenWindowEnds() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FlushCoalescingHandler(TimeUnit.MICROSECONDS.toNanos(500), 1024));
+        channel.freezeTime();
+
+        channel.writeAndFlush(message("A"));
+        channel.writeAndFlush(message("B"));
+        channel.writeAndFlush(message("C"));
+        assertNull(channel.readOutbound());
+
+        channel.advanceTimeBy(500, TimeUnit.MICROSECONDS);
+        channel.runScheduledPendingTasks();
+
+        assertEquals("A", read(channel));
+        assertEquals("B", read(channel));
+        assertEquals("C", read(channel));
+        assertNull(channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testFlushesEarlyWhenBytesReachLimit() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FlushCoalescingHandler(TimeUnit.SECONDS.toNanos(10), 8));
+        channel.freezeTime();
+
+        channel.writeAndFlush(message("1234"));
+        assertNull(channel.readOutbound());
+        channel.writeAndFlush(message("5678"));
+
+        assertEquals("1234", read(channel));
+        assertEquals("5678", read(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void testFlushesPendingWritesOnClose() {
+        EmbeddedChannel channel = new EmbeddedChannel(new FlushCoalescingHandler(TimeUnit.SECONDS.toNanos(10), 1024));
+
+        channel.writeAndFlush(message("last"));
+        channel.close();
+
+        assertEquals("last", read(channel));
+        channel.finishAndReleaseAll();
+    }
+
+    private static ByteBuf message(String text) {
+        return Unpooled.copiedBuffer(text, StandardCharsets.ISO_8859_1);
+    }
+
+    private static String read(EmbeddedChannel channel) {
+        ByteBuf buffer = channel.readOutbound();
+        assertNotNull(buffer);
+        try {
+            return buffer.toString(StandardCharsets.ISO_8859_1);
+        } finally {
+            buffer.release();
+        }
+    }
+}
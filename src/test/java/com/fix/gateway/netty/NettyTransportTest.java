@@ -0,0 +1,34 @@
+package com.fix.gateway.netty;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NettyTransportTest {
+
+    @Test
+    void testSelectsRequestedTransportOrFallsBack() {
+        assertEquals(NettyTransport.NIO, NettyTransport.select("nio"));
+        assertEquals(Epoll.isAvailable() ? NettyTransport.EPOLL : NettyTransport.NIO, NettyTransport.select("epoll"));
+        assertTrue(NettyTransport.select("auto").isAvailable());
+        assertTrue(NettyTransport.select("io-uring").isAvailable());
+        assertThrows(IllegalArgumentException.class, () -> NettyTransport.select("kqueue"));
+    }
+
+    @Test
+    void testCreatesEventLoopsOfSelectedTransport() {
+        NettyTransport transport = NettyTransport.select("auto");
+        EventLoopGroup group = transport.newEventLoopGroup(1, "test-loop");
+        try {
+            assertEquals(transport == NettyTransport.NIO, transport.socketChannelClass() == NioSocketChannel.class);
+            assertNotEquals(NettyTransport.IO_URING, transport.forCamel());
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.fix.gateway.netty;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelinedConnectionTest {
+
+    private static final int BATCH = 3;
+
+    private final EventLoopGroup serverGroup = new NioEventLoopGroup(1);
+    private final Set<Channel> accepted = ConcurrentHashMap.newKeySet();
+    private final FixNettyConfig.Pool settings = new FixNettyConfig.Pool();
+    private Channel server;
+    private FixConnectionPools pools;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // FIX server collecting orders in batches of three and acking each batch in reverse order;
+        // orders with ClOrdID SILENT are never acked
+        server = new ServerBootstrap()
+            .group(serverGroup)
+            .channel(NioServerSocketChannel.class)
+            .childHandler(new ChannelInitializer<SocketChannel>() {
+                @Override
+                protected void initChannel(SocketChannel channel) {
+                    accepted.add(channel);
+                    List<String> batch = new ArrayList<>();
+                    channel.pipeline().addLast(new FixFrameDecoder(4096), new SimpleChannelInboundHandler<ByteBuf>() {
+                        @Override
+                        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+                            String clOrdId = AckCorrelation.CL_ORD_ID.requestKey(frame.toString(StandardCharsets.ISO_8859_1));
+                            if ("SILENT".equals(clOrdId)) {
+                                return;
+                            }
+                            batch.add(clOrdId);
+                            if (batch.size() == BATCH) {
+                                for (int i = batch.size() - 1; i >= 0; i--) {
+                                    ctx.write(Unpooled.copiedBuffer(fix("35=8\u000111=" + batch.get(i) + "\u0001"),
+                                        StandardCharsets.ISO_8859_1));
+                                }
+                                ctx.flush();
+                                batch.clear();
+                            }
+                        }
+                    });
+                }
+            })
+            .bind("127.0.0.1", 0).sync().channel();
+        pools = new FixConnectionPools(settings, 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pools.close();
+        server.close().syncUninterruptibly();
+        serverGroup.shutdownGracefully().syncUninterruptibly();
+    }
+
+    @Test
+    void testMatchesOutOfOrderAcksByClOrdId() throws Exception {
+        String uri = uri("maxInFlight=8");
+
+        List<CompletableFuture<Object>> acks = new ArrayList<>();
+        for (int i = 0; i < 2 * BATCH; i++) {
+            acks.add(pools.sendAsync(uri, order("ORD" + i)));
+        }
+
+        for (int i = 0; i < acks.size(); i++) {
+            String ack = (String) acks.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals("ORD" + i, AckCorrelation.CL_ORD_ID.replyKey(ack));
+            assertTrue(ack.contains("35=8\u0001"));
+        }
+        assertEquals(1, accepted.size());
+        assertEquals(0, pools.getPipeline(uri).getInFlight());
+    }
+
+    @Test
+    void testPlainExecutionReportAcksByDefault() throws Exception {
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+        String uri = "netty:tcp://127.0.0.1:" + port + "?sync=true&pipelined=true";
+
+        List<CompletableFuture<Object>> acks = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            acks.add(pools.sendAsync(uri, fix("35=D\u000134=" + (i + 1) + "\u000111=ORD" + i + "\u000155=AAPL\u0001")));
+        }
+
+        // The ExecutionReports carry ClOrdID but no RefSeqNum
+        for (int i = 0; i < BATCH; i++) {
+            assertEquals("ORD" + i, AckCorrelation.CL_ORD_ID.replyKey(acks.get(i).get(5, TimeUnit.SECONDS)));
+        }
+        assertEquals(AckCorrelation.CL_ORD_ID, NettyDestination.parse(uri).ackCorrelation());
+    }
+
+    @Test
+    void testWindowLimitsMessagesInFlight() throws Exception {
+        settings.setAcquireTimeoutMs(100);
+        String uri = uri("maxInFlight=2&requestTimeout=5000");
+
+        CompletableFuture<Object> first = pools.sendAsync(uri, order("ORD0"));
+        CompletableFuture<Object> second = pools.sendAsync(uri, order("ORD1"));
+        CompletableFuture<Object> third = pools.sendAsync(uri, order("ORD2"));
+
+        // The server acks only once it has three orders, so the window stays full
+        ExecutionException full = assertThrows(ExecutionException.class, () -> third.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, full.getCause());
+        assertEquals(2, pools.getPipeline(uri).getInFlight());
+        assertFalse(first.isDone());
+        assertFalse(second.isDone());
+    }
+
+    @Test
+    void testAckTimeoutFreesSlotAndKeepsConnection() throws Exception {
+        String uri = uri("maxInFlight=4&requestTimeout=200");
+
+        ExecutionException timeout = assertThrows(ExecutionException.class,
+            () -> pools.sendAsync(uri, order("SILENT")).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, timeout.getCause());
+        assertEquals(0, pools.getPipeline(uri).getInFlight());
+
+        List<CompletableFuture<Object>> acks = new ArrayList<>();
+        for (int i = 0; i < BATCH; i++) {
+            acks.add(pools.sendAsync(uri, order("ORD" + i)));
+        }
+        for (int i = 0; i < BATCH; i++) {
+            assertEquals("ORD" + i, AckCorrelation.CL_ORD_ID.replyKey(acks.get(i).get(5, TimeUnit.SECONDS)));
+        }
+        assertEquals(1, accepted.size());
+    }
+
+    @Test
+    void testRejectsMessageWithoutCorrelationKey() {
+        String uri = uri("maxInFlight=4");
+
+        ExecutionException missing = assertThrows(ExecutionException.class,
+            () -> pools.sendAsync(uri, fix("35=D\u000155=AAPL\u0001")).get(1, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, missing.getCause());
+    }
+
+    private String uri(String params) {
+        int port = ((InetSocketAddress) server.localAddress()).getPort();
+        return "netty:tcp://127.0.0.1:" + port + "?sync=true&pipelined=true&ackCorrelation=clOrdId&" + params;
+    }
+
+    private static String order(String clOrdId) {
+        return fix("35=D\u000111=" + clOrdId + "\u000155=AAPL\u0001");
+    }
+
+    private static String fix(String body) {
+        return FixFrameDecoderTest.fix(body);
+    }
+}
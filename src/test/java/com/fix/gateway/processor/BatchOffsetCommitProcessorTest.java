@@ -0,0 +1,52 @@
+package com.fix.gateway.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchOffsetCommitProcessorTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final List<String> commits = new ArrayList<>();
+
+    @Test
+    void testHandsEveryRecordToItsCommitHandle() throws Exception {
+        BatchOffsetCommitProcessor processor = new BatchOffsetCommitProcessor("R1");
+
+        processor.process(record(0, 10));
+        processor.process(record(1, 20));
+        processor.process(record(0, 11));
+
+        // Coalescing handles only mark these; the commit manager decides when to commit
+        assertEquals(List.of("0@10", "1@20", "0@11"), commits);
+    }
+
+    @Test
+    void testFailedCommitDoesNotFailTheRecord() throws Exception {
+        BatchOffsetCommitProcessor processor = new BatchOffsetCommitProcessor("R1");
+        Exchange exchange = record(0, 10);
+        exchange.getIn().setHeader(KafkaConstants.MANUAL_COMMIT, (KafkaManualCommit) () -> {
+            throw new IllegalStateException("Consumer closed");
+        });
+
+        processor.process(exchange);
+        assertNull(exchange.getException());
+    }
+
+    private Exchange record(int partition, long offset) {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, "fix.input");
+        exchange.getIn().setHeader(KafkaConstants.PARTITION, partition);
+        exchange.getIn().setHeader(KafkaConstants.OFFSET, offset);
+        exchange.getIn().setHeader(KafkaConstants.MANUAL_COMMIT, (KafkaManualCommit) () -> commits.add(partition + "@" + offset));
+        return exchange;
+    }
+}
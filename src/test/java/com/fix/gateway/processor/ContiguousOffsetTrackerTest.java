@@ -0,0 +1,48 @@
+package com.fix.gateway.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContiguousOffsetTrackerTest {
+
+    private final ContiguousOffsetTracker tracker = new ContiguousOffsetTracker();
+    private final List<Long> commits = new ArrayList<>();
+
+    @Test
+    void testCommitsOnlyContiguousPrefix() {
+        ContiguousOffsetTracker.Ticket t10 = track("t-0", 10);
+        ContiguousOffsetTracker.Ticket t11 = track("t-0", 11);
+        ContiguousOffsetTracker.Ticket t12 = track("t-0", 12);
+
+        assertEquals(-1, tracker.complete(t12));
+        assertEquals(-1, tracker.complete(t11));
+        assertEquals(-1, tracker.getCommittedOffset("t-0"));
+        assertEquals(12, tracker.complete(t10));
+
+        assertEquals(List.of(12L), commits);
+        assertEquals(12, tracker.getCommittedOffset("t-0"));
+        assertEquals(0, tracker.getOutstanding("t-0"));
+    }
+
+    @Test
+    void testPartitionsAreIndependent() {
+        ContiguousOffsetTracker.Ticket p0 = track("t-0", 5);
+        ContiguousOffsetTracker.Ticket p1a = track("t-1", 7);
+        ContiguousOffsetTracker.Ticket p1b = track("t-1", 9);
+
+        assertEquals(7, tracker.complete(p1a));
+        assertEquals(-1, tracker.getCommittedOffset("t-0"));
+        assertEquals(1, tracker.getOutstanding("t-0"));
+        assertEquals(9, tracker.complete(p1b));
+        assertEquals(5, tracker.complete(p0));
+        assertEquals(List.of(7L, 9L, 5L), commits);
+    }
+
+    private ContiguousOffsetTracker.Ticket track(String topicPartition, long offset) {
+        return tracker.track(topicPartition, offset, () -> commits.add(offset));
+    }
+}
@@ -0,0 +1,55 @@
+package com.fix.gateway.processor;
+
+import com.fix.gateway.dispatch.BulkheadDispatchProcessor;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeliveredOffsetCommitProcessorTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final Queue<Long> commits = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void testCommitsOnlyDeliveredPrefix() throws Exception {
+        DeliveredOffsetCommitProcessor processor = new DeliveredOffsetCommitProcessor("R1");
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> third = new CompletableFuture<>();
+
+        processor.process(record(10, first));
+        // Not dispatched to any destination, e.g. no destinations for its msgType
+        processor.process(record(11, null));
+        processor.process(record(12, third));
+        assertTrue(commits.isEmpty());
+
+        third.complete(null);
+        assertTrue(commits.isEmpty());
+        assertEquals(3, processor.getOutstanding("fix.input-0"));
+
+        first.complete(null);
+        assertEquals(List.of(12L), List.copyOf(commits));
+        assertEquals(0, processor.getOutstanding("fix.input-0"));
+    }
+
+    private Exchange record(long offset, CompletableFuture<Void> delivered) {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, "fix.input");
+        exchange.getIn().setHeader(KafkaConstants.PARTITION, 0);
+        exchange.getIn().setHeader(KafkaConstants.OFFSET, offset);
+        exchange.getIn().setHeader(KafkaConstants.MANUAL_COMMIT, (KafkaManualCommit) () -> commits.add(offset));
+        if (delivered != null) {
+            exchange.setProperty(BulkheadDispatchProcessor.DELIVERED, delivered);
+        }
+        return exchange;
+    }
+}
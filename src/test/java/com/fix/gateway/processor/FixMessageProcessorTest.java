@@ -0,0 +1,89 @@
+package com.fix.gateway.processor;
+
+import com.fix.gateway.model.FixMessageEnvelope;
+import com.fix.gateway.model.PayloadFormat;
+import com.fix.gateway.model.RouteType;
+import com.fix.gateway.model.RoutingConfig;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixMessageProcessorTest {
+
+    private static final String RAW_MESSAGE = "8=FIX.4.4\u000135=D\u000155=AAPL\u000110=000\u0001";
+
+    private FixMessageProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        RoutingConfig.RouteMapping route = new RoutingConfig.RouteMapping();
+        route.setRouteId("R1");
+        route.setType(RouteType.INPUT);
+        route.setSenderCompId("GTWY");
+        route.setTargetCompId("EXEC");
+        route.setDestinations(List.of("netty:tcp://localhost:9999"));
+        RoutingConfig routingConfig = new RoutingConfig();
+        routingConfig.setRoutes(new ArrayList<>(List.of(route)));
+
+        processor = new FixMessageProcessor();
+        ReflectionTestUtils.setField(processor, "routingConfig", routingConfig);
+    }
+
+    @Test
+    void testStringPayloadByDefault() throws Exception {
+        Exchange exchange = process(null);
+
+        assertEquals(RAW_MESSAGE, exchange.getIn().getBody());
+        assertEquals(List.of("netty:tcp://localhost:9999"), exchange.getIn().getHeader("destinations"));
+    }
+
+    @Test
+    void testBytesPayload() throws Exception {
+        Exchange exchange = process(PayloadFormat.BYTES);
+
+        assertArrayEquals(RAW_MESSAGE.getBytes(StandardCharsets.ISO_8859_1), (byte[]) exchange.getIn().getBody());
+        assertEquals("D", exchange.getIn().getHeader("msgType"));
+    }
+
+    @Test
+    void testBytesPayloadKeepsWireBytesAndUnicodeText() throws Exception {
+        // Read from the wire as ISO-8859-1: one char per byte, restored exactly
+        String wire = "8=FIX.4.4\u000135=D\u000158=caf\u00c3\u00a9\u000110=000\u0001";
+        assertArrayEquals(wire.getBytes(StandardCharsets.ISO_8859_1), (byte[]) process(PayloadFormat.BYTES, wire).getIn().getBody());
+
+        // Unicode text from a producer is not replaced by '?'
+        String text = "8=FIX.4.4\u000135=D\u000158=caf\u00e9 \u20ac\u000110=000\u0001";
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), (byte[]) process(PayloadFormat.BYTES, text).getIn().getBody());
+    }
+
+    private Exchange process(PayloadFormat payloadFormat) throws Exception {
+        return process(payloadFormat, RAW_MESSAGE);
+    }
+
+    private Exchange process(PayloadFormat payloadFormat, String rawMessage) throws Exception {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setBody(FixMessageEnvelope.builder()
+                .sessionId("FIX.4.4:GTWY->EXEC")
+                .senderCompId("GTWY")
+                .targetCompId("EXEC")
+                .msgType("D")
+                .rawMessage(rawMessage)
+                .build());
+        exchange.getIn().setHeader("routeId", "R1");
+        exchange.getIn().setHeader("routeType", RouteType.INPUT);
+        if (payloadFormat != null) {
+            exchange.setProperty(PayloadFormat.EXCHANGE_PROPERTY, payloadFormat);
+        }
+        processor.process(exchange);
+        return exchange;
+    }
+}
@@ -0,0 +1,110 @@
+package com.fix.gateway.processor;
+
+import com.fix.gateway.model.EnhancedRouteMapping;
+import com.fix.gateway.model.FixMessageEnvelope;
+import com.fix.gateway.model.OrderingKey;
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyOrderedDispatchProcessorTest {
+
+    private static final int RECORDS = 200;
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private KeyOrderedDispatchProcessor processor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (processor != null) {
+            processor.stop();
+        }
+        context.stop();
+    }
+
+    @Test
+    void testExtractKey() {
+        FixMessageEnvelope envelope = FixMessageEnvelope.builder()
+                .sessionId("FIX.4.4:GTWY->EXEC")
+                .rawMessage("8=FIX.4.4\u000135=D\u000111=ORD7\u000155=AAPL\u000110=000\u0001")
+                .build();
+
+        assertEquals("FIX.4.4:GTWY->EXEC", KeyOrderedDispatchProcessor.extractKey(envelope, OrderingKey.SESSION_ID));
+        assertEquals("ORD7", KeyOrderedDispatchProcessor.extractKey(envelope, OrderingKey.CL_ORD_ID));
+        assertEquals("AAPL", KeyOrderedDispatchProcessor.extractKey(envelope, OrderingKey.SYMBOL));
+        assertEquals(KeyOrderedDispatchProcessor.laneOf("AAPL", 4), KeyOrderedDispatchProcessor.laneOf("AAPL", 4));
+    }
+
+    @Test
+    void testPreservesOrderPerKeyAndCommitsCompletedPrefix() throws Exception {
+        Queue<String> processed = new ConcurrentLinkedQueue<>();
+        Map<Long, Boolean> committed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(RECORDS);
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:pipeline").process(exchange -> {
+                    FixMessageEnvelope envelope = exchange.getIn().getBody(FixMessageEnvelope.class);
+                    processed.add(envelope.getSymbol() + ":" + exchange.getIn().getHeader(KafkaConstants.OFFSET));
+                    done.countDown();
+                });
+            }
+        });
+        context.start();
+
+        EnhancedRouteMapping.OrderedProcessingConfig config = new EnhancedRouteMapping.OrderedProcessingConfig();
+        config.setOrderingKey(OrderingKey.SYMBOL);
+        config.setConcurrency(4);
+        config.setMaxInFlight(16);
+        processor = new KeyOrderedDispatchProcessor(context, "R1", "direct:pipeline", config);
+        processor.start();
+
+        List<String> symbols = List.of("AAPL", "MSFT", "IBM", "GOOG", "AMZN");
+        for (long offset = 0; offset < RECORDS; offset++) {
+            String symbol = symbols.get((int) (offset % symbols.size()));
+            long recordOffset = offset;
+            Exchange exchange = new DefaultExchange(context);
+            exchange.getIn().setBody(FixMessageEnvelope.builder()
+                    .rawMessage("8=FIX.4.4\u000135=D\u000155=" + symbol + "\u000110=000\u0001")
+                    .build());
+            exchange.getIn().setHeader(KafkaConstants.TOPIC, "fix.input");
+            exchange.getIn().setHeader(KafkaConstants.PARTITION, 0);
+            exchange.getIn().setHeader(KafkaConstants.OFFSET, offset);
+            exchange.getIn().setHeader(KafkaConstants.MANUAL_COMMIT, (KafkaManualCommit) () -> committed.put(recordOffset, true));
+            processor.process(exchange);
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        Map<String, List<Long>> offsetsBySymbol = processed.stream()
+                .map(entry -> entry.split(":"))
+                .collect(Collectors.groupingBy(parts -> parts[0],
+                        Collectors.mapping(parts -> Long.parseLong(parts[1]), Collectors.toList())));
+        for (List<Long> offsets : offsetsBySymbol.values()) {
+            assertEquals(offsets.stream().sorted().toList(), offsets);
+        }
+
+        // The last record's completion commits the whole partition
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processor.getOffsetTracker().getCommittedOffset("fix.input-0") != RECORDS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(RECORDS - 1, processor.getOffsetTracker().getCommittedOffset("fix.input-0"));
+        assertTrue(committed.containsKey((long) RECORDS - 1));
+    }
+}
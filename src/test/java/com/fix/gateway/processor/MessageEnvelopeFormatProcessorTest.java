@@ -0,0 +1,92 @@
+package com.fix.gateway.processor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fix.gateway.config.JacksonConfig;
+import com.fix.gateway.model.FixMessageEnvelope;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.camel.Exchange;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageEnvelopeFormatProcessorTest {
+
+    private static final String RAW_MESSAGE = "8=FIX.4.4\u000135=D\u000155=AAPL\u000110=000\u0001";
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MessageEnvelopeFormatProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new MessageEnvelopeFormatProcessor();
+        ReflectionTestUtils.setField(processor, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void testJsonStringAndBytes() throws Exception {
+        String json = objectMapper.writeValueAsString(FixMessageEnvelope.builder()
+                .sessionId("FIX.4.4:GTWY->EXEC")
+                .msgType("D")
+                .rawMessage(RAW_MESSAGE)
+                .createdTimestamp(Instant.parse("2025-12-22T23:00:00Z"))
+                .build());
+
+        Exchange fromString = process("  " + json);
+        Exchange fromBytes = process(json.getBytes(StandardCharsets.UTF_8));
+
+        FixMessageEnvelope envelope = fromString.getIn().getBody(FixMessageEnvelope.class);
+        assertEquals("FIX.4.4:GTWY->EXEC", envelope.getSessionId());
+        assertEquals("AAPL", envelope.getSymbol());
+        assertEquals("json", fromString.getIn().getHeader("messageFormat"));
+        assertEquals(envelope, fromBytes.getIn().getBody(FixMessageEnvelope.class));
+        assertEquals(2.0, count("json"));
+    }
+
+    @Test
+    void testStringFormat() throws Exception {
+        String input = "MessageEnvelope(messageId=1, sessionId=S1, senderCompId=GTWY, targetCompId=EXEC, msgType=D, "
+            + "clOrdID=ORD1, msgSeqNum=5, createdTimestamp=2025-12-22T23:00:00Z, rawMessage=" + RAW_MESSAGE
+            + ", messageFingerprint=abc)";
+
+        Exchange exchange = process("\n" + input);
+
+        FixMessageEnvelope envelope = exchange.getIn().getBody(FixMessageEnvelope.class);
+        assertEquals("S1", envelope.getSessionId());
+        assertEquals("ORD1", envelope.getClOrdID());
+        assertEquals("string", exchange.getIn().getHeader("messageFormat"));
+        assertEquals(1.0, count("string"));
+    }
+
+    @Test
+    void testMalformedInputFailsWithoutFallback() {
+        assertThrows(IllegalArgumentException.class, () -> process("{not json"));
+        assertThrows(IllegalArgumentException.class, () -> process("8=FIX.4.4"));
+        assertEquals(1.0, count("json"));
+        assertEquals(1.0, count("unknown"));
+    }
+
+    private Exchange process(Object body) throws Exception {
+        Exchange exchange = new DefaultExchange(new DefaultCamelContext());
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, "fix.GTWY.EXEC.input");
+        exchange.getIn().setBody(body);
+        processor.process(exchange);
+        return exchange;
+    }
+
+    private double count(String format) {
+        return meterRegistry.get(MessageEnvelopeFormatProcessor.FORMAT_METRIC)
+            .tag("topic", "fix.GTWY.EXEC.input")
+            .tag("format", format)
+            .counter()
+            .count();
+    }
+}
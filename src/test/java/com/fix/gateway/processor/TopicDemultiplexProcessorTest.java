@@ -0,0 +1,105 @@
+package com.fix.gateway.processor;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.builder.RouteBuilder;
+import org.apache.camel.component.kafka.KafkaConstants;
+import org.apache.camel.component.kafka.consumer.KafkaManualCommit;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.apache.camel.support.DefaultExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopicDemultiplexProcessorTest {
+
+    private final DefaultCamelContext context = new DefaultCamelContext();
+    private final List<String> received = new ArrayList<>();
+    private TopicDemultiplexProcessor processor;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:R1_PIPELINE").process(exchange -> received.add("R1:" + exchange.getIn().getBody()));
+                from("direct:R2_PIPELINE").process(exchange -> received.add("R2:" + exchange.getIn().getBody()));
+            }
+        });
+        context.start();
+        processor = new TopicDemultiplexProcessor(context);
+        processor.register("fix.A.B.input", "direct:R1_PIPELINE");
+        processor.register("fix.C.D.input", "direct:R2_PIPELINE");
+        processor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        processor.stop();
+        context.stop();
+    }
+
+    @Test
+    void testRoutesRecordsByTopicInOrder() throws Exception {
+        processor.process(record("fix.A.B.input", "m1", null));
+        processor.process(record("fix.C.D.input", "m2", null));
+        processor.process(record("fix.A.B.input", "m3", null));
+
+        assertEquals(List.of("R1:m1", "R2:m2", "R1:m3"), received);
+    }
+
+    @Test
+    void testCommitsRecordsOfUnroutedTopics() throws Exception {
+        AtomicInteger commits = new AtomicInteger();
+        processor.process(record("fix.X.Y.input", "m1", commits::incrementAndGet));
+
+        assertTrue(received.isEmpty());
+        assertEquals(1, commits.get());
+    }
+
+    @Test
+    void testRejectsSecondPipelineForTopic() {
+        assertThrows(IllegalArgumentException.class, () -> processor.register("fix.A.B.input", "direct:R2_PIPELINE"));
+        assertEquals("direct:R1_PIPELINE", processor.getPipeline("fix.A.B.input"));
+    }
+
+    @Test
+    void testCreatesPipelineForNewTopicOnce() throws Exception {
+        List<String> created = new ArrayList<>();
+        context.addRoutes(new RouteBuilder() {
+            @Override
+            public void configure() {
+                from("direct:R3_PIPELINE").process(exchange -> received.add("R3:" + exchange.getIn().getBody()));
+            }
+        });
+        TopicDemultiplexProcessor dynamic = new TopicDemultiplexProcessor(context, topic -> {
+            created.add(topic);
+            return topic.startsWith("fix.") ? "direct:R3_PIPELINE" : null;
+        });
+        dynamic.start();
+        try {
+            dynamic.process(record("fix.E.F.input", "m1", null));
+            dynamic.process(record("fix.E.F.input", "m2", null));
+            dynamic.process(record("other", "m3", () -> { }));
+            dynamic.process(record("other", "m4", () -> { }));
+        } finally {
+            dynamic.stop();
+        }
+
+        assertEquals(List.of("R3:m1", "R3:m2"), received);
+        assertEquals(List.of("fix.E.F.input", "other"), created);
+    }
+
+    private Exchange record(String topic, String body, KafkaManualCommit manualCommit) {
+        Exchange exchange = new DefaultExchange(context);
+        exchange.getIn().setBody(body);
+        exchange.getIn().setHeader(KafkaConstants.TOPIC, topic);
+        exchange.getIn().setHeader(KafkaConstants.MANUAL_COMMIT, manualCommit);
+        return exchange;
+    }
+}
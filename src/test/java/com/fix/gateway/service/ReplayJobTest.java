@@ -0,0 +1,110 @@
+package com.fix.gateway.service;
+
+import com.fix.gateway.kafka.RetryTierProcessor;
+import com.fix.gateway.model.ReplayRequest;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayJobTest {
+
+    private static final String TOPIC = "dead-letter-route-1-localhost-9999";
+    private static final TopicPartition P0 = new TopicPartition(TOPIC, 0);
+
+    private final MockConsumer<String, byte[]> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final Queue<String> sent = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void testReplaysRangeAtRateUpToEndOffsetAtStart() throws Exception {
+        // Offsets 0-3 exist at start; 4 is dead-lettered again during the replay
+        prepareTopic(4, 0, 1, 2, 3, 4);
+        ReplayRequest request = new ReplayRequest();
+        request.setTopic(TOPIC);
+        request.setFromOffset(1L);
+        ReplayJob job = new ReplayJob("replay-1", request, 20, 2, () -> consumer, this::send, Executors.newFixedThreadPool(2));
+
+        long start = System.nanoTime();
+        job.run();
+
+        assertEquals(ReplayJob.Status.COMPLETED, job.getStatus());
+        assertEquals(3, job.getTotal());
+        // Offset 2 names no destination
+        assertEquals(List.of("route-1_DEST_0:1", "route-1_DEST_0:3"), List.copyOf(sent));
+        assertEquals(1, job.getReplayed());
+        assertEquals(1, job.getFailed());
+        assertEquals(1, job.getSkipped());
+        // Two sends at 20 msgs/s are 50ms apart
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(consumer.closed());
+    }
+
+    @Test
+    void testPauseHoldsSendsUntilResumed() throws Exception {
+        prepareTopic(2, 0, 1);
+        ReplayRequest request = new ReplayRequest();
+        request.setTopic(TOPIC);
+        request.setDestination("route-2_DEST_1");
+        ReplayJob job = new ReplayJob("replay-2", request, 1000, 1, () -> consumer, this::send, Executors.newSingleThreadExecutor());
+        job.pause();
+        Thread replay = new Thread(job);
+        replay.start();
+
+        await(() -> job.getTotal() == 2);
+        Thread.sleep(200);
+        assertEquals(ReplayJob.Status.PAUSED, job.getStatus());
+        assertTrue(sent.isEmpty());
+
+        job.resume();
+        replay.join(5000);
+        assertEquals(ReplayJob.Status.COMPLETED, job.getStatus());
+        assertEquals(List.of("route-2_DEST_1:0", "route-2_DEST_1:1"), List.copyOf(sent));
+        assertEquals(0, job.getFailed());
+    }
+
+    private void prepareTopic(long endOffset, long... offsets) {
+        Node node = new Node(0, "localhost", 9092);
+        consumer.updatePartitions(TOPIC, List.of(new PartitionInfo(TOPIC, 0, node, new Node[]{node}, new Node[]{node})));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L));
+        consumer.updateEndOffsets(Map.of(P0, endOffset));
+        consumer.schedulePollTask(() -> {
+            for (long offset : offsets) {
+                ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(TOPIC, 0, offset, null,
+                    ("8=FIX.4.4|35=D|11=" + offset + "|").getBytes(StandardCharsets.UTF_8));
+                if (offset != 2) {
+                    record.headers().add(RetryTierProcessor.DESTINATION, "route-1_DEST_0".getBytes(StandardCharsets.UTF_8));
+                }
+                consumer.addRecord(record);
+            }
+        });
+    }
+
+    private void send(String destination, ConsumerRecord<String, byte[]> record) {
+        sent.add(destination + ":" + record.offset());
+        if (record.offset() == 3) {
+            throw new IllegalStateException("Connection refused");
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
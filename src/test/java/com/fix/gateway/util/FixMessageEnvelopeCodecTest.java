@@ -0,0 +1,107 @@
+package com.fix.gateway.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fix.gateway.config.JacksonConfig;
+import com.fix.gateway.model.FixMessageEnvelope;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixMessageEnvelopeCodecTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    private static final FixMessageEnvelope FULL = FixMessageEnvelope.builder()
+            .sessionId("FIX.4.4:GTWY->EXEC")
+            .senderCompId("GTWY")
+            .targetCompId("EXEC")
+            .msgType("D")
+            .clOrdID("ORD-1")
+            .symbol("AAPL")
+            .createdTimestamp(Instant.parse("2025-12-22T23:00:00.120Z"))
+            .rawMessage("8=FIX.4.4\u000135=D\u000158=\"quoted\" café \\ €\u000110=000\u0001")
+            .errorMessage("Connection refused")
+            .errorType("java.net.ConnectException")
+            .errorTimestamp(Instant.parse("2025-12-22T23:00:01.123456789Z"))
+            .errorRouteId("FIX4.4:BANZ->GTWY_DEST_0")
+            .build();
+
+    private static final FixMessageEnvelope SPARSE = FixMessageEnvelope.builder()
+            .sessionId("S1")
+            .createdTimestamp(Instant.parse("2025-12-22T23:00:00Z"))
+            .build();
+
+    @Test
+    void testWriteMatchesObjectMapperOutput() throws Exception {
+        for (FixMessageEnvelope envelope : List.of(FULL, SPARSE)) {
+            byte[] expected = objectMapper.writeValueAsBytes(envelope);
+
+            assertArrayEquals(expected, FixMessageEnvelopeCodec.write(envelope),
+                () -> new String(expected, StandardCharsets.UTF_8));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FixMessageEnvelopeCodec.write(envelope, out);
+            assertArrayEquals(expected, out.toByteArray());
+        }
+    }
+
+    @Test
+    void testStreamWriteReusesBufferAcrossSizes() throws Exception {
+        FixMessageEnvelope large = FixMessageEnvelope.builder()
+            .sessionId("S1")
+            .createdTimestamp(Instant.parse("2025-12-22T23:00:00Z"))
+            .rawMessage("8=FIX.4.4\u000158=" + "x".repeat(5000) + "\u000110=000\u0001")
+            .build();
+        // Larger than the initial segment, then small again in the grown segment
+        for (FixMessageEnvelope envelope : List.of(SPARSE, large, SPARSE, large)) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            FixMessageEnvelopeCodec.write(envelope, out);
+            assertArrayEquals(objectMapper.writeValueAsBytes(envelope), out.toByteArray());
+        }
+    }
+
+    @Test
+    void testReadMatchesObjectMapperInput() throws Exception {
+        for (FixMessageEnvelope envelope : List.of(FULL, SPARSE)) {
+            byte[] json = objectMapper.writeValueAsBytes(envelope);
+            FixMessageEnvelope expected = objectMapper.readValue(json, FixMessageEnvelope.class);
+
+            assertEquals(expected, FixMessageEnvelopeCodec.read(json));
+            assertEquals(expected, FixMessageEnvelopeCodec.read(new String(json, StandardCharsets.UTF_8)));
+            assertEquals(expected, FixMessageEnvelopeCodec.read(new ByteArrayInputStream(json)));
+        }
+    }
+
+    @Test
+    void testReadIgnoresUnknownFieldsAndAcceptsEpochSeconds() throws Exception {
+        String json = "{\"sessionId\":\"S1\",\"symbol\":\"IBM\",\"parsedTags\":{\"55\":\"IBM\"},"
+            + "\"extra\":[1,{\"a\":2}],\"createdTimestamp\":1700000000.5,\"errorTimestamp\":1700000000}";
+
+        FixMessageEnvelope envelope = FixMessageEnvelopeCodec.read(json);
+
+        assertEquals(objectMapper.readValue(json, FixMessageEnvelope.class), envelope);
+        assertEquals(Instant.parse("2023-11-14T22:13:20.500Z"), envelope.getCreatedTimestamp());
+        assertNull(envelope.getSymbol());
+    }
+
+    @Test
+    void testAbsentTimestampKeepsDefault() throws Exception {
+        FixMessageEnvelope envelope = FixMessageEnvelopeCodec.read("{\"sessionId\":\"S1\"}");
+
+        assertNotNull(envelope.getCreatedTimestamp());
+        assertNull(FixMessageEnvelopeCodec.read("{\"createdTimestamp\":null}").getCreatedTimestamp());
+    }
+
+    @Test
+    void testMalformedJsonIsRejected() {
+        assertThrows(Exception.class, () -> FixMessageEnvelopeCodec.read("[1,2]"));
+        assertThrows(Exception.class, () -> FixMessageEnvelopeCodec.read("{\"sessionId\":\"S1\""));
+        assertThrows(Exception.class, () -> FixMessageEnvelopeCodec.read("{\"createdTimestamp\":\"later\"}"));
+    }
+}
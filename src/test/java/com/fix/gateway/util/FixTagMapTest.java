@@ -0,0 +1,81 @@
+package com.fix.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixTagMapTest {
+
+    @Test
+    void testDenseAndSparseTags() {
+        FixTagMap map = new FixTagMap();
+        map.put(35, "D");
+        map.put(448, "PARTY");
+        map.put(5001, "CUSTOM");
+
+        assertEquals(3, map.size());
+        assertEquals("D", map.get(35));
+        assertEquals("PARTY", map.get(448));
+        assertEquals("CUSTOM", map.get(5001));
+        assertNull(map.get(55));
+        assertNull(map.get(5002));
+        assertEquals("D", map.put(35, "8"));
+        assertEquals("8", map.get(35));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    void testSparseTableGrows() {
+        FixTagMap map = new FixTagMap();
+        for (int tag = FixTagMap.DENSE_LIMIT; tag < FixTagMap.DENSE_LIMIT + 500; tag++) {
+            map.put(tag, Integer.toString(tag));
+        }
+
+        assertEquals(500, map.size());
+        for (int tag = FixTagMap.DENSE_LIMIT; tag < FixTagMap.DENSE_LIMIT + 500; tag++) {
+            assertEquals(Integer.toString(tag), map.get(tag));
+        }
+    }
+
+    @Test
+    void testClearAndThreadReuse() {
+        FixTagMap map = FixTagMap.forCurrentThread();
+        map.put(55, "AAPL");
+        map.put(9000, "X");
+
+        FixTagMap reused = FixTagMap.forCurrentThread();
+
+        assertSame(map, reused);
+        assertTrue(reused.isEmpty());
+        assertNull(reused.get(55));
+        assertNull(reused.get(9000));
+    }
+
+    @Test
+    void testMapViewMatchesScannerMap() {
+        String message = "8=FIX.4.4\u000135=D\u000155=AAPL\u00015001=CUSTOM\u000110=000\u0001";
+        FixTagScanner scanner = new FixTagScanner().scan(message);
+
+        FixTagMap map = scanner.copyTo(new FixTagMap());
+
+        assertEquals(scanner.toMap(), map.asMap());
+        assertEquals("AAPL", map.asMap().get(55));
+        assertThrows(UnsupportedOperationException.class, () -> map.asMap().put(1, "x"));
+
+        Map<Integer, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(scanner.toMap(), visited);
+    }
+
+    @Test
+    void testRejectsInvalidTags() {
+        FixTagMap map = new FixTagMap();
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> map.put(55, null));
+        assertNull(map.get(-1));
+    }
+}
@@ -0,0 +1,92 @@
+package com.fix.gateway.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixTagScannerTest {
+
+    private static final String MESSAGE =
+        "8=FIX.4.4\u00019=100\u000135=D\u000134=42\u000149=GTWY\u000156=EXEC\u000155=AAPL\u000111=ORDER123\u000110=000\u0001";
+
+    @Test
+    void testScanStringReadsOnlyRequestedTags() {
+        FixTagScanner scanner = new FixTagScanner().scan(MESSAGE);
+
+        assertEquals(9, scanner.size());
+        assertEquals(8, scanner.tagAt(0));
+        assertEquals("AAPL", scanner.getValue(55));
+        assertEquals("ORDER123", scanner.getValue(11));
+        assertEquals(42, scanner.getInt(34, -1));
+        assertNull(scanner.getValue(44));
+        assertFalse(scanner.contains(44));
+    }
+
+    @Test
+    void testScanBytesMatchesStringScan() {
+        byte[] bytes = ("XX" + MESSAGE).getBytes(StandardCharsets.ISO_8859_1);
+
+        Map<Integer, String> fromBytes = new FixTagScanner().scan(bytes, 2, bytes.length - 2).toMap();
+        Map<Integer, String> fromString = new FixTagScanner().scan(MESSAGE).toMap();
+
+        assertEquals(fromString, fromBytes);
+        assertEquals("FIX.4.4", fromBytes.get(8));
+    }
+
+    @Test
+    void testScanDirectByteBufferLeavesPositionUntouched() {
+        byte[] bytes = MESSAGE.getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        FixTagScanner scanner = new FixTagScanner().scan(direct);
+
+        assertEquals("EXEC", scanner.getValue(56));
+        assertEquals(0, direct.position());
+    }
+
+    @Test
+    void testMalformedFieldsAreSkipped() {
+        String malformed = "8=FIX.4.4\u0001garbage\u0001=novalue\u0001abc=1\u000135=8\u000155=MSFT";
+
+        Map<Integer, String> tags = new FixTagScanner().scan(malformed).toMap();
+
+        assertEquals(3, tags.size());
+        assertEquals("8", tags.get(35));
+        // Trailing field without SOH is still read
+        assertEquals("MSFT", tags.get(55));
+    }
+
+    @Test
+    void testRepeatedTagLastOccurrenceWins() {
+        String repeating = "35=D\u0001448=FIRST\u0001448=SECOND\u0001";
+
+        FixTagScanner scanner = new FixTagScanner().scan(repeating);
+
+        assertEquals("SECOND", scanner.getValue(448));
+        assertEquals("SECOND", scanner.toMap().get(448));
+    }
+
+    @Test
+    void testReuseGrowsAndResets() {
+        StringBuilder large = new StringBuilder();
+        for (int i = 1; i <= 200; i++) {
+            large.append(1000 + i).append('=').append(i).append(FixMessageUtils.SOH);
+        }
+
+        FixTagScanner scanner = FixTagScanner.forCurrentThread();
+        assertEquals(200, scanner.scan(large).size());
+        assertEquals("200", scanner.getValue(1200));
+
+        scanner.scan(MESSAGE);
+        assertEquals(9, scanner.size());
+        assertNull(scanner.getValue(1200));
+
+        scanner.reset();
+        assertEquals(0, scanner.size());
+    }
+}
@@ -112,4 +112,20 @@ class MvelExpressionEvaluatorTest {
         int partitionNum = ((Number) result).intValue();
         assertEquals(1, partitionNum);
     }
-}
\ No newline at end of file
+    
+    @Test
+    void testTagVariablesResolvedFromEnvelopeTagMap() {
+        FixMessageEnvelope envelope = FixMessageEnvelope.builder()
+                .msgType("D")
+                .rawMessage("35=D\u000155=AAPL\u00015001=DESK7\u0001")
+                .build();
+        
+        assertEquals("AAPL", MvelExpressionEvaluator.evaluateExpression("Tag55", envelope, null));
+        assertEquals("DESK7", MvelExpressionEvaluator.evaluateExpression("Tag5001", envelope, null));
+        assertEquals("DESK7", MvelExpressionEvaluator.evaluateExpression("parsedTags[5001]", envelope, null));
+        assertEquals("AAPL-D", MvelExpressionEvaluator.evaluateExpression("key = Symbol + '-'; key + MsgType", envelope, null));
+        
+        // Absent tags are not resolvable, as before
+        assertThrows(RuntimeException.class, () -> MvelExpressionEvaluator.evaluateExpression("Price", envelope, null));
+    }
+}
@@ -0,0 +1,72 @@
+package com.fix.gateway.util;
+
+import com.fix.gateway.model.FixMessageEnvelope;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringMessageEnvelopeParserTest {
+
+    private static final String RAW_MESSAGE = "8=FIX.4.4\u000135=D\u000155=AAPL\u000110=000\u0001";
+
+    @Test
+    void testParseAllFields() {
+        FixMessageEnvelope envelope = StringMessageEnvelopeParser.parse(envelope(RAW_MESSAGE));
+
+        assertEquals("FIX.4.4:GTWY->EXEC", envelope.getSessionId());
+        assertEquals("GTWY", envelope.getSenderCompId());
+        assertEquals("EXEC", envelope.getTargetCompId());
+        assertEquals("D", envelope.getMsgType());
+        assertEquals("ORD-1", envelope.getClOrdID());
+        assertEquals(Instant.parse("2025-12-22T23:00:00Z"), envelope.getCreatedTimestamp());
+        assertEquals(RAW_MESSAGE, envelope.getRawMessage());
+    }
+
+    @Test
+    void testRawMessageWithCommasAndTrailingFields() {
+        String raw = "8=FIX.4.4\u000135=D\u000158=buy, then hold, messageFingerprint\u000110=000\u0001";
+        String input = envelope(raw).replace("abc123)", "abc123, partition=3, offset=42)");
+
+        FixMessageEnvelope envelope = StringMessageEnvelopeParser.parse(input);
+
+        assertEquals(raw, envelope.getRawMessage());
+        assertEquals("ORD-1", envelope.getClOrdID());
+    }
+
+    @Test
+    void testInvalidTimestampFallsBackToNow() {
+        Instant before = Instant.now();
+
+        FixMessageEnvelope envelope = StringMessageEnvelopeParser.parse(
+            envelope(RAW_MESSAGE).replace("2025-12-22T23:00:00Z", "yesterday"));
+
+        assertFalse(envelope.getCreatedTimestamp().isBefore(before));
+    }
+
+    @Test
+    void testMalformedInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> StringMessageEnvelopeParser.parse("  "));
+        assertThrows(IllegalArgumentException.class, () -> StringMessageEnvelopeParser.parse("{\"sessionId\":\"S\"}"));
+        assertThrows(IllegalArgumentException.class,
+            () -> StringMessageEnvelopeParser.parse(envelope(RAW_MESSAGE).replace("msgType=D", "msgType=")));
+        assertThrows(IllegalArgumentException.class,
+            () -> StringMessageEnvelopeParser.parse(envelope(RAW_MESSAGE).replace(", messageFingerprint=abc123", "")));
+        assertThrows(IllegalArgumentException.class,
+            () -> StringMessageEnvelopeParser.parse(envelope(RAW_MESSAGE).replace("clOrdID", "clientOrderId")));
+    }
+
+    @Test
+    void testIsStringFormat() {
+        assertTrue(StringMessageEnvelopeParser.isStringFormat(" \nMessageEnvelope(messageId=1"));
+        assertFalse(StringMessageEnvelopeParser.isStringFormat("{\"rawMessage\":\"MessageEnvelope(\"}"));
+        assertFalse(StringMessageEnvelopeParser.isStringFormat(null));
+    }
+
+    static String envelope(String rawMessage) {
+        return "MessageEnvelope(messageId=42, sessionId=FIX.4.4:GTWY->EXEC, senderCompId=GTWY, targetCompId=EXEC, "
+            + "msgType=D, clOrdID=ORD-1, msgSeqNum=7, createdTimestamp=2025-12-22T23:00:00Z, rawMessage="
+            + rawMessage + ", messageFingerprint=abc123)";
+    }
+}